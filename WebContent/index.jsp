@@ -40,6 +40,22 @@
 					<input name="query" size="100">	
 					<p/>
 
+					<b>Words in cloud (blank for the default) :</b><br>
+					<input name="words" size="4">
+					<p/>
+
+					<b>Cloud format :</b><br>
+					<select name="format">
+						<option value="png">PNG</option>
+						<option value="svg">SVG</option>
+						<option value="json">JSON (word positions only)</option>
+					</select>
+					<p/>
+
+					<input type="checkbox" name="stream" value="on"> <b>Show words as they are found</b>
+					<input type="checkbox" name="layouts" value="on"> <b>and lay them out</b>
+					<p/>
+
 					<center><input type="submit" value="Search & Visualise!"></center>
 				</fieldset>							
 			</form>	
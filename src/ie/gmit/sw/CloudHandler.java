@@ -0,0 +1,124 @@
+package ie.gmit.sw;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import ie.gmit.sw.result.CloudResult;
+import ie.gmit.sw.result.LayoutFormat;
+import ie.gmit.sw.result.PngWriter;
+import ie.gmit.sw.result.ResultStore;
+
+/**
+ * @author Kevin Niland
+ * @category Web Searcher
+ * @version 1.0
+ *
+ *          CloudHandler
+ *
+ *          Serves the clouds ServiceHandler lays out, at /cloud/{id}.png,
+ *          /cloud/{id}.svg and /cloud/{id}.json. SVG and JSON are written
+ *          straight to the response from the layout. The PNG is drawn and
+ *          encoded once, the first time it is asked for, and CloudResult
+ *          keeps the bytes, so a cloud served again, or from ResultCache,
+ *          isn't drawn again. A cloud never changes once laid out, so its ID
+ *          is its ETag and browsers are told to keep it, and a browser that
+ *          already has it gets a 304 without it being written again
+ */
+public class CloudHandler extends HttpServlet {
+	private static final long serialVersionUID = 1L;
+	private ResultStore resultStore = ResultStore.getInstance();
+	private int deflateLevel, maxAge;
+
+	/**
+	 * Reads the PNG settings from the <context-param>s in web.xml
+	 */
+	public void init() throws ServletException {
+		ServletContext servletContext = getServletContext();
+
+		deflateLevel = intParameter(servletContext, "CLOUD_PNG_DEFLATE_LEVEL", PngWriter.DEFAULT_LEVEL);
+		maxAge = intParameter(servletContext, "CLOUD_IMAGE_MAX_AGE", 3600);
+	}
+
+	public void doGet(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse)
+			throws ServletException, IOException {
+		String path = httpServletRequest.getPathInfo();
+		int dot = path == null ? -1 : path.lastIndexOf('.');
+		LayoutFormat format = dot < 0 ? null : LayoutFormat.forName(path.substring(dot + 1));
+		CloudResult result = format == null ? null : resultStore.get(path.substring(1, dot));
+
+		if (result == null) {
+			httpServletResponse.sendError(HttpServletResponse.SC_NOT_FOUND, "No such cloud, or it has expired");
+
+			return;
+		}
+
+		// The same cloud in another format, or encoded at another level, is different bytes
+		String etag = "\"" + result.getId() + "-" + format.getExtension()
+				+ (format == LayoutFormat.PNG ? "-" + deflateLevel : "") + "\"";
+
+		httpServletResponse.setHeader("ETag", etag);
+		httpServletResponse.setHeader("Cache-Control", "private, max-age=" + maxAge + ", immutable");
+		httpServletResponse.setDateHeader("Last-Modified", result.getCreated());
+
+		if (matches(httpServletRequest.getHeader("If-None-Match"), etag)) {
+			httpServletResponse.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+
+			return;
+		}
+
+		httpServletResponse.setContentType(format.getContentType());
+
+		OutputStream outputStream = httpServletResponse.getOutputStream();
+
+		// A PNG is drawn and encoded once and kept with the cloud, as a cached cloud may be viewed many times
+		if (format == LayoutFormat.PNG) {
+			byte[] png = result.png(deflateLevel);
+
+			httpServletResponse.setContentLength(png.length);
+			outputStream.write(png);
+		} else {
+			format.write(result.getLayout(), outputStream, deflateLevel);
+		}
+
+		outputStream.flush();
+	}
+
+	/**
+	 * @return true if an If-None-Match header lists the ETag, or is *
+	 */
+	private static boolean matches(String ifNoneMatch, String etag) {
+		if (ifNoneMatch == null) {
+			return false;
+		}
+
+		for (String tag : ifNoneMatch.split(",")) {
+			tag = tag.trim();
+
+			if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Reads an integer from a <context-param> in web.xml
+	 * 
+	 * @param servletContext - Application context
+	 * @param name           - Name of the context-param
+	 * @param defaultValue   - Value to use if the context-param isn't set
+	 * @return value
+	 */
+	private int intParameter(ServletContext servletContext, String name, int defaultValue) {
+		String value = servletContext.getInitParameter(name);
+
+		return value == null ? defaultValue : Integer.parseInt(value.trim());
+	}
+}
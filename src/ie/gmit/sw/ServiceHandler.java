@@ -1,10 +1,10 @@
 package ie.gmit.sw;
 
 import java.io.*;
+import java.net.URLEncoder;
 import javax.servlet.*;
 import javax.servlet.http.*;
 
-import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
@@ -16,15 +16,38 @@ import javax.imageio.ImageIO;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.Comparator;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
+import ie.gmit.sw.ai.cloud.CollisionMode;
+import ie.gmit.sw.ai.cloud.FontCache;
 import ie.gmit.sw.ai.cloud.LogarithmicSpiralPlacer;
 import ie.gmit.sw.ai.cloud.WeightedFont;
 import ie.gmit.sw.ai.cloud.WordFrequency;
+import ie.gmit.sw.ai.encog.NeuralScorer;
+import ie.gmit.sw.ai.encog.TrainingData;
+import ie.gmit.sw.ai.fuzzy.FuzzyScorer;
 import ie.gmit.sw.database.RealDatabase;
+import ie.gmit.sw.database.counter.WordCounting;
+import ie.gmit.sw.database.interfaces.CountListener;
+import ie.gmit.sw.fetcher.AsyncFetcher;
+import ie.gmit.sw.fetcher.PageCache;
 import ie.gmit.sw.parser.NodeParser;
+import ie.gmit.sw.parser.frontier.FrontierStrategy;
+import ie.gmit.sw.parser.interfaces.VisitedSet;
+import ie.gmit.sw.parser.visited.BloomVisitedSet;
+import ie.gmit.sw.parser.visited.WindowedVisitedSet;
+import ie.gmit.sw.result.CloudResult;
+import ie.gmit.sw.result.EventStream;
+import ie.gmit.sw.result.LayoutFormat;
+import ie.gmit.sw.result.ProgressStream;
+import ie.gmit.sw.result.ResultCache;
+import ie.gmit.sw.result.ResultStore;
+import ie.gmit.sw.session.CrawlSession;
 
 /**
  * @author John Healy, Kevin Niland
@@ -35,9 +58,20 @@ public class ServiceHandler extends HttpServlet {
 	private RealDatabase realDatabase = RealDatabase.getInstance();
 	private BufferedImage bufferedImage = null;
 	private ExecutorService executorService = Executors.newFixedThreadPool(20);
-	private File ignoreWordsFile, jfuzzyFile;
+	private File ignoreWordsFile, jfuzzyFile, encogFile, encogTrainingFile;
 	private static final long serialVersionUID = 1L;
-	private String browser, chosenBrowser, option, query;
+	private int fetchMaxInFlight, fetchMaxPerHost, fetchTimeout, visitedExpected, pageMaxBytes, pageMaxTokens;
+	private int cloudWords, counterCapacity, cloudStepBudget, streamInterval;
+	private boolean streaming;
+	private double visitedFalsePositiveRate;
+	private FrontierStrategy frontierStrategy;
+	private CollisionMode collisionMode;
+	private VisitedSet recentlyDownloaded;
+	private ForkJoinPool layoutPool;
+	private PageCache pageCache;
+	private ResultCache resultCache;
+	private ExecutorService resultRefresher;
+	private ScheduledExecutorService streamScheduler;
 
 	/**
 	 * Gets a handle on the application context, reads values from context-param,
@@ -60,10 +94,127 @@ public class ServiceHandler extends HttpServlet {
 		jfuzzyFile = new File(getServletContext().getRealPath(File.separator),
 				servletContext.getInitParameter("JFUZZY_FILE"));
 
-		// Pass the ignoreWords file to the word database
+		// Reads the value from the <context-param> in web.xml
+		encogFile = new File(getServletContext().getRealPath(File.separator),
+				servletContext.getInitParameter("ENCOG_MODEL_FILE"));
+		encogTrainingFile = new File(getServletContext().getRealPath(File.separator),
+				servletContext.getInitParameter("ENCOG_TRAINING_FILE"));
+
+		// Reads the limits for fetching pages from the <context-param>s in web.xml
+		fetchMaxInFlight = intParameter(servletContext, "FETCH_MAX_IN_FLIGHT", 16);
+		fetchMaxPerHost = intParameter(servletContext, "FETCH_MAX_PER_HOST", 2);
+		fetchTimeout = intParameter(servletContext, "FETCH_TIMEOUT", 10000);
+
+		// Reads the search strategy from the <context-param> in web.xml
+		String frontier = servletContext.getInitParameter("FRONTIER");
+		frontierStrategy = frontier == null ? FrontierStrategy.BEST_FIRST
+				: FrontierStrategy.valueOf(frontier.trim().toUpperCase());
+
+		// Reads the size of each search's visited filter from the <context-param>s in web.xml
+		visitedExpected = intParameter(servletContext, "VISITED_EXPECTED_URLS", 10000);
+		visitedFalsePositiveRate = doubleParameter(servletContext, "VISITED_FALSE_POSITIVE_RATE", 0.01);
+
+		/**
+		 * Reads how pages are read from the <context-param>s in web.xml. STREAMING
+		 * reads each page as it is downloaded, up to PAGE_MAX_BYTES bytes and
+		 * PAGE_MAX_TOKENS words, instead of parsing it with jsoup
+		 */
+		streaming = "STREAMING".equalsIgnoreCase(servletContext.getInitParameter("EXTRACTION"));
+		pageMaxBytes = intParameter(servletContext, "PAGE_MAX_BYTES", 2 * 1024 * 1024);
+		pageMaxTokens = intParameter(servletContext, "PAGE_MAX_TOKENS", 50000);
+
+		/**
+		 * Reads how words are counted from the <context-param>s in web.xml.
+		 * SPACE_SAVING keeps only the WORD_COUNTER_CAPACITY most frequent words of a
+		 * search, rather than every word, and OFF_HEAP keeps every word outside the
+		 * heap. CLOUD_WORDS is the number of words drawn unless a search asks for a
+		 * different number
+		 */
+		String wordCounting = servletContext.getInitParameter("WORD_COUNTING");
+		counterCapacity = intParameter(servletContext, "WORD_COUNTER_CAPACITY", 1024);
+		cloudWords = intParameter(servletContext, "CLOUD_WORDS", 32);
+
+		realDatabase.setWordCounting(wordCounting == null ? WordCounting.EXACT
+				: WordCounting.valueOf(wordCounting.trim().toUpperCase()), counterCapacity);
+
+		// Reads how words in the cloud are kept apart from the <context-param> in web.xml
+		String collision = servletContext.getInitParameter("CLOUD_COLLISION");
+		collisionMode = collision == null ? CollisionMode.RECTANGLE
+				: CollisionMode.valueOf(collision.trim().toUpperCase());
+		cloudStepBudget = intParameter(servletContext, "CLOUD_STEP_BUDGET", 0);
+
+		// Threads shared by every search to check spiral steps in parallel. 0 checks them one at a time
+		int layoutThreads = intParameter(servletContext, "CLOUD_LAYOUT_THREADS", 0);
+		layoutPool = layoutThreads > 0 ? new ForkJoinPool(layoutThreads) : null;
+
+		// Most words kept measured at each size for every cloud drawn
+		FontCache.getInstance().setCapacity(intParameter(servletContext, "CLOUD_TEXT_CACHE_SIZE", 10000));
+
+		// Most clouds kept for CloudHandler to serve
+		ResultStore.getInstance().setCapacity(intParameter(servletContext, "CLOUD_RESULTS", 256));
+
+		// Reads the result cache settings from the <context-param>s in web.xml. 0 MB turns it off
+		int resultCacheMaxMb = intParameter(servletContext, "RESULT_CACHE_MAX_MB", 64);
+
+		if (resultCacheMaxMb > 0) {
+			resultRefresher = Executors.newSingleThreadExecutor();
+			resultCache = new ResultCache(resultCacheMaxMb * 1024L * 1024L,
+					intParameter(servletContext, "RESULT_CACHE_TTL", 600000),
+					intParameter(servletContext, "RESULT_CACHE_STALE_FOR", 0), resultRefresher);
+		}
+
+		/**
+		 * Reads the least milliseconds between two updates of a streamed search from
+		 * the <context-param> in web.xml. The updates of every streamed search are
+		 * sent from a few shared threads
+		 */
+		streamInterval = intParameter(servletContext, "CLOUD_STREAM_INTERVAL", 250);
+		streamScheduler = Executors.newScheduledThreadPool(4);
+
+		// Reads the page cache settings from the <context-param>s in web.xml
+		String pageCacheDir = servletContext.getInitParameter("PAGE_CACHE_DIR");
+
+		if (pageCacheDir != null && !pageCacheDir.trim().isEmpty()) {
+			try {
+				pageCache = new PageCache(new File(pageCacheDir.trim()),
+						intParameter(servletContext, "PAGE_CACHE_MAX_MB", 256) * 1024L * 1024L,
+						intParameter(servletContext, "PAGE_CACHE_FRESH_FOR", 60000));
+			} catch (IOException ioException) {
+				// Carry on without a cache
+				ioException.printStackTrace();
+			}
+		}
+
+		/**
+		 * If VISITED_WINDOW is set, pages downloaded by one search are read from the
+		 * page cache by any search in the next window, without asking the server
+		 * again. They are still counted, so only works with the cache
+		 */
+		long visitedWindow = intParameter(servletContext, "VISITED_WINDOW", 0);
+
+		if (visitedWindow > 0 && pageCache != null) {
+			recentlyDownloaded = new WindowedVisitedSet(visitedExpected, visitedFalsePositiveRate, visitedWindow);
+		}
+
+		// Pass the ignoreWords file to the word database and compile the jFuzzy file
 		try {
 			realDatabase.ignoreFromFile(ignoreWordsFile);
+			FuzzyScorer.getInstance().load(jfuzzyFile);
+
+			// Score pages from a lookup table sampled from the FIS, if asked to in web.xml
+			if ("COMPILED".equalsIgnoreCase(servletContext.getInitParameter("FUZZY_MODE"))) {
+				FuzzyScorer.getInstance().enableLookupTable(doubleParameter(servletContext, "FUZZY_GRID_STEP", 0.5),
+						doubleParameter(servletContext, "FUZZY_MAX_ERROR", 0.25));
+			}
+		} catch (IOException ioException) {
+			ioException.printStackTrace();
+		}
+
+		// Load the network trained offline by ie.gmit.sw.ai.encog.Encog
+		try {
+			NeuralScorer.getInstance().load(encogFile, TrainingData.load(encogTrainingFile));
 		} catch (IOException ioException) {
+			// Carry on without neural scoring
 			ioException.printStackTrace();
 		}
 	}
@@ -73,17 +224,117 @@ public class ServiceHandler extends HttpServlet {
 	 */
 	public void doGet(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse)
 			throws ServletException, IOException {
+		/**
+		 * Initialize some request variables with the submitted form info. These are
+		 * local to this method and thread safe
+		 */
+		String option = httpServletRequest.getParameter("cmbOptions");
+		String query = httpServletRequest.getParameter("query");
+		int words = cloudWords;
+		LayoutFormat format = LayoutFormat.forName(httpServletRequest.getParameter("format"));
+
+		// PNG unless the search asks for SVG or JSON
+		if (format == null) {
+			format = LayoutFormat.PNG;
+		}
+
+		// Number of words in the cloud, if the search asks for one
+		try {
+			String wordsParameter = httpServletRequest.getParameter("words");
+
+			if (wordsParameter != null && !wordsParameter.trim().isEmpty()) {
+				words = Math.max(1, Math.min(counterCapacity, Integer.parseInt(wordsParameter.trim())));
+			}
+		} catch (NumberFormatException numberFormatException) {
+			// Keep the default
+		}
+
+		// Make sure query isn't null - would this be the correct way of going about it??
+		assert query != null;
+
+		String stream = httpServletRequest.getParameter("stream");
+
+		// The words found so far are sent as the search runs, to the page written below
+		if ("events".equals(stream)) {
+			streamSearch(option, query, words, format, "on".equals(httpServletRequest.getParameter("layouts")),
+					httpServletResponse);
+
+			return;
+		}
+
+		// A page that shows the words as they are found, rather than waiting for the whole crawl
+		if ("on".equals(stream) && format != LayoutFormat.JSON) {
+			httpServletResponse.setContentType("text/html");
+
+			PrintWriter printWriter = httpServletResponse.getWriter();
+
+			printHeader(printWriter, option);
+			printProgress(printWriter, "doProcess?cmbOptions=" + URLEncoder.encode(option, "UTF-8") + "&query="
+					+ URLEncoder.encode(query, "UTF-8") + "&words=" + words + "&format=" + format.getExtension()
+					+ "&stream=events"
+					+ ("on".equals(httpServletRequest.getParameter("layouts")) ? "&layouts=on" : ""));
+			printWriter.print("<a href=\"./\">Return to Start Page</a>");
+			printWriter.print("</body>");
+			printWriter.print("</html>");
+
+			return;
+		}
+
+		// A repeated search is answered from the cache, without crawling again
+		int cloudSize = words;
+		CloudResult result = resultCache == null ? search(option, query, cloudSize, null)
+				: resultCache.get(ResultCache.key(option, query, cloudSize),
+						() -> search(option, query, cloudSize, null));
+
+		// The page links to the cloud by its ID, which may have been a while ago for a cached cloud
+		ResultStore.getInstance().keep(result);
+
+		// JSON is sent on its own, for dashboards that draw the words themselves
+		if (format == LayoutFormat.JSON) {
+			httpServletResponse.setContentType(format.getContentType());
+			format.write(result.getLayout(), httpServletResponse.getOutputStream(), 0);
+
+			return;
+		}
+
 		httpServletResponse.setContentType("text/html"); // Output the MIME type
 
 		// Write out text. We can write out binary too and change the MIME type
 		PrintWriter printWriter = httpServletResponse.getWriter();
 
-		/**
-		 * Initialize some request variables with the submitted form info. These are
-		 * local to this method and thread safe
-		 */
-		option = httpServletRequest.getParameter("cmbOptions");
-		query = httpServletRequest.getParameter("query");
+		printHeader(printWriter, option);
+		printWriter.print("<p><fieldset><legend><h3>Result</h3></legend>");
+
+		// The page only links to the cloud, and CloudHandler streams it to the browser
+		printWriter.print("<img src=\"cloud/" + result.getId() + "." + format.getExtension()
+				+ "\" width=\"800\" height=\"600\" alt=\"Word Cloud\">");
+		printWriter.print("</fieldset>");
+		printWriter.print(
+				"<P>Maybe output some search stats here, e.g. max search depth, effective branching factor.....<p>");
+		printWriter.print("<p>" + result.getReport() + "</p>");
+		printWriter.print("<p>" + FontCache.getInstance() + "</p>");
+
+		if (pageCache != null) {
+			printWriter.print("<p>" + pageCache + "</p>");
+		}
+
+		if (resultCache != null) {
+			printWriter.print("<p>" + resultCache + "</p>");
+		}
+
+		printWriter.print("<a href=\"./\">Return to Start Page</a>");
+		printWriter.print("</body>");
+		printWriter.print("</html>");
+	}
+
+	/**
+	 * Writes the start of a results page, down to where the result goes
+	 * 
+	 * @param printWriter - Writer of the page
+	 * @param option      - Chosen option (determines browser)
+	 */
+	private void printHeader(PrintWriter printWriter, String option) {
+		String chosenBrowser = null;
 
 		printWriter.print("<html><head><title>Artificial Intelligence Assignment</title>");
 		printWriter.print("<link rel=\"stylesheet\" href=\"includes/style.css\">");
@@ -120,49 +371,188 @@ public class ServiceHandler extends HttpServlet {
 		printWriter.print(
 				"to the CLASSPATH for the web application context. Please note that the JAR archives <b>jFuzzyLogic.jar</b>, <b>encog-core-3.4.jar</b> and ");
 		printWriter.print("<b>jsoup-1.12.1.jar</b> have already been added to the project.");
+	}
+
+	/**
+	 * Writes a result that fills in as a streamed search runs. The words found so
+	 * far are listed, and laid out if layouts were asked for, until the finished
+	 * cloud replaces them
+	 * 
+	 * @param printWriter - Writer of the page
+	 * @param events      - Address of the search's events
+	 */
+	private void printProgress(PrintWriter printWriter, String events) {
 		printWriter.print("<p><fieldset><legend><h3>Result</h3></legend>");
+		printWriter.print("<p id=\"status\">Searching...</p>");
+		printWriter.print("<canvas id=\"layout\" width=\"800\" height=\"600\" style=\"display:none\"></canvas>");
+		printWriter.print("<img id=\"cloud\" width=\"800\" height=\"600\" alt=\"Word Cloud\" style=\"display:none\">");
+		printWriter.print("<ol id=\"words\"></ol>");
+		printWriter.print("</fieldset>");
+		printWriter.print("<script>");
+		printWriter.print("var source = new EventSource('" + events + "');");
+		printWriter.print("var status = document.getElementById('status');");
+		printWriter.print("source.addEventListener('words', function (event) {");
+		printWriter.print("var update = JSON.parse(event.data), list = document.getElementById('words');");
+		printWriter.print("list.innerHTML = '';");
+		printWriter.print("update.words.forEach(function (word) {");
+		printWriter.print("var item = document.createElement('li');");
+		printWriter.print("item.textContent = word.word + ' (' + word.count + ')';");
+		printWriter.print("list.appendChild(item); });");
+		printWriter.print("status.textContent = update.pages + ' pages read in ' + update.elapsed + ' ms'; });");
+
+		// Drawn the same way SvgWriter writes the words
+		printWriter.print("source.addEventListener('layout', function (event) {");
+		printWriter.print("var layout = JSON.parse(event.data), canvas = document.getElementById('layout');");
+		printWriter.print("var context = canvas.getContext('2d');");
+		printWriter.print("canvas.style.display = '';");
+		printWriter.print("context.clearRect(0, 0, canvas.width, canvas.height);");
+		printWriter.print("layout.words.forEach(function (word) {");
+		printWriter.print("context.save();");
+		printWriter.print("context.font = ((word.style & 2) ? 'italic ' : '') + ((word.style & 1) ? 'bold ' : '')");
+		printWriter.print(" + word.size + 'px sans-serif';");
+		printWriter.print("context.fillStyle = word.color;");
+		printWriter.print("if (word.rotated) { context.translate(word.x + word.baseline, word.y + word.height);");
+		printWriter.print(" context.rotate(-Math.PI / 2); context.fillText(word.word, 0, 0); }");
+		printWriter.print(" else { context.fillText(word.word, word.x, word.y + word.baseline); }");
+		printWriter.print("context.restore(); }); });");
+		printWriter.print("source.addEventListener('done', function (event) {");
+		printWriter.print("var done = JSON.parse(event.data), cloud = document.getElementById('cloud');");
+		printWriter.print("source.close();");
+		printWriter.print("document.getElementById('layout').style.display = 'none';");
+		printWriter.print("cloud.src = done.src;");
+		printWriter.print("cloud.style.display = '';");
+		printWriter.print("status.textContent = done.pages + ' pages read in ' + done.elapsed + ' ms'; });");
+		printWriter.print("source.addEventListener('error', function (event) {");
+		printWriter.print("source.close();");
+		printWriter.print("status.textContent = event.data ? JSON.parse(event.data).message : 'Search failed'; });");
+		printWriter.print("</script>");
+	}
 
-		// Make sure query isn't null - would this be the correct way of going about it??
-		assert query != null;
+	/**
+	 * Runs a search, sending the words found to the browser as Server-Sent Events
+	 * while it crawls, and the finished cloud's address once it is done. A
+	 * repeated search is answered from the cache straight away
+	 * 
+	 * @param option              - Chosen option (determines browser)
+	 * @param query               - Searches for the entered search term
+	 * @param words               - Number of words in the cloud
+	 * @param format              - Format the finished cloud is linked to in
+	 * @param layouts             - Lay out the words found so far with each
+	 *                            update, as well as listing them
+	 * @param httpServletResponse - Response the events are written to
+	 * @throws IOException
+	 */
+	private void streamSearch(String option, String query, int words, LayoutFormat format, boolean layouts,
+			HttpServletResponse httpServletResponse) throws IOException {
+		httpServletResponse.setContentType("text/event-stream");
+		httpServletResponse.setCharacterEncoding("UTF-8");
+		httpServletResponse.setHeader("Cache-Control", "no-cache");
+
+		ProgressStream progressStream = new ProgressStream(new EventStream(httpServletResponse.getWriter()),
+				streamScheduler, streamInterval, words, layouts ? this::newPlacer : null);
+
+		try {
+			// A search already running for the same query is joined, and only its final cloud is sent
+			CloudResult result = resultCache == null ? search(option, query, words, progressStream)
+					: resultCache.get(ResultCache.key(option, query, words),
+							() -> search(option, query, words, progressStream));
+
+			ResultStore.getInstance().keep(result);
+			progressStream.finish(result, format);
+		} catch (IOException | RuntimeException exception) {
+			exception.printStackTrace();
+			progressStream.fail(exception.getMessage());
+		}
+	}
+
+	/**
+	 * Crawls the results of a search and lays out a cloud of the words found
+	 * 
+	 * @param option        - Chosen option (determines browser)
+	 * @param query         - Searches for the entered search term
+	 * @param words         - Number of words in the cloud
+	 * @param countListener - Told as each page's words are counted, or null
+	 * @return result - The cloud
+	 * @throws IOException
+	 */
+	private CloudResult search(String option, String query, int words, CountListener countListener)
+			throws IOException {
+		// Each search gets its own fetcher so the in-flight limits apply per crawl
+		AsyncFetcher fetcher = new AsyncFetcher(fetchMaxInFlight, fetchMaxPerHost, fetchTimeout, pageCache,
+				recentlyDownloaded);
+
+		// Pages are cut off where STREAMING stops reading, whether cached or not
+		if (streaming) {
+			fetcher.setMaxBodySize(pageMaxBytes);
+		}
+
+		/**
+		 * Every parser in the search shares one visited filter of its own, so a page
+		 * is only skipped if this search has already counted it
+		 */
+		VisitedSet visited = new BloomVisitedSet(visitedExpected, visitedFalsePositiveRate);
+
+		// Each search counts its words in its own database, so searches can run at the same time
+		CrawlSession session = new CrawlSession(realDatabase.newSession(), fetcher, visited, executorService);
+
+		session.getDatabase().setCountListener(countListener);
 
 		try {
-			Go(option, query);
+			Go(option, query, session);
 
-			executorService.awaitTermination(20, TimeUnit.SECONDS);
+			if (!session.await(20, TimeUnit.SECONDS)) {
+				System.out.println("Timed out - " + session);
+			}
 
 			System.out.println("Done - Finished searching");
 		} catch (InterruptedException interruptedException) {
 			interruptedException.printStackTrace();
+		} finally {
+			session.close();
 		}
 
 		// Get fuzzy value and accuracy
 		new NodeParser().getFuzzyValue();
 		new NodeParser().getAccuracy();
 
-		WordFrequency[] words = new WeightedFont().getFontSizes(realDatabase.getWordFrequency());
-		Arrays.sort(words, Comparator.comparing(WordFrequency::getFrequency, Comparator.reverseOrder()));
+		WordFrequency[] topWords = session.getDatabase().getWordFrequency(words);
 
 		// Spira Mirabilis
-		LogarithmicSpiralPlacer logarithmicSpiralPlacer = new LogarithmicSpiralPlacer(800, 600);
+		LogarithmicSpiralPlacer logarithmicSpiralPlacer = newPlacer();
+
+		/**
+		 * A crawl that counted nothing - no results, every page timed out or already
+		 * visited - gets an empty cloud, as getFontSizes() needs at least one word
+		 */
+		if (topWords.length == 0) {
+			return ResultStore.getInstance().put(logarithmicSpiralPlacer.getLayout(), topWords,
+					logarithmicSpiralPlacer.getReport());
+		}
+
+		new WeightedFont().getFontSizes(topWords);
+		Arrays.sort(topWords, Comparator.comparing(WordFrequency::getFrequency, Comparator.reverseOrder()));
 
-		for (WordFrequency word : words) {
+		for (WordFrequency word : topWords) {
 			// Place each word on the canvas starting with the largest
 			logarithmicSpiralPlacer.place(word);
 		}
 
-		// Get a handle on the word cloud graphic
-		BufferedImage cloud = logarithmicSpiralPlacer.getImage();
+		// Where each word went. Nothing is drawn unless the cloud is sent as a PNG
+		return ResultStore.getInstance().put(logarithmicSpiralPlacer.getLayout(), topWords,
+				logarithmicSpiralPlacer.getReport());
+	}
 
-		printWriter.print("<img src=\"data:image/png;base64," + encodeToString(cloud) + "\" alt=\"Word Cloud\">");
-		printWriter.print("</fieldset>");
-		printWriter.print(
-				"<P>Maybe output some search stats here, e.g. max search depth, effective branching factor.....<p>");
-		printWriter.print("<a href=\"./\">Return to Start Page</a>");
-		printWriter.print("</body>");
-		printWriter.print("</html>");
+	/**
+	 * @return placer - An empty cloud, laid out as web.xml says
+	 */
+	private LogarithmicSpiralPlacer newPlacer() {
+		LogarithmicSpiralPlacer logarithmicSpiralPlacer = new LogarithmicSpiralPlacer(800, 600);
 
-		// Clear the database of words for another search
-		realDatabase.clear();
+		logarithmicSpiralPlacer.setCollisionMode(collisionMode);
+		logarithmicSpiralPlacer.setStepBudget(cloudStepBudget);
+		logarithmicSpiralPlacer.setPool(layoutPool);
+
+		return logarithmicSpiralPlacer;
 	}
 
 	/**
@@ -170,11 +560,14 @@ public class ServiceHandler extends HttpServlet {
 	 * 
 	 * @param option     - Chosen option (determines browser)
 	 * @param searchTerm - Searches for the entered search term
+	 * @param session    - Search the parsers belong to
 	 * 
 	 * @throws IOException
 	 * @throws InterruptedException
 	 */
-	private void Go(String option, String searchTerm) throws IOException, InterruptedException {
+	private void Go(String option, String searchTerm, CrawlSession session) throws IOException, InterruptedException {
+		String browser = null;
+
 		// Determines what browser the application will use to search for the term
 		switch (option) {
 		case "Option 1":
@@ -189,7 +582,14 @@ public class ServiceHandler extends HttpServlet {
 		}
 
 		// Connect to Duck Duck Go and search for the entered search term
-		Document document = Jsoup.connect(browser + searchTerm).get();
+		Document document;
+
+		try {
+			document = session.getFetcher().fetch(browser + searchTerm).join();
+		} catch (CompletionException completionException) {
+			throw new IOException(completionException.getCause());
+		}
+
 		Elements elements = document.getElementById("links").getElementsByClass("results_links");
 
 		System.out.println("Adding word to database...");
@@ -201,39 +601,68 @@ public class ServiceHandler extends HttpServlet {
 		for (Element element : elements) {
 			Element title = element.getElementsByClass("links_main").first().getElementsByTag("a").first();
 
+			NodeParser nodeParser = new NodeParser(session, frontierStrategy.create(), title.attr("href"), searchTerm);
+
+			if (streaming) {
+				nodeParser.setPageBudget(pageMaxBytes, pageMaxTokens);
+			}
+
 			// Threaded aspect
-			executorService.execute(new NodeParser(jfuzzyFile, title.attr("href"), searchTerm));
+			session.execute(nodeParser);
 		}
 	}
 
-	public void doPost(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse)
-			throws ServletException, IOException {
-		doGet(httpServletRequest, httpServletResponse);
+	/**
+	 * Reads an integer from a <context-param> in web.xml
+	 * 
+	 * @param servletContext - Application context
+	 * @param name           - Name of the context-param
+	 * @param defaultValue   - Value to use if the context-param isn't set
+	 * @return value
+	 */
+	private int intParameter(ServletContext servletContext, String name, int defaultValue) {
+		String value = servletContext.getInitParameter(name);
+
+		return value == null ? defaultValue : Integer.parseInt(value.trim());
 	}
 
 	/**
-	 * Encodes an image to string
+	 * Reads a decimal from a <context-param> in web.xml
 	 * 
-	 * @param bufferedImage
-	 * @return encodedString
+	 * @param servletContext - Application context
+	 * @param name           - Name of the context-param
+	 * @param defaultValue   - Value to use if the context-param isn't set
+	 * @return value
 	 */
-	private String encodeToString(BufferedImage bufferedImage) {
-		String encodedString = null;
-		ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+	private double doubleParameter(ServletContext servletContext, String name, double defaultValue) {
+		String value = servletContext.getInitParameter(name);
 
-		try {
-			ImageIO.write(bufferedImage, "png", byteArrayOutputStream);
-			byte[] bytes = byteArrayOutputStream.toByteArray();
+		return value == null ? defaultValue : Double.parseDouble(value.trim());
+	}
 
-			Base64.Encoder encoder = Base64.getEncoder();
-			encodedString = encoder.encodeToString(bytes);
+	/**
+	 * Stops the threads the servlet started, so they don't outlive it when the
+	 * application is redeployed. Searches still running are interrupted
+	 */
+	public void destroy() {
+		executorService.shutdownNow();
 
-			byteArrayOutputStream.close();
-		} catch (IOException ioException) {
-			ioException.printStackTrace();
+		if (layoutPool != null) {
+			layoutPool.shutdownNow();
+		}
+
+		if (resultRefresher != null) {
+			resultRefresher.shutdownNow();
 		}
 
-		return encodedString;
+		if (streamScheduler != null) {
+			streamScheduler.shutdownNow();
+		}
+	}
+
+	public void doPost(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse)
+			throws ServletException, IOException {
+		doGet(httpServletRequest, httpServletResponse);
 	}
 
 	/**
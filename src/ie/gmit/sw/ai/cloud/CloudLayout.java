@@ -0,0 +1,89 @@
+package ie.gmit.sw.ai.cloud;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author Kevin Niland
+ * @category Word Cloud
+ * @version 1.0
+ *
+ *          CloudLayout
+ *
+ *          The words of a cloud where LogarithmicSpiralPlacer put them, in the
+ *          order they were placed. Nothing is drawn until toImage() is called,
+ *          so a layout can be written out as SVG or JSON without ever being
+ *          rasterised
+ */
+public class CloudLayout {
+	private final int width, height;
+	private final List<PlacedWord> words = new ArrayList<PlacedWord>();
+
+	CloudLayout(int width, int height) {
+		this.width = width;
+		this.height = height;
+	}
+
+	void add(PlacedWord word) {
+		words.add(word);
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * @return The placed words, largest first
+	 */
+	public List<PlacedWord> getWords() {
+		return Collections.unmodifiableList(words);
+	}
+
+	/**
+	 * @return A new image of the cloud, each word drawn in its colour on a black
+	 *         canvas
+	 */
+	public BufferedImage toImage() {
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_4BYTE_ABGR);
+		Graphics2D graphics = image.createGraphics();
+
+		graphics.setColor(Color.BLACK);
+		graphics.fillRect(0, 0, width, height);
+
+		for (PlacedWord word : words) {
+			graphics.setColor(new Color(word.getColor()));
+			draw(graphics, word);
+		}
+
+		graphics.dispose();
+
+		return image;
+	}
+
+	/**
+	 * Draws a word in the rectangle it was placed in, on its baseline or on its
+	 * side reading upwards
+	 */
+	private static void draw(Graphics2D graphics, PlacedWord word) {
+		// The glyphs were shaped when the word was measured, so they are drawn as they are
+		if (word.isRotated()) {
+			AffineTransform transform = graphics.getTransform();
+
+			graphics.translate(word.getX() + word.getBaseline(), word.getY() + word.getHeight());
+			graphics.rotate(-Math.PI / 2);
+			graphics.drawGlyphVector(word.getText().getGlyphs(), 0, 0);
+			graphics.setTransform(transform);
+		} else {
+			graphics.drawGlyphVector(word.getText().getGlyphs(), word.getX(), word.getY() + word.getBaseline());
+		}
+	}
+}
@@ -1,10 +1,12 @@
 package ie.gmit.sw.ai.cloud;
 
 import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
- * @author John Healy
+ * @author John Healy, Kevin Niland
  * @category Word Cloud
  * @version 1.0
  *
@@ -13,14 +15,271 @@ import java.util.List;
  *          Checks if the rectangle created around the new word overlaps any of
  *          the existing rectangles that have already been placed in the word
  *          cloud.
+ *
+ *          Placed rectangles are added to a uniform grid of cells over the
+ *          canvas, so a rectangle is only checked against the ones in the cells
+ *          it covers rather than every word placed so far. The grid reaches a
+ *          canvas further out on each side, and the cells on its edge hold
+ *          anything beyond that. The last rectangle a
+ *          word collided with is checked first, as a word stepping along the
+ *          spiral usually hits the same word again on its next step
+ *
+ *          Words can also be added with a GlyphMask of the pixels they cover,
+ *          so a word can be placed in the gaps between the letters of another
+ *          rather than only outside its rectangle
  */
 public class CollisionDetector {
+	private static final int DEFAULT_WIDTH = 1600, DEFAULT_HEIGHT = 1000, CELL_SIZE = 32;
+
+	private final List<Rectangle> placed = new ArrayList<Rectangle>();
+	private final int left, top, columns, rows;
+	private final int[][] cells;
+	private final int[] cellSizes;
+	private final int bitsWidth, bitsHeight, longsPerRow;
+	private long[] covered;
+	private Rectangle lastCollider;
+
+	public CollisionDetector() {
+		this(DEFAULT_WIDTH, DEFAULT_HEIGHT);
+	}
+
+	/**
+	 * @param width  - Width of the canvas
+	 * @param height - Height of the canvas
+	 */
+	public CollisionDetector(int width, int height) {
+		// Words that don't fit spiral off the canvas, so the grid reaches a canvas beyond it on each side
+		this.left = -width;
+		this.top = -height;
+		this.columns = Math.max(1, (width * 3 + CELL_SIZE - 1) / CELL_SIZE);
+		this.rows = Math.max(1, (height * 3 + CELL_SIZE - 1) / CELL_SIZE);
+		this.cells = new int[columns * rows][];
+		this.cellSizes = new int[columns * rows];
+		this.bitsWidth = Math.max(1, width * 3);
+		this.bitsHeight = Math.max(1, height * 3);
+		this.longsPerRow = (bitsWidth + 63) >>> 6;
+	}
+
+	/**
+	 * Adds a placed word to the grid
+	 *
+	 * @param word - Rectangle around the placed word
+	 */
+	public void add(Rectangle word) {
+		int index = placed.size();
+
+		placed.add(word);
+
+		for (int row = row(word.y); row <= row(word.y + word.height); row++) {
+			for (int column = column(word.x); column <= column(word.x + word.width); column++) {
+				int cell = row * columns + column;
+
+				if (cells[cell] == null) {
+					cells[cell] = new int[4];
+				} else if (cellSizes[cell] == cells[cell].length) {
+					cells[cell] = Arrays.copyOf(cells[cell], cellSizes[cell] * 2);
+				}
+
+				cells[cell][cellSizes[cell]++] = index;
+			}
+		}
+	}
+
+	/**
+	 * @param word - Rectangle around the word being placed
+	 * @return true if it overlaps a word that has already been added
+	 */
+	public boolean collides(Rectangle word) {
+		Rectangle collider = collider(word, lastCollider);
+
+		if (collider != null) {
+			lastCollider = collider;
+		}
+
+		return collider != null;
+	}
+
+	/**
+	 * Checks the pixels of a word, rather than its whole rectangle, against the
+	 * pixels covered by the words added with masks. Only rectangles that overlap
+	 * a placed word's rectangle are tested pixel by pixel
+	 *
+	 * @param word - Rectangle around the word being placed
+	 * @param mask - Pixels the word covers inside word
+	 * @return true if it covers a pixel that has already been covered
+	 */
+	public boolean collides(Rectangle word, GlyphMask mask) {
+		return collides(word) && covers(word, mask);
+	}
+
+	/**
+	 * @return query - Checks words against the words added so far, remembering
+	 *         its own last collider, so several threads can each check a
+	 *         different position at once as long as no words are being added
+	 */
+	public Query query() {
+		return new Query();
+	}
+
+	/**
+	 * @return The first placed word overlapping word, trying last first, or null
+	 *         if there isn't one
+	 */
+	private Rectangle collider(Rectangle word, Rectangle last) {
+		if (last != null && overlaps(word, last)) {
+			return last;
+		}
+
+		for (int row = row(word.y); row <= row(word.y + word.height); row++) {
+			for (int column = column(word.x); column <= column(word.x + word.width); column++) {
+				int cell = row * columns + column;
+
+				for (int i = 0; i < cellSizes[cell]; i++) {
+					Rectangle rectangle = placed.get(cells[cell][i]);
+
+					if (overlaps(word, rectangle)) {
+						return rectangle;
+					}
+				}
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * @return true if mask, placed at word, covers a pixel already covered by a
+	 *         word added with a mask
+	 */
+	private boolean covers(Rectangle word, GlyphMask mask) {
+		if (covered == null) {
+			return false;
+		}
+
+		int x = word.x - left;
+
+		for (int row = 0; row < mask.getHeight(); row++) {
+			int y = word.y - top + row;
+
+			// Pixels beyond the bitmap aren't tracked
+			if (y < 0 || y >= bitsHeight) {
+				continue;
+			}
+
+			for (int i = 0; i < mask.getLongsPerRow(); i++) {
+				long bits = mask.row(row, i);
+
+				if (bits == 0) {
+					continue;
+				}
+
+				int position = x + i * 64;
+				int index = Math.floorDiv(position, 64), shift = Math.floorMod(position, 64);
+				int base = y * longsPerRow;
+
+				// The long lands across two longs of the bitmap unless it is lined up with them
+				if (index >= 0 && index < longsPerRow && (covered[base + index] & bits << shift) != 0) {
+					return true;
+				}
+
+				if (shift != 0 && index + 1 >= 0 && index + 1 < longsPerRow
+						&& (covered[base + index + 1] & bits >>> (64 - shift)) != 0) {
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Adds a placed word and the pixels it covers
+	 *
+	 * @param word - Rectangle around the placed word
+	 * @param mask - Pixels the word covers inside word
+	 */
+	public void add(Rectangle word, GlyphMask mask) {
+		add(word);
+
+		if (covered == null) {
+			covered = new long[longsPerRow * bitsHeight];
+		}
+
+		int x = word.x - left;
+
+		for (int row = 0; row < mask.getHeight(); row++) {
+			int y = word.y - top + row;
+
+			if (y < 0 || y >= bitsHeight) {
+				continue;
+			}
+
+			for (int i = 0; i < mask.getLongsPerRow(); i++) {
+				long bits = mask.row(row, i);
+				int position = x + i * 64;
+				int index = Math.floorDiv(position, 64), shift = Math.floorMod(position, 64);
+				int base = y * longsPerRow;
+
+				if (index >= 0 && index < longsPerRow) {
+					covered[base + index] |= bits << shift;
+				}
+
+				if (shift != 0 && index + 1 >= 0 && index + 1 < longsPerRow) {
+					covered[base + index + 1] |= bits >>> (64 - shift);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Checks a rectangle against every rectangle in a list
+	 */
 	public boolean collides(Rectangle word, List<Rectangle> existing) {
 		for (Rectangle rectangle : existing) {
-			if (word.intersects(rectangle) || word.contains(rectangle) || rectangle.contains(word)) {
+			if (overlaps(word, rectangle)) {
 				return true;
 			}
 		}
 		return false;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * @return Number of words added
+	 */
+	public int size() {
+		return placed.size();
+	}
+
+	public static boolean overlaps(Rectangle word, Rectangle rectangle) {
+		return word.intersects(rectangle) || word.contains(rectangle) || rectangle.contains(word);
+	}
+
+	private int column(int x) {
+		return Math.min(columns - 1, Math.max(0, Math.floorDiv(x - left, CELL_SIZE)));
+	}
+
+	private int row(int y) {
+		return Math.min(rows - 1, Math.max(0, Math.floorDiv(y - top, CELL_SIZE)));
+	}
+
+	/**
+	 * Checks words against the words of the detector, with its own last collider
+	 */
+	public class Query {
+		private Rectangle lastCollider;
+
+		public boolean collides(Rectangle word) {
+			Rectangle collider = collider(word, lastCollider);
+
+			if (collider != null) {
+				lastCollider = collider;
+			}
+
+			return collider != null;
+		}
+
+		public boolean collides(Rectangle word, GlyphMask mask) {
+			return collides(word) && covers(word, mask);
+		}
+	}
+}
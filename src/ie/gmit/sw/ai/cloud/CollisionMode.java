@@ -0,0 +1,17 @@
+package ie.gmit.sw.ai.cloud;
+
+/**
+ * @author Kevin Niland
+ * @category Word Cloud
+ * @version 1.0
+ * 
+ *          CollisionMode
+ * 
+ *          How LogarithmicSpiralPlacer decides if two words overlap, selected
+ *          with the CLOUD_COLLISION context-param in web.xml. RECTANGLE
+ *          compares the rectangles around the words, MASK the pixels the words
+ *          actually cover
+ */
+public enum CollisionMode {
+	RECTANGLE, MASK;
+}
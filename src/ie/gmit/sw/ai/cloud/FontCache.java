@@ -0,0 +1,288 @@
+package ie.gmit.sw.ai.cloud;
+
+import java.awt.Font;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.geom.Rectangle2D;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author Kevin Niland
+ * @category Word Cloud
+ * @version 1.0
+ *
+ *          FontCache
+ *
+ *          Fonts and measured words shared by every cloud drawn by the
+ *          process. Each size and style of the cloud's font is only created
+ *          once, and the bounds and glyphs of each word at each size and style
+ *          are kept in a least recently used cache of at most capacity words,
+ *          so words that turn up in search after search aren't measured and
+ *          shaped again. Words are measured for a canvas with no transform,
+ *          antialiasing or fractional metrics, which is what
+ *          LogarithmicSpiralPlacer draws on. Thread safe
+ */
+public class FontCache {
+	private static final String FAMILY = "Tahoma";
+	private static final FontRenderContext CONTEXT = new FontRenderContext(null, false, false);
+	private static FontCache fontCache;
+
+	private final Map<Integer, Font> fonts = new ConcurrentHashMap<Integer, Font>();
+	private final LinkedHashMap<Key, MeasuredText> texts = new LinkedHashMap<Key, MeasuredText>(16, 0.75f, true);
+	private final AtomicLong fontHits = new AtomicLong(), fontMisses = new AtomicLong(), textHits = new AtomicLong(),
+			textMisses = new AtomicLong(), evictions = new AtomicLong();
+	private int capacity;
+
+	/**
+	 * @param capacity - Most words kept. Every word is measured each time it is
+	 *                 drawn if this is 0
+	 */
+	public FontCache(int capacity) {
+		this.capacity = Math.max(0, capacity);
+	}
+
+	// Singleton design pattern - Double-checked locking principle
+	public static FontCache getInstance() {
+		if (fontCache == null) {
+			synchronized (FontCache.class) {
+				if (fontCache == null) {
+					fontCache = new FontCache(10000);
+				}
+			}
+		}
+
+		return fontCache;
+	}
+
+	/**
+	 * @param size  - Point size
+	 * @param style - Font.PLAIN, Font.BOLD, Font.ITALIC or both of the last two
+	 * @return The cloud's font at that size and style
+	 */
+	public Font font(int size, int style) {
+		Integer key = style << 16 | size;
+		Font font = fonts.get(key);
+
+		if (font != null) {
+			fontHits.incrementAndGet();
+
+			return font;
+		}
+
+		fontMisses.incrementAndGet();
+
+		return fonts.computeIfAbsent(key, k -> new Font(FAMILY, style, size));
+	}
+
+	/**
+	 * @param word - Word to measure
+	 * @param font - Font from font()
+	 * @return Bounds and glyphs of the word in that font
+	 */
+	public MeasuredText text(String word, Font font) {
+		Key key = new Key(word, font.getSize(), font.getStyle());
+
+		synchronized (texts) {
+			MeasuredText text = texts.get(key);
+
+			if (text != null) {
+				textHits.incrementAndGet();
+
+				return text;
+			}
+		}
+
+		// Measured outside the lock, so other words can be looked up meanwhile
+		MeasuredText text = new MeasuredText(word, font);
+
+		textMisses.incrementAndGet();
+
+		if (capacity > 0) {
+			synchronized (texts) {
+				MeasuredText other = texts.putIfAbsent(key, text);
+
+				if (other != null) {
+					return other;
+				}
+
+				while (texts.size() > capacity) {
+					texts.remove(texts.keySet().iterator().next());
+					evictions.incrementAndGet();
+				}
+			}
+		}
+
+		return text;
+	}
+
+	/**
+	 * @param capacity - Most words kept. Least recently used words are removed
+	 *                 straight away if there are more than this
+	 */
+	public void setCapacity(int capacity) {
+		synchronized (texts) {
+			this.capacity = Math.max(0, capacity);
+
+			while (texts.size() > this.capacity) {
+				texts.remove(texts.keySet().iterator().next());
+				evictions.incrementAndGet();
+			}
+		}
+	}
+
+	public int getCapacity() {
+		synchronized (texts) {
+			return capacity;
+		}
+	}
+
+	/**
+	 * @return Number of words kept
+	 */
+	public int getSize() {
+		synchronized (texts) {
+			return texts.size();
+		}
+	}
+
+	/**
+	 * @return Fraction of fonts that had already been created
+	 */
+	public double getFontHitRate() {
+		return rate(fontHits.get(), fontMisses.get());
+	}
+
+	/**
+	 * @return Fraction of words that had already been measured
+	 */
+	public double getTextHitRate() {
+		return rate(textHits.get(), textMisses.get());
+	}
+
+	public long getEvictions() {
+		return evictions.get();
+	}
+
+	/**
+	 * Removes every font and word and resets the hit rates
+	 */
+	public void clear() {
+		synchronized (texts) {
+			texts.clear();
+		}
+
+		fonts.clear();
+		fontHits.set(0);
+		fontMisses.set(0);
+		textHits.set(0);
+		textMisses.set(0);
+		evictions.set(0);
+	}
+
+	public String toString() {
+		return String.format("Font cache: %d fonts (%.1f%% hits), %d/%d words (%.1f%% hits, %d evicted)", fonts.size(),
+				getFontHitRate() * 100, getSize(), getCapacity(), getTextHitRate() * 100, getEvictions());
+	}
+
+	private static double rate(long hits, long misses) {
+		return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+	}
+
+	/**
+	 * A word at one size and style
+	 */
+	private static final class Key {
+		private final String word;
+		private final int size, style;
+
+		private Key(String word, int size, int style) {
+			this.word = word;
+			this.size = size;
+			this.style = style;
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			if (!(object instanceof Key)) {
+				return false;
+			}
+
+			Key key = (Key) object;
+
+			return size == key.size && style == key.style && word.equals(key.word);
+		}
+
+		@Override
+		public int hashCode() {
+			return (word.hashCode() * 31 + size) * 31 + style;
+		}
+	}
+
+	/**
+	 * A word measured and shaped in one font. Never changed once built, apart
+	 * from its glyph masks, which are built the first time they are asked for
+	 */
+	public static final class MeasuredText {
+		private final String word;
+		private final Font font;
+		private final Rectangle2D bounds;
+		private final GlyphVector glyphs;
+		private volatile GlyphMask mask, rotatedMask;
+
+		private MeasuredText(String word, Font font) {
+			this.word = word;
+			this.font = font;
+			this.bounds = font.getStringBounds(word, CONTEXT);
+			this.glyphs = font.createGlyphVector(CONTEXT, word);
+		}
+
+		public String getWord() {
+			return word;
+		}
+
+		public Font getFont() {
+			return font;
+		}
+
+		/**
+		 * @return Bounds of the word, as FontMetrics.getStringBounds() measures them
+		 */
+		public Rectangle2D getBounds() {
+			return bounds;
+		}
+
+		/**
+		 * @return Glyphs of the word, to draw with Graphics2D.drawGlyphVector()
+		 */
+		public GlyphVector getGlyphs() {
+			return glyphs;
+		}
+
+		/**
+		 * @param rotated  - Whether the word is on its side
+		 * @param width    - Width of its rectangle
+		 * @param height   - Height of its rectangle
+		 * @param baseline - Baseline in its rectangle
+		 * @return mask - The word's GlyphMask. The rectangle and baseline must be
+		 *         the same each time it is asked for with the same rotation
+		 */
+		public GlyphMask mask(boolean rotated, int width, int height, int baseline) {
+			GlyphMask mask = rotated ? this.rotatedMask : this.mask;
+
+			if (mask == null) {
+				mask = GlyphMask.of(word, font, width, height, baseline, rotated);
+
+				if (rotated) {
+					this.rotatedMask = mask;
+				} else {
+					this.mask = mask;
+				}
+			}
+
+			return mask;
+		}
+	}
+}
@@ -0,0 +1,161 @@
+package ie.gmit.sw.ai.cloud;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+
+/**
+ * @author Kevin Niland
+ * @category Word Cloud
+ * @version 1.0
+ *
+ *          GlyphMask
+ *
+ *          The pixels a word actually covers inside its bounding rectangle,
+ *          rasterised once and packed 64 to a long, one row of longs per row
+ *          of pixels, with bit n of a long for the nth pixel it holds. Grown by
+ *          a pixel on each side, so words placed against each other don't
+ *          touch. CollisionDetector tests masks against the pixels already
+ *          covered 64 at a time
+ */
+public class GlyphMask {
+	private final int width, height, longsPerRow;
+	private final long[] bits;
+
+	private GlyphMask(int width, int height, long[] bits) {
+		this.width = width;
+		this.height = height;
+		this.longsPerRow = (width + 63) >>> 6;
+		this.bits = bits;
+	}
+
+	/**
+	 * @param word     - Word to rasterise
+	 * @param font     - Font it is drawn in
+	 * @param width    - Width of its bounding rectangle
+	 * @param height   - Height of its bounding rectangle
+	 * @param baseline - Distance from the top of the rectangle to the baseline
+	 *                 the word is drawn on
+	 * @return mask - Pixels covered by the word, clipped to its rectangle
+	 */
+	public static GlyphMask of(String word, Font font, int width, int height, int baseline) {
+		return of(word, font, width, height, baseline, false);
+	}
+
+	/**
+	 * @param rotated - Whether the word is on its side, reading upwards, with
+	 *                baseline measured from the left of the rectangle
+	 */
+	public static GlyphMask of(String word, Font font, int width, int height, int baseline, boolean rotated) {
+		width = Math.max(1, width);
+		height = Math.max(1, height);
+
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+		Graphics2D graphics = image.createGraphics();
+
+		graphics.setColor(Color.WHITE);
+		graphics.setFont(font);
+
+		// Drawn the same way as LogarithmicSpiralPlacer draws the word on the canvas
+		if (rotated) {
+			graphics.translate(baseline, height);
+			graphics.rotate(-Math.PI / 2);
+			graphics.drawString(word, 0, 0);
+		} else {
+			graphics.drawString(word, 0, baseline);
+		}
+
+		graphics.dispose();
+
+		byte[] pixels = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+		int longsPerRow = (width + 63) >>> 6;
+		long[] ink = new long[longsPerRow * height];
+
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				if (pixels[y * width + x] != 0) {
+					ink[y * longsPerRow + (x >>> 6)] |= 1L << (x & 63);
+				}
+			}
+		}
+
+		return new GlyphMask(width, height, grow(ink, width, height, longsPerRow));
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * @return Number of longs in each row
+	 */
+	public int getLongsPerRow() {
+		return longsPerRow;
+	}
+
+	/**
+	 * @return The ith long of a row
+	 */
+	public long row(int y, int i) {
+		return bits[y * longsPerRow + i];
+	}
+
+	/**
+	 * @return Number of pixels covered
+	 */
+	public int count() {
+		int count = 0;
+
+		for (long row : bits) {
+			count += Long.bitCount(row);
+		}
+
+		return count;
+	}
+
+	/**
+	 * Adds a pixel around every covered pixel, up, down, left and right,
+	 * keeping within the rectangle
+	 */
+	private static long[] grow(long[] ink, int width, int height, int longsPerRow) {
+		long[] grown = new long[ink.length];
+		long lastMask = (width & 63) == 0 ? -1L : (1L << (width & 63)) - 1;
+
+		for (int y = 0; y < height; y++) {
+			for (int i = 0; i < longsPerRow; i++) {
+				int index = y * longsPerRow + i;
+				long row = ink[index];
+
+				// Left and right, carrying across longs
+				row |= ink[index] << 1 | ink[index] >>> 1;
+
+				if (i > 0) {
+					row |= ink[index - 1] >>> 63;
+				}
+
+				if (i + 1 < longsPerRow) {
+					row |= ink[index + 1] << 63;
+				}
+
+				// Up and down
+				if (y > 0) {
+					row |= ink[index - longsPerRow];
+				}
+
+				if (y + 1 < height) {
+					row |= ink[index + longsPerRow];
+				}
+
+				grown[index] = i + 1 == longsPerRow ? row & lastMask : row;
+			}
+		}
+
+		return grown;
+	}
+}
@@ -4,6 +4,11 @@ import java.awt.*;
 import java.awt.geom.*;
 import java.awt.image.*;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ie.gmit.sw.ai.cloud.FontCache.MeasuredText;
 
 /**
  * @author John Healy
@@ -15,22 +20,77 @@ import java.util.*;
  *          Places a word on the word map
  */
 public class LogarithmicSpiralPlacer {
+	private static final int MIN_FONT_SIZE = 8; // Smallest a word is shrunk to before it is dropped
+	private static final double SHRINK = 0.8d; // How much a word that doesn't fit is shrunk by each time
+	private static final int CHUNK = 64; // Spiral steps each fork/join task checks
+
 	private Random rand = new Random(); // Random int generator for colours
-	private Graphics g = null; // The "canvas" to draw the word cloud on
-	private BufferedImage img = null; // Rasterises the "canvas" to a PNG
-	private java.util.List<Rectangle> placed = new ArrayList<>(); // The list of placed words
-	private CollisionDetector detector = new CollisionDetector(); // Detects overlapping words
+	private CloudLayout layout; // Where each word was placed, drawn only when an image is asked for
+	private int color; // Colour of the word being placed
+	private CollisionDetector detector; // Detects overlapping words, and holds the placed words
+	private CollisionMode collisionMode = CollisionMode.RECTANGLE; // Whether words are compared by rectangle or pixel
+	private SpiralTable spiral; // Offsets of each step along the spiral, shared by every placer of this size
+	private PlacementReport report = new PlacementReport(); // What had to be done to fit the words
+	private Rectangle candidate = new Rectangle(); // Where the word being placed is tried, moved along the spiral
+	private int stepBudget = Integer.MAX_VALUE; // Most spiral steps tried for each size and orientation of a word
+	private ForkJoinPool pool = null; // Checks spiral steps in parallel, if set
+	private FontCache fontCache = FontCache.getInstance(); // Fonts and measured words shared by every cloud
 	private int width = 1600; // Image width. The bigger the canvas, the easier it is to place a word.
 	private int height = 1000; // Image height
-	private int turn = 29; // The weight of the turn in the spiral
 
 	public LogarithmicSpiralPlacer(int w, int h) {
+		this(w, h, new CollisionDetector(w, h));
+	}
+
+	public LogarithmicSpiralPlacer(int w, int h, CollisionDetector detector) {
 		this.width = w;
 		this.height = h;
-		img = new BufferedImage(width, height, BufferedImage.TYPE_4BYTE_ABGR);
-		g = img.getGraphics();
-		g.setColor(Color.BLACK);
-		g.fillRect(0, 0, width, height);
+		this.detector = detector;
+		this.spiral = SpiralTable.forCanvas(w, h);
+		this.layout = new CloudLayout(w, h);
+	}
+
+	/**
+	 * @param collisionMode - MASK lets words fill the gaps between the letters of
+	 *                      words already placed, rather than only the space
+	 *                      outside their rectangles
+	 */
+	public void setCollisionMode(CollisionMode collisionMode) {
+		this.collisionMode = collisionMode;
+	}
+
+	/**
+	 * @param stepBudget - Most spiral steps to try before turning a word on its
+	 *                   side, shrinking it or dropping it. The whole spiral is
+	 *                   tried if this is 0
+	 */
+	public void setStepBudget(int stepBudget) {
+		this.stepBudget = stepBudget > 0 ? stepBudget : Integer.MAX_VALUE;
+	}
+
+	/**
+	 * @param pool - Checks the spiral steps of each word in parallel, or null to
+	 *             check them one at a time. Words are placed exactly where they
+	 *             would be one at a time either way
+	 */
+	public void setPool(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * @param fontCache - Fonts and measured words to use instead of the ones
+	 *                  shared by every cloud
+	 */
+	public void setFontCache(FontCache fontCache) {
+		this.fontCache = fontCache;
+	}
+
+	/**
+	 * @param seed - Seed for the colours of the words, so the same words give the
+	 *             same image
+	 */
+	public void setSeed(long seed) {
+		this.rand = new Random(seed);
 	}
 
 	/*
@@ -48,44 +108,191 @@ public class LogarithmicSpiralPlacer {
 	 * Place the word where it wants to be While it intersects any of previously
 	 * placed word Move it one step along an ever-increasing spiral
 	 *
+	 * If the word still intersects another after the step budget, or at the end
+	 * of the spiral, try it on its side, then smaller, and drop it once it is as
+	 * small as a word can be and still doesn't fit
+	 */
+	public boolean place(WordFrequency wf) {
+		int size = wf.getFontSize();
+
+		color = rand.nextInt(0xFFFFFF); // Pick the colour of the word
+
+		while (true) {
+			// Get the font with a size proportional to the word frequency, and the word measured in it
+			MeasuredText text = fontCache.text(wf.getWord(), fontCache.font(size, Font.PLAIN));
+
+			boolean shrunk = size < wf.getFontSize();
+
+			if (place(text, false, shrunk) || place(text, true, shrunk)) {
+				return true;
+			}
+
+			if (size <= MIN_FONT_SIZE) {
+				report.dropped(wf.getWord());
+
+				return false;
+			}
+
+			size = Math.max(MIN_FONT_SIZE, (int) (size * SHRINK));
+		}
+	}
+
+	/**
+	 * @return report - What had to be done to fit the words placed so far
+	 */
+	public PlacementReport getReport() {
+		return report;
+	}
+
+	/**
+	 * @return layout - Where the words placed so far are, to draw or write out
+	 */
+	public CloudLayout getLayout() {
+		return layout;
+	}
+
+	/**
+	 * @return A new image of the words placed so far
+	 */
+	public BufferedImage getImage() {
+		return layout.toImage();
+	}
+
+	/**
+	 * Moves a word along the spiral until it doesn't collide with any placed word
+	 * 
+	 * @param text    - Word to place, measured in the font to draw it in
+	 * @param rotated - Whether to place it on its side, reading upwards
+	 * @param shrunk  - Whether font is smaller than the word's own size
+	 * @return true if it was placed within the step budget
 	 */
-	public void place(WordFrequency wf) {
+	private boolean place(MeasuredText text, boolean rotated, boolean shrunk) {
 		int i = width / 2; // Get the horizontal centre
 		int j = height / 2; // Get the vertical centre
-		int k = 1; // Step to move along spiral
-
-		Font font = new Font("Tahoma", 0, wf.getFontSize()); // Create a font with a size proportional to the word
-																// frequency
-		g.setColor(new Color(rand.nextInt(0xFFFFFF))); // Set the colour of the graphics "brush"
-		g.setFont(font); // Set the font of the graphics "brush"
 
 		// Get the "size" of the word string as a rectangle
-		Rectangle2D bounds = this.g.getFontMetrics(font).getStringBounds(wf.getWord(), g);
-
-		// Start with the word placed at the centre of the spiral
-		Rectangle word = new Rectangle(i, j - (int) (bounds.getHeight() * 0.8d), (int) bounds.getWidth(),
-				(int) bounds.getHeight());
-
-		// If the word collides with any existing words, move it along the spiral
-		while (detector.collides(word, placed)) {
-			int l = k * turn % 360;
-			double d = k * 0.1d;
-			int x = (int) Math.round(i + d * Math.cos(l * Math.PI / 180.0d));
-			int y = (int) Math.round(j + d * Math.sin(l * Math.PI / 180.0d));
-			i = x;
-			j = y;
-			word = new Rectangle(i, j - (int) (bounds.getHeight() * 0.8d), (int) bounds.getWidth(),
-					(int) bounds.getHeight());
-			k++;
+		Rectangle2D bounds = text.getBounds();
+		int ascent = (int) (bounds.getHeight() * 0.8d);
+		int w = rotated ? (int) bounds.getHeight() : (int) bounds.getWidth();
+		int h = rotated ? (int) bounds.getWidth() : (int) bounds.getHeight();
+
+		// The pixels the word covers, drawn on the same baseline as it is on the canvas
+		GlyphMask mask = collisionMode == CollisionMode.MASK ? text.mask(rotated, w, h, ascent) : null;
+		int steps = Math.min(stepBudget, spiral.length());
+		int k = pool == null ? firstFree(mask, w, h, ascent, steps) : firstFreeInParallel(mask, w, h, ascent, steps);
+
+		if (k < 0) {
+			report.steps(steps);
+
+			return false;
+		}
+
+		Rectangle placed = new Rectangle(i + spiral.x(k), j + spiral.y(k) - ascent, w, h);
+
+		layout.add(new PlacedWord(text, color, placed.x, placed.y, w, h, ascent, rotated));
+
+		// Add the word to the placed words
+		if (mask == null) {
+			detector.add(placed);
+		} else {
+			detector.add(placed, mask);
 		}
 
-		g.drawString(wf.getWord(), i, j);// Draw the word on the graphics canvas
-		placed.add(word); // Add the word to the list of placed words
+		report.steps(k + 1);
+		report.placed(rotated, shrunk);
+
+		return true;
 	}
 
-	// Clean up the graphics context (close streams). Can only be done once...
-	public BufferedImage getImage() {
-		g.dispose();
-		return img;
+	/**
+	 * Start with the word placed at the centre of the spiral. If it collides with
+	 * any existing words, move it along
+	 * 
+	 * @return The first step at which the word doesn't collide, or -1
+	 */
+	private int firstFree(GlyphMask mask, int w, int h, int ascent, int steps) {
+		for (int k = 0; k < steps; k++) {
+			candidate.setBounds(width / 2 + spiral.x(k), height / 2 + spiral.y(k) - ascent, w, h);
+
+			if (!(mask == null ? detector.collides(candidate) : detector.collides(candidate, mask))) {
+				return k;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Checks the steps a wave at a time, each wave split into chunks checked at
+	 * once by the pool. No words are added while a wave is checked, so every chunk
+	 * sees the same placed words. The earliest free step found is the one the word
+	 * would have stopped at one step at a time, and chunks stop as soon as an
+	 * earlier step is known to be free. Later waves are only checked if a wave has
+	 * no free step, so little work is wasted past the answer
+	 * 
+	 * @return The first step at which the word doesn't collide, or -1
+	 */
+	private int firstFreeInParallel(GlyphMask mask, int w, int h, int ascent, int steps) {
+		int wave = pool.getParallelism() * CHUNK * 2;
+
+		for (int from = 0; from < steps; from += wave) {
+			AtomicInteger first = new AtomicInteger(Integer.MAX_VALUE);
+
+			pool.invoke(new SpiralSearch(first, mask, w, h, ascent, from, Math.min(steps, from + wave)));
+
+			if (first.get() != Integer.MAX_VALUE) {
+				return first.get();
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Finds the first free step in a range of the spiral, splitting it in half
+	 * until each part is a chunk
+	 */
+	private class SpiralSearch extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final AtomicInteger first;
+		private final GlyphMask mask;
+		private final int w, h, ascent, from, to;
+
+		private SpiralSearch(AtomicInteger first, GlyphMask mask, int w, int h, int ascent, int from, int to) {
+			this.first = first;
+			this.mask = mask;
+			this.w = w;
+			this.h = h;
+			this.ascent = ascent;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > CHUNK) {
+				int middle = (from + to) >>> 1;
+
+				invokeAll(new SpiralSearch(first, mask, w, h, ascent, from, middle),
+						new SpiralSearch(first, mask, w, h, ascent, middle, to));
+
+				return;
+			}
+
+			CollisionDetector.Query query = detector.query();
+			Rectangle candidate = new Rectangle();
+
+			// Stop once an earlier step is known to be free
+			for (int k = from; k < to && k < first.get(); k++) {
+				candidate.setBounds(width / 2 + spiral.x(k), height / 2 + spiral.y(k) - ascent, w, h);
+
+				if (!(mask == null ? query.collides(candidate) : query.collides(candidate, mask))) {
+					first.accumulateAndGet(k, Math::min);
+
+					return;
+				}
+			}
+		}
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,104 @@
+package ie.gmit.sw.ai.cloud;
+
+import ie.gmit.sw.ai.cloud.FontCache.MeasuredText;
+
+/**
+ * @author Kevin Niland
+ * @category Word Cloud
+ * @version 1.0
+ *
+ *          PlacedWord
+ *
+ *          Where LogarithmicSpiralPlacer put a word - the rectangle it takes up
+ *          on the canvas, the baseline it is drawn on, the size and colour it is
+ *          drawn in, and whether it is on its side. A word on its side reads
+ *          upwards, with its baseline measured from the left of the rectangle
+ */
+public class PlacedWord {
+	private final MeasuredText text;
+	private final int color, x, y, width, height, baseline;
+	private final boolean rotated;
+
+	PlacedWord(MeasuredText text, int color, int x, int y, int width, int height, int baseline, boolean rotated) {
+		this.text = text;
+		this.color = color;
+		this.x = x;
+		this.y = y;
+		this.width = width;
+		this.height = height;
+		this.baseline = baseline;
+		this.rotated = rotated;
+	}
+
+	public String getWord() {
+		return text.getWord();
+	}
+
+	/**
+	 * @return Size of the font it is drawn in, smaller than its own size if it
+	 *         was shrunk to fit
+	 */
+	public int getFontSize() {
+		return text.getFont().getSize();
+	}
+
+	/**
+	 * @return Font.PLAIN, Font.BOLD, Font.ITALIC or both of the last two
+	 */
+	public int getFontStyle() {
+		return text.getFont().getStyle();
+	}
+
+	/**
+	 * @return Name of the font it is drawn in, as it was asked for
+	 */
+	public String getFontName() {
+		return text.getFont().getName();
+	}
+
+	/**
+	 * @return Colour as 0xRRGGBB
+	 */
+	public int getColor() {
+		return color;
+	}
+
+	public int getX() {
+		return x;
+	}
+
+	public int getY() {
+		return y;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * @return Distance from the top of the rectangle to the baseline, or from
+	 *         its left if the word is on its side
+	 */
+	public int getBaseline() {
+		return baseline;
+	}
+
+	public boolean isRotated() {
+		return rotated;
+	}
+
+	/**
+	 * @return The word measured and shaped in its font, to draw it with
+	 */
+	MeasuredText getText() {
+		return text;
+	}
+
+	public String toString() {
+		return getWord() + " " + getFontSize() + "pt at (" + x + ", " + y + ")" + (rotated ? " on its side" : "");
+	}
+}
@@ -0,0 +1,76 @@
+package ie.gmit.sw.ai.cloud;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author Kevin Niland
+ * @category Word Cloud
+ * @version 1.0
+ *
+ *          PlacementReport
+ *
+ *          What LogarithmicSpiralPlacer had to do to fit the words of a cloud -
+ *          how many it placed as they were, turned on their side or shrank,
+ *          which ones it couldn't fit at all, and how many spiral steps it took
+ */
+public class PlacementReport {
+	private int placed, rotated, shrunk;
+	private long steps;
+	private List<String> dropped = new ArrayList<String>();
+
+	void placed(boolean rotated, boolean shrunk) {
+		this.placed++;
+		this.rotated += rotated ? 1 : 0;
+		this.shrunk += shrunk ? 1 : 0;
+	}
+
+	void dropped(String word) {
+		dropped.add(word);
+	}
+
+	void steps(int steps) {
+		this.steps += steps;
+	}
+
+	/**
+	 * @return Number of words placed, including rotated and shrunk ones
+	 */
+	public int getPlaced() {
+		return placed;
+	}
+
+	/**
+	 * @return Number of words placed on their side
+	 */
+	public int getRotated() {
+		return rotated;
+	}
+
+	/**
+	 * @return Number of words placed in a smaller font than their frequency
+	 *         gave them
+	 */
+	public int getShrunk() {
+		return shrunk;
+	}
+
+	/**
+	 * @return Words that couldn't be placed at all
+	 */
+	public List<String> getDropped() {
+		return dropped;
+	}
+
+	/**
+	 * @return Number of spiral steps checked for every word
+	 */
+	public long getSteps() {
+		return steps;
+	}
+
+	public String toString() {
+		return String.format("Placed %d of %d words (%d rotated, %d shrunk), dropped %d, %,d spiral steps", placed,
+				placed + dropped.size(), rotated, shrunk, dropped.size(), steps);
+	}
+}
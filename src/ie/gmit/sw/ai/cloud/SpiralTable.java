@@ -0,0 +1,86 @@
+package ie.gmit.sw.ai.cloud;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author Kevin Niland
+ * @category Word Cloud
+ * @version 1.0
+ *
+ *          SpiralTable
+ *
+ *          The offsets from the centre of the canvas of every step along the
+ *          spiral LogarithmicSpiralPlacer moves words along, worked out once
+ *          per canvas size rather than with Math.cos and Math.sin on every
+ *          step of every word. The table ends where the spiral leaves the area
+ *          CollisionDetector keeps track of, a canvas beyond each side of the
+ *          canvas, as a word placed further out than that couldn't be seen or
+ *          checked. Tables are shared by every placer, as they never change
+ */
+public final class SpiralTable {
+	private static final int TURN = 29; // The weight of the turn in the spiral
+	private static final double GROWTH = 0.1d; // How much further each step goes than the last
+	private static final Map<Long, SpiralTable> TABLES = new ConcurrentHashMap<Long, SpiralTable>();
+
+	private final int[] xs, ys;
+
+	private SpiralTable(int width, int height) {
+		int[] xs = new int[1024], ys = new int[1024];
+		int i = width / 2, j = height / 2, x = 0, y = 0, steps = 1;
+
+		/**
+		 * Step 0 is the centre itself. Each step is rounded from the position the
+		 * last one reached on the canvas, not from the centre, so the word lands on
+		 * exactly the same pixels as it did when the steps were worked out as it
+		 * moved
+		 */
+		for (int k = 1; Math.abs(x) <= width * 3 / 2 && Math.abs(y) <= height * 3 / 2; k++) {
+			int l = k * TURN % 360;
+			double d = k * GROWTH;
+
+			x = (int) Math.round(i + x + d * Math.cos(l * Math.PI / 180.0d)) - i;
+			y = (int) Math.round(j + y + d * Math.sin(l * Math.PI / 180.0d)) - j;
+
+			if (steps == xs.length) {
+				xs = Arrays.copyOf(xs, steps * 2);
+				ys = Arrays.copyOf(ys, steps * 2);
+			}
+
+			xs[steps] = x;
+			ys[steps++] = y;
+		}
+
+		this.xs = Arrays.copyOf(xs, steps);
+		this.ys = Arrays.copyOf(ys, steps);
+	}
+
+	/**
+	 * @return table - The spiral for a canvas of this size
+	 */
+	public static SpiralTable forCanvas(int width, int height) {
+		return TABLES.computeIfAbsent((long) width << 32 | height, key -> new SpiralTable(width, height));
+	}
+
+	/**
+	 * @return Number of steps in the table
+	 */
+	public int length() {
+		return xs.length;
+	}
+
+	/**
+	 * @return Horizontal offset from the centre after step steps
+	 */
+	public int x(int step) {
+		return xs[step];
+	}
+
+	/**
+	 * @return Vertical offset from the centre after step steps
+	 */
+	public int y(int step) {
+		return ys[step];
+	}
+}
@@ -1,160 +1,262 @@
 package ie.gmit.sw.ai.encog;
 
-import org.encog.engine.network.activation.ActivationSigmoid;
-import org.encog.ml.data.MLData;
-import org.encog.ml.data.MLDataPair;
-import org.encog.ml.data.MLDataSet;
-import org.encog.ml.data.basic.BasicMLDataSet;
-import org.encog.neural.networks.BasicNetwork;
-import org.encog.neural.networks.layers.BasicLayer;
-import org.encog.neural.networks.training.propagation.resilient.ResilientPropagation;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.encog.persist.EncogDirectoryPersistence;
 
 /**
  * @author John Healy, Kevin Niland
  * @category Artificial Intelligence
  * @version 1.0
- * 
- * Encog
+ *
+ *          Encog
+ *
+ *          Trains the neural network offline and saves it, so the servlet only
+ *          has to load it with NeuralScorer rather than train it on every page.
+ *
+ *          Each topology in the sweep is scored by k-fold cross-validation,
+ *          with every fold of every topology trained in parallel, one per core.
+ *          The topology with the best mean accuracy is then trained on all of
+ *          the examples for the mean number of epochs its folds stopped at, and
+ *          saved as the next version of the model, encog-vN.eg, alongside a
+ *          report of each run in encog-vN.txt. Runs are seeded, so the same
+ *          arguments and data always give the same model
+ *
+ *          Usage: java ie.gmit.sw.ai.encog.Encog [--data training.csv] [--out
+ *          dir] [--hidden 2,4,8,8-4] [--folds 5] [--seed 1] [--max-epochs
+ *          5000] [--patience 100] [--threads 1]
  */
 public class Encog {
-	public void Go() throws Exception {
-		// Step 1: Declare a network topology
-		BasicNetwork basicNetwork = new BasicNetwork();
-
-		basicNetwork.addLayer(new BasicLayer(null, true, 16));
-		basicNetwork.addLayer(new BasicLayer(new ActivationSigmoid(), true, 2));
-		basicNetwork.addLayer(new BasicLayer(new ActivationSigmoid(), false, 7));
-
-		basicNetwork.getStructure().finalizeStructure();
-		basicNetwork.reset();
-
-		// Step 2: Create the training data set
-		MLDataSet mlDataSet = new BasicMLDataSet(data, expected);
-
-		// Step 3: Train the neural network
-		ResilientPropagation resilientPropagation = new ResilientPropagation(basicNetwork, mlDataSet);
-		double minError = 0.07, correct = 0, total = 0;;
-		int epoch = 1;
-
-		System.out.println("Training...");
-
-		do {
-			resilientPropagation.iteration();
-			epoch++;
-		} while (resilientPropagation.getError() > minError);
-
-		resilientPropagation.finishTraining();
-
-		System.out.println("Training complete!");
-
-		// Step 4: Test the neural network
-		for (MLDataPair pair : mlDataSet) {
-			total++;
-			
-			MLData output = basicNetwork.compute(pair.getInput());
-			
-			int y = (int) Math.round(output.getData(0));
-			int yd = (int) pair.getIdeal().getData(0);
-			
-			if (y == yd) {
-				correct++;
+	private static final Pattern VERSION = Pattern.compile("encog-v(\\d+)\\.eg");
+
+	private File data = new File("WebContent/res/training.csv");
+	private File out = new File("WebContent/res");
+	private List<int[]> topologies = new ArrayList<int[]>();
+	private int folds = 5, seed = 1, maxEpochs = 5000, patience = 100, threads = 1;
+
+	/**
+	 * Runs the sweep, then trains and saves the best topology
+	 *
+	 * @return model - File the trained network was saved to
+	 */
+	public File Go() throws Exception {
+		TrainingData trainingData = TrainingData.load(data);
+		int[][] foldRows = trainingData.folds(folds, seed);
+		ExecutorService executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		List<List<Future<Trainer.Result>>> runs = new ArrayList<List<Future<Trainer.Result>>>();
+		long start = System.nanoTime();
+
+		System.out.println("Training " + topologies.size() + " topologies x " + folds + " folds on "
+				+ trainingData.size() + " examples...");
+
+		// Step 1: Cross-validate every topology, all folds at once
+		for (int[] hidden : topologies) {
+			List<Future<Trainer.Result>> results = new ArrayList<Future<Trainer.Result>>();
+			Trainer trainer = new Trainer(hidden, seed, maxEpochs, patience, threads);
+
+			for (int[] rows : foldRows) {
+				results.add(executorService.submit(() -> trainer.train(trainingData.without(rows),
+						trainingData.subset(rows))));
 			}
-			
-//			System.out.println(pair.getInput().getData(0) + "," + pair.getInput().getData(1) + ", Y="
-//					+ (int) Math.round(output.getData(0)) // Round the result
-//					+ ", Yd=" + (int) pair.getIdeal().getData(0));
+
+			runs.add(results);
 		}
-		
-		System.out.println("Testing complete! Accuracy: " + (correct / total) * 100);
+
+		// Step 2: Collect the results in order, so the report doesn't depend on which run finished first
+		List<List<Trainer.Result>> results = new ArrayList<List<Trainer.Result>>();
+
+		try {
+			for (List<Future<Trainer.Result>> run : runs) {
+				List<Trainer.Result> foldResults = new ArrayList<Trainer.Result>();
+
+				for (Future<Trainer.Result> future : run) {
+					foldResults.add(future.get());
+				}
+
+				results.add(foldResults);
+			}
+		} finally {
+			executorService.shutdown();
+		}
+
+		long sweepMillis = (System.nanoTime() - start) / 1000000;
+		int best = 0;
+
+		for (int i = 1; i < results.size(); i++) {
+			if (mean(results.get(i), true) > mean(results.get(best), true)) {
+				best = i;
+			}
+		}
+
+		// Step 3: Train the best topology on every example
+		int epochs = Math.max(1, (int) Math.round(mean(results.get(best), false)));
+		Trainer.Result model = new Trainer(topologies.get(best), seed, epochs, patience, threads).train(trainingData,
+				null);
+
+		// Step 4: Save it as the next version, with its report
+		int version = nextVersion();
+		File modelFile = new File(out, "encog-v" + version + ".eg");
+		File reportFile = new File(out, "encog-v" + version + ".txt");
+
+		EncogDirectoryPersistence.saveObject(modelFile, model.getNetwork());
+
+		String report = report(version, trainingData, results, best, sweepMillis, model, modelFile);
+
+		Files.write(reportFile.toPath(), report.getBytes(StandardCharsets.UTF_8));
+
+		System.out.print(report);
+		System.out.println("Saved to " + modelFile.getAbsolutePath());
+
+		return modelFile;
 	}
 
 	public static void main(String[] args) throws Exception {
-		new Encog().Go();
+		Encog encog = new Encog();
+
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			String value = args[i + 1];
+
+			switch (args[i]) {
+			case "--data":
+				encog.data = new File(value);
+				break;
+			case "--out":
+				encog.out = new File(value);
+				break;
+			case "--hidden":
+				for (String topology : value.split(",")) {
+					String[] layers = topology.trim().split("-");
+					int[] hidden = new int[layers.length];
+
+					for (int j = 0; j < layers.length; j++) {
+						hidden[j] = Integer.parseInt(layers[j]);
+					}
+
+					encog.topologies.add(hidden);
+				}
+				break;
+			case "--folds":
+				encog.folds = Integer.parseInt(value);
+				break;
+			case "--seed":
+				encog.seed = Integer.parseInt(value);
+				break;
+			case "--max-epochs":
+				encog.maxEpochs = Integer.parseInt(value);
+				break;
+			case "--patience":
+				encog.patience = Integer.parseInt(value);
+				break;
+			case "--threads":
+				encog.threads = Integer.parseInt(value);
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown option " + args[i]);
+			}
+		}
+
+		if (encog.topologies.isEmpty()) {
+			// The topology the network has always had, and some wider and deeper ones
+			encog.topologies.add(new int[] { 2 });
+			encog.topologies.add(new int[] { 4 });
+			encog.topologies.add(new int[] { 8 });
+			encog.topologies.add(new int[] { 16 });
+			encog.topologies.add(new int[] { 8, 4 });
+		}
+
+		if (encog.folds < 2) {
+			throw new IllegalArgumentException("--folds must be at least 2");
+		}
+
+		encog.Go();
+	}
+
+	/**
+	 * @return Mean accuracy, or mean best epoch, of the folds of a topology
+	 */
+	private static double mean(List<Trainer.Result> results, boolean accuracy) {
+		double total = 0;
+
+		for (Trainer.Result result : results) {
+			total += accuracy ? result.getAccuracy() : result.getBestEpoch();
+		}
+
+		return total / results.size();
+	}
+
+	/**
+	 * @return One more than the highest version of the model in the output
+	 *         directory
+	 */
+	private int nextVersion() throws IOException {
+		int version = 0;
+		String[] files = out.list();
+
+		if (files == null) {
+			Files.createDirectories(out.toPath());
+		} else {
+			for (String file : files) {
+				Matcher matcher = VERSION.matcher(file);
+
+				if (matcher.matches()) {
+					version = Math.max(version, Integer.parseInt(matcher.group(1)));
+				}
+			}
+		}
+
+		return version + 1;
 	}
 
-	private double[][] data = { { 1, 0, 0, 1, 0, 0, 1, 1, 1, 1, 0, 0, 0.5, 0, 0, 1 },
-			{ 1, 0, 0, 1, 0, 0, 0, 1, 1, 1, 0, 0, 0.5, 1, 0, 1 }, { 0, 0, 1, 0, 0, 1, 1, 1, 1, 0, 0, 1, 0, 1, 0, 0 },
-			{ 1, 0, 0, 1, 0, 0, 1, 1, 1, 1, 0, 0, 0.5, 0, 0, 1 }, { 1, 0, 0, 1, 0, 0, 1, 1, 1, 1, 0, 0, 0.5, 1, 0, 1 },
-			{ 1, 0, 0, 1, 0, 0, 0, 1, 1, 1, 0, 0, 0.5, 1, 0, 1 }, { 1, 0, 0, 1, 0, 0, 0, 1, 1, 1, 0, 0, 0.5, 1, 1, 1 },
-			{ 0, 0, 1, 0, 0, 1, 0, 1, 1, 0, 0, 1, 0, 1, 1, 0 }, { 0, 0, 1, 0, 0, 1, 1, 1, 1, 0, 0, 1, 0, 1, 0, 0 },
-			{ 1, 0, 0, 1, 0, 0, 0, 1, 1, 1, 0, 0, 0.5, 0, 1, 0 }, { 1, 0, 0, 1, 0, 0, 1, 1, 1, 1, 0, 0, 0.5, 1, 0, 1 },
-			{ 0, 1, 1, 0, 1, 0, 0, 0, 1, 1, 0, 0, 0.25, 1, 1, 0 }, { 0, 0, 1, 0, 0, 1, 1, 1, 1, 0, 0, 1, 0, 1, 0, 0 },
-			{ 0, 0, 1, 0, 0, 0, 1, 0, 0, 0, 0, 0, 0, 0, 0, 0 }, { 0, 0, 1, 0, 0, 1, 1, 0, 0, 0, 0, 0, 0.5, 0, 0, 0 },
-			{ 0, 0, 1, 0, 0, 1, 1, 0, 0, 0, 0, 0, 0.75, 0, 0, 0 },
-			{ 0, 1, 1, 0, 1, 0, 1, 0, 1, 1, 0, 0, 0.25, 1, 0, 0 }, { 1, 0, 0, 1, 0, 0, 0, 1, 1, 1, 0, 0, 0.5, 1, 0, 1 },
-			{ 0, 0, 1, 0, 0, 1, 1, 1, 1, 0, 0, 1, 0, 1, 0, 1 }, { 0, 0, 0, 1, 0, 1, 1, 1, 1, 1, 0, 1, 0, 1, 0, 1 },
-			{ 0, 1, 1, 0, 1, 0, 0, 0, 1, 1, 0, 0, 0.25, 1, 1, 0 },
-			{ 0, 1, 1, 0, 1, 1, 0, 0, 1, 1, 0, 0, 0.25, 1, 0, 0 }, { 1, 0, 0, 1, 0, 0, 0, 1, 1, 1, 0, 0, 0.5, 1, 0, 1 },
-			{ 0, 1, 1, 0, 1, 0, 0, 0, 1, 1, 0, 0, 0.25, 1, 0, 1 },
-			{ 0, 0, 1, 0, 0, 0, 0, 0, 0, 1, 0, 0, 0.75, 0, 0, 0 }, { 0, 0, 1, 0, 0, 1, 1, 1, 1, 1, 0, 0, 0.5, 0, 0, 0 },
-			{ 0, 0, 1, 0, 0, 1, 1, 1, 1, 1, 1, 0, 0.5, 0, 0, 0 }, { 1, 0, 0, 1, 1, 0, 0, 1, 1, 1, 0, 0, 0.25, 1, 0, 0 },
-			{ 1, 0, 0, 1, 0, 0, 0, 1, 1, 1, 0, 0, 0.5, 1, 0, 1 }, { 1, 0, 0, 1, 0, 0, 1, 1, 1, 1, 0, 0, 0.25, 0, 1, 1 },
-			{ 0, 0, 1, 0, 1, 0, 0, 0, 0, 1, 0, 0, 0.75, 0, 0, 0 }, { 1, 0, 0, 1, 0, 0, 0, 1, 1, 1, 0, 0, 0.5, 1, 1, 1 },
-			{ 1, 0, 0, 1, 0, 0, 0, 1, 1, 1, 0, 0, 0.25, 0, 0, 1 },
-			{ 0, 1, 1, 0, 1, 1, 1, 0, 1, 1, 0, 0, 0.25, 1, 0, 0 }, { 0, 0, 1, 0, 0, 1, 0, 1, 1, 0, 0, 1, 0, 1, 0, 0 },
-			{ 1, 0, 0, 1, 0, 0, 0, 1, 1, 1, 0, 0, 0.5, 1, 1, 0 }, { 1, 0, 0, 1, 0, 0, 0, 1, 1, 1, 0, 0, 0.5, 1, 0, 0 },
-			{ 0, 1, 1, 0, 1, 0, 1, 0, 1, 1, 0, 0, 0.25, 1, 0, 0 }, { 0, 0, 1, 0, 0, 1, 1, 1, 1, 0, 0, 1, 0, 1, 0, 0 },
-			{ 1, 0, 1, 0, 1, 0, 0, 0, 0, 1, 1, 0, 0.75, 0, 1, 0 },
-			{ 1, 0, 1, 0, 1, 0, 0, 0, 0, 1, 0, 0, 0.75, 0, 0, 0 },
-			{ 0, 1, 1, 0, 0, 0, 1, 0, 1, 1, 0, 0, 0.25, 1, 0, 0 },
-			{ 0, 0, 1, 0, 1, 0, 1, 0, 0, 1, 0, 0, 0.75, 0, 0, 0 },
-			{ 0, 1, 1, 0, 1, 0, 0, 0, 1, 1, 0, 0, 0.25, 1, 0, 0 }, { 1, 0, 0, 1, 0, 0, 1, 1, 1, 1, 0, 0, 0.5, 1, 0, 1 },
-			{ 1, 0, 0, 1, 0, 0, 1, 1, 1, 1, 0, 0, 0.5, 1, 0, 1 }, { 0, 0, 1, 0, 0, 1, 1, 0, 0, 0, 0, 0, 0.75, 0, 0, 0 },
-			{ 1, 0, 0, 1, 0, 0, 1, 1, 1, 1, 0, 0, 0.5, 1, 0, 1 }, { 1, 0, 0, 1, 0, 1, 1, 1, 1, 1, 0, 0, 0.5, 1, 0, 1 },
-			{ 1, 0, 0, 1, 0, 0, 1, 1, 1, 1, 0, 0, 0.5, 1, 0, 0 }, { 1, 0, 0, 1, 0, 0, 1, 1, 1, 1, 0, 0, 0.5, 1, 0, 1 },
-			{ 1, 0, 1, 0, 1, 0, 0, 0, 0, 1, 0, 0, 0.75, 0, 0, 0 }, { 0, 0, 1, 0, 0, 1, 1, 1, 1, 1, 0, 0, 0.5, 1, 0, 0 },
-			{ 0, 0, 1, 0, 0, 1, 1, 0, 0, 0, 0, 0, 1, 0, 0, 1 }, { 1, 0, 0, 1, 0, 0, 1, 1, 1, 1, 0, 0, 0.5, 1, 0, 0 },
-			{ 1, 0, 0, 1, 0, 0, 0, 1, 1, 1, 0, 0, 0.5, 1, 0, 1 }, { 0, 1, 1, 0, 0, 0, 0, 0, 1, 1, 0, 0, 0.25, 1, 0, 1 },
-			{ 0, 1, 1, 0, 1, 0, 0, 0, 1, 1, 0, 0, 0.25, 1, 1, 0 },
-			{ 0, 1, 1, 0, 0, 1, 1, 0, 1, 1, 0, 0, 0.25, 1, 0, 1 },
-			{ 0, 1, 1, 0, 1, 0, 0, 0, 1, 1, 0, 0, 0.25, 1, 0, 0 }, { 0, 0, 1, 0, 0, 1, 1, 1, 1, 0, 0, 1, 0, 1, 0, 1 },
-			{ 0, 0, 1, 0, 0, 1, 1, 1, 1, 0, 0, 1, 0, 1, 0, 0 }, { 0, 0, 1, 0, 0, 0, 1, 1, 1, 1, 1, 0, 0, 1, 0, 0 },
-			{ 1, 0, 1, 1, 0, 1, 1, 0, 1, 1, 0, 0, 0.5, 1, 0, 1 }, { 1, 0, 0, 1, 0, 0, 1, 1, 1, 1, 0, 0, 0.5, 1, 0, 1 },
-			{ 1, 0, 0, 1, 0, 0, 0, 1, 1, 1, 0, 0, 0.5, 1, 1, 1 }, { 0, 0, 0, 1, 0, 1, 1, 1, 1, 1, 0, 1, 0, 1, 0, 1 },
-			{ 1, 0, 0, 1, 0, 0, 1, 1, 1, 1, 0, 0, 0.5, 1, 0, 1 }, { 1, 0, 0, 1, 0, 0, 1, 1, 1, 1, 0, 0, 0.5, 1, 1, 1 },
-			{ 1, 0, 0, 1, 0, 0, 1, 1, 1, 1, 0, 0, 0.5, 1, 0, 1 }, { 1, 0, 0, 1, 0, 0, 0, 1, 1, 1, 0, 0, 0.5, 1, 1, 1 },
-			{ 0, 1, 1, 0, 0, 0, 1, 0, 1, 1, 0, 0, 0.25, 1, 0, 1 }, { 0, 0, 0, 0, 0, 0, 1, 0, 0, 1, 1, 0, 1, 1, 0, 0 },
-			{ 0, 0, 1, 0, 0, 1, 0, 1, 1, 0, 0, 1, 0, 1, 0, 0 }, { 1, 0, 0, 1, 0, 1, 1, 1, 1, 1, 0, 1, 0, 0, 0, 1 },
-			{ 1, 0, 0, 1, 0, 1, 1, 1, 1, 1, 0, 1, 0.25, 1, 0, 1 }, { 0, 0, 0, 0, 0, 1, 1, 1, 1, 0, 1, 0, 0, 1, 0, 0 },
-			{ 0, 0, 1, 0, 0, 1, 1, 0, 0, 0, 1, 0, 0, 0, 0, 0 }, { 0, 1, 1, 0, 1, 1, 1, 0, 1, 1, 0, 0, 0.25, 1, 0, 0 },
-			{ 0, 1, 1, 0, 1, 1, 1, 0, 1, 1, 0, 0, 0.25, 1, 0, 0 }, { 0, 0, 1, 0, 0, 0, 1, 1, 1, 1, 0, 0, 0, 1, 0, 0 },
-			{ 0, 0, 1, 0, 0, 0, 0, 0, 0, 1, 0, 0, 0, 0, 0, 0 }, { 0, 0, 1, 0, 0, 1, 0, 1, 1, 0, 0, 1, 0, 1, 0, 0 },
-			{ 0, 1, 1, 0, 1, 0, 0, 0, 1, 1, 0, 0, 0.25, 1, 0, 0 },
-			{ 1, 0, 0, 1, 0, 0, 0, 1, 1, 1, 0, 0, 0.25, 1, 0, 0 },
-			{ 0, 0, 1, 0, 0, 1, 1, 0, 0, 0, 0, 0, 0.625, 0, 0, 0 }, { 0, 0, 1, 0, 0, 1, 1, 1, 1, 0, 1, 1, 0, 1, 0, 1 },
-			{ 0, 1, 1, 0, 1, 1, 0, 0, 1, 1, 0, 0, 0.25, 1, 0, 1 },
-			{ 0, 0, 1, 0, 0, 0, 0, 0, 0, 1, 0, 0, 0.75, 0, 0, 0 }, { 0, 0, 1, 0, 0, 1, 0, 1, 1, 1, 0, 0, 0.5, 0, 0, 0 },
-			{ 0, 0, 1, 0, 0, 0, 0, 0, 1, 1, 0, 0, 0.5, 1, 0, 1 }, { 0, 0, 1, 0, 0, 0, 1, 1, 1, 1, 0, 0, 0.5, 1, 0, 0 },
-			{ 0, 0, 1, 0, 0, 1, 1, 1, 1, 0, 0, 1, 0, 1, 0, 1 }, { 1, 0, 0, 1, 1, 0, 0, 1, 1, 1, 0, 0, 0.25, 1, 0, 0 },
-			{ 1, 0, 0, 1, 0, 0, 0, 1, 1, 1, 0, 0, 0.5, 1, 0, 0 }, { 0, 1, 1, 0, 1, 0, 1, 0, 1, 1, 0, 0, 0.25, 1, 0, 1 },
-			{ 1, 0, 0, 1, 0, 0, 0, 1, 1, 1, 0, 0, 0.25, 1, 0, 1 },
-			{ 1, 0, 1, 0, 1, 0, 0, 0, 0, 1, 1, 0, 0.75, 0, 0, 0 }, { 1, 0, 0, 1, 0, 0, 1, 1, 1, 1, 0, 0, 0.5, 1, 0, 1 },
-			{ 0, 0, 1, 0, 0, 0, 0, 0, 0, 1, 0, 0, 0, 0, 0, 0 }, { 0, 1, 1, 0, 1, 0, 0, 0, 1, 1, 0, 0, 0.25, 1, 0, 0 } };
-
-	private double[][] expected = { { 1, 0, 0, 0, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 }, { 0, 0, 0, 1, 0, 0, 0 },
-			{ 1, 0, 0, 0, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 },
-			{ 0, 0, 0, 1, 0, 0, 0 }, { 0, 0, 0, 1, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 },
-			{ 0, 1, 0, 0, 0, 0, 0 }, { 0, 0, 0, 1, 0, 0, 0 }, { 0, 0, 0, 0, 0, 0, 1 }, { 0, 0, 0, 0, 0, 0, 1 },
-			{ 0, 0, 0, 0, 0, 0, 1 }, { 0, 1, 0, 0, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 }, { 0, 0, 0, 1, 0, 0, 0 },
-			{ 1, 0, 0, 0, 0, 0, 0 }, { 0, 1, 0, 0, 0, 0, 0 }, { 0, 1, 0, 0, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 },
-			{ 0, 1, 0, 0, 0, 0, 0 }, { 0, 0, 0, 0, 0, 1, 0 }, { 0, 0, 0, 0, 1, 0, 0 }, { 0, 0, 0, 0, 1, 0, 0 },
-			{ 1, 0, 0, 0, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 }, { 0, 0, 0, 0, 0, 1, 0 },
-			{ 1, 0, 0, 0, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 }, { 0, 1, 0, 0, 0, 0, 0 }, { 0, 0, 0, 1, 0, 0, 0 },
-			{ 1, 0, 0, 0, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 }, { 0, 1, 0, 0, 0, 0, 0 }, { 0, 0, 0, 1, 0, 0, 0 },
-			{ 0, 0, 0, 0, 0, 1, 0 }, { 0, 0, 0, 0, 0, 1, 0 }, { 0, 1, 0, 0, 0, 0, 0 }, { 0, 0, 0, 0, 0, 1, 0 },
-			{ 0, 1, 0, 0, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 }, { 0, 0, 0, 0, 0, 0, 1 },
-			{ 1, 0, 0, 0, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 },
-			{ 0, 0, 0, 0, 0, 1, 0 }, { 0, 0, 0, 0, 1, 0, 0 }, { 0, 0, 0, 0, 0, 0, 1 }, { 1, 0, 0, 0, 0, 0, 0 },
-			{ 1, 0, 0, 0, 0, 0, 0 }, { 0, 1, 0, 0, 0, 0, 0 }, { 0, 1, 0, 0, 0, 0, 0 }, { 0, 1, 0, 0, 0, 0, 0 },
-			{ 0, 1, 0, 0, 0, 0, 0 }, { 0, 0, 0, 1, 0, 0, 0 }, { 0, 0, 0, 1, 0, 0, 0 }, { 0, 0, 1, 0, 0, 0, 0 },
-			{ 1, 0, 0, 0, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 },
-			{ 1, 0, 0, 0, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 },
-			{ 0, 1, 0, 0, 0, 0, 0 }, { 0, 0, 0, 0, 0, 0, 1 }, { 0, 0, 0, 1, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 },
-			{ 1, 0, 0, 0, 0, 0, 0 }, { 0, 0, 1, 0, 0, 0, 0 }, { 0, 0, 0, 0, 0, 0, 1 }, { 0, 1, 0, 0, 0, 0, 0 },
-			{ 0, 1, 0, 0, 0, 0, 0 }, { 0, 0, 1, 0, 0, 0, 0 }, { 0, 0, 0, 0, 0, 0, 1 }, { 0, 0, 0, 1, 0, 0, 0 },
-			{ 0, 1, 0, 0, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 }, { 0, 0, 0, 0, 0, 0, 1 }, { 0, 0, 0, 1, 0, 0, 0 },
-			{ 0, 1, 0, 0, 0, 0, 0 }, { 0, 0, 0, 0, 0, 1, 0 }, { 0, 0, 0, 0, 1, 0, 0 }, { 0, 0, 1, 0, 0, 0, 0 },
-			{ 0, 0, 1, 0, 0, 0, 0 }, { 0, 0, 0, 1, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 },
-			{ 0, 1, 0, 0, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 }, { 0, 0, 0, 0, 0, 1, 0 }, { 1, 0, 0, 0, 0, 0, 0 },
-			{ 0, 0, 0, 0, 0, 0, 1 }, { 0, 1, 0, 0, 0, 0, 0 } };
+	private String report(int version, TrainingData trainingData, List<List<Trainer.Result>> results, int best,
+			long sweepMillis, Trainer.Result model, File modelFile) {
+		StringWriter stringWriter = new StringWriter();
+		PrintWriter printWriter = new PrintWriter(stringWriter);
+
+		printWriter.printf("Encog model v%d - %s%n", version, new Date());
+		printWriter.printf("Data: %s (%d examples, %d inputs, %d classes)%n", data, trainingData.size(),
+				trainingData.getInputCount(), trainingData.getIdealCount());
+		printWriter.printf("Seed: %d  Folds: %d  Max epochs: %d  Patience: %d  Propagation threads: %d%n%n", seed,
+				folds, maxEpochs, patience, threads);
+		printWriter.printf("%-10s %5s %8s %10s %9s %10s %9s%n", "Topology", "Fold", "Epochs", "Best epoch",
+				"Time (ms)", "Val. error", "Accuracy");
+
+		for (int i = 0; i < results.size(); i++) {
+			String topology = Trainer.topology(topologies.get(i));
+			long millis = 0;
+
+			for (int fold = 0; fold < results.get(i).size(); fold++) {
+				Trainer.Result result = results.get(i).get(fold);
+
+				millis += result.getMillis();
+				printWriter.printf("%-10s %5d %8d %10d %9d %10.4f %8.1f%%%n", topology, fold + 1, result.getEpochs(),
+						result.getBestEpoch(), result.getMillis(), result.getValidationError(), result.getAccuracy());
+			}
+
+			printWriter.printf("%-10s %5s %8s %10.0f %9d %10s %8.1f%%%s%n%n", topology, "mean", "",
+					mean(results.get(i), false), millis, "", mean(results.get(i), true), i == best ? "  <- best" : "");
+		}
+
+		printWriter.printf("Sweep wall time: %d ms on %d cores%n", sweepMillis,
+				Runtime.getRuntime().availableProcessors());
+		printWriter.printf("Final: %s trained on all examples for %d epochs in %d ms, error %.4f, accuracy %.1f%%%n",
+				Trainer.topology(topologies.get(best)), model.getEpochs(), model.getMillis(), model.getTrainingError(),
+				model.getAccuracy());
+		printWriter.printf("Model: %s%n", modelFile.getName());
+		printWriter.flush();
+
+		return stringWriter.toString();
+	}
 }
@@ -0,0 +1,183 @@
+package ie.gmit.sw.ai.encog;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.encog.neural.networks.BasicNetwork;
+import org.encog.persist.EncogDirectoryPersistence;
+
+/**
+ * @author Kevin Niland
+ * @category Artificial Intelligence
+ * @version 1.0
+ *
+ *          NeuralScorer
+ *
+ *          Loads the network trained offline by Encog once, when the servlet
+ *          starts, and only ever runs it forwards. A BasicNetwork keeps the
+ *          output of each layer between calls to compute(), so one instance
+ *          can't be shared between threads - each thread gets its own copy of
+ *          the loaded network the first time it classifies anything. The
+ *          network is tested against the training data when it is loaded, so
+ *          its accuracy doesn't have to be worked out per page
+ */
+public class NeuralScorer {
+	private static NeuralScorer neuralScorer;
+
+	private volatile ThreadLocal<BasicNetwork> networks = new ThreadLocal<BasicNetwork>();
+	private volatile BasicNetwork basicNetwork;
+	private volatile double accuracy;
+
+	// Singleton design pattern - Double-checked locking principle
+	private NeuralScorer() {
+
+	}
+
+	public static NeuralScorer getInstance() {
+		if (neuralScorer == null) {
+			synchronized (NeuralScorer.class) {
+				if (neuralScorer == null) {
+					neuralScorer = new NeuralScorer();
+				}
+			}
+		}
+
+		return neuralScorer;
+	}
+
+	/**
+	 * Reads a network saved by Encog. Called once from ServiceHandler.init()
+	 *
+	 * @param file         - Saved network
+	 * @param trainingData - Examples to measure the network's accuracy on
+	 * @throws IOException
+	 */
+	public synchronized void load(File file, TrainingData trainingData) throws IOException {
+		if (!file.isFile()) {
+			throw new IOException("No Encog model at " + file.getAbsolutePath() + " - run ie.gmit.sw.ai.encog.Encog");
+		}
+
+		Object model = EncogDirectoryPersistence.loadObject(file);
+
+		if (!(model instanceof BasicNetwork)) {
+			throw new IOException(file.getAbsolutePath() + " doesn't hold a BasicNetwork");
+		}
+
+		BasicNetwork loaded = (BasicNetwork) model;
+
+		if (loaded.getInputCount() != trainingData.getInputCount()
+				|| loaded.getOutputCount() != trainingData.getIdealCount()) {
+			throw new IOException(file.getAbsolutePath() + " doesn't match the shape of the training data");
+		}
+
+		accuracy = accuracy(loaded, trainingData);
+		networks = new ThreadLocal<BasicNetwork>();
+		basicNetwork = loaded;
+	}
+
+	/**
+	 * @return true if a network has been loaded
+	 */
+	public boolean isLoaded() {
+		return basicNetwork != null;
+	}
+
+	/**
+	 * @return Percentage of the training data the loaded network classifies correctly,
+	 *         or 0.0 if none is loaded
+	 */
+	public double getAccuracy() {
+		return accuracy;
+	}
+
+	/**
+	 * @param input - One value for each input neuron
+	 * @return output - Value of each output neuron
+	 */
+	public double[] compute(double[] input) {
+		BasicNetwork network = network();
+		double[] output = new double[network.getOutputCount()];
+
+		network.compute(input, output);
+
+		return output;
+	}
+
+	/**
+	 * @param input - One value for each input neuron
+	 * @return Class of the input - the output neuron with the largest value
+	 */
+	public int classify(double[] input) {
+		return winner(compute(input));
+	}
+
+	/**
+	 * Classifies a batch of inputs on the calling thread's copy of the network,
+	 * reusing one output buffer for the whole batch
+	 *
+	 * @param inputs - One value for each input neuron, for each input
+	 * @return classes - Class of each input
+	 */
+	public int[] classify(List<double[]> inputs) {
+		BasicNetwork network = network();
+		double[] output = new double[network.getOutputCount()];
+		int[] classes = new int[inputs.size()];
+
+		for (int i = 0; i < classes.length; i++) {
+			network.compute(inputs.get(i), output);
+			classes[i] = winner(output);
+		}
+
+		return classes;
+	}
+
+	/**
+	 * @return Percentage of examples a network puts in the right class
+	 */
+	static double accuracy(BasicNetwork network, TrainingData trainingData) {
+		double[][] input = trainingData.getInput();
+		int[] classes = trainingData.getClasses();
+		double[] output = new double[network.getOutputCount()];
+		double correct = 0;
+
+		for (int i = 0; i < input.length; i++) {
+			network.compute(input[i], output);
+
+			if (winner(output) == classes[i]) {
+				correct++;
+			}
+		}
+
+		return (correct / input.length) * 100;
+	}
+
+	private static int winner(double[] output) {
+		int winner = 0;
+
+		for (int i = 1; i < output.length; i++) {
+			if (output[i] > output[winner]) {
+				winner = i;
+			}
+		}
+
+		return winner;
+	}
+
+	private BasicNetwork network() {
+		BasicNetwork loaded = basicNetwork;
+
+		if (loaded == null) {
+			throw new IllegalStateException("No Encog model has been loaded");
+		}
+
+		BasicNetwork network = networks.get();
+
+		if (network == null) {
+			network = (BasicNetwork) loaded.clone();
+			networks.set(network);
+		}
+
+		return network;
+	}
+}
@@ -0,0 +1,197 @@
+package ie.gmit.sw.ai.encog;
+
+import java.util.Arrays;
+
+import org.encog.engine.network.activation.ActivationSigmoid;
+import org.encog.mathutil.randomize.ConsistentRandomizer;
+import org.encog.ml.data.MLDataSet;
+import org.encog.neural.networks.BasicNetwork;
+import org.encog.neural.networks.layers.BasicLayer;
+import org.encog.neural.networks.structure.NetworkCODEC;
+import org.encog.neural.networks.training.propagation.resilient.ResilientPropagation;
+
+/**
+ * @author Kevin Niland
+ * @category Artificial Intelligence
+ * @version 1.0
+ *
+ *          Trainer
+ *
+ *          Trains one network of a given topology with resilient propagation.
+ *          The weights are set from a seed rather than at random, so the same
+ *          seed and data always give the same network as long as propagation
+ *          runs on one thread. With more threads Encog adds up the gradients
+ *          in whatever order its workers finish, so results can differ in the
+ *          last few digits between runs.
+ *
+ *          With validation data, training stops once the validation error
+ *          hasn't improved for patience epochs, and the network is put back to
+ *          the weights it had at its best epoch. Without it, training runs for
+ *          exactly maxEpochs epochs
+ */
+public class Trainer {
+	private final int[] hidden;
+	private final int seed, maxEpochs, patience, threads;
+
+	/**
+	 * @param hidden    - Number of neurons in each hidden layer
+	 * @param seed      - Seed the starting weights are drawn from
+	 * @param maxEpochs - Most epochs to train for
+	 * @param patience  - Epochs without the validation error improving before
+	 *                  training stops
+	 * @param threads   - Threads Encog's propagation uses. 0 picks one per core
+	 */
+	public Trainer(int[] hidden, int seed, int maxEpochs, int patience, int threads) {
+		this.hidden = hidden.clone();
+		this.seed = seed;
+		this.maxEpochs = maxEpochs;
+		this.patience = patience;
+		this.threads = threads;
+	}
+
+	/**
+	 * @return Network with sigmoid hidden and output layers and seeded weights
+	 */
+	public BasicNetwork createNetwork(int inputCount, int outputCount) {
+		BasicNetwork basicNetwork = new BasicNetwork();
+
+		basicNetwork.addLayer(new BasicLayer(null, true, inputCount));
+
+		for (int neurons : hidden) {
+			basicNetwork.addLayer(new BasicLayer(new ActivationSigmoid(), true, neurons));
+		}
+
+		basicNetwork.addLayer(new BasicLayer(new ActivationSigmoid(), false, outputCount));
+		basicNetwork.getStructure().finalizeStructure();
+
+		new ConsistentRandomizer(-1, 1, seed).randomize(basicNetwork);
+
+		return basicNetwork;
+	}
+
+	/**
+	 * @param training   - Examples to train on
+	 * @param validation - Examples to stop early on and measure accuracy with, or
+	 *                   null to train for maxEpochs and measure it on training
+	 * @return result - Trained network and how training went
+	 */
+	public Result train(TrainingData training, TrainingData validation) {
+		long start = System.nanoTime();
+		BasicNetwork basicNetwork = createNetwork(training.getInputCount(), training.getIdealCount());
+		MLDataSet trainingSet = training.toDataSet();
+		MLDataSet validationSet = validation == null ? null : validation.toDataSet();
+		ResilientPropagation resilientPropagation = new ResilientPropagation(basicNetwork, trainingSet);
+		double bestError = Double.MAX_VALUE;
+		double[] bestWeights = null;
+		int epoch = 0, bestEpoch = 0;
+
+		resilientPropagation.setThreadCount(threads);
+
+		while (epoch < maxEpochs) {
+			resilientPropagation.iteration();
+			epoch++;
+
+			if (validationSet == null) {
+				continue;
+			}
+
+			double error = basicNetwork.calculateError(validationSet);
+
+			if (error < bestError) {
+				bestError = error;
+				bestEpoch = epoch;
+				bestWeights = NetworkCODEC.networkToArray(basicNetwork);
+			} else if (epoch - bestEpoch >= patience) {
+				break;
+			}
+		}
+
+		resilientPropagation.finishTraining();
+
+		if (bestWeights != null) {
+			NetworkCODEC.arrayToNetwork(bestWeights, basicNetwork);
+		} else {
+			bestEpoch = epoch;
+		}
+
+		double trainingError = basicNetwork.calculateError(trainingSet);
+		double accuracy = NeuralScorer.accuracy(basicNetwork, validation == null ? training : validation);
+
+		return new Result(basicNetwork, epoch, bestEpoch, trainingError, validationSet == null ? trainingError : bestError,
+				accuracy, (System.nanoTime() - start) / 1000000);
+	}
+
+	public int[] getHidden() {
+		return this.hidden.clone();
+	}
+
+	/**
+	 * @return Topology as the sizes of its hidden layers, e.g. 8-4
+	 */
+	public String getTopology() {
+		return topology(hidden);
+	}
+
+	public static String topology(int[] hidden) {
+		return Arrays.toString(hidden).replaceAll("[\\[\\] ]", "").replace(',', '-');
+	}
+
+	/**
+	 * A trained network and how training went
+	 */
+	public static class Result {
+		private BasicNetwork network;
+		private int epochs, bestEpoch;
+		private double trainingError, validationError, accuracy;
+		private long millis;
+
+		private Result(BasicNetwork network, int epochs, int bestEpoch, double trainingError, double validationError,
+				double accuracy, long millis) {
+			this.network = network;
+			this.epochs = epochs;
+			this.bestEpoch = bestEpoch;
+			this.trainingError = trainingError;
+			this.validationError = validationError;
+			this.accuracy = accuracy;
+			this.millis = millis;
+		}
+
+		public BasicNetwork getNetwork() {
+			return this.network;
+		}
+
+		/**
+		 * @return Number of epochs run, including the ones after the best
+		 */
+		public int getEpochs() {
+			return this.epochs;
+		}
+
+		/**
+		 * @return Epoch whose weights the network was left with
+		 */
+		public int getBestEpoch() {
+			return this.bestEpoch;
+		}
+
+		public double getTrainingError() {
+			return this.trainingError;
+		}
+
+		public double getValidationError() {
+			return this.validationError;
+		}
+
+		/**
+		 * @return Percentage of the validation examples, or of the training examples
+		 *         if there were none, put in the right class
+		 */
+		public double getAccuracy() {
+			return this.accuracy;
+		}
+
+		public long getMillis() {
+			return this.millis;
+		}
+	}
+}
@@ -0,0 +1,230 @@
+package ie.gmit.sw.ai.encog;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.encog.ml.data.MLDataSet;
+import org.encog.ml.data.basic.BasicMLDataSet;
+
+/**
+ * @author Kevin Niland
+ * @category Artificial Intelligence
+ * @version 1.0
+ *
+ *          TrainingData
+ *
+ *          The examples the neural network is trained and tested on, read from
+ *          a CSV file. Lines starting with # are comments, and the first line
+ *          after them names the columns. Columns whose name starts with "class"
+ *          are the ideal outputs, one per class, of which the right one is 1.
+ *          The rest are inputs
+ */
+public class TrainingData {
+	private double[][] input, ideal;
+
+	private TrainingData(double[][] input, double[][] ideal) {
+		this.input = input;
+		this.ideal = ideal;
+	}
+
+	/**
+	 * @param file - CSV file of examples
+	 * @return trainingData - Examples in the file
+	 * @throws IOException if the file can't be read or a line is malformed
+	 */
+	public static TrainingData load(File file) throws IOException {
+		List<double[]> inputs = new ArrayList<double[]>();
+		List<double[]> ideals = new ArrayList<double[]>();
+		boolean[] isIdeal = null;
+		int inputCount = 0, lineNumber = 0;
+
+		for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+			lineNumber++;
+			line = line.trim();
+
+			if (line.isEmpty() || line.startsWith("#")) {
+				continue;
+			}
+
+			String[] columns = line.split(",");
+
+			if (isIdeal == null) {
+				isIdeal = new boolean[columns.length];
+
+				for (int i = 0; i < columns.length; i++) {
+					isIdeal[i] = columns[i].trim().toLowerCase().startsWith("class");
+					inputCount += isIdeal[i] ? 0 : 1;
+				}
+
+				if (inputCount == 0 || inputCount == columns.length) {
+					throw new IOException(file + " needs both input and class columns");
+				}
+
+				continue;
+			}
+
+			if (columns.length != isIdeal.length) {
+				throw new IOException(file + ":" + lineNumber + " has " + columns.length + " columns, expected "
+						+ isIdeal.length);
+			}
+
+			double[] input = new double[inputCount], ideal = new double[columns.length - inputCount];
+
+			for (int i = 0, in = 0, out = 0; i < columns.length; i++) {
+				try {
+					double value = Double.parseDouble(columns[i].trim());
+
+					if (isIdeal[i]) {
+						ideal[out++] = value;
+					} else {
+						input[in++] = value;
+					}
+				} catch (NumberFormatException numberFormatException) {
+					throw new IOException(file + ":" + lineNumber + " column " + (i + 1) + " isn't a number");
+				}
+			}
+
+			inputs.add(input);
+			ideals.add(ideal);
+		}
+
+		if (inputs.isEmpty()) {
+			throw new IOException(file + " has no examples");
+		}
+
+		return new TrainingData(inputs.toArray(new double[0][]), ideals.toArray(new double[0][]));
+	}
+
+	public int size() {
+		return this.input.length;
+	}
+
+	public int getInputCount() {
+		return this.input[0].length;
+	}
+
+	public int getIdealCount() {
+		return this.ideal[0].length;
+	}
+
+	/**
+	 * @return Copy of the inputs of each example
+	 */
+	public double[][] getInput() {
+		return copy(this.input);
+	}
+
+	/**
+	 * @return Copy of the ideal outputs of each example
+	 */
+	public double[][] getIdeal() {
+		return copy(this.ideal);
+	}
+
+	/**
+	 * @return Class of each example - the index of its largest ideal output
+	 */
+	public int[] getClasses() {
+		int[] classes = new int[ideal.length];
+
+		for (int i = 0; i < ideal.length; i++) {
+			for (int j = 1; j < ideal[i].length; j++) {
+				if (ideal[i][j] > ideal[i][classes[i]]) {
+					classes[i] = j;
+				}
+			}
+		}
+
+		return classes;
+	}
+
+	/**
+	 * Splits the examples into k folds, after shuffling them with a seed so the
+	 * same seed always gives the same folds
+	 *
+	 * @param k    - Number of folds
+	 * @param seed - Seed for the shuffle
+	 * @return folds - Indices of the examples in each fold
+	 */
+	public int[][] folds(int k, long seed) {
+		int[] order = new int[size()];
+		Random random = new Random(seed);
+
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+
+		for (int i = order.length - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1), swap = order[i];
+
+			order[i] = order[j];
+			order[j] = swap;
+		}
+
+		int[][] folds = new int[k][];
+
+		for (int fold = 0; fold < k; fold++) {
+			int start = fold * order.length / k, end = (fold + 1) * order.length / k;
+
+			folds[fold] = new int[end - start];
+			System.arraycopy(order, start, folds[fold], 0, end - start);
+		}
+
+		return folds;
+	}
+
+	/**
+	 * @param rows - Indices of the examples to keep
+	 * @return Examples at the given indices
+	 */
+	public TrainingData subset(int[] rows) {
+		double[][] subsetInput = new double[rows.length][], subsetIdeal = new double[rows.length][];
+
+		for (int i = 0; i < rows.length; i++) {
+			subsetInput[i] = input[rows[i]];
+			subsetIdeal[i] = ideal[rows[i]];
+		}
+
+		return new TrainingData(subsetInput, subsetIdeal);
+	}
+
+	/**
+	 * @param rows - Indices of the examples to leave out
+	 * @return Every example except the ones at the given indices
+	 */
+	public TrainingData without(int[] rows) {
+		boolean[] excluded = new boolean[size()];
+		int[] kept = new int[size() - rows.length];
+
+		for (int row : rows) {
+			excluded[row] = true;
+		}
+
+		for (int i = 0, j = 0; i < excluded.length; i++) {
+			if (!excluded[i]) {
+				kept[j++] = i;
+			}
+		}
+
+		return subset(kept);
+	}
+
+	public MLDataSet toDataSet() {
+		return new BasicMLDataSet(getInput(), getIdeal());
+	}
+
+	private static double[][] copy(double[][] rows) {
+		double[][] copy = new double[rows.length][];
+
+		for (int i = 0; i < rows.length; i++) {
+			copy[i] = rows[i].clone();
+		}
+
+		return copy;
+	}
+}
@@ -0,0 +1,159 @@
+package ie.gmit.sw.ai.fuzzy;
+
+import java.util.Random;
+
+import ie.gmit.sw.ai.fuzzy.interfaces.Scorer;
+
+/**
+ * @author Kevin Niland
+ * @category Artificial Intelligence
+ * @version 1.0
+ *
+ *          FuzzyLookupTable - Implementation of Scorer
+ *
+ *          The 'score' surface of a fuzzy inference system, sampled on a grid
+ *          over the universe of each input. A score is then worked out by
+ *          trilinear interpolation between the eight grid points around the
+ *          inputs rather than by fuzzifying, evaluating the rules and
+ *          defuzzifying. Inputs outside a universe are clamped to it, which is
+ *          exact because the membership functions are flat beyond their last
+ *          point. The table is checked against the scorer when it is built and
+ *          never changes after, so every parser thread shares one
+ */
+public class FuzzyLookupTable implements Scorer {
+	private static final int SAMPLES = 5000;
+
+	private final double[] min, max, spacing;
+	private final int[] points;
+	private final double step;
+	private final float[] table;
+	private final double maxError;
+
+	/**
+	 * Samples a scorer on a grid and measures the table's largest error against
+	 * it
+	 *
+	 * @param scorer - Interpreted scorer to sample
+	 * @param min    - Lower end of the universe of title, headings and body
+	 * @param max    - Upper end of the universe of title, headings and body
+	 * @param step   - Largest distance between grid points on any input. Each
+	 *               input's spacing is rounded down so its universe is an exact
+	 *               number of steps
+	 */
+	public FuzzyLookupTable(Scorer scorer, double[] min, double[] max, double step) {
+		this.min = min.clone();
+		this.max = max.clone();
+		this.step = step;
+		this.points = new int[3];
+		this.spacing = new double[3];
+
+		for (int i = 0; i < 3; i++) {
+			points[i] = Math.max(2, (int) Math.ceil((max[i] - min[i]) / step) + 1);
+			spacing[i] = Math.max(Double.MIN_VALUE, (max[i] - min[i]) / (points[i] - 1));
+		}
+
+		table = new float[points[0] * points[1] * points[2]];
+
+		for (int t = 0; t < points[0]; t++) {
+			for (int h = 0; h < points[1]; h++) {
+				for (int b = 0; b < points[2]; b++) {
+					table[index(t, h, b)] = (float) scorer.score(grid(0, t), grid(1, h), grid(2, b));
+				}
+			}
+		}
+
+		maxError = validate(scorer);
+	}
+
+	@Override
+	public double score(double title, double headings, double body) {
+		double t = position(0, title), h = position(1, headings), b = position(2, body);
+		int t0 = cell(0, t), h0 = cell(1, h), b0 = cell(2, b);
+		double tf = t - t0, hf = h - h0, bf = b - b0;
+		int i = index(t0, h0, b0);
+		int dt = points[1] * points[2], dh = points[2];
+
+		// Interpolate along body, then headings, then title
+		double c00 = lerp(table[i], table[i + 1], bf);
+		double c01 = lerp(table[i + dh], table[i + dh + 1], bf);
+		double c10 = lerp(table[i + dt], table[i + dt + 1], bf);
+		double c11 = lerp(table[i + dt + dh], table[i + dt + dh + 1], bf);
+
+		return lerp(lerp(c00, c01, hf), lerp(c10, c11, hf), tf);
+	}
+
+	/**
+	 * Compares the table against the scorer it was sampled from, at every whole
+	 * number input (the hit counts NodeParser actually passes in) and at random
+	 * points across the universes
+	 *
+	 * @param scorer - Scorer the table was sampled from
+	 * @return error - Largest difference found
+	 */
+	public double validate(Scorer scorer) {
+		Random random = new Random(1);
+		double error = 0;
+
+		for (int t = (int) Math.ceil(min[0]); t <= max[0]; t++) {
+			for (int h = (int) Math.ceil(min[1]); h <= max[1]; h++) {
+				for (int b = (int) Math.ceil(min[2]); b <= max[2]; b++) {
+					error = Math.max(error, Math.abs(score(t, h, b) - scorer.score(t, h, b)));
+				}
+			}
+		}
+
+		for (int i = 0; i < SAMPLES; i++) {
+			double t = min[0] + random.nextDouble() * (max[0] - min[0]);
+			double h = min[1] + random.nextDouble() * (max[1] - min[1]);
+			double b = min[2] + random.nextDouble() * (max[2] - min[2]);
+
+			error = Math.max(error, Math.abs(score(t, h, b) - scorer.score(t, h, b)));
+		}
+
+		return error;
+	}
+
+	public double getStep() {
+		return this.step;
+	}
+
+	public int getPoints() {
+		return this.table.length;
+	}
+
+	public double getMaxError() {
+		return this.maxError;
+	}
+
+	public String toString() {
+		return "Fuzzy lookup table: " + getPoints() + " points, step " + getStep() + ", max error " + getMaxError();
+	}
+
+	private double grid(int input, int point) {
+		return Math.min(max[input], min[input] + point * spacing[input]);
+	}
+
+	/**
+	 * @return Position of a value on an input's grid, clamped to its universe
+	 */
+	private double position(int input, double value) {
+		double clamped = value < min[input] ? min[input] : value > max[input] ? max[input] : value;
+
+		return (clamped - min[input]) / spacing[input];
+	}
+
+	/**
+	 * @return Grid point at or below a position, leaving room for the point above
+	 */
+	private int cell(int input, double position) {
+		return Math.min((int) position, points[input] - 2);
+	}
+
+	private int index(int t, int h, int b) {
+		return (t * points[1] + h) * points[2] + b;
+	}
+
+	private static double lerp(double a, double b, double fraction) {
+		return a + (b - a) * fraction;
+	}
+}
@@ -0,0 +1,302 @@
+package ie.gmit.sw.ai.fuzzy;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import ie.gmit.sw.ai.fuzzy.interfaces.Scorer;
+import net.sourceforge.jFuzzyLogic.FIS;
+import net.sourceforge.jFuzzyLogic.FunctionBlock;
+import net.sourceforge.jFuzzyLogic.rule.Variable;
+
+/**
+ * @author Kevin Niland
+ * @category Artificial Intelligence
+ * @version 1.0
+ *
+ *          FuzzyScorer - Implementation of Scorer
+ *
+ *          Reads the FCL file once and hands each parser thread its own Fuzzy
+ *          Inference System (FIS). A FIS holds the values of its variables
+ *          between setVariable() and evaluate(), so one instance can't be
+ *          shared between threads, but each thread only compiles the FCL once
+ *          rather than once per page. The FCL file is checked for changes at
+ *          most once every RELOAD_INTERVAL milliseconds and each thread
+ *          recompiles its FIS the next time it scores a page
+ *
+ *          In compiled mode the 'score' surface is sampled into a
+ *          FuzzyLookupTable when the FCL file is loaded, and pages are scored
+ *          by looking it up. The table is only used if it stays within
+ *          maxError of the FIS, and is rebuilt whenever the FCL file changes
+ */
+public class FuzzyScorer implements Scorer {
+	private static final long RELOAD_INTERVAL = 5000;
+	private static final String FUNCTION_BLOCK = "wcloud";
+	private static final String[] INPUTS = { "title", "headings", "body" };
+	private static final int REFINEMENTS = 3;
+	private static FuzzyScorer fuzzyScorer;
+
+	private ThreadLocal<Instance> instances = new ThreadLocal<Instance>();
+	private volatile Definition definition;
+	private volatile FuzzyLookupTable lookupTable;
+	private volatile long lastChecked;
+	private File jfuzzyFile;
+	private double step, maxError;
+	private boolean compiled;
+
+	// Singleton design pattern - Double-checked locking principle
+	private FuzzyScorer() {
+
+	}
+
+	public static FuzzyScorer getInstance() {
+		if (fuzzyScorer == null) {
+			synchronized (FuzzyScorer.class) {
+				if (fuzzyScorer == null) {
+					fuzzyScorer = new FuzzyScorer();
+				}
+			}
+		}
+
+		return fuzzyScorer;
+	}
+
+	/**
+	 * Reads and compiles the FCL file. Called once from ServiceHandler.init()
+	 *
+	 * @param file - jFuzzy file
+	 * @throws IOException
+	 */
+	public synchronized void load(File file) throws IOException {
+		this.jfuzzyFile = file;
+
+		compile();
+	}
+
+	/**
+	 * Switches to compiled mode and builds the lookup table. If the table can't
+	 * be kept within maxError of the FIS, even after halving the grid step a few
+	 * times, pages carry on being scored by the FIS
+	 *
+	 * @param step     - Distance between grid points
+	 * @param maxError - Largest difference from the FIS allowed
+	 */
+	public synchronized void enableLookupTable(double step, double maxError) {
+		this.step = step;
+		this.maxError = maxError;
+		this.compiled = true;
+
+		buildLookupTable();
+	}
+
+	/**
+	 * Calculates the defuzzified 'score' for the given title, headings, and body
+	 * values
+	 *
+	 * @return Defuzzified value of 'score', or 0.0 if the FCL file couldn't be
+	 *         loaded
+	 */
+	@Override
+	public double score(double title, double headings, double body) {
+		reloadIfModified();
+
+		FuzzyLookupTable table = lookupTable;
+
+		if (table != null) {
+			return table.score(title, headings, body);
+		}
+
+		return interpret(title, headings, body);
+	}
+
+	/**
+	 * @return lookupTable - Table pages are scored with, or null if they're scored
+	 *         by the FIS
+	 */
+	public FuzzyLookupTable getLookupTable() {
+		return lookupTable;
+	}
+
+	/**
+	 * Scores a page by evaluating the rules of the calling thread's FIS
+	 */
+	private double interpret(double title, double headings, double body) {
+		FunctionBlock functionBlock = functionBlock();
+
+		if (functionBlock == null) {
+			return 0.0;
+		}
+
+		functionBlock.setVariable("title", title);
+		functionBlock.setVariable("headings", headings);
+		functionBlock.setVariable("body", body);
+
+		// Evaluate
+		functionBlock.evaluate();
+
+		Variable variable = functionBlock.getVariable("score");
+
+		return variable.getLatestDefuzzifiedValue();
+	}
+
+	/**
+	 * @return generation - Incremented every time the FCL file is recompiled
+	 */
+	public int getGeneration() {
+		Definition current = definition;
+
+		return current == null ? 0 : current.generation;
+	}
+
+	/**
+	 * Returns the calling thread's function block, compiling a new one if the
+	 * thread hasn't got one yet or if the FCL file has changed since it was
+	 * compiled
+	 */
+	private FunctionBlock functionBlock() {
+		Definition current = definition;
+
+		if (current == null) {
+			return null;
+		}
+
+		Instance instance = instances.get();
+
+		if (instance == null || instance.generation != current.generation) {
+			FIS fis = FIS.createFromString(current.fcl, false);
+
+			if (fis == null) {
+				System.err.println("ERROR: Can't load file: '" + jfuzzyFile + "'");
+
+				return null;
+			}
+
+			instance = new Instance(current.generation, fis.getFunctionBlock(FUNCTION_BLOCK));
+			instances.set(instance);
+		}
+
+		return instance.functionBlock;
+	}
+
+	/**
+	 * Checks the last modified time of the FCL file, at most once every
+	 * RELOAD_INTERVAL milliseconds, and recompiles it if it has changed
+	 */
+	private void reloadIfModified() {
+		long now = System.currentTimeMillis();
+
+		if (jfuzzyFile == null || now - lastChecked < RELOAD_INTERVAL) {
+			return;
+		}
+
+		synchronized (this) {
+			if (now - lastChecked < RELOAD_INTERVAL) {
+				return;
+			}
+
+			lastChecked = now;
+
+			if (definition != null && jfuzzyFile.lastModified() == definition.lastModified) {
+				return;
+			}
+
+			try {
+				compile();
+			} catch (IOException ioException) {
+				ioException.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Reads the FCL file and makes sure it compiles before publishing it to the
+	 * parser threads. If it doesn't compile, the previous definition is kept
+	 */
+	private void compile() throws IOException {
+		long lastModified = jfuzzyFile.lastModified();
+		String fcl = new String(Files.readAllBytes(jfuzzyFile.toPath()), StandardCharsets.UTF_8);
+
+		FIS fis = FIS.createFromString(fcl, false);
+
+		if (fis == null || fis.getFunctionBlock(FUNCTION_BLOCK) == null) {
+			System.err.println("ERROR: Can't load file: '" + jfuzzyFile + "'");
+
+			return;
+		}
+
+		int generation = definition == null ? 1 : definition.generation + 1;
+
+		definition = new Definition(fcl, lastModified, generation);
+		lastChecked = System.currentTimeMillis();
+
+		if (compiled) {
+			buildLookupTable();
+		}
+	}
+
+	/**
+	 * Samples the current FIS into a lookup table, halving the grid step until the
+	 * table is within maxError of the FIS
+	 */
+	private void buildLookupTable() {
+		lookupTable = null;
+
+		FunctionBlock functionBlock = functionBlock();
+
+		if (functionBlock == null) {
+			return;
+		}
+
+		double[] min = new double[INPUTS.length], max = new double[INPUTS.length];
+
+		for (int i = 0; i < INPUTS.length; i++) {
+			min[i] = functionBlock.getVariable(INPUTS[i]).getUniverseMin();
+			max[i] = functionBlock.getVariable(INPUTS[i]).getUniverseMax();
+		}
+
+		double gridStep = step;
+		FuzzyLookupTable table = null;
+
+		for (int i = 0; i <= REFINEMENTS; i++, gridStep /= 2) {
+			table = new FuzzyLookupTable(this::interpret, min, max, gridStep);
+
+			if (table.getMaxError() <= maxError) {
+				lookupTable = table;
+
+				return;
+			}
+		}
+
+		System.err.println("WARNING: Can't compile '" + jfuzzyFile + "' to within " + maxError
+				+ " of the FIS (finest table: " + table + "), scoring with the FIS instead");
+	}
+
+	/**
+	 * Contents of the FCL file at a point in time
+	 */
+	private static class Definition {
+		private final String fcl;
+		private final long lastModified;
+		private final int generation;
+
+		private Definition(String fcl, long lastModified, int generation) {
+			this.fcl = fcl;
+			this.lastModified = lastModified;
+			this.generation = generation;
+		}
+	}
+
+	/**
+	 * A thread's compiled function block and the generation it was compiled from
+	 */
+	private static class Instance {
+		private final int generation;
+		private final FunctionBlock functionBlock;
+
+		private Instance(int generation, FunctionBlock functionBlock) {
+			this.generation = generation;
+			this.functionBlock = functionBlock;
+		}
+	}
+}
@@ -0,0 +1,15 @@
+package ie.gmit.sw.ai.fuzzy.interfaces;
+
+/**
+ * @author Kevin Niland
+ * @category Artificial Intelligence
+ * @version 1.0
+ *
+ *          Scorer
+ * 
+ *          Interface for scoring a page from the number of search term hits in
+ *          its title, headings, and body
+ */
+public interface Scorer {
+	public double score(double title, double headings, double body);
+}
@@ -0,0 +1,151 @@
+package ie.gmit.sw.benchmark;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import javax.imageio.ImageIO;
+
+import ie.gmit.sw.ai.cloud.CloudLayout;
+import ie.gmit.sw.ai.cloud.LogarithmicSpiralPlacer;
+import ie.gmit.sw.ai.cloud.WeightedFont;
+import ie.gmit.sw.ai.cloud.WordFrequency;
+import ie.gmit.sw.result.LayoutFormat;
+import ie.gmit.sw.result.PngWriter;
+
+/**
+ * @author Kevin Niland
+ * @category Benchmark
+ * @version 1.0
+ *
+ *          CloudImageBenchmark
+ *
+ *          Draws a cloud and sends it to a stream the way the results page used
+ *          to, PNG encoded into memory, copied, base64 encoded and written into
+ *          the page, and the ways CloudHandler does, drawn from its layout and
+ *          PNG encoded straight to the response at each deflate level, or
+ *          written out as SVG or JSON without being drawn. Prints the mean
+ *          time, the bytes sent and the bytes allocated on the heap to send
+ *          each cloud
+ *
+ *          Usage: java ie.gmit.sw.benchmark.CloudImageBenchmark [runs] [words]
+ */
+public class CloudImageBenchmark {
+	private static final int[] LEVELS = { 0, 1, 4, 6, 9 };
+
+	public static void main(String[] args) throws IOException {
+		int runs = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+		int words = args.length > 1 ? Integer.parseInt(args[1]) : 250;
+
+		System.setProperty("java.awt.headless", "true");
+
+		CloudLayout layout = layout(words);
+		BufferedImage cloud = layout.toImage();
+
+		// Warm up
+		for (int i = 0; i < 5; i++) {
+			inline(cloud, new CountingOutputStream());
+
+			for (LayoutFormat layoutFormat : LayoutFormat.values()) {
+				layoutFormat.write(layout, new CountingOutputStream(), PngWriter.DEFAULT_LEVEL);
+			}
+		}
+
+		System.out.printf("%-14s %10s %14s %16s%n", "Sent as", "ms", "Bytes sent", "Bytes allocated");
+
+		long[] result = measure(runs, outputStream -> inline(cloud, outputStream));
+
+		print("Inline base64", result, runs);
+
+		for (int level : LEVELS) {
+			result = measure(runs, outputStream -> LayoutFormat.PNG.write(layout, outputStream, level));
+			print("PNG level " + level, result, runs);
+		}
+
+		print("SVG", measure(runs, outputStream -> LayoutFormat.SVG.write(layout, outputStream, 0)), runs);
+		print("JSON", measure(runs, outputStream -> LayoutFormat.JSON.write(layout, outputStream, 0)), runs);
+	}
+
+	/**
+	 * How the results page used to send the cloud
+	 */
+	private static void inline(BufferedImage cloud, OutputStream outputStream) throws IOException {
+		ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+
+		ImageIO.write(cloud, "png", byteArrayOutputStream);
+
+		String html = "<img src=\"data:image/png;base64,"
+				+ Base64.getEncoder().encodeToString(byteArrayOutputStream.toByteArray()) + "\" alt=\"Word Cloud\">";
+
+		outputStream.write(html.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * @return Nanoseconds, bytes sent and bytes allocated over every run
+	 */
+	private static long[] measure(int runs, Sender sender) throws IOException {
+		com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+		CountingOutputStream countingOutputStream = new CountingOutputStream();
+		long allocated = threadMXBean.getThreadAllocatedBytes(thread);
+		long start = System.nanoTime();
+
+		for (int i = 0; i < runs; i++) {
+			sender.send(countingOutputStream);
+		}
+
+		long nanos = System.nanoTime() - start;
+
+		return new long[] { nanos, countingOutputStream.count, threadMXBean.getThreadAllocatedBytes(thread) - allocated };
+	}
+
+	private static void print(String name, long[] result, int runs) {
+		System.out.printf("%-14s %,10.1f %,14d %,16d%n", name, result[0] / 1e6 / runs, result[1] / runs,
+				result[2] / runs);
+	}
+
+	private static CloudLayout layout(int count) {
+		WordFrequency[] words = new WordFrequency[count];
+
+		for (int i = 0; i < count; i++) {
+			words[i] = new WordFrequency("word" + (char) ('a' + i % 26) + (char) ('a' + i / 26 % 26),
+					Math.max(1, 10000 / (i + 1)));
+		}
+
+		LogarithmicSpiralPlacer logarithmicSpiralPlacer = new LogarithmicSpiralPlacer(800, 600);
+
+		logarithmicSpiralPlacer.setSeed(1);
+
+		for (WordFrequency word : new WeightedFont().getFontSizes(words)) {
+			logarithmicSpiralPlacer.place(word);
+		}
+
+		return logarithmicSpiralPlacer.getLayout();
+	}
+
+	private interface Sender {
+		void send(OutputStream outputStream) throws IOException;
+	}
+
+	/**
+	 * Counts the bytes written to it and drops them, as a socket would take them
+	 */
+	private static class CountingOutputStream extends OutputStream {
+		private long count;
+
+		@Override
+		public void write(int b) {
+			count++;
+		}
+
+		@Override
+		public void write(byte[] bytes, int offset, int length) {
+			count += length;
+		}
+	}
+}
@@ -0,0 +1,184 @@
+package ie.gmit.sw.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Consumer;
+
+import ie.gmit.sw.database.RealDatabase;
+import ie.gmit.sw.database.WordCounts;
+
+/**
+ * @author Kevin Niland
+ * @category Benchmark
+ * @version 1.0
+ *
+ *          CountingBenchmark
+ *
+ *          Counts the same stream of words from 1, 4, 16 and 64 threads at
+ *          once in three ways and prints the throughput of each and how many
+ *          words were lost:
+ *
+ *          Unsafe - containsKey/get/put on a shared map through shared fields,
+ *          as RealDatabase.addWord used to
+ *
+ *          Shared - RealDatabase.addWord(), one merge into the shared map per
+ *          word
+ *
+ *          Per thread - each thread counts a page at a time into its own
+ *          WordCounts and merges it with RealDatabase.addWords(), as NodeParser
+ *          does
+ *
+ *          Words are drawn from a Zipf distribution over a 50,000 word
+ *          vocabulary, which is roughly how words are spread over real pages
+ *
+ *          Usage: java ie.gmit.sw.benchmark.CountingBenchmark [wordsPerThread]
+ */
+public class CountingBenchmark {
+	private static final int VOCABULARY = 50000, PAGE = 1000;
+	private static final int[] THREADS = { 1, 4, 16, 64 };
+
+	public static void main(String[] args) throws Exception {
+		int wordsPerThread = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		String[] stream = Fixtures.zipf(Fixtures.vocabulary("w", VOCABULARY), wordsPerThread, new Random(1));
+
+		System.out.printf("%,d words per thread%n", wordsPerThread);
+		System.out.printf("%-8s %-12s %16s %14s%n", "Threads", "Counting", "Words/second", "Words lost");
+
+		// Warm up
+		for (int i = 0; i < 3; i++) {
+			unsafe(stream, 4);
+			shared(stream, 4);
+			perThread(stream, 4);
+		}
+
+		for (int threads : THREADS) {
+			print(threads, "Unsafe", stream.length, threads, unsafe(stream, threads));
+			print(threads, "Shared", stream.length, threads, shared(stream, threads));
+			print(threads, "Per thread", stream.length, threads, perThread(stream, threads));
+		}
+	}
+
+	private static long[] unsafe(String[] stream, int threads) throws InterruptedException {
+		UnsafeCounter counter = new UnsafeCounter();
+		long nanos = run(threads, thread -> {
+			for (String word : stream) {
+				counter.addWord(word);
+			}
+		});
+		long counted = 0;
+
+		for (int count : counter.wordMap.values()) {
+			counted += count;
+		}
+
+		return new long[] { nanos, counted };
+	}
+
+	private static long[] shared(String[] stream, int threads) throws InterruptedException {
+		RealDatabase database = RealDatabase.getInstance().newSession();
+		long nanos = run(threads, thread -> {
+			for (String word : stream) {
+				database.addWord(word);
+			}
+		});
+
+		return new long[] { nanos, total(database) };
+	}
+
+	private static long[] perThread(String[] stream, int threads) throws InterruptedException {
+		RealDatabase database = RealDatabase.getInstance().newSession();
+		long nanos = run(threads, thread -> {
+			WordCounts wordCounts = new WordCounts();
+
+			for (int i = 0; i < stream.length; i++) {
+				wordCounts.add(stream[i]);
+
+				// Merge at the end of each page
+				if ((i + 1) % PAGE == 0) {
+					database.addWords(wordCounts);
+					wordCounts.clear();
+				}
+			}
+
+			database.addWords(wordCounts);
+		});
+
+		return new long[] { nanos, total(database) };
+	}
+
+	/**
+	 * Runs body on each thread, starting them all at the same moment
+	 *
+	 * @return Nanoseconds until the last thread finished
+	 */
+	private static long run(int threads, Consumer<Integer> body) throws InterruptedException {
+		CountDownLatch ready = new CountDownLatch(threads), go = new CountDownLatch(1),
+				done = new CountDownLatch(threads);
+
+		for (int i = 0; i < threads; i++) {
+			int thread = i;
+
+			new Thread(() -> {
+				ready.countDown();
+
+				try {
+					go.await();
+					body.accept(thread);
+				} catch (InterruptedException interruptedException) {
+					Thread.currentThread().interrupt();
+				} finally {
+					done.countDown();
+				}
+			}).start();
+		}
+
+		ready.await();
+
+		long start = System.nanoTime();
+
+		go.countDown();
+		done.await();
+
+		return System.nanoTime() - start;
+	}
+
+	/**
+	 * @return Sum of every count in the database
+	 */
+	private static long total(RealDatabase database) {
+		long total = 0;
+
+		for (int count : database.getWordCounts().values()) {
+			total += count;
+		}
+
+		return total;
+	}
+
+	private static void print(int threads, String name, int words, int threadCount, long[] result) {
+		long expected = (long) words * threadCount;
+
+		System.out.printf("%-8d %-12s %,16.0f %,14d%n", threads, name, expected / (result[0] / 1e9),
+				expected - result[1]);
+	}
+
+	/**
+	 * How RealDatabase.addWord used to count words
+	 */
+	private static class UnsafeCounter {
+		private ConcurrentHashMap<String, Integer> wordMap = new ConcurrentHashMap<String, Integer>();
+		private int counter;
+
+		private void addWord(String word) {
+			if (wordMap.containsKey(word)) {
+				counter = wordMap.get(word);
+				counter++;
+
+				wordMap.put(word, counter);
+			} else {
+				wordMap.put(word, 1);
+			}
+		}
+	}
+}
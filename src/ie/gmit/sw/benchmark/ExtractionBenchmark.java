@@ -0,0 +1,137 @@
+package ie.gmit.sw.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+import ie.gmit.sw.parser.features.FeatureExtractor;
+import ie.gmit.sw.parser.features.PageFeatures;
+import ie.gmit.sw.parser.features.SearchTermMatcher;
+import ie.gmit.sw.parser.features.StreamedPage;
+import ie.gmit.sw.parser.features.StreamingExtractor;
+import ie.gmit.sw.parser.tokenizer.Tokenizer;
+
+/**
+ * @author Kevin Niland
+ * @category Benchmark
+ * @version 1.0
+ *
+ *          ExtractionBenchmark
+ *
+ *          Compares the time and memory allocated to get the features and words
+ *          of a page by parsing it with jsoup and tokenizing body().text() (as
+ *          NodeParser does by default) against StreamingExtractor, and checks
+ *          both find the same hits, links and number of words. Uses the given
+ *          HTML files, or a generated 8 MB page if none are given
+ *
+ *          Usage: java ie.gmit.sw.benchmark.ExtractionBenchmark [page.html...]
+ */
+public class ExtractionBenchmark {
+	private static final int ITERATIONS = 10;
+	private static final String URL = "https://example.com/articles/";
+
+	public static void main(String[] args) throws Exception {
+		List<byte[]> pages = new ArrayList<byte[]>();
+
+		if (args.length == 0) {
+			pages.add(generate(8 * 1024 * 1024).getBytes(StandardCharsets.UTF_8));
+		} else {
+			for (String file : args) {
+				pages.add(Files.readAllBytes(new File(file).toPath()));
+			}
+		}
+
+		SearchTermMatcher matcher = new SearchTermMatcher(Arrays.asList("fuzzy", "logic", "search"));
+		FeatureExtractor featureExtractor = new FeatureExtractor(matcher);
+		StreamingExtractor streamingExtractor = new StreamingExtractor(matcher, Integer.MAX_VALUE, Integer.MAX_VALUE);
+		StreamingExtractor budgeted = new StreamingExtractor(matcher, 2 * 1024 * 1024, 50000);
+
+		for (byte[] page : pages) {
+			System.out.printf("Page: %,d bytes%n", page.length);
+
+			// Warm up both
+			for (int i = 0; i < 3; i++) {
+				jsoup(featureExtractor, page);
+				streamingExtractor.read(new ByteArrayInputStream(page), null, URL);
+			}
+
+			System.out.printf("jsoup:     %s%n", measure(() -> jsoup(featureExtractor, page)));
+			System.out.printf("Streaming: %s%n",
+					measure(() -> streamingExtractor.read(new ByteArrayInputStream(page), null, URL)));
+			System.out.printf("Budgeted:  %s%n", measure(() -> budgeted.read(new ByteArrayInputStream(page), null, URL)));
+
+			StreamedPage streamed = streamingExtractor.read(new ByteArrayInputStream(page), null, URL);
+
+			System.out.println("jsoup:     " + jsoup(featureExtractor, page));
+			System.out.println("Streaming: " + streamed.getFeatures() + "\tWords: " + streamed.getWords().size());
+			System.out.println("Budgeted:  " + budgeted.read(new ByteArrayInputStream(page), null, URL));
+		}
+	}
+
+	private static String jsoup(FeatureExtractor featureExtractor, byte[] page) throws Exception {
+		Document document = Jsoup.parse(new ByteArrayInputStream(page), null, URL);
+		PageFeatures features = featureExtractor.extract(document);
+		int[] words = new int[1];
+
+		new Tokenizer().tokenize(document.body().text(), (buffer, length, hash) -> words[0]++);
+
+		return features + "\tWords: " + words[0];
+	}
+
+	/**
+	 * @return Average time and bytes allocated per page
+	 */
+	private static String measure(Callable<?> callable) throws Exception {
+		com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+		long allocated = threadMXBean.getThreadAllocatedBytes(thread);
+		long start = System.nanoTime();
+
+		for (int i = 0; i < ITERATIONS; i++) {
+			callable.call();
+		}
+
+		long time = (System.nanoTime() - start) / ITERATIONS;
+
+		allocated = (threadMXBean.getThreadAllocatedBytes(thread) - allocated) / ITERATIONS;
+
+		return String.format("%,8.1f ms/page  %,14d bytes allocated/page", time / 1e6, allocated);
+	}
+
+	private static String generate(int length) {
+		String[] words = { "cloud", "search", "fuzzy", "logic", "network", "the", "and", "heuristic", "caf&eacute;",
+				"na&iuml;ve", "word", "frequency", "Galway", "spiral", "2020", "don&rsquo;t", "page", "<b>parser</b>",
+				"<a href=\"fuzzy-logic.html?a=1&amp;b=2\">fuzzy logic</a>", "<a href=\"/about\">about</a>" };
+		Random random = new Random(1);
+		StringBuilder html = new StringBuilder(length + 1024);
+
+		html.append("<!DOCTYPE html><html><head><meta charset=\"utf-8\"><title>Fuzzy search</title>");
+		html.append("<style>p { color: red; }</style><script>if (a < b) { x = '<p>logic</p>'; }</script>");
+		html.append("</head><body>");
+
+		while (html.length() < length) {
+			int section = random.nextInt(10);
+
+			html.append(section == 0 ? "<h2>" : section == 1 ? "<div><!-- search --><p>" : "<p>");
+
+			for (int i = 0, count = 10 + random.nextInt(50); i < count; i++) {
+				html.append(words[random.nextInt(words.length)]).append(random.nextInt(10) == 0 ? ". " : " ");
+			}
+
+			html.append(section == 0 ? "</h2>\n" : section == 1 ? "</div>\n" : "</p>\n");
+		}
+
+		return html.append("</body></html>").toString();
+	}
+}
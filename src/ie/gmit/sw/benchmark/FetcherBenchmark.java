@@ -0,0 +1,205 @@
+package ie.gmit.sw.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+import com.sun.net.httpserver.HttpServer;
+
+import ie.gmit.sw.fetcher.AsyncFetcher;
+
+/**
+ * @author Kevin Niland
+ * @category Benchmark
+ * @version 1.0
+ *
+ *          FetcherBenchmark
+ *
+ *          Serves a crawl's worth of pages from a local HTTP server that sleeps
+ *          before answering each request, split across two host names for the
+ *          same server, 127.0.0.1 and localhost. Fetches them one after another
+ *          with Jsoup, as NodeParser used to, and then all at once through
+ *          AsyncFetcher with several in-flight limits. The server records the
+ *          most requests it had open at once, in total and to each host, and
+ *          the wall-clock time of each run is printed against the sequential
+ *          one. Fails if the most requests open to a host ever went over the
+ *          per-host limit, if the most open in total went over the crawl's
+ *          limit, or if a page came back without its own title
+ *
+ *          Usage: java ie.gmit.sw.benchmark.FetcherBenchmark [pages]
+ *          [latencyMillis]
+ */
+public class FetcherBenchmark {
+	private static final String[] HOSTS = { "127.0.0.1", "localhost" };
+	private static final int[][] LIMITS = { { 16, 1 }, { 16, 2 }, { 16, 4 }, { 16, 8 }, { 4, 8 } };
+
+	public static void main(String[] args) throws Exception {
+		int pages = args.length > 0 ? Integer.parseInt(args[0]) : 25;
+		int latency = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+		HttpServer server = HttpServer.create(new InetSocketAddress(0), 0);
+		Recorder recorder = new Recorder();
+		int failures = 0;
+
+		// Enough threads that the server never limits how many requests are open
+		server.setExecutor(Executors.newFixedThreadPool(64));
+		server.createContext("/", exchange -> {
+			String host = exchange.getRequestHeaders().getFirst("Host").replaceFirst(":\\d+$", "");
+			byte[] body = ("<html><head><title>" + exchange.getRequestURI().getPath()
+					+ "</title></head><body>page</body></html>").getBytes(StandardCharsets.UTF_8);
+
+			recorder.open(host);
+
+			try {
+				Thread.sleep(latency);
+			} catch (InterruptedException interruptedException) {
+				Thread.currentThread().interrupt();
+			} finally {
+				// Closed before answering, so the client can't start its next request while this one is still counted
+				recorder.close(host);
+			}
+
+			exchange.getResponseHeaders().set("Content-Type", "text/html; charset=UTF-8");
+			exchange.sendResponseHeaders(200, body.length);
+
+			try (OutputStream outputStream = exchange.getResponseBody()) {
+				outputStream.write(body);
+			}
+
+			exchange.close();
+		});
+		server.start();
+
+		List<String> urls = new ArrayList<String>();
+
+		for (int page = 0; page < pages; page++) {
+			urls.add("http://" + HOSTS[page % HOSTS.length] + ":" + server.getAddress().getPort() + "/page/" + page);
+		}
+
+		try {
+			System.out.printf("%d pages over %d hosts, %d ms a request%n", pages, HOSTS.length, latency);
+			System.out.printf("%-22s %10s %9s %14s %13s%n", "Fetched", "ms", "Speedup", "Most per host",
+					"Most in total");
+
+			// Warm up
+			fetch(urls, 16, 16);
+			recorder.reset();
+
+			long start = System.nanoTime();
+
+			for (String url : urls) {
+				check(url, Jsoup.connect(url).timeout(10000).get());
+			}
+
+			double sequential = (System.nanoTime() - start) / 1e6;
+
+			System.out.printf("%-22s %,10.1f %8.1fx %14d %13d%n", "One at a time", sequential, 1.0,
+					recorder.mostPerHost(), recorder.mostInTotal());
+
+			for (int[] limit : LIMITS) {
+				int maxInFlight = limit[0], maxPerHost = limit[1];
+
+				recorder.reset();
+				start = System.nanoTime();
+				fetch(urls, maxInFlight, maxPerHost);
+
+				double millis = (System.nanoTime() - start) / 1e6;
+
+				System.out.printf("%-22s %,10.1f %8.1fx %14d %13d%n",
+						"In flight " + maxInFlight + ", host " + maxPerHost, millis, sequential / millis,
+						recorder.mostPerHost(), recorder.mostInTotal());
+
+				if (recorder.mostPerHost() > maxPerHost) {
+					System.out.println("More than " + maxPerHost + " requests were open to one host");
+					failures++;
+				}
+
+				if (recorder.mostInTotal() > maxInFlight) {
+					System.out.println("More than " + maxInFlight + " requests were open at once");
+					failures++;
+				}
+			}
+
+			System.out.println(failures == 0 ? "Every limit held" : failures + " failures");
+
+			if (failures > 0) {
+				System.exit(1);
+			}
+		} finally {
+			server.stop(0);
+			((ExecutorService) server.getExecutor()).shutdown();
+		}
+	}
+
+	/**
+	 * Fetches every page at once, as NodeParser fetches the children of a page
+	 */
+	private static void fetch(List<String> urls, int maxInFlight, int maxPerHost) throws Exception {
+		AsyncFetcher asyncFetcher = new AsyncFetcher(maxInFlight, maxPerHost, 10000);
+		List<CompletableFuture<Document>> futures = new ArrayList<CompletableFuture<Document>>();
+
+		try {
+			for (String url : urls) {
+				futures.add(asyncFetcher.fetch(url));
+			}
+
+			for (int i = 0; i < urls.size(); i++) {
+				check(urls.get(i), futures.get(i).join());
+			}
+		} finally {
+			asyncFetcher.shutdown();
+		}
+	}
+
+	private static void check(String url, Document document) throws IOException {
+		if (!url.endsWith(document.title())) {
+			throw new IOException(url + " came back as " + document.title());
+		}
+	}
+
+	/**
+	 * Counts the requests the server has open, in total and to each host, and
+	 * the most there have been
+	 */
+	private static class Recorder {
+		private final Map<String, AtomicInteger> open = new ConcurrentHashMap<String, AtomicInteger>();
+		private final AtomicInteger inTotal = new AtomicInteger(), mostInTotal = new AtomicInteger(),
+				mostPerHost = new AtomicInteger();
+
+		private void open(String host) {
+			int perHost = open.computeIfAbsent(host, key -> new AtomicInteger()).incrementAndGet();
+
+			mostPerHost.accumulateAndGet(perHost, Math::max);
+			mostInTotal.accumulateAndGet(inTotal.incrementAndGet(), Math::max);
+		}
+
+		private void close(String host) {
+			open.get(host).decrementAndGet();
+			inTotal.decrementAndGet();
+		}
+
+		private int mostPerHost() {
+			return mostPerHost.get();
+		}
+
+		private int mostInTotal() {
+			return mostInTotal.get();
+		}
+
+		private void reset() {
+			mostPerHost.set(0);
+			mostInTotal.set(0);
+		}
+	}
+}
@@ -0,0 +1,152 @@
+package ie.gmit.sw.benchmark;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import ie.gmit.sw.ai.cloud.CollisionDetector;
+import ie.gmit.sw.ai.cloud.WeightedFont;
+import ie.gmit.sw.ai.cloud.WordFrequency;
+
+/**
+ * @author Kevin Niland
+ * @category Benchmark
+ * @version 1.0
+ *
+ *          Fixtures
+ *
+ *          Made up words, streams of words and clouds shared by the benchmarks,
+ *          so they all measure against the same kind of text
+ */
+final class Fixtures {
+	private Fixtures() {
+
+	}
+
+	/**
+	 * Numbers are written as letters, so the words look like those on a page
+	 *
+	 * @param prefix - Start of the word
+	 * @param number - Number of the word
+	 * @return word - prefix followed by number in base 26, a to z, lowest digit
+	 *         first
+	 */
+	static String word(String prefix, int number) {
+		StringBuilder word = new StringBuilder(prefix);
+
+		do {
+			word.append((char) ('a' + number % 26));
+			number /= 26;
+		} while (number > 0);
+
+		return word.toString();
+	}
+
+	/**
+	 * @param prefix - Start of each word
+	 * @param size   - Number of words
+	 * @return vocabulary - word(prefix, i) for each i below size
+	 */
+	static String[] vocabulary(String prefix, int size) {
+		String[] vocabulary = new String[size];
+
+		for (int i = 0; i < size; i++) {
+			vocabulary[i] = word(prefix, i);
+		}
+
+		return vocabulary;
+	}
+
+	/**
+	 * Words drawn from a Zipf distribution, which is roughly how words are spread
+	 * over real pages. The same String is used for each occurrence of a word, as
+	 * TermTable gives
+	 *
+	 * @param vocabulary - Words, most frequent first
+	 * @param length     - Number of words drawn
+	 * @param random     - Source of the draws
+	 * @return stream - The words drawn
+	 */
+	static String[] zipf(String[] vocabulary, int length, Random random) {
+		Zipf zipf = new Zipf(vocabulary.length);
+		String[] stream = new String[length];
+
+		for (int i = 0; i < length; i++) {
+			stream[i] = vocabulary[zipf.next(random)];
+		}
+
+		return stream;
+	}
+
+	/**
+	 * Words for a cloud. Word n is counted 10,000 / n times, with font sizes from
+	 * WeightedFont
+	 *
+	 * @param count - Number of words
+	 * @return words - The words, most frequent first
+	 */
+	static WordFrequency[] cloud(int count) {
+		WordFrequency[] words = new WordFrequency[count];
+
+		for (int i = 0; i < count; i++) {
+			words[i] = new WordFrequency(word("w", i), Math.max(1, 10000 / (i + 1)));
+		}
+
+		return new WeightedFont().getFontSizes(words);
+	}
+
+	/**
+	 * Draws numbers below size, where n is drawn 1 / (n + 1) as often as 0
+	 */
+	static class Zipf {
+		private final double[] cumulative;
+		private final double sum;
+
+		Zipf(int size) {
+			double sum = 0;
+
+			cumulative = new double[size];
+
+			for (int i = 0; i < size; i++) {
+				sum += 1.0 / (i + 1);
+				cumulative[i] = sum;
+			}
+
+			this.sum = sum;
+		}
+
+		int next(Random random) {
+			int index = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+
+			return Math.min(cumulative.length - 1, index < 0 ? -index - 1 : index);
+		}
+	}
+
+	/**
+	 * The grid, remembering where words were placed and how many steps were
+	 * checked one at a time
+	 */
+	static class RecordingDetector extends CollisionDetector {
+		final List<Rectangle> placed = new ArrayList<Rectangle>();
+		long checks;
+
+		RecordingDetector(int width, int height) {
+			super(width, height);
+		}
+
+		@Override
+		public void add(Rectangle word) {
+			placed.add(word);
+			super.add(word);
+		}
+
+		@Override
+		public boolean collides(Rectangle word) {
+			checks++;
+
+			return super.collides(word);
+		}
+	}
+}
@@ -0,0 +1,151 @@
+package ie.gmit.sw.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import ie.gmit.sw.ai.cloud.CollisionMode;
+import ie.gmit.sw.ai.cloud.FontCache;
+import ie.gmit.sw.ai.cloud.LogarithmicSpiralPlacer;
+import ie.gmit.sw.ai.cloud.WeightedFont;
+import ie.gmit.sw.ai.cloud.WordFrequency;
+
+/**
+ * @author Kevin Niland
+ * @category Benchmark
+ * @version 1.0
+ *
+ *          FontCacheBenchmark
+ *
+ *          Draws a run of clouds, as a run of searches would, each from a
+ *          different mix of words out of the same vocabulary, with both
+ *          collision modes. The clouds are drawn measuring every word each time
+ *          (a cache of capacity 0), and then with one cache shared by every
+ *          cloud, and the mean time per cloud and the cache's hit rates are
+ *          printed for each. Then draws the same clouds from several threads at
+ *          once sharing the cache. Fails if any cloud's pixels differ from the
+ *          ones drawn without the cache
+ *
+ *          Usage: java ie.gmit.sw.benchmark.FontCacheBenchmark [clouds]
+ *          [wordsPerCloud] [threads]
+ */
+public class FontCacheBenchmark {
+	private static final int WIDTH = 800, HEIGHT = 600, VOCABULARY = 2000;
+
+	public static void main(String[] args) throws Exception {
+		int clouds = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+		int words = args.length > 1 ? Integer.parseInt(args[1]) : 250;
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+		int failures = 0;
+
+		System.setProperty("java.awt.headless", "true");
+
+		// Warm up
+		for (int i = 0; i < 3; i++) {
+			draw(cloud(i, words), CollisionMode.MASK, new FontCache(0));
+		}
+
+		System.out.printf("%d clouds of %d words from %,d%n", clouds, words, VOCABULARY);
+		System.out.printf("%-10s %-10s %14s  %s%n", "Mode", "Cache", "ms per cloud", "Hit rates");
+
+		for (CollisionMode collisionMode : CollisionMode.values()) {
+			List<int[]> expected = new ArrayList<int[]>();
+			FontCache none = new FontCache(0), shared = new FontCache(10000);
+			long start = System.nanoTime();
+
+			for (int i = 0; i < clouds; i++) {
+				expected.add(draw(cloud(i, words), collisionMode, none));
+			}
+
+			print(collisionMode, "None", System.nanoTime() - start, clouds, none);
+			start = System.nanoTime();
+
+			for (int i = 0; i < clouds; i++) {
+				if (!Arrays.equals(draw(cloud(i, words), collisionMode, shared), expected.get(i))) {
+					System.out.println(collisionMode + " cloud " + i + " differs with the cache");
+					failures++;
+				}
+			}
+
+			print(collisionMode, "Shared", System.nanoTime() - start, clouds, shared);
+
+			// The same clouds again, from several threads at once
+			ExecutorService executorService = Executors.newFixedThreadPool(threads);
+			FontCache concurrent = new FontCache(10000);
+			List<Future<int[]>> futures = new ArrayList<Future<int[]>>();
+
+			start = System.nanoTime();
+
+			for (int i = 0; i < clouds; i++) {
+				int cloud = i;
+
+				futures.add(executorService.submit(() -> draw(cloud(cloud, words), collisionMode, concurrent)));
+			}
+
+			for (int i = 0; i < clouds; i++) {
+				if (!Arrays.equals(futures.get(i).get(), expected.get(i))) {
+					System.out.println(collisionMode + " cloud " + i + " differs drawn with " + threads + " threads");
+					failures++;
+				}
+			}
+
+			print(collisionMode, threads + " threads", System.nanoTime() - start, clouds, concurrent);
+			executorService.shutdown();
+		}
+
+		System.out.println(failures == 0 ? "Every cloud matched" : failures + " failures");
+
+		if (failures > 0) {
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Places the words largest first with the same colours each time
+	 *
+	 * @return Pixels of the cloud
+	 */
+	private static int[] draw(WordFrequency[] words, CollisionMode collisionMode, FontCache fontCache) {
+		LogarithmicSpiralPlacer logarithmicSpiralPlacer = new LogarithmicSpiralPlacer(WIDTH, HEIGHT);
+
+		logarithmicSpiralPlacer.setCollisionMode(collisionMode);
+		logarithmicSpiralPlacer.setFontCache(fontCache);
+		logarithmicSpiralPlacer.setSeed(1);
+
+		for (WordFrequency word : words) {
+			logarithmicSpiralPlacer.place(word);
+		}
+
+		return logarithmicSpiralPlacer.getImage().getRGB(0, 0, WIDTH, HEIGHT, null, 0, WIDTH);
+	}
+
+	private static void print(CollisionMode collisionMode, String cache, long nanos, int clouds, FontCache fontCache) {
+		System.out.printf("%-10s %-10s %,14.1f  fonts %.1f%%, words %.1f%%%n", collisionMode, cache,
+				nanos / 1e6 / clouds, fontCache.getFontHitRate() * 100, fontCache.getTextHitRate() * 100);
+	}
+
+	/**
+	 * The words of one search. Each cloud draws its words from the vocabulary
+	 * with a different shift, so popular words are shared between clouds but
+	 * counted, and so sized, differently in each
+	 */
+	private static WordFrequency[] cloud(int number, int count) {
+		WordFrequency[] words = new WordFrequency[count];
+
+		for (int i = 0; i < count; i++) {
+			int index = (i + number * 25) % VOCABULARY;
+			StringBuilder word = new StringBuilder("w");
+
+			for (int n = index; n > 0 || word.length() == 1; n /= 26) {
+				word.append((char) ('a' + n % 26));
+			}
+
+			words[i] = new WordFrequency(word.toString(), Math.max(1, 10000 / (i + 1 + number % 3)));
+		}
+
+		return new WeightedFont().getFontSizes(words);
+	}
+}
@@ -0,0 +1,137 @@
+package ie.gmit.sw.benchmark;
+
+import java.io.File;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+import ie.gmit.sw.ai.cloud.WordFrequency;
+import ie.gmit.sw.ai.fuzzy.FuzzyScorer;
+import ie.gmit.sw.database.RealDatabase;
+import ie.gmit.sw.fetcher.AsyncFetcher;
+import ie.gmit.sw.parser.NodeParser;
+import ie.gmit.sw.parser.frontier.BestFirstFrontier;
+import ie.gmit.sw.parser.frontier.BreadthFirstFrontier;
+import ie.gmit.sw.parser.frontier.RandomFrontier;
+import ie.gmit.sw.parser.interfaces.Frontier;
+import ie.gmit.sw.parser.visited.BloomVisitedSet;
+import ie.gmit.sw.session.CrawlSession;
+
+/**
+ * @author Kevin Niland
+ * @category Benchmark
+ * @version 1.0
+ *
+ *          FrontierBenchmark
+ *
+ *          Runs the random, breadth first and best first search strategies over
+ *          the same recorded set of pages and prints how many pages each one
+ *          fetched, how many it kept and the top words it found. Pages missing
+ *          from the corpus directory are downloaded and saved when run with
+ *          -Drecord=true, so the first run records the corpus and every run
+ *          after that replays it
+ *
+ *          Usage: java [-Drecord=true] ie.gmit.sw.benchmark.FrontierBenchmark
+ *          corpusDir searchTerm seedUrl...
+ */
+public class FrontierBenchmark {
+	private static final boolean RECORD = Boolean.getBoolean("record");
+
+	public static void main(String[] args) throws Exception {
+		File corpus = new File(args[0]);
+		String searchTerm = args[1];
+		String[] seeds = Arrays.copyOfRange(args, 2, args.length);
+		RealDatabase realDatabase = RealDatabase.getInstance();
+
+		corpus.mkdirs();
+		realDatabase.ignoreFromFile(new File("WebContent/res/ignorewords.txt"));
+		FuzzyScorer.getInstance().load(new File("WebContent/res/wcloud.fcl"));
+
+		for (String strategy : new String[] { "Random", "Breadth first", "Best first" }) {
+			RecordedFetcher fetcher = new RecordedFetcher(corpus);
+			CrawlSession session = new CrawlSession(realDatabase.newSession(), fetcher,
+					new BloomVisitedSet(10000, 0.01), null);
+			int added = 0, maxDepth = 0;
+			long start = System.currentTimeMillis();
+
+			for (String seed : seeds) {
+				NodeParser nodeParser = new NodeParser(session, frontier(strategy), seed, searchTerm);
+
+				nodeParser.run();
+				added += nodeParser.getPagesAdded();
+				maxDepth = Math.max(maxDepth, nodeParser.getMaxDepth());
+			}
+
+			fetcher.shutdown();
+
+			System.out.printf("%-14s fetched: %4d  kept: %4d  max depth: %2d  time: %,d ms%n", strategy,
+					fetcher.fetched.get(), added, maxDepth, System.currentTimeMillis() - start);
+
+			WordFrequency[] words = session.getDatabase().getWordFrequency();
+
+			for (int i = 0; i < 10 && i < words.length; i++) {
+				System.out.println("\t" + words[i]);
+			}
+		}
+	}
+
+	private static Frontier frontier(String strategy) {
+		switch (strategy) {
+		case "Random":
+			return new RandomFrontier(new Random(1));
+		case "Breadth first":
+			return new BreadthFirstFrontier();
+		default:
+			return new BestFirstFrontier();
+		}
+	}
+
+	/**
+	 * Serves pages from the corpus directory, saving any that are missing when
+	 * recording
+	 */
+	private static class RecordedFetcher extends AsyncFetcher {
+		private final AtomicInteger fetched = new AtomicInteger();
+		private final File corpus;
+
+		private RecordedFetcher(File corpus) {
+			super(16, 2, 10000);
+
+			this.corpus = corpus;
+		}
+
+		@Override
+		protected Document download(String url) throws Exception {
+			File file = new File(corpus, sha1(url) + ".html");
+
+			fetched.incrementAndGet();
+
+			if (file.exists()) {
+				return Jsoup.parse(file, "UTF-8", url);
+			}
+
+			if (!RECORD) {
+				throw new IllegalStateException("Not in corpus: " + url);
+			}
+
+			Document document = super.download(url);
+
+			Files.write(file.toPath(), document.outerHtml().getBytes(StandardCharsets.UTF_8));
+
+			return document;
+		}
+
+		private static String sha1(String url) throws Exception {
+			byte[] digest = MessageDigest.getInstance("SHA-1").digest(url.getBytes(StandardCharsets.UTF_8));
+
+			return String.format("%040x", new BigInteger(1, digest));
+		}
+	}
+}
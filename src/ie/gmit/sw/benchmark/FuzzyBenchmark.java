@@ -0,0 +1,105 @@
+package ie.gmit.sw.benchmark;
+
+import java.io.File;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import ie.gmit.sw.ai.fuzzy.FuzzyScorer;
+import ie.gmit.sw.ai.fuzzy.interfaces.Scorer;
+import net.sourceforge.jFuzzyLogic.FIS;
+
+/**
+ * @author Kevin Niland
+ * @category Benchmark
+ * @version 1.0
+ *
+ *          FuzzyBenchmark
+ *
+ *          Compares the number of pages scored per second when the FCL file is
+ *          loaded for every page (as NodeParser used to do) against the shared
+ *          FuzzyScorer, both interpreted and compiled to a lookup table, using
+ *          the same 20 threads as ServiceHandler
+ *
+ *          Usage: java ie.gmit.sw.benchmark.FuzzyBenchmark
+ *          WebContent/res/wcloud.fcl [gridStep] [maxError]
+ */
+public class FuzzyBenchmark {
+	private static final int THREADS = 20;
+	private static final long DURATION = 5000;
+
+	public static void main(String[] args) throws Exception {
+		File jfuzzyFile = new File(args.length > 0 ? args[0] : "WebContent/res/wcloud.fcl");
+		double step = args.length > 1 ? Double.parseDouble(args[1]) : 0.5;
+		double maxError = args.length > 2 ? Double.parseDouble(args[2]) : 0.25;
+
+		FuzzyScorer.getInstance().load(jfuzzyFile);
+
+		// The way NodeParser used to score a page
+		Scorer perPage = (title, headings, body) -> {
+			FIS fis = FIS.load(jfuzzyFile.getAbsolutePath(), false);
+
+			fis.setVariable("title", title);
+			fis.setVariable("headings", headings);
+			fis.setVariable("body", body);
+			fis.evaluate();
+
+			return fis.getFunctionBlock("wcloud").getVariable("score").getLatestDefuzzifiedValue();
+		};
+
+		// Warm up both
+		run(perPage, 1000);
+		run(FuzzyScorer.getInstance(), 1000);
+
+		double before = run(perPage, DURATION);
+		double after = run(FuzzyScorer.getInstance(), DURATION);
+
+		// Switch the shared scorer to the lookup table
+		FuzzyScorer.getInstance().enableLookupTable(step, maxError);
+
+		if (FuzzyScorer.getInstance().getLookupTable() == null) {
+			System.err.println("Lookup table isn't within " + maxError + " of the FIS");
+		}
+
+		run(FuzzyScorer.getInstance(), 1000);
+
+		double compiled = run(FuzzyScorer.getInstance(), DURATION);
+
+		System.out.printf("FIS.load per page: %,.0f pages/s%n", before);
+		System.out.printf("FuzzyScorer:       %,.0f pages/s%n", after);
+		System.out.printf("Speed up:          %.1fx%n", after / before);
+		System.out.printf("Lookup table:      %,.0f pages/s%n", compiled);
+		System.out.printf("Speed up:          %.1fx over FuzzyScorer%n", compiled / after);
+	}
+
+	/**
+	 * Scores random pages on THREADS threads for the given number of milliseconds
+	 *
+	 * @return Pages scored per second
+	 */
+	private static double run(Scorer scorer, long duration) throws InterruptedException {
+		ExecutorService executorService = Executors.newFixedThreadPool(THREADS);
+		AtomicLong pages = new AtomicLong();
+		long end = System.currentTimeMillis() + duration;
+
+		for (int i = 0; i < THREADS; i++) {
+			final int seed = i;
+
+			executorService.execute(() -> {
+				Random random = new Random(seed);
+
+				while (System.currentTimeMillis() < end) {
+					scorer.score(random.nextInt(2), random.nextInt(10), random.nextInt(14));
+					pages.incrementAndGet();
+				}
+			});
+		}
+
+		executorService.shutdown();
+		executorService.awaitTermination(duration + 60000, TimeUnit.MILLISECONDS);
+
+		return pages.get() * 1000.0 / duration;
+	}
+}
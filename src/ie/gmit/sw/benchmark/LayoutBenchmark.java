@@ -0,0 +1,159 @@
+package ie.gmit.sw.benchmark;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+
+import ie.gmit.sw.ai.cloud.CollisionDetector;
+import ie.gmit.sw.ai.cloud.CollisionMode;
+import ie.gmit.sw.ai.cloud.LogarithmicSpiralPlacer;
+import ie.gmit.sw.ai.cloud.WordFrequency;
+
+/**
+ * @author Kevin Niland
+ * @category Benchmark
+ * @version 1.0
+ *
+ *          LayoutBenchmark
+ *
+ *          Lays out clouds of 32 to 2,000 words on the 800 x 600 canvas
+ *          ServiceHandler uses, checking each spiral step against every placed
+ *          word (as CollisionDetector used to) and against CollisionDetector's
+ *          grid, and prints the time each takes. Fails if the two place any
+ *          word differently. Then lays them out again comparing the pixels the
+ *          words cover, with glyph masks, and prints how many spiral steps each
+ *          took, how many words ended up on the canvas and their mean distance
+ *          from its centre, as a measure of how tight each layout is. Last,
+ *          lays out 2,000 words with a few step budgets and prints what the
+ *          placer had to do to fit them in each. Word
+ *          frequencies follow a Zipf distribution, and font sizes come from
+ *          WeightedFont as they do for a search
+ *
+ *          Usage: java ie.gmit.sw.benchmark.LayoutBenchmark [maxLinearWords]
+ *          [budgetWords]
+ */
+public class LayoutBenchmark {
+	private static final int WIDTH = 800, HEIGHT = 600;
+	private static final int[] WORDS = { 32, 250, 1000, 2000 };
+	private static final int[] BUDGETS = { 0, 3000, 1000 };
+
+	public static void main(String[] args) {
+		int maxLinearWords = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		int budgetWords = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+		int failures = 0;
+
+		System.setProperty("java.awt.headless", "true");
+
+		// Warm up both
+		for (int i = 0; i < 3; i++) {
+			layout(Fixtures.cloud(250), new LinearDetector(), CollisionMode.RECTANGLE);
+			layout(Fixtures.cloud(250), new Fixtures.RecordingDetector(WIDTH, HEIGHT), CollisionMode.RECTANGLE);
+			layout(Fixtures.cloud(250), new Fixtures.RecordingDetector(WIDTH, HEIGHT), CollisionMode.MASK);
+		}
+
+		System.out.printf("%-6s %10s %10s %10s %12s %12s %13s %15s%n", "Words", "Linear ms", "Grid ms",
+				"Mask ms", "Grid steps", "Mask steps", "On canvas", "Mean radius");
+
+		for (int count : WORDS) {
+			Fixtures.RecordingDetector grid = new Fixtures.RecordingDetector(WIDTH, HEIGHT);
+			long gridNanos = layout(Fixtures.cloud(count), grid, CollisionMode.RECTANGLE);
+			Fixtures.RecordingDetector mask = new Fixtures.RecordingDetector(WIDTH, HEIGHT);
+			long maskNanos = layout(Fixtures.cloud(count), mask, CollisionMode.MASK);
+			String linearMillis = "-";
+
+			if (count <= maxLinearWords) {
+				LinearDetector linear = new LinearDetector();
+				long linearNanos = layout(Fixtures.cloud(count), linear, CollisionMode.RECTANGLE);
+
+				linearMillis = String.format("%,.1f", linearNanos / 1e6);
+
+				if (!linear.placed.equals(grid.placed)) {
+					System.out.println(count + " words: the grid placed words differently");
+					failures++;
+				}
+			}
+
+			System.out.printf("%-6d %10s %,10.1f %,10.1f %,12d %,12d %6d/%-6d %7.0f/%-7.0f%n", count, linearMillis,
+					gridNanos / 1e6, maskNanos / 1e6, grid.checks, mask.checks, onCanvas(grid.placed),
+					onCanvas(mask.placed), meanRadius(grid.placed), meanRadius(mask.placed));
+		}
+
+		System.out.printf("%n%,d words with a step budget (0 is the whole spiral)%n", budgetWords);
+
+		for (CollisionMode collisionMode : CollisionMode.values()) {
+			for (int budget : BUDGETS) {
+				long start = System.nanoTime();
+				LogarithmicSpiralPlacer logarithmicSpiralPlacer = new LogarithmicSpiralPlacer(WIDTH, HEIGHT);
+
+				logarithmicSpiralPlacer.setCollisionMode(collisionMode);
+				logarithmicSpiralPlacer.setStepBudget(budget);
+
+				for (WordFrequency word : Fixtures.cloud(budgetWords)) {
+					logarithmicSpiralPlacer.place(word);
+				}
+
+				System.out.printf("%-10s %,6d %,8.1f ms  %s%n", collisionMode, budget, (System.nanoTime() - start) / 1e6,
+						logarithmicSpiralPlacer.getReport());
+			}
+		}
+
+		if (failures > 0) {
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Places the words largest first, as ServiceHandler does
+	 *
+	 * @return Nanoseconds taken
+	 */
+	private static long layout(WordFrequency[] words, CollisionDetector detector, CollisionMode collisionMode) {
+		long start = System.nanoTime();
+		LogarithmicSpiralPlacer logarithmicSpiralPlacer = new LogarithmicSpiralPlacer(WIDTH, HEIGHT, detector);
+
+		logarithmicSpiralPlacer.setCollisionMode(collisionMode);
+
+		for (WordFrequency word : words) {
+			logarithmicSpiralPlacer.place(word);
+		}
+
+		logarithmicSpiralPlacer.getImage();
+
+		return System.nanoTime() - start;
+	}
+
+	/**
+	 * @return Number of words wholly on the canvas
+	 */
+	private static int onCanvas(List<Rectangle> placed) {
+		Rectangle canvas = new Rectangle(0, 0, WIDTH, HEIGHT);
+
+		return (int) placed.stream().filter(canvas::contains).count();
+	}
+
+	/**
+	 * @return Mean distance of the centres of the words from the centre of the
+	 *         canvas
+	 */
+	private static double meanRadius(List<Rectangle> placed) {
+		return placed.stream().mapToDouble(word -> Math.hypot(word.getCenterX() - WIDTH / 2, word.getCenterY()
+				- HEIGHT / 2)).average().orElse(0);
+	}
+
+	/**
+	 * Checks every placed word, as CollisionDetector used to
+	 */
+	private static class LinearDetector extends CollisionDetector {
+		private List<Rectangle> placed = new ArrayList<Rectangle>();
+
+		@Override
+		public void add(Rectangle word) {
+			placed.add(word);
+		}
+
+		@Override
+		public boolean collides(Rectangle word) {
+			return collides(word, placed);
+		}
+	}
+}
@@ -0,0 +1,144 @@
+package ie.gmit.sw.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.jsoup.nodes.Document;
+
+import com.sun.net.httpserver.HttpServer;
+
+import ie.gmit.sw.fetcher.AsyncFetcher;
+import ie.gmit.sw.fetcher.PageCache;
+import ie.gmit.sw.parser.interfaces.VisitedSet;
+import ie.gmit.sw.parser.visited.WindowedVisitedSet;
+
+/**
+ * @author Kevin Niland
+ * @category Benchmark
+ * @version 1.0
+ *
+ *          PageCacheBenchmark
+ *
+ *          Serves a set of pages with ETags from a local HTTP server and fetches
+ *          them through the page cache five times: with an empty cache, while
+ *          the cached copies are still fresh, after they've gone stale (so each
+ *          one is revalidated with If-None-Match), while still stale but
+ *          downloaded within VISITED_WINDOW (so each one is read from disk
+ *          without a request) and after the cache has been reopened from disk,
+ *          as it would be after a restart. Prints the cache's counters and the
+ *          bytes the server sent for each pass
+ *
+ *          Usage: java ie.gmit.sw.benchmark.PageCacheBenchmark [pages]
+ */
+public class PageCacheBenchmark {
+	private static final AtomicLong requests = new AtomicLong(), notModified = new AtomicLong(),
+			bytesSent = new AtomicLong();
+
+	public static void main(String[] args) throws Exception {
+		int pages = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+		HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		File directory = Files.createTempDirectory("page-cache").toFile();
+
+		server.createContext("/", exchange -> {
+			String path = exchange.getRequestURI().getPath();
+			byte[] body = page(path).getBytes(StandardCharsets.UTF_8);
+			String etag = "\"" + Integer.toHexString(path.hashCode()) + "\"";
+
+			requests.incrementAndGet();
+			exchange.getResponseHeaders().set("Content-Type", "text/html; charset=UTF-8");
+			exchange.getResponseHeaders().set("ETag", etag);
+
+			if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+				notModified.incrementAndGet();
+				exchange.sendResponseHeaders(304, -1);
+			} else {
+				bytesSent.addAndGet(body.length);
+				exchange.sendResponseHeaders(200, body.length);
+
+				try (OutputStream outputStream = exchange.getResponseBody()) {
+					outputStream.write(body);
+				}
+			}
+
+			exchange.close();
+		});
+		server.start();
+
+		String base = "http://127.0.0.1:" + server.getAddress().getPort() + "/page/";
+
+		try {
+			PageCache pageCache = new PageCache(directory, 64L * 1024 * 1024, 60000);
+
+			run("Empty cache", pageCache, null, base, pages);
+			run("Fresh", pageCache, null, base, pages);
+
+			// Every copy is stale, so each page is revalidated, and noted as downloaded in the window
+			WindowedVisitedSet recentlyDownloaded = new WindowedVisitedSet(pages * 2, 0.01, 60000);
+
+			pageCache = new PageCache(directory, 64L * 1024 * 1024, 0);
+			run("Revalidated", pageCache, recentlyDownloaded, base, pages);
+
+			// Still stale, but downloaded within the window, so read from disk without asking the server
+			run("In window", pageCache, recentlyDownloaded, base, pages);
+
+			pageCache = new PageCache(directory, 64L * 1024 * 1024, 60000);
+			run("Reopened", pageCache, null, base, pages);
+		} finally {
+			server.stop(0);
+			delete(directory);
+		}
+	}
+
+	private static void run(String name, PageCache pageCache, VisitedSet recentlyDownloaded, String base, int pages)
+			throws Exception {
+		AsyncFetcher fetcher = new AsyncFetcher(16, 16, 10000, pageCache, recentlyDownloaded);
+		List<CompletableFuture<Document>> futures = new ArrayList<CompletableFuture<Document>>();
+		long requestsBefore = requests.get(), notModifiedBefore = notModified.get(), bytesBefore = bytesSent.get();
+		long start = System.currentTimeMillis();
+
+		for (int i = 0; i < pages; i++) {
+			futures.add(fetcher.fetch(base + i + "?utm_source=benchmark"));
+		}
+
+		for (int i = 0; i < pages; i++) {
+			if (!futures.get(i).join().title().equals("Page " + i)) {
+				throw new IllegalStateException("Wrong page served for " + i);
+			}
+		}
+
+		fetcher.shutdown();
+
+		System.out.printf("%-12s requests: %4d  304s: %4d  bytes sent: %,10d  time: %,5d ms%n", name,
+				requests.get() - requestsBefore, notModified.get() - notModifiedBefore, bytesSent.get() - bytesBefore,
+				System.currentTimeMillis() - start);
+		System.out.println("\t" + pageCache);
+	}
+
+	private static String page(String path) {
+		String name = path.substring(path.lastIndexOf('/') + 1);
+		StringBuilder page = new StringBuilder("<html><head><title>Page " + name + "</title></head><body>");
+
+		for (int i = 0; i < 200; i++) {
+			page.append("<p>Paragraph ").append(i).append(" of page ").append(name).append(" about word clouds</p>");
+		}
+
+		return page.append("</body></html>").toString();
+	}
+
+	private static void delete(File directory) throws IOException {
+		try (Stream<Path> paths = Files.walk(directory.toPath())) {
+			paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+		}
+	}
+}
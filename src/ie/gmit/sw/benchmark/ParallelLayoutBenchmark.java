@@ -0,0 +1,143 @@
+package ie.gmit.sw.benchmark;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import ie.gmit.sw.ai.cloud.CollisionMode;
+import ie.gmit.sw.ai.cloud.LogarithmicSpiralPlacer;
+import ie.gmit.sw.ai.cloud.WordFrequency;
+
+/**
+ * @author Kevin Niland
+ * @category Benchmark
+ * @version 1.0
+ *
+ *          ParallelLayoutBenchmark
+ *
+ *          Lays out clouds of 250 to 2,000 words one spiral step at a time and
+ *          then with pools of 1, 2, 4, 8 and 16 threads checking the steps,
+ *          with both collision modes, and prints the time each takes and its
+ *          speedup. Fails if any pool places a word differently or draws a
+ *          single pixel differently to one step at a time with the same seed.
+ *          Speedups depend on the number of cores, which is printed first
+ *
+ *          Usage: java ie.gmit.sw.benchmark.ParallelLayoutBenchmark [runs]
+ */
+public class ParallelLayoutBenchmark {
+	private static final int WIDTH = 800, HEIGHT = 600;
+	private static final int[] WORDS = { 250, 1000, 2000 };
+	private static final int[] THREADS = { 1, 2, 4, 8, 16 };
+
+	public static void main(String[] args) {
+		int runs = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+		int failures = 0;
+
+		System.setProperty("java.awt.headless", "true");
+		System.out.println(Runtime.getRuntime().availableProcessors() + " cores");
+
+		List<ForkJoinPool> pools = new ArrayList<ForkJoinPool>();
+
+		for (int threads : THREADS) {
+			pools.add(new ForkJoinPool(threads));
+		}
+
+		// Warm up
+		for (int i = 0; i < 3; i++) {
+			layout(Fixtures.cloud(250), CollisionMode.RECTANGLE, null);
+
+			for (ForkJoinPool pool : pools) {
+				layout(Fixtures.cloud(250), CollisionMode.RECTANGLE, pool);
+			}
+		}
+
+		System.out.printf("%-10s %-6s %-8s %10s %8s%n", "Mode", "Words", "Threads", "ms", "Speedup");
+
+		for (CollisionMode collisionMode : CollisionMode.values()) {
+			for (int count : WORDS) {
+				Layout sequential = best(Fixtures.cloud(count), collisionMode, null, runs);
+
+				System.out.printf("%-10s %-6d %-8s %,10.1f %8s%n", collisionMode, count, "-", sequential.nanos / 1e6,
+						"1.00");
+
+				for (ForkJoinPool pool : pools) {
+					Layout parallel = best(Fixtures.cloud(count), collisionMode, pool, runs);
+
+					System.out.printf("%-10s %-6d %-8d %,10.1f %8.2f%n", collisionMode, count, pool.getParallelism(),
+							parallel.nanos / 1e6, (double) sequential.nanos / parallel.nanos);
+
+					if (!parallel.placed.equals(sequential.placed) || !Arrays.equals(parallel.pixels, sequential.pixels)) {
+						System.out.println(collisionMode + " " + count + " words: " + pool.getParallelism()
+								+ " threads laid the cloud out differently");
+						failures++;
+					}
+				}
+			}
+		}
+
+		for (ForkJoinPool pool : pools) {
+			pool.shutdown();
+		}
+
+		System.out.println(failures == 0 ? "Every pool matched one step at a time" : failures + " failures");
+
+		if (failures > 0) {
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * @return The fastest of a number of runs
+	 */
+	private static Layout best(WordFrequency[] words, CollisionMode collisionMode, ForkJoinPool pool, int runs) {
+		Layout best = null;
+
+		for (int i = 0; i < runs; i++) {
+			Layout layout = layout(words, collisionMode, pool);
+
+			if (best == null || layout.nanos < best.nanos) {
+				best = layout;
+			}
+		}
+
+		return best;
+	}
+
+	/**
+	 * Places the words largest first with the same colours each time, as
+	 * ServiceHandler does
+	 */
+	private static Layout layout(WordFrequency[] words, CollisionMode collisionMode, ForkJoinPool pool) {
+		long start = System.nanoTime();
+		Fixtures.RecordingDetector detector = new Fixtures.RecordingDetector(WIDTH, HEIGHT);
+		LogarithmicSpiralPlacer logarithmicSpiralPlacer = new LogarithmicSpiralPlacer(WIDTH, HEIGHT, detector);
+
+		logarithmicSpiralPlacer.setCollisionMode(collisionMode);
+		logarithmicSpiralPlacer.setPool(pool);
+		logarithmicSpiralPlacer.setSeed(1);
+
+		for (WordFrequency word : words) {
+			logarithmicSpiralPlacer.place(word);
+		}
+
+		BufferedImage image = logarithmicSpiralPlacer.getImage();
+		long nanos = System.nanoTime() - start;
+
+		return new Layout(nanos, detector.placed, image.getRGB(0, 0, WIDTH, HEIGHT, null, 0, WIDTH));
+	}
+
+	private static class Layout {
+		private final long nanos;
+		private final List<Rectangle> placed;
+		private final int[] pixels;
+
+		private Layout(long nanos, List<Rectangle> placed, int[] pixels) {
+			this.nanos = nanos;
+			this.placed = placed;
+			this.pixels = pixels;
+		}
+	}
+}
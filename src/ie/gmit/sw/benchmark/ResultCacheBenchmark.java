@@ -0,0 +1,227 @@
+package ie.gmit.sw.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ie.gmit.sw.ai.cloud.LogarithmicSpiralPlacer;
+import ie.gmit.sw.ai.cloud.WeightedFont;
+import ie.gmit.sw.ai.cloud.WordFrequency;
+import ie.gmit.sw.result.CloudResult;
+import ie.gmit.sw.result.ResultCache;
+import ie.gmit.sw.result.ResultStore;
+
+/**
+ * @author Kevin Niland
+ * @category Benchmark
+ * @version 1.0
+ *
+ *          ResultCacheBenchmark
+ *
+ *          Sends a stream of searches from several threads at once, as users
+ *          of the servlet would, with queries drawn from a Zipf distribution
+ *          and typed with random case and spacing. Each search that isn't
+ *          cached sleeps for as long as a crawl is set to take and then lays
+ *          out a real cloud. The stream is run with no cache, a cache that
+ *          never expires, one whose clouds expire during the run, and the same
+ *          serving stale clouds while they are searched for again, and the hit
+ *          rate, number of searches run and mean and 99th percentile latency
+ *          of each is printed. Fails if two searches for the same query ever
+ *          run at once with a cache. Last, fills a cache with every query and
+ *          compares the bytes it reports with the heap it actually takes up
+ *
+ *          Usage: java ie.gmit.sw.benchmark.ResultCacheBenchmark [requests]
+ *          [queries] [threads] [crawlMillis]
+ */
+public class ResultCacheBenchmark {
+	private static final int WORDS = 100;
+
+	public static void main(String[] args) throws Exception {
+		int requests = args.length > 0 ? Integer.parseInt(args[0]) : 400;
+		int queries = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+		int crawlMillis = args.length > 3 ? Integer.parseInt(args[3]) : 100;
+		String[] stream = stream(requests, queries);
+		ExecutorService refresher = Executors.newSingleThreadExecutor();
+		int failures = 0;
+
+		System.setProperty("java.awt.headless", "true");
+		System.out.printf("%,d requests for %d queries from %d threads, %d ms a crawl%n", requests, queries, threads,
+				crawlMillis);
+		System.out.printf("%-16s %8s %9s %10s %10s%n", "Cache", "Hits", "Searches", "Mean ms", "p99 ms");
+
+		// Warm up
+		new Searcher(crawlMillis).search("warm up");
+
+		long[] expiring = { 0, Long.MAX_VALUE / 2, crawlMillis * 5L, crawlMillis * 5L };
+		long[] staleFor = { 0, 0, 0, Long.MAX_VALUE / 4 };
+		String[] names = { "None", "No expiry", "Expiring", "Stale served" };
+
+		for (int i = 0; i < names.length; i++) {
+			ResultCache resultCache = i == 0 ? null : new ResultCache(64L * 1024 * 1024, expiring[i], staleFor[i],
+					refresher);
+			Searcher searcher = new Searcher(crawlMillis);
+			double[] latencies = run(stream, threads, searcher, resultCache);
+
+			Arrays.sort(latencies);
+			System.out.printf("%-16s %7.1f%% %9d %,10.1f %,10.1f%n", names[i],
+					resultCache == null ? 0 : resultCache.getHitRate() * 100, searcher.searches.get(),
+					Arrays.stream(latencies).average().orElse(0), latencies[(int) (latencies.length * 0.99)]);
+
+			// Without a cache every request searches, so only the caches are checked
+			if (resultCache != null && searcher.overlaps.get() > 0) {
+				System.out.println(names[i] + ": " + searcher.overlaps.get()
+						+ " searches ran at the same time as one for the same query");
+				failures++;
+			}
+		}
+
+		refresher.shutdown();
+		refresher.awaitTermination(60, TimeUnit.SECONDS);
+
+		// Size of a full cache
+		Runtime runtime = Runtime.getRuntime();
+		ResultCache full = new ResultCache(Long.MAX_VALUE, Long.MAX_VALUE / 2, 0, Runnable::run);
+		Searcher searcher = new Searcher(0);
+		List<CloudResult> results = new ArrayList<CloudResult>();
+
+		System.gc();
+
+		long before = runtime.totalMemory() - runtime.freeMemory();
+
+		for (int query = 0; query < queries; query++) {
+			String text = query(query);
+
+			results.add(full.get(ResultCache.key("Option 2", text, WORDS), () -> searcher.search(text)));
+		}
+
+		System.gc();
+
+		long measured = runtime.totalMemory() - runtime.freeMemory() - before;
+
+		System.out.printf("%d clouds of %d words: %,d bytes reported, %,d bytes measured%n", results.size(), WORDS,
+				full.getSize(), measured);
+		System.out.println(failures == 0 ? "No query was searched for twice at once" : failures + " failures");
+
+		if (failures > 0) {
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Sends every request in the stream
+	 *
+	 * @return Milliseconds each request took
+	 */
+	private static double[] run(String[] stream, int threads, Searcher searcher, ResultCache resultCache)
+			throws Exception {
+		ExecutorService executorService = Executors.newFixedThreadPool(threads);
+		List<Future<Double>> futures = new ArrayList<Future<Double>>();
+
+		for (String query : stream) {
+			futures.add(executorService.submit(() -> {
+				long start = System.nanoTime();
+
+				if (resultCache == null) {
+					searcher.search(query);
+				} else {
+					resultCache.get(ResultCache.key("Option 2", query, WORDS), () -> searcher.search(query));
+				}
+
+				return (System.nanoTime() - start) / 1e6;
+			}));
+		}
+
+		double[] latencies = new double[futures.size()];
+
+		for (int i = 0; i < latencies.length; i++) {
+			latencies[i] = futures.get(i).get();
+		}
+
+		executorService.shutdown();
+
+		return latencies;
+	}
+
+	/**
+	 * Queries drawn from a Zipf distribution, each typed with random case and
+	 * spacing
+	 */
+	private static String[] stream(int length, int queries) {
+		Fixtures.Zipf zipf = new Fixtures.Zipf(queries);
+		Random random = new Random(1);
+		String[] stream = new String[length];
+
+		for (int i = 0; i < length; i++) {
+			String query = query(zipf.next(random));
+
+			query = random.nextBoolean() ? query.toUpperCase() : query;
+			stream[i] = random.nextBoolean() ? "  " + query.replace(" ", "   ") + " " : query;
+		}
+
+		return stream;
+	}
+
+	private static String query(int number) {
+		return "query " + (char) ('a' + number % 26) + " " + (char) ('a' + number / 26);
+	}
+
+	/**
+	 * Stands in for ServiceHandler.search(), sleeping as long as a crawl takes
+	 * and laying out a cloud
+	 */
+	private static class Searcher {
+		private final int crawlMillis;
+		private final AtomicInteger searches = new AtomicInteger(), overlaps = new AtomicInteger();
+		private final ConcurrentHashMap<String, AtomicInteger> running = new ConcurrentHashMap<String, AtomicInteger>();
+
+		private Searcher(int crawlMillis) {
+			this.crawlMillis = crawlMillis;
+		}
+
+		private CloudResult search(String query) throws IOException {
+			String key = ResultCache.key("Option 2", query, WORDS);
+			AtomicInteger count = running.computeIfAbsent(key, k -> new AtomicInteger());
+
+			searches.incrementAndGet();
+
+			if (count.incrementAndGet() > 1) {
+				overlaps.incrementAndGet();
+			}
+
+			try {
+				Thread.sleep(crawlMillis);
+
+				WordFrequency[] words = new WordFrequency[WORDS];
+
+				for (int i = 0; i < WORDS; i++) {
+					words[i] = new WordFrequency(key.replaceAll("[^a-z]", "") + (char) ('a' + i % 26)
+							+ (char) ('a' + i / 26), Math.max(1, 10000 / (i + 1)));
+				}
+
+				LogarithmicSpiralPlacer logarithmicSpiralPlacer = new LogarithmicSpiralPlacer(800, 600);
+
+				new WeightedFont().getFontSizes(words);
+
+				for (WordFrequency word : words) {
+					logarithmicSpiralPlacer.place(word);
+				}
+
+				return ResultStore.getInstance().put(logarithmicSpiralPlacer.getLayout(), words,
+						logarithmicSpiralPlacer.getReport());
+			} catch (InterruptedException interruptedException) {
+				throw new IOException(interruptedException);
+			} finally {
+				count.decrementAndGet();
+			}
+		}
+	}
+}
@@ -0,0 +1,214 @@
+package ie.gmit.sw.benchmark;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.HttpServer;
+
+import ie.gmit.sw.ai.cloud.WordFrequency;
+import ie.gmit.sw.ai.fuzzy.FuzzyScorer;
+import ie.gmit.sw.database.RealDatabase;
+import ie.gmit.sw.fetcher.AsyncFetcher;
+import ie.gmit.sw.parser.NodeParser;
+import ie.gmit.sw.parser.frontier.BestFirstFrontier;
+import ie.gmit.sw.parser.visited.BloomVisitedSet;
+import ie.gmit.sw.session.CrawlSession;
+
+/**
+ * @author Kevin Niland
+ * @category Benchmark
+ * @version 1.0
+ *
+ *          SessionBenchmark
+ *
+ *          Checks that searches running at the same time don't mix up or clear
+ *          each other's words. Serves a different set of pages for each search
+ *          from a local HTTP server, each with a marker word only that search's
+ *          pages contain, and runs every search on its own first and then all
+ *          of them at once on the shared 20 thread executor, as ServiceHandler
+ *          does. Fails if any search's words differ between the two runs, or
+ *          if a search counted another search's marker
+ *
+ *          The pages are laid out so a search counts the same words however
+ *          its parsers are scheduled. Each result is the root of its own tree
+ *          of pages, /term/result/link/link/..., and a page only links to its
+ *          own children, so no page can be reached from two results, and
+ *          whether a page is counted never depends on which parser got to it
+ *          first
+ *
+ *          Usage: java ie.gmit.sw.benchmark.SessionBenchmark [searches]
+ *          [resultsPerSearch]
+ */
+public class SessionBenchmark {
+	private static final int FILLER_WORDS = 40, MARKER_COUNT = 50;
+
+	public static void main(String[] args) throws Exception {
+		int searches = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+		int results = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+		HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		ExecutorService executorService = Executors.newFixedThreadPool(20);
+		RealDatabase realDatabase = RealDatabase.getInstance();
+
+		realDatabase.ignoreFromFile(new File("WebContent/res/ignorewords.txt"));
+		FuzzyScorer.getInstance().load(new File("WebContent/res/wcloud.fcl"));
+
+		server.setExecutor(Executors.newFixedThreadPool(8));
+		server.createContext("/", exchange -> {
+			byte[] body = page(exchange.getRequestURI().getPath()).getBytes(StandardCharsets.UTF_8);
+
+			exchange.getResponseHeaders().set("Content-Type", "text/html; charset=UTF-8");
+			exchange.sendResponseHeaders(200, body.length);
+
+			try (OutputStream outputStream = exchange.getResponseBody()) {
+				outputStream.write(body);
+			}
+
+			exchange.close();
+		});
+		server.start();
+
+		String base = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+
+		try {
+			List<Map<String, Integer>> alone = new ArrayList<Map<String, Integer>>();
+			long start = System.currentTimeMillis();
+
+			// Each search on its own
+			for (int search = 0; search < searches; search++) {
+				CrawlSession session = start(realDatabase, executorService, base, search, results);
+
+				alone.add(finish(session));
+			}
+
+			long aloneTime = System.currentTimeMillis() - start;
+
+			// Every search at once
+			List<CrawlSession> sessions = new ArrayList<CrawlSession>();
+
+			start = System.currentTimeMillis();
+
+			for (int search = 0; search < searches; search++) {
+				sessions.add(start(realDatabase, executorService, base, search, results));
+			}
+
+			int failures = 0;
+
+			for (int search = 0; search < searches; search++) {
+				Map<String, Integer> words = finish(sessions.get(search));
+
+				for (int other = 0; other < searches; other++) {
+					boolean counted = words.containsKey(marker(other));
+
+					if (counted != (other == search)) {
+						System.out.println("Search " + search + (counted ? " counted " : " is missing ") + marker(other));
+						failures++;
+					}
+				}
+
+				if (!words.equals(alone.get(search))) {
+					System.out.println("Search " + search + " differs when run with the others:\n\talone: "
+							+ alone.get(search) + "\n\tat once: " + words);
+					failures++;
+				}
+			}
+
+			long togetherTime = System.currentTimeMillis() - start;
+
+			System.out.printf("%d searches x %d results - one at a time: %,d ms  all at once: %,d ms%n", searches,
+					results, aloneTime, togetherTime);
+			System.out.println(failures == 0 ? "Every search was isolated" : failures + " failures");
+
+			if (failures > 0) {
+				System.exit(1);
+			}
+		} finally {
+			server.stop(0);
+			executorService.shutdown();
+			((ExecutorService) server.getExecutor()).shutdown();
+		}
+	}
+
+	/**
+	 * Starts a parser for each result of a search, as ServiceHandler.Go() does
+	 */
+	private static CrawlSession start(RealDatabase realDatabase, ExecutorService executorService, String base,
+			int search, int results) {
+		CrawlSession session = new CrawlSession(realDatabase.newSession(), new AsyncFetcher(16, 4, 10000),
+				new BloomVisitedSet(10000, 0.01), executorService);
+
+		for (int result = 0; result < results; result++) {
+			session.execute(new NodeParser(session, new BestFirstFrontier(), base + term(search) + "/" + result,
+					term(search)));
+		}
+
+		return session;
+	}
+
+	/**
+	 * Waits for a search and returns the words it counted
+	 */
+	private static Map<String, Integer> finish(CrawlSession session) throws InterruptedException {
+		Map<String, Integer> words = new TreeMap<String, Integer>();
+
+		if (!session.await(60, TimeUnit.SECONDS)) {
+			throw new IllegalStateException("Search didn't finish: " + session);
+		}
+
+		session.close();
+
+		for (WordFrequency wordFrequency : session.getDatabase().getWordFrequency()) {
+			words.put(wordFrequency.getWord(), wordFrequency.getFrequency());
+		}
+
+		return words;
+	}
+
+	/**
+	 * A page about one search's term, linking to its children in the same
+	 * result's tree
+	 */
+	private static String page(String path) {
+		String term = path.substring(1).split("/")[0];
+		StringBuilder page = new StringBuilder("<html><head><title>" + term + " " + term + "</title></head><body>");
+
+		page.append("<h1>").append(term).append("</h1><p>");
+
+		for (int i = 0; i < MARKER_COUNT; i++) {
+			page.append("marker").append(term.substring("topic".length())).append(' ');
+		}
+
+		// Filler word j appears j + 1 times, so no two words have the same count
+		for (int j = 0; j < FILLER_WORDS; j++) {
+			for (int k = 0; k <= j; k++) {
+				page.append(Fixtures.word("filler", j)).append(' ');
+			}
+		}
+
+		page.append(term).append("</p>");
+
+		// Only ever further down this page's own tree
+		for (int link = 1; link <= 3; link++) {
+			page.append("<a href=\"").append(path).append('/').append(link).append("\">").append(term)
+					.append("</a> ");
+		}
+
+		return page.append("</body></html>").toString();
+	}
+
+	private static String term(int search) {
+		return Fixtures.word("topic", search);
+	}
+
+	private static String marker(int search) {
+		return Fixtures.word("marker", search);
+	}
+}
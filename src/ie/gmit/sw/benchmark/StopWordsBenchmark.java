@@ -0,0 +1,181 @@
+package ie.gmit.sw.benchmark;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import ie.gmit.sw.database.RealDatabase;
+import ie.gmit.sw.parser.tokenizer.Tokenizer;
+
+/**
+ * @author Kevin Niland
+ * @category Benchmark
+ * @version 1.0
+ *
+ *          StopWordsBenchmark
+ *
+ *          Compares the time and memory allocated to check every word of a page
+ *          against the ignore list, the way RealDatabase used to - capitalising
+ *          a copy of each word to look up in a ConcurrentSkipListSet - against
+ *          RealDatabase.isIgnored() checking Tokenizer's buffer against the
+ *          compiled StopWords set and the search terms. Also checks both give
+ *          the same answer for every word. Uses the body text of the given
+ *          files, or generated text of common and uncommon English words if
+ *          none are given
+ *
+ *          Usage: java ie.gmit.sw.benchmark.StopWordsBenchmark [page.txt...]
+ */
+public class StopWordsBenchmark {
+	private static final int ITERATIONS = 20;
+	private static final String[] SEARCH_TERMS = { "artificial", "intelligence" };
+
+	public static void main(String[] args) throws Exception {
+		File ignoreWordsFile = new File("WebContent/res/ignorewords.txt");
+		List<String> ignoreWords = Files.readAllLines(ignoreWordsFile.toPath(), StandardCharsets.UTF_8);
+		String text = args.length == 0 ? generate(ignoreWords, 5 * 1024 * 1024) : read(args);
+		Set<String> skipList = new ConcurrentSkipListSet<String>();
+		RealDatabase realDatabase = RealDatabase.getInstance();
+
+		// The old ignore list, with the capitalised words it used to hold
+		for (String word : ignoreWords) {
+			if (!word.trim().isEmpty()) {
+				skipList.add(capitalise(word.trim()));
+			}
+		}
+
+		realDatabase.ignoreFromFile(ignoreWordsFile);
+
+		RealDatabase session = realDatabase.newSession();
+
+		for (String term : SEARCH_TERMS) {
+			skipList.add(capitalise(term));
+			session.ignoreFromSearch(term);
+		}
+
+		System.out.printf("Text: %,d characters, ignore list: %,d words%n", text.length(), session.ignore().size());
+
+		// Warm up both
+		for (int i = 0; i < 5; i++) {
+			skipList(text, skipList);
+			compiled(text, session);
+		}
+
+		System.out.printf("Capitalised copy + ConcurrentSkipListSet: %s%n", measure(() -> skipList(text, skipList)));
+		System.out.printf("StopWords from the buffer:                %s%n", measure(() -> compiled(text, session)));
+
+		int[] differences = new int[1];
+		int[] words = new int[1];
+
+		new Tokenizer().tokenize(text, (buffer, length, hash) -> {
+			String word = new String(buffer, 0, length);
+
+			words[0]++;
+
+			if (skipList.contains(capitalise(word)) != session.isIgnored(buffer, length, hash)) {
+				differences[0]++;
+			}
+		});
+
+		System.out.printf("Words: %,d  Answered differently: %,d%n", words[0], differences[0]);
+	}
+
+	/**
+	 * The way RealDatabase used to check a word
+	 */
+	private static int skipList(String text, Set<String> skipList) {
+		int[] ignored = new int[1];
+
+		new Tokenizer().tokenize(text, (buffer, length, hash) -> {
+			String word = new String(buffer, 0, length);
+
+			if (skipList.contains(word.substring(0, 1).toUpperCase().concat(word.substring(1)))) {
+				ignored[0]++;
+			}
+		});
+
+		return ignored[0];
+	}
+
+	private static int compiled(String text, RealDatabase session) {
+		int[] ignored = new int[1];
+
+		new Tokenizer().tokenize(text, (buffer, length, hash) -> {
+			if (session.isIgnored(buffer, length, hash)) {
+				ignored[0]++;
+			}
+		});
+
+		return ignored[0];
+	}
+
+	private static String capitalise(String word) {
+		return word.substring(0, 1).toUpperCase().concat(word.substring(1));
+	}
+
+	/**
+	 * @return Mean time and bytes allocated per run
+	 */
+	private static String measure(Runnable runnable) {
+		com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+		long bytes = threadMXBean.getThreadAllocatedBytes(threadId);
+		long start = System.nanoTime();
+
+		for (int i = 0; i < ITERATIONS; i++) {
+			runnable.run();
+		}
+
+		long nanos = (System.nanoTime() - start) / ITERATIONS;
+		bytes = (threadMXBean.getThreadAllocatedBytes(threadId) - bytes) / ITERATIONS;
+
+		return String.format("%,8.1f ms  %,14d bytes allocated", nanos / 1e6, bytes);
+	}
+
+	private static String read(String[] files) throws Exception {
+		StringBuilder text = new StringBuilder();
+
+		for (String file : files) {
+			text.append(new String(Files.readAllBytes(new File(file).toPath()), StandardCharsets.UTF_8)).append(' ');
+		}
+
+		return text.toString();
+	}
+
+	/**
+	 * Roughly half ignored words, as on a real page, and half other words. The
+	 * ignored words include contractions, whose parts are split into other words
+	 * by Tokenizer
+	 */
+	private static String generate(List<String> ignoreWords, int size) {
+		List<String> words = new ArrayList<String>();
+		Random random = new Random(1);
+		StringBuilder text = new StringBuilder(size + 32);
+
+		for (String word : ignoreWords) {
+			if (word.matches("[a-z']{2,}")) {
+				words.add(word);
+			}
+		}
+
+		while (text.length() < size) {
+			if (random.nextBoolean()) {
+				text.append(words.get(random.nextInt(Math.min(200, words.size()))));
+			} else if (random.nextInt(10) == 0) {
+				text.append(SEARCH_TERMS[random.nextInt(SEARCH_TERMS.length)]);
+			} else {
+				text.append("word").append((char) ('a' + random.nextInt(26))).append((char) ('a' + random.nextInt(26)));
+			}
+
+			text.append(random.nextInt(8) == 0 ? ". " : " ");
+		}
+
+		return text.toString();
+	}
+}
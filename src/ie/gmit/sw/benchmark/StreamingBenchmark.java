@@ -0,0 +1,299 @@
+package ie.gmit.sw.benchmark;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.sun.net.httpserver.HttpServer;
+
+import ie.gmit.sw.ai.cloud.LogarithmicSpiralPlacer;
+import ie.gmit.sw.ai.cloud.WeightedFont;
+import ie.gmit.sw.ai.cloud.WordFrequency;
+import ie.gmit.sw.ai.fuzzy.FuzzyScorer;
+import ie.gmit.sw.database.RealDatabase;
+import ie.gmit.sw.fetcher.AsyncFetcher;
+import ie.gmit.sw.parser.NodeParser;
+import ie.gmit.sw.parser.frontier.BestFirstFrontier;
+import ie.gmit.sw.parser.visited.BloomVisitedSet;
+import ie.gmit.sw.result.CloudResult;
+import ie.gmit.sw.result.EventStream;
+import ie.gmit.sw.result.LayoutFormat;
+import ie.gmit.sw.result.ProgressStream;
+import ie.gmit.sw.result.ResultStore;
+import ie.gmit.sw.session.CrawlSession;
+
+/**
+ * @author Kevin Niland
+ * @category Benchmark
+ * @version 1.0
+ *
+ *          StreamingBenchmark
+ *
+ *          Runs a search against a local HTTP server that takes a while to
+ *          serve each page, from pageMillis to ten times that, as
+ *          ServiceHandler runs a streamed search, and
+ *          records when each event reaches the response. Prints how long the
+ *          first list of words took to arrive compared with the whole crawl,
+ *          and how many updates were sent for the pages counted, with only
+ *          words sent and with each update laid out as well. Fails if two
+ *          updates were ever sent less than an interval apart, if the pages
+ *          counted ever went backwards, or if the search didn't end with the
+ *          finished cloud
+ *
+ *          Usage: java ie.gmit.sw.benchmark.StreamingBenchmark [results]
+ *          [pageMillis] [intervalMillis]
+ */
+public class StreamingBenchmark {
+	private static final int WORDS = 32, FILLER_WORDS = 60, LINKS = 3, DEPTH = 3;
+	private static final Pattern PAGES = Pattern.compile("\"pages\":(\\d+)");
+
+	public static void main(String[] args) throws Exception {
+		int results = args.length > 0 ? Integer.parseInt(args[0]) : 60;
+		int pageMillis = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+		int interval = args.length > 2 ? Integer.parseInt(args[2]) : 250;
+		HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		ExecutorService executorService = Executors.newFixedThreadPool(20);
+		ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4);
+		RealDatabase realDatabase = RealDatabase.getInstance();
+		int failures = 0;
+
+		System.setProperty("java.awt.headless", "true");
+		realDatabase.ignoreFromFile(new File("WebContent/res/ignorewords.txt"));
+		FuzzyScorer.getInstance().load(new File("WebContent/res/wcloud.fcl"));
+
+		server.setExecutor(Executors.newFixedThreadPool(16));
+		server.createContext("/", exchange -> {
+			byte[] body = page(exchange.getRequestURI().getPath()).getBytes(StandardCharsets.UTF_8);
+
+			try {
+				// A slow site, some pages ten times slower than others, so the crawl takes long enough to stream
+				Thread.sleep(pageMillis * (number(exchange.getRequestURI().getPath()) % 10 + 1));
+			} catch (InterruptedException interruptedException) {
+				Thread.currentThread().interrupt();
+			}
+
+			exchange.getResponseHeaders().set("Content-Type", "text/html; charset=UTF-8");
+			exchange.sendResponseHeaders(200, body.length);
+
+			try (OutputStream outputStream = exchange.getResponseBody()) {
+				outputStream.write(body);
+			}
+
+			exchange.close();
+		});
+		server.start();
+
+		String base = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+
+		System.out.printf("%d results, %d ms a page, updates at most every %d ms%n", results, pageMillis, interval);
+		System.out.printf("%-8s %7s %9s %13s %10s %9s %12s%n", "Sent", "Pages", "Updates", "First words", "Crawl ms",
+				"Done ms", "Least gap");
+
+		try {
+			// The first run warms up and isn't printed
+			for (int run = 0; run < 3; run++) {
+				boolean layouts = run == 2;
+				Recorder recorder = new Recorder();
+				ProgressStream progressStream = new ProgressStream(new EventStream(new PrintWriter(recorder)),
+						scheduler, interval, WORDS, layouts ? () -> new LogarithmicSpiralPlacer(800, 600) : null);
+				CrawlSession session = new CrawlSession(realDatabase.newSession(), new AsyncFetcher(16, 16, 10000),
+						new BloomVisitedSet(10000, 0.01), executorService);
+
+				session.getDatabase().setCountListener(progressStream);
+				recorder.start = System.nanoTime();
+
+				for (int result = 0; result < results; result++) {
+					session.execute(new NodeParser(session, new BestFirstFrontier(), base + "topic/0/" + result, "topic"));
+				}
+
+				if (!session.await(60, TimeUnit.SECONDS)) {
+					throw new IllegalStateException("Search didn't finish: " + session);
+				}
+
+				session.close();
+
+				double crawl = (System.nanoTime() - recorder.start) / 1e6;
+
+				progressStream.finish(cloud(session.getDatabase()), LayoutFormat.PNG);
+
+				if (run == 0) {
+					continue;
+				}
+
+				failures += check(recorder, layouts ? "Layouts" : "Words", interval);
+				System.out.printf("%-8s %7d %9d %,13.1f %,10.1f %,9.1f %,12.1f%n", layouts ? "Layouts" : "Words",
+						session.getDatabase().getPages(), progressStream.getUpdates(), recorder.first("words"), crawl,
+						recorder.first("done"), recorder.leastGap());
+			}
+
+			System.out.println(failures == 0 ? "Every update was coalesced and the cloud was sent" : failures
+					+ " failures");
+
+			if (failures > 0) {
+				System.exit(1);
+			}
+		} finally {
+			server.stop(0);
+			executorService.shutdown();
+			scheduler.shutdown();
+			((ExecutorService) server.getExecutor()).shutdown();
+		}
+	}
+
+	/**
+	 * @return Number of failures found in the events recorded
+	 */
+	private static int check(Recorder recorder, String name, int interval) {
+		int failures = 0, pages = 0;
+
+		// Timers may fire a little early, so allow a millisecond
+		if (recorder.leastGap() < interval - 1) {
+			System.out.printf("%s: updates sent %.1f ms apart%n", name, recorder.leastGap());
+			failures++;
+		}
+
+		for (int i = 0; i < recorder.names.size(); i++) {
+			Matcher matcher = PAGES.matcher(recorder.data.get(i));
+
+			if (recorder.names.get(i).equals("words") && matcher.find()) {
+				if (Integer.parseInt(matcher.group(1)) < pages) {
+					System.out.println(name + ": pages counted went backwards");
+					failures++;
+				}
+
+				pages = Integer.parseInt(matcher.group(1));
+			}
+		}
+
+		if (recorder.names.isEmpty() || !recorder.names.get(recorder.names.size() - 1).equals("done")) {
+			System.out.println(name + ": search didn't end with the finished cloud - " + recorder.names);
+			failures++;
+		}
+
+		return failures;
+	}
+
+	/**
+	 * Lays out the finished cloud, as ServiceHandler.search() does
+	 */
+	private static CloudResult cloud(RealDatabase database) {
+		WordFrequency[] topWords = new WeightedFont().getFontSizes(database.getWordFrequency(WORDS));
+		LogarithmicSpiralPlacer logarithmicSpiralPlacer = new LogarithmicSpiralPlacer(800, 600);
+
+		Arrays.sort(topWords, Comparator.comparing(WordFrequency::getFrequency, Comparator.reverseOrder()));
+
+		for (WordFrequency word : topWords) {
+			logarithmicSpiralPlacer.place(word);
+		}
+
+		return ResultStore.getInstance().put(logarithmicSpiralPlacer.getLayout(), topWords,
+				logarithmicSpiralPlacer.getReport());
+	}
+
+	/**
+	 * A page about the topic, linking to pages further down until DEPTH. Links
+	 * are only followed if they contain the search term
+	 */
+	private static String page(String path) {
+		String[] parts = path.substring(1).split("/");
+		int depth = Integer.parseInt(parts[1]);
+		int number = number(path);
+		StringBuilder page = new StringBuilder("<html><head><title>topic topic</title></head><body><h1>topic</h1><p>");
+
+		// Each page favours different words, so the top words change as the crawl goes on
+		for (int j = 0; j < FILLER_WORDS; j++) {
+			for (int k = 0; k <= (j + number) % FILLER_WORDS / 4; k++) {
+				page.append(Fixtures.word("filler", j)).append(' ');
+			}
+		}
+
+		page.append("topic</p>");
+
+		if (depth < DEPTH) {
+			for (int link = 0; link < LINKS; link++) {
+				page.append("<a href=\"/topic/").append(depth + 1).append('/').append(number * LINKS + link)
+						.append("\">topic</a> ");
+			}
+		}
+
+		return page.append("</body></html>").toString();
+	}
+
+	private static int number(String path) {
+		return Integer.parseInt(path.substring(path.lastIndexOf('/') + 1));
+	}
+
+	/**
+	 * Stands in for the response, noting when each event is flushed to it
+	 */
+	private static class Recorder extends Writer {
+		private final StringBuilder buffer = new StringBuilder();
+		private final List<String> names = new ArrayList<String>(), data = new ArrayList<String>();
+		private final List<Double> times = new ArrayList<Double>();
+		private volatile long start;
+
+		@Override
+		public synchronized void write(char[] characters, int offset, int length) {
+			buffer.append(characters, offset, length);
+		}
+
+		@Override
+		public synchronized void flush() {
+			double time = (System.nanoTime() - start) / 1e6;
+			int end;
+
+			while ((end = buffer.indexOf("\n\n")) >= 0) {
+				String event = buffer.substring(0, end);
+
+				buffer.delete(0, end + 2);
+				names.add(event.substring("event: ".length(), event.indexOf('\n')));
+				data.add(event.substring(event.indexOf("data: ") + "data: ".length()));
+				times.add(time);
+			}
+		}
+
+		@Override
+		public void close() {
+
+		}
+
+		/**
+		 * @return Milliseconds until the first event of that name was sent
+		 */
+		private synchronized double first(String name) {
+			int index = names.indexOf(name);
+
+			return index < 0 ? Double.NaN : times.get(index);
+		}
+
+		/**
+		 * @return Fewest milliseconds between two updates sent while the search ran
+		 */
+		private synchronized double leastGap() {
+			double least = Double.POSITIVE_INFINITY, last = Double.NaN;
+
+			// The last words are sent with the finished cloud, not by the throttle
+			for (int i = 0; i < names.size() - 2; i++) {
+				if (names.get(i).equals("words")) {
+					least = Double.isNaN(last) ? least : Math.min(least, times.get(i) - last);
+					last = times.get(i);
+				}
+			}
+
+			return least;
+		}
+	}
+}
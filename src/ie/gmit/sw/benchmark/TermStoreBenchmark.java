@@ -0,0 +1,140 @@
+package ie.gmit.sw.benchmark;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import ie.gmit.sw.ai.cloud.WordFrequency;
+import ie.gmit.sw.database.WordCounts;
+import ie.gmit.sw.database.counter.ExactCounter;
+import ie.gmit.sw.database.counter.OffHeapCounter;
+import ie.gmit.sw.database.interfaces.WordCounter;
+
+/**
+ * @author Kevin Niland
+ * @category Benchmark
+ * @version 1.0
+ *
+ *          TermStoreBenchmark
+ *
+ *          Counts 10,000, 100,000 and 1,000,000 distinct words with
+ *          ExactCounter and OffHeapCounter, a page at a time as NodeParser
+ *          does, and compares the heap each holds on to once the garbage has
+ *          been collected, the time spent collecting garbage while counting,
+ *          the time a full collection takes with the counter still live, and
+ *          the time to pick the top words. Fails if the two give different
+ *          top words
+ *
+ *          Run with a fixed heap so collections are comparable, e.g. java
+ *          -Xms2g -Xmx2g ie.gmit.sw.benchmark.TermStoreBenchmark [occurrences]
+ */
+public class TermStoreBenchmark {
+	private static final int[] DISTINCT = { 10000, 100000, 1000000 };
+	private static final int PAGE = 1000, TOP = 32;
+
+	public static void main(String[] args) {
+		int occurrences = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+		boolean same = true;
+
+		System.out.printf("%-10s %10s %14s %12s %10s %10s %10s %10s%n", "Counter", "Words", "Heap held", "Off heap",
+				"Count ms", "GC ms", "Full GC ms", "Top us");
+
+		// Warm up
+		run(new ExactCounter(), 10000, occurrences, false);
+		run(new OffHeapCounter(), 10000, occurrences, false);
+
+		for (int distinct : DISTINCT) {
+			WordFrequency[] exact = run(new ExactCounter(), distinct, occurrences, true);
+			WordFrequency[] offHeap = run(new OffHeapCounter(), distinct, occurrences, true);
+
+			if (!Arrays.equals(frequencies(exact), frequencies(offHeap))) {
+				System.out.println("Top words differ");
+				same = false;
+			}
+		}
+
+		if (!same) {
+			System.exit(1);
+		}
+	}
+
+	private static WordFrequency[] run(WordCounter counter, int distinct, int occurrences, boolean print) {
+		long baseline = usedAfterGc();
+		long gcBefore = gcMillis();
+		long start = System.nanoTime();
+		WordCounts wordCounts = new WordCounts();
+		int seen = 0;
+
+		// Word i appears (i % 97) + occurrences times, so counts differ
+		for (int round = 0; round < occurrences + 96; round++) {
+			for (int i = 0; i < distinct; i++) {
+				if (round < occurrences + i % 97) {
+					// A new String each time, as a new page gives
+					wordCounts.add(Fixtures.word("term", i));
+
+					if (++seen % PAGE == 0) {
+						wordCounts.forEach(counter::add);
+						wordCounts.clear();
+					}
+				}
+			}
+		}
+
+		wordCounts.forEach(counter::add);
+
+		long countMillis = (System.nanoTime() - start) / 1000000;
+		long countGc = gcMillis() - gcBefore;
+
+		wordCounts = null;
+
+		long fullGcStart = System.nanoTime();
+		long held = usedAfterGc() - baseline;
+		long fullGcMillis = (System.nanoTime() - fullGcStart) / 1000000 / 3;
+
+		long topStart = System.nanoTime();
+		WordFrequency[] top = counter.top(TOP);
+		long topMicros = (System.nanoTime() - topStart) / 1000;
+
+		if (print) {
+			System.out.printf("%-10s %,10d %,14d %,12d %,10d %,10d %,10d %,10d%n",
+					counter instanceof OffHeapCounter ? "Off heap" : "Exact", distinct, held,
+					counter instanceof OffHeapCounter ? ((OffHeapCounter) counter).getOffHeapBytes() : 0, countMillis,
+					countGc, fullGcMillis, topMicros);
+		}
+
+		// Keep the counter live until it has been measured
+		counter.clear();
+
+		return top;
+	}
+
+	/**
+	 * Counts of the top words, which are the same whichever way ties are broken
+	 */
+	private static int[] frequencies(WordFrequency[] words) {
+		return Arrays.stream(words).mapToInt(WordFrequency::getFrequency).toArray();
+	}
+
+	/**
+	 * @return Bytes of heap in use after three full collections
+	 */
+	private static long usedAfterGc() {
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+
+		Runtime runtime = Runtime.getRuntime();
+
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	private static long gcMillis() {
+		long millis = 0;
+
+		for (GarbageCollectorMXBean garbageCollectorMXBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+			millis += Math.max(0, garbageCollectorMXBean.getCollectionTime());
+		}
+
+		return millis;
+	}
+}
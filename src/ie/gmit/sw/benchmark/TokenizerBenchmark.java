@@ -0,0 +1,125 @@
+package ie.gmit.sw.benchmark;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.jsoup.Jsoup;
+
+import ie.gmit.sw.parser.tokenizer.TermTable;
+import ie.gmit.sw.parser.tokenizer.Tokenizer;
+
+/**
+ * @author Kevin Niland
+ * @category Benchmark
+ * @version 1.0
+ *
+ *          TokenizerBenchmark
+ *
+ *          Compares the time and memory allocated to split a large page into
+ *          counted words using text.split("\\W+") and capitalising each word
+ *          (as NodeParser and RealDatabase used to do) against Tokenizer and
+ *          TermTable. Both count into a HashMap so only the splitting differs.
+ *          Uses the body text of the given HTML files, or a generated 5 MB page
+ *          of mixed English, accented and Cyrillic words if none are given
+ *
+ *          Usage: java ie.gmit.sw.benchmark.TokenizerBenchmark [page.html...]
+ */
+public class TokenizerBenchmark {
+	private static final int ITERATIONS = 20;
+
+	public static void main(String[] args) throws Exception {
+		String text = args.length == 0 ? generate(5 * 1024 * 1024) : read(args);
+
+		System.out.printf("Page: %,d characters%n", text.length());
+
+		// Warm up both
+		for (int i = 0; i < 5; i++) {
+			split(text);
+			tokenize(text);
+		}
+
+		System.out.printf("split(\"\\\\W+\"): %s%n", measure(() -> split(text)));
+		System.out.printf("Tokenizer:     %s%n", measure(() -> tokenize(text)));
+		System.out.printf("Distinct words - split: %,d  Tokenizer: %,d%n", split(text), tokenize(text));
+	}
+
+	/**
+	 * The way NodeParser and RealDatabase used to split and key words
+	 */
+	private static int split(String text) {
+		Map<String, Integer> counts = new HashMap<String, Integer>();
+
+		for (String word : text.split("\\W+")) {
+			word = word.trim();
+
+			if (word.isEmpty()) {
+				continue;
+			}
+
+			counts.merge(word.substring(0, 1).toUpperCase().concat(word.substring(1)), 1, Integer::sum);
+		}
+
+		return counts.size();
+	}
+
+	private static int tokenize(String text) {
+		Map<String, Integer> counts = new HashMap<String, Integer>();
+		TermTable termTable = new TermTable();
+
+		new Tokenizer().tokenize(text,
+				(buffer, length, hash) -> counts.merge(termTable.intern(buffer, length, hash), 1, Integer::sum));
+
+		return counts.size();
+	}
+
+	/**
+	 * @return Average time and bytes allocated per page
+	 */
+	private static String measure(Runnable runnable) {
+		com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+		long allocated = threadMXBean.getThreadAllocatedBytes(thread);
+		long start = System.nanoTime();
+
+		for (int i = 0; i < ITERATIONS; i++) {
+			runnable.run();
+		}
+
+		long time = (System.nanoTime() - start) / ITERATIONS;
+
+		allocated = (threadMXBean.getThreadAllocatedBytes(thread) - allocated) / ITERATIONS;
+
+		return String.format("%,8.1f ms/page  %,14d bytes allocated/page", time / 1e6, allocated);
+	}
+
+	private static String read(String[] files) throws Exception {
+		StringBuilder text = new StringBuilder();
+
+		for (String file : files) {
+			text.append(Jsoup.parse(new String(Files.readAllBytes(new File(file).toPath()), StandardCharsets.UTF_8))
+					.body().text()).append(' ');
+		}
+
+		return text.toString();
+	}
+
+	private static String generate(int length) {
+		String[] words = { "cloud", "search", "Fuzzy", "logic", "network", "the", "and", "heuristic", "caf\u00e9",
+				"na\u00efve", "Stra\u00dfe", "\u043c\u043e\u0441\u043a\u0432\u0430", "word", "frequency", "Galway",
+				"spiral", "2020", "don't", "page", "parser" };
+		Random random = new Random(1);
+		StringBuilder text = new StringBuilder(length + 32);
+
+		while (text.length() < length) {
+			text.append(words[random.nextInt(words.length)]).append(random.nextInt(10) == 0 ? ". " : " ");
+		}
+
+		return text.toString();
+	}
+}
@@ -0,0 +1,129 @@
+package ie.gmit.sw.benchmark;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import ie.gmit.sw.ai.cloud.WordFrequency;
+import ie.gmit.sw.database.WordCounts;
+import ie.gmit.sw.database.counter.ExactCounter;
+import ie.gmit.sw.database.counter.SpaceSavingCounter;
+import ie.gmit.sw.database.interfaces.WordCounter;
+
+/**
+ * @author Kevin Niland
+ * @category Benchmark
+ * @version 1.0
+ *
+ *          TopKBenchmark
+ *
+ *          Counts the same stream of words exactly and with Space-Saving
+ *          counters of a few capacities, a page at a time as NodeParser does,
+ *          and reports for each k how far the Space-Saving top k is from the
+ *          exact one - the share of the exact top k it found, and the largest
+ *          and mean amount it over counted them by, next to the bound it
+ *          guarantees - along with how many words each keeps and how long
+ *          picking the top k takes
+ *
+ *          Words are drawn from a Zipf distribution, which is roughly how
+ *          words are spread over real pages
+ *
+ *          Usage: java ie.gmit.sw.benchmark.TopKBenchmark [words] [vocabulary]
+ */
+public class TopKBenchmark {
+	private static final int PAGE = 1000, REPEATS = 20;
+	private static final int[] CAPACITIES = { 256, 1024, 4096 };
+	private static final int[] KS = { 10, 32, 100 };
+
+	public static void main(String[] args) {
+		int length = args.length > 0 ? Integer.parseInt(args[0]) : 5000000;
+		int vocabulary = args.length > 1 ? Integer.parseInt(args[1]) : 200000;
+		String[] stream = Fixtures.zipf(Fixtures.vocabulary("w", vocabulary), length, new Random(1));
+		ExactCounter exact = new ExactCounter();
+		SpaceSavingCounter[] counters = new SpaceSavingCounter[CAPACITIES.length];
+
+		for (int i = 0; i < CAPACITIES.length; i++) {
+			counters[i] = new SpaceSavingCounter(CAPACITIES[i]);
+		}
+
+		long exactNanos = count(stream, exact);
+		long[] counterNanos = new long[counters.length];
+
+		for (int i = 0; i < counters.length; i++) {
+			counterNanos[i] = count(stream, counters[i]);
+		}
+
+		System.out.printf("%,d words, %,d word vocabulary, %,d distinct words seen%n%n", length, vocabulary,
+				exact.counts().size());
+		System.out.printf("%-14s %10s %12s %5s %8s %10s %10s %11s %10s%n", "Counting", "Words kept", "Counting ms",
+				"k", "Recall", "Max error", "Mean error", "Error bound", "Top k us");
+
+		for (int k : KS) {
+			WordFrequency[] truth = exact.top(k);
+
+			System.out.printf("%-14s %,10d %,12d %5d %7.1f%% %,10d %10.1f %,11d %,10.1f%n", "Exact",
+					exact.counts().size(), exactNanos / 1000000, k, 100.0, 0, 0.0, 0, topMicros(exact, k));
+
+			for (int i = 0; i < counters.length; i++) {
+				SpaceSavingCounter counter = counters[i];
+				WordFrequency[] found = counter.top(k);
+				Set<String> foundWords = new HashSet<String>();
+				long maxError = 0, totalError = 0;
+
+				for (WordFrequency wordFrequency : found) {
+					long error = wordFrequency.getFrequency() - exact.counts().getOrDefault(wordFrequency.getWord(), 0);
+
+					foundWords.add(wordFrequency.getWord());
+					maxError = Math.max(maxError, error);
+					totalError += error;
+				}
+
+				int hits = 0;
+
+				for (WordFrequency wordFrequency : truth) {
+					hits += foundWords.contains(wordFrequency.getWord()) ? 1 : 0;
+				}
+
+				System.out.printf("%-14s %,10d %,12d %5d %7.1f%% %,10d %10.1f %,11d %,10.1f%n",
+						"Space-Saving", counter.getCapacity(), counterNanos[i] / 1000000, k,
+						100.0 * hits / truth.length, maxError, (double) totalError / Math.max(1, found.length),
+						counter.getMaxError(), topMicros(counter, k));
+			}
+
+			System.out.println();
+		}
+	}
+
+	/**
+	 * Counts the stream a page at a time
+	 *
+	 * @return Nanoseconds taken
+	 */
+	private static long count(String[] stream, WordCounter counter) {
+		WordCounts wordCounts = new WordCounts();
+		long start = System.nanoTime();
+
+		for (int i = 0; i < stream.length; i++) {
+			wordCounts.add(stream[i]);
+
+			if ((i + 1) % PAGE == 0 || i == stream.length - 1) {
+				wordCounts.forEach(counter::add);
+				wordCounts.clear();
+			}
+		}
+
+		return System.nanoTime() - start;
+	}
+
+	private static double topMicros(WordCounter counter, int k) {
+		counter.top(k);
+
+		long start = System.nanoTime();
+
+		for (int i = 0; i < REPEATS; i++) {
+			counter.top(k);
+		}
+
+		return (System.nanoTime() - start) / 1000.0 / REPEATS;
+	}
+}
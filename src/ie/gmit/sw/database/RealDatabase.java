@@ -5,15 +5,24 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import ie.gmit.sw.ai.cloud.WordFrequency;
+import ie.gmit.sw.database.counter.WordCounting;
+import ie.gmit.sw.database.interfaces.CountListener;
 import ie.gmit.sw.database.interfaces.Database;
+import ie.gmit.sw.database.interfaces.WordCounter;
+import ie.gmit.sw.parser.tokenizer.Tokenizer;
 
 /**
  * @author Kevin Niland
@@ -26,20 +35,39 @@ import ie.gmit.sw.database.interfaces.Database;
  *          Database
  * 
  *          Generates a database of words from which the word cloud is generated
+ * 
+ *          The instance from getInstance() holds the ignore list read from
+ *          file when the servlet starts, compiled into an immutable StopWords
+ *          set. Each search counts its words in its own database from
+ *          newSession(), which shares that set and keeps the terms of its own
+ *          search in a small overlay on top of it, so searches running at
+ *          the same time don't see or clear each other's words
+ * 
+ *          Words are counted by a WordCounter, either exactly or, in fixed
+ *          memory, only the most frequent ones
  */
 public class RealDatabase implements Database {
 	private static RealDatabase realDatabase;
-	private WordFrequency[] wordFrequencies = new WordFrequency[32];
-	private ConcurrentHashMap<String, Integer> wordMap = new ConcurrentHashMap<String, Integer>();
-	private List<WordFrequency> popularWords = new ArrayList<WordFrequency>();
-	private Set<String> ignoreList = new ConcurrentSkipListSet<String>();
+	private static final int DEFAULT_TOP_WORDS = 32;
+	private WordCounting wordCounting = WordCounting.EXACT;
+	private int counterCapacity = 1024;
+	private WordCounter wordCounter;
+	private volatile StopWords ignoreList = StopWords.empty();
+	private volatile String[] searchIgnoreList = new String[0];
+	private Set<String> ignoreView = new IgnoreView();
+	private AtomicInteger pages = new AtomicInteger();
+	private volatile CountListener countListener;
 	private BufferedReader bufferedReader = null;
-	private String line, ignoreWord;
-	private int i, counter = 0;
+	private String line;
 
 	// Singleton design pattern - Double-checked locking principle
 	private RealDatabase() {
+		this.wordCounter = wordCounting.create(counterCapacity);
+	}
 
+	private RealDatabase(StopWords ignoreList, WordCounter wordCounter) {
+		this.ignoreList = ignoreList;
+		this.wordCounter = wordCounter;
 	}
 
 	/**
@@ -60,92 +88,265 @@ public class RealDatabase implements Database {
 	}
 
 	/**
-	 * Adds a word to the wordMap
+	 * @return A new, empty database for one search, sharing this database's
+	 *         ignore list and way of counting words
+	 */
+	public RealDatabase newSession() {
+		return new RealDatabase(ignoreList, wordCounting.create(counterCapacity));
+	}
+
+	/**
+	 * Sets how the databases from newSession() count words. Only called on the
+	 * instance from getInstance()
+	 * 
+	 * @param wordCounting    - EXACT counts every word, SPACE_SAVING only the
+	 *                        most frequent, in fixed memory
+	 * @param counterCapacity - Number of words a SPACE_SAVING counter keeps
+	 */
+	public void setWordCounting(WordCounting wordCounting, int counterCapacity) {
+		this.wordCounting = wordCounting;
+		this.counterCapacity = counterCapacity;
+	}
+
+	/**
+	 * Adds a word to the wordMap. Words come from Tokenizer already folded to lower
+	 * case, so they can be checked against the ignore list as they are
 	 * 
 	 * @param word - Word to be added to map
 	 */
 	@Override
 	public void addWord(String word) {
-		ignoreWord = word.substring(0, 1).toUpperCase().concat(word.substring(1));
+		// If neither ignore list contains 'word', count it
+		if (!isIgnored(word)) {
+			wordCounter.add(word, 1);
+		}
+	}
+
+	/**
+	 * Merges the words a parser has counted into the wordMap. Each distinct word
+	 * is checked against the ignore lists and merged once, however many times it
+	 * was counted
+	 * 
+	 * @param wordCounts - Words counted by one parser since its last merge
+	 */
+	public void addWords(WordCounts wordCounts) {
+		wordCounts.forEach((word, count) -> {
+			if (!isIgnored(word)) {
+				wordCounter.add(word, count);
+			}
+		});
 
-		/**
-		 * If the list containing the ignore words doesn't contain 'word' and wordMap
-		 * contains ...
-		 */
-		if (!ignoreList.contains(ignoreWord) && wordMap.containsKey(ignoreWord)) {
-			counter = wordMap.get(ignoreWord);
-			counter++;
+		pages.incrementAndGet();
 
-			wordMap.put(ignoreWord, counter);
-		} else {
-			wordMap.put(word, 1);
+		CountListener countListener = this.countListener;
 
-			return;
+		if (countListener != null) {
+			countListener.counted(this);
 		}
 	}
 
-	@Override
-	public WordFrequency[] getWordFrequency() {
-		this.wordMap.entrySet().forEach(entry -> {
-			popularWords.add(new WordFrequency(entry.getKey(), entry.getValue()));
-		});
+	/**
+	 * @param countListener - Told each time a page's words are merged, or null
+	 */
+	public void setCountListener(CountListener countListener) {
+		this.countListener = countListener;
+	}
 
-		// Sort the list of popular words
-		Collections.sort(popularWords);
+	/**
+	 * @return Number of times a parser has merged the words of a page
+	 */
+	public int getPages() {
+		return pages.get();
+	}
 
-		for (i = 0; i < 32; i++) {
-			wordFrequencies[i] = popularWords.get(i);
-		}
+	/**
+	 * @return Read only view of the words being counted and their counts. Every
+	 *         word counted so far when counting exactly
+	 */
+	public Map<String, Integer> getWordCounts() {
+		return wordCounter.counts();
+	}
 
-		return wordFrequencies;
+	public WordCounter getWordCounter() {
+		return this.wordCounter;
 	}
 
 	/**
-	 * Clear words from the wordMap and popular words list. Subsequent searches
-	 * would return words from previous searches
+	 * @return The 32 most frequent words, most frequent first
+	 */
+	@Override
+	public WordFrequency[] getWordFrequency() {
+		return getWordFrequency(DEFAULT_TOP_WORDS);
+	}
+
+	/**
+	 * @param k - Number of words wanted
+	 * @return The k most frequent words, most frequent first. Fewer than k if
+	 *         fewer have been counted
+	 */
+	@Override
+	public WordFrequency[] getWordFrequency(int k) {
+		return wordCounter.top(k);
+	}
+
+	/**
+	 * Clear words from the word counter. Subsequent searches would return words
+	 * from previous searches
 	 */
 	@Override
 	public void clear() {
-		wordMap.clear();
-		popularWords.clear();
+		wordCounter.clear();
 	}
 
 	/**
-	 * Ignores a words from file
+	 * Ignores a words from file. Only called on the instance from getInstance(),
+	 * as the ignore list of a session is read only
 	 * 
 	 * @param fileIgnore - File to ignore words/search terms from
 	 * @throws IOException
 	 */
 	@Override
 	public void ignoreFromFile(File fileIgnore) throws IOException {
+		Set<String> words = new HashSet<String>(ignoreList);
+		Tokenizer tokenizer = new Tokenizer();
+
 		try {
 			bufferedReader = new BufferedReader(new FileReader(fileIgnore));
 
+			/**
+			 * Fold each line the same way as page text, so the ignore list holds the
+			 * words as Tokenizer will find them. A line that isn't one whole word, e.g.
+			 * "won't", which Tokenizer splits into "won" and a dropped "t", is skipped,
+			 * as ignoring its parts would also ignore real words like "won"
+			 */
 			while ((line = bufferedReader.readLine()) != null) {
-				ignoreList.add(line.substring(0, 1).toUpperCase().concat(line.substring(1)));
+				String trimmed = line.trim();
+				List<String> tokens = new ArrayList<String>(1);
+
+				tokenizer.tokenize(trimmed, (buffer, length, hash) -> tokens.add(new String(buffer, 0, length)));
+
+				if (tokens.size() == 1 && tokens.get(0).length() == trimmed.length()) {
+					words.add(tokens.get(0));
+				}
 			}
+
+			bufferedReader.close();
 		} catch (FileNotFoundException fileNotFoundException) {
 			fileNotFoundException.printStackTrace();
 		}
+
+		// Compile the words into one immutable set, shared read only by every search
+		ignoreList = StopWords.of(words);
 	}
 
 	/**
-	 * Ignores a word from a search
+	 * Ignores a word from a search, in this database only
 	 * 
 	 * @param wordIgnore - Word/search term from search to ignore
 	 */
 	@Override
-	public void ignoreFromSearch(String wordIgnore) {
-		ignoreList.add(wordIgnore.substring(0, 1).toUpperCase().concat(wordIgnore.substring(1)));
+	public synchronized void ignoreFromSearch(String wordIgnore) {
+		String word = wordIgnore.toLowerCase();
+
+		if (!isSearchTerm(word)) {
+			// Copied on write - a search only has a few terms, and they are read for every word
+			String[] words = Arrays.copyOf(searchIgnoreList, searchIgnoreList.length + 1);
+
+			words[words.length - 1] = word;
+			searchIgnoreList = words;
+		}
+	}
+
+	/**
+	 * @return true if word is ignored because it is one of this search's terms
+	 */
+	public boolean isSearchTerm(String word) {
+		for (String term : searchIgnoreList) {
+			if (term.equals(word)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * @return true if word is in either ignore list
+	 */
+	public boolean isIgnored(String word) {
+		return ignoreList.contains(word) || isSearchTerm(word);
+	}
+
+	/**
+	 * Checks a word straight from Tokenizer's buffer, without creating a String
+	 * 
+	 * @param buffer - Characters of the word, folded to lower case
+	 * @param length - Number of characters in buffer that make up the word
+	 * @param hash   - String.hashCode() of the word
+	 * @return true if the word is in either ignore list
+	 */
+	public boolean isIgnored(char[] buffer, int length, int hash) {
+		if (ignoreList.contains(buffer, length, hash)) {
+			return true;
+		}
+
+		for (String term : searchIgnoreList) {
+			if (term.hashCode() == hash && term.length() == length && matches(term, buffer)) {
+				return true;
+			}
+		}
+
+		return false;
 	}
 
 	/**
 	 * Return the list containing all ignored words
 	 * 
-	 * @return ignoreList - List containing all the words/search terms to ignore
+	 * @return ignoreList - Read only view of the words from file and the
+	 *         words/search terms of this search to ignore
 	 */
 	@Override
 	public Set<String> ignore() {
-		return ignoreList;
+		return ignoreView;
+	}
+
+	private static boolean matches(String term, char[] buffer) {
+		for (int i = 0; i < term.length(); i++) {
+			if (term.charAt(i) != buffer[i]) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Both ignore lists seen as one, without copying them
+	 */
+	private class IgnoreView extends AbstractSet<String> {
+		@Override
+		public boolean contains(Object word) {
+			return word instanceof String && isIgnored((String) word);
+		}
+
+		@Override
+		public Iterator<String> iterator() {
+			Set<String> words = new TreeSet<String>(ignoreList);
+
+			words.addAll(Arrays.asList(searchIgnoreList));
+
+			return Collections.unmodifiableSet(words).iterator();
+		}
+
+		@Override
+		public int size() {
+			int size = ignoreList.size();
+
+			for (String word : searchIgnoreList) {
+				size += ignoreList.contains(word) ? 0 : 1;
+			}
+
+			return size;
+		}
 	}
 }
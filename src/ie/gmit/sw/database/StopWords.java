@@ -0,0 +1,193 @@
+package ie.gmit.sw.database;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import ie.gmit.sw.parser.tokenizer.TokenHash;
+
+/**
+ * @author Kevin Niland
+ * @category Database
+ * @version 1.0
+ *
+ *          StopWords
+ *
+ *          An immutable, case-insensitive set of the words to leave out of the
+ *          cloud, compiled once from the ignore words file. The words are
+ *          folded to lower case and packed end to end into one char array, with
+ *          an open addressing table of offsets into it keyed by String.hashCode(),
+ *          so a word can be looked up straight from Tokenizer's buffer with the
+ *          hash Tokenizer has already worked out, without creating a String.
+ *          Being immutable, one set is shared by every search without locking
+ */
+public final class StopWords extends AbstractSet<String> {
+	private static final StopWords EMPTY = new StopWords(new String[0]);
+
+	private final char[] chars;
+	private final int[] offsets, lengths, hashes;
+	private final int[] table;
+	private final int mask;
+
+	private StopWords(String[] words) {
+		int totalLength = 0;
+
+		for (String word : words) {
+			totalLength += word.length();
+		}
+
+		this.chars = new char[totalLength];
+		this.offsets = new int[words.length];
+		this.lengths = new int[words.length];
+		this.hashes = new int[words.length];
+
+		// At most half full, so a miss ends at an empty slot quickly
+		int capacity = Integer.highestOneBit(Math.max(4, words.length * 2 - 1)) << 1;
+
+		this.table = new int[capacity];
+		this.mask = capacity - 1;
+
+		for (int i = 0, offset = 0; i < words.length; i++) {
+			String word = words[i];
+
+			word.getChars(0, word.length(), chars, offset);
+			offsets[i] = offset;
+			lengths[i] = word.length();
+			hashes[i] = word.hashCode();
+			offset += word.length();
+
+			int slot = TokenHash.spread(hashes[i]) & mask;
+
+			while (table[slot] != 0) {
+				slot = (slot + 1) & mask;
+			}
+
+			// 0 marks an empty slot, so entries are stored one higher
+			table[slot] = i + 1;
+		}
+	}
+
+	public static StopWords empty() {
+		return EMPTY;
+	}
+
+	/**
+	 * @param words - Words to ignore, in any case
+	 * @return A set of words, folded to lower case
+	 */
+	public static StopWords of(Collection<String> words) {
+		return new StopWords(words.stream().map(StopWords::fold).distinct().toArray(String[]::new));
+	}
+
+	/**
+	 * @param buffer - Characters of a word, already folded to lower case
+	 * @param length - Number of characters in buffer that make up the word
+	 * @param hash   - String.hashCode() of the word
+	 * @return true if the word is ignored
+	 */
+	public boolean contains(char[] buffer, int length, int hash) {
+		for (int slot = TokenHash.spread(hash) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+			int entry = table[slot] - 1;
+
+			if (hashes[entry] == hash && lengths[entry] == length && matches(entry, buffer, length)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * @param word - Word in any case
+	 * @return true if the word is ignored
+	 */
+	@Override
+	public boolean contains(Object word) {
+		if (!(word instanceof String)) {
+			return false;
+		}
+
+		String text = (String) word;
+		int hash = 0;
+
+		// Fold to lower case as the hash is worked out, so a word already in lower case isn't copied
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+
+			if (Character.isSurrogate(c)) {
+				String folded = fold(text);
+
+				return contains(folded.toCharArray(), folded.length(), folded.hashCode());
+			}
+
+			hash = 31 * hash + Character.toLowerCase(c);
+		}
+
+		for (int slot = TokenHash.spread(hash) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+			int entry = table[slot] - 1;
+
+			if (hashes[entry] == hash && lengths[entry] == text.length() && matchesFolded(entry, text)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	@Override
+	public Iterator<String> iterator() {
+		return new Iterator<String>() {
+			private int entry = 0;
+
+			@Override
+			public boolean hasNext() {
+				return entry < offsets.length;
+			}
+
+			@Override
+			public String next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+
+				int i = entry++;
+
+				return new String(chars, offsets[i], lengths[i]);
+			}
+		};
+	}
+
+	@Override
+	public int size() {
+		return offsets.length;
+	}
+
+	private boolean matches(int entry, char[] buffer, int length) {
+		for (int i = 0, offset = offsets[entry]; i < length; i++) {
+			if (chars[offset + i] != buffer[i]) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private boolean matchesFolded(int entry, String text) {
+		for (int i = 0, offset = offsets[entry]; i < text.length(); i++) {
+			if (chars[offset + i] != Character.toLowerCase(text.charAt(i))) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Folds each code point to lower case, the same way Tokenizer does
+	 */
+	private static String fold(String word) {
+		return word.codePoints().map(Character::toLowerCase).collect(StringBuilder::new,
+				StringBuilder::appendCodePoint, StringBuilder::append).toString();
+	}
+}
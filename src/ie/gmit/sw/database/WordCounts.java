@@ -0,0 +1,154 @@
+package ie.gmit.sw.database;
+
+import java.util.Arrays;
+import java.util.function.ObjIntConsumer;
+
+import ie.gmit.sw.parser.tokenizer.TokenHash;
+
+/**
+ * @author Kevin Niland
+ * @category Database
+ * @version 1.0
+ *
+ *          WordCounts
+ *
+ *          Counts words into primitive ints, in an open addressing hash table,
+ *          so counting a word that has been seen before doesn't allocate or
+ *          box. Each parser counts a page's words into its own WordCounts and
+ *          merges them into RealDatabase once the page is done, so parser
+ *          threads only meet in the shared map once per distinct word per page
+ *          instead of once per word. Not thread safe - each parser has its own
+ */
+public class WordCounts {
+	private static final int INITIAL_CAPACITY = 256;
+
+	private String[] words = new String[INITIAL_CAPACITY];
+	private int[] hashes = new int[INITIAL_CAPACITY];
+	private int[] counts = new int[INITIAL_CAPACITY];
+	private int size = 0;
+	private long total = 0;
+
+	/**
+	 * Counts one more of word
+	 */
+	public void add(String word) {
+		add(word, 1);
+	}
+
+	/**
+	 * @param word  - Word to count
+	 * @param count - Number of times it was seen
+	 */
+	public void add(String word, int count) {
+		int hash = word.hashCode();
+		int mask = words.length - 1;
+		int slot = TokenHash.spread(hash) & mask;
+
+		while (words[slot] != null) {
+			// Words from TermTable are usually the very same String
+			if (words[slot] == word || (hashes[slot] == hash && words[slot].equals(word))) {
+				counts[slot] += count;
+				total += count;
+
+				return;
+			}
+
+			slot = (slot + 1) & mask;
+		}
+
+		words[slot] = word;
+		hashes[slot] = hash;
+		counts[slot] = count;
+		total += count;
+
+		if (++size * 2 > words.length) {
+			resize();
+		}
+	}
+
+	/**
+	 * @return Number of times word has been counted
+	 */
+	public int get(String word) {
+		int hash = word.hashCode();
+		int mask = words.length - 1;
+
+		for (int slot = TokenHash.spread(hash) & mask; words[slot] != null; slot = (slot + 1) & mask) {
+			if (hashes[slot] == hash && words[slot].equals(word)) {
+				return counts[slot];
+			}
+		}
+
+		return 0;
+	}
+
+	/**
+	 * Passes each word and its count to consumer
+	 */
+	public void forEach(ObjIntConsumer<String> consumer) {
+		for (int slot = 0; slot < words.length; slot++) {
+			if (words[slot] != null) {
+				consumer.accept(words[slot], counts[slot]);
+			}
+		}
+	}
+
+	/**
+	 * @return Number of distinct words
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return Number of words counted, including repeats
+	 */
+	public long total() {
+		return total;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Empties the table, keeping its capacity for the next page unless a very
+	 * large page has grown it
+	 */
+	public void clear() {
+		if (words.length > INITIAL_CAPACITY * 64) {
+			words = new String[INITIAL_CAPACITY];
+			hashes = new int[INITIAL_CAPACITY];
+			counts = new int[INITIAL_CAPACITY];
+		} else if (size > 0) {
+			Arrays.fill(words, null);
+		}
+
+		size = 0;
+		total = 0;
+	}
+
+	private void resize() {
+		String[] oldWords = words;
+		int[] oldHashes = hashes, oldCounts = counts;
+		int mask = oldWords.length * 2 - 1;
+
+		words = new String[oldWords.length * 2];
+		hashes = new int[oldWords.length * 2];
+		counts = new int[oldWords.length * 2];
+
+		for (int i = 0; i < oldWords.length; i++) {
+			if (oldWords[i] != null) {
+				int slot = TokenHash.spread(oldHashes[i]) & mask;
+
+				while (words[slot] != null) {
+					slot = (slot + 1) & mask;
+				}
+
+				words[slot] = oldWords[i];
+				hashes[slot] = oldHashes[i];
+				counts[slot] = oldCounts[i];
+			}
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package ie.gmit.sw.database.counter;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+import ie.gmit.sw.ai.cloud.WordFrequency;
+import ie.gmit.sw.database.interfaces.WordCounter;
+
+/**
+ * @author Kevin Niland
+ * @category Database
+ * @version 1.0
+ *
+ *          ExactCounter - Implementation of WordCounter
+ *
+ *          Counts every word exactly in a ConcurrentHashMap, so its memory
+ *          grows with the vocabulary of the crawl. The top k words are picked
+ *          with a min-heap of k entries, O(n log k) for n distinct words
+ */
+public class ExactCounter implements WordCounter {
+	private final ConcurrentHashMap<String, Integer> wordMap = new ConcurrentHashMap<String, Integer>();
+
+	@Override
+	public void add(String word, int count) {
+		wordMap.merge(word, count, Integer::sum);
+	}
+
+	@Override
+	public WordFrequency[] top(int k) {
+		PriorityQueue<WordFrequency> heap = new PriorityQueue<WordFrequency>(Math.max(1, k),
+				Collections.reverseOrder());
+
+		// WordFrequency sorts most frequent first, so reversed the head of the heap is the least frequent
+		wordMap.forEach((word, count) -> {
+			if (heap.size() < k) {
+				heap.add(new WordFrequency(word, count));
+			} else if (k > 0 && count > heap.peek().getFrequency()) {
+				heap.poll();
+				heap.add(new WordFrequency(word, count));
+			}
+		});
+
+		WordFrequency[] words = heap.toArray(new WordFrequency[heap.size()]);
+
+		Arrays.sort(words);
+
+		return words;
+	}
+
+	@Override
+	public Map<String, Integer> counts() {
+		return Collections.unmodifiableMap(wordMap);
+	}
+
+	@Override
+	public void clear() {
+		wordMap.clear();
+	}
+
+	public String toString() {
+		return "Exact - " + wordMap.size() + " words";
+	}
+}
@@ -0,0 +1,264 @@
+package ie.gmit.sw.database.counter;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ie.gmit.sw.ai.cloud.WordFrequency;
+import ie.gmit.sw.database.interfaces.WordCounter;
+import ie.gmit.sw.parser.tokenizer.TokenHash;
+
+/**
+ * @author Kevin Niland
+ * @category Database
+ * @version 1.0
+ *
+ *          OffHeapCounter - Implementation of WordCounter
+ *
+ *          Counts every word exactly, like ExactCounter, but for crawls with
+ *          hundreds of thousands of distinct words. Each distinct word is
+ *          copied once into an arena of direct ByteBuffers outside the heap
+ *          and given a dense int id. Everything else is kept in primitive
+ *          arrays indexed by id - where its characters are, its hash and its
+ *          count - with an open addressing table of ids to find it by, so the
+ *          garbage collector sees a handful of arrays rather than a String, an
+ *          Integer and a map entry for every word. WordFrequency objects are
+ *          only created for the top k words
+ */
+public class OffHeapCounter implements WordCounter {
+	private static final int CHUNK_CHARS = 1 << 19;
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private final List<CharBuffer> chunks = new ArrayList<CharBuffer>();
+	private int[] starts = new int[INITIAL_CAPACITY];
+	private int[] lengths = new int[INITIAL_CAPACITY];
+	private int[] hashes = new int[INITIAL_CAPACITY];
+	private int[] counts = new int[INITIAL_CAPACITY];
+	private int[] table = new int[INITIAL_CAPACITY * 2];
+	private int size = 0, position = CHUNK_CHARS;
+
+	@Override
+	public synchronized void add(String word, int count) {
+		int hash = word.hashCode();
+		int mask = table.length - 1;
+		int slot = TokenHash.spread(hash) & mask;
+
+		while (table[slot] != 0) {
+			int id = table[slot] - 1;
+
+			if (hashes[id] == hash && lengths[id] == word.length() && matches(id, word)) {
+				counts[id] += count;
+
+				return;
+			}
+
+			slot = (slot + 1) & mask;
+		}
+
+		if (size == counts.length) {
+			grow();
+		}
+
+		// 0 marks an empty slot, so ids are stored one higher
+		int id = size++;
+
+		starts[id] = store(word);
+		lengths[id] = word.length();
+		hashes[id] = hash;
+		counts[id] = count;
+		table[slot] = id + 1;
+
+		if (size * 2 > table.length) {
+			rehash();
+		}
+	}
+
+	/**
+	 * Picks the top k ids with a primitive min-heap of k ids, O(n log k), and
+	 * only then turns them into words
+	 */
+	@Override
+	public synchronized WordFrequency[] top(int k) {
+		int[] heap = new int[Math.max(0, Math.min(k, size))];
+		int heapSize = 0;
+
+		for (int id = 0; id < size && heap.length > 0; id++) {
+			if (heapSize < heap.length) {
+				heap[heapSize] = id;
+				siftUp(heap, heapSize++);
+			} else if (counts[id] > counts[heap[0]]) {
+				heap[0] = id;
+				siftDown(heap, heapSize, 0);
+			}
+		}
+
+		WordFrequency[] top = new WordFrequency[heapSize];
+
+		for (int i = 0; i < heapSize; i++) {
+			top[i] = new WordFrequency(word(heap[i]), counts[heap[i]]);
+		}
+
+		Arrays.sort(top);
+
+		return top;
+	}
+
+	/**
+	 * Copies every word back onto the heap, so only for checking counts
+	 */
+	@Override
+	public synchronized Map<String, Integer> counts() {
+		Map<String, Integer> copy = new HashMap<String, Integer>(size * 2);
+
+		for (int id = 0; id < size; id++) {
+			copy.put(word(id), counts[id]);
+		}
+
+		return Collections.unmodifiableMap(copy);
+	}
+
+	/**
+	 * @return Number of distinct words
+	 */
+	public synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * @return Bytes held outside the heap
+	 */
+	public synchronized long getOffHeapBytes() {
+		return (long) chunks.size() * CHUNK_CHARS * Character.BYTES;
+	}
+
+	@Override
+	public synchronized void clear() {
+		chunks.clear();
+		starts = new int[INITIAL_CAPACITY];
+		lengths = new int[INITIAL_CAPACITY];
+		hashes = new int[INITIAL_CAPACITY];
+		counts = new int[INITIAL_CAPACITY];
+		table = new int[INITIAL_CAPACITY * 2];
+		size = 0;
+		position = CHUNK_CHARS;
+	}
+
+	public synchronized String toString() {
+		return "Off heap - " + size + " words, " + getOffHeapBytes() / 1024 + " KB off heap";
+	}
+
+	/**
+	 * Copies a word to the end of the arena. A word never spans two chunks
+	 *
+	 * @return start - Position of the word's first character in the arena
+	 */
+	private int store(String word) {
+		if (position + word.length() > CHUNK_CHARS) {
+			chunks.add(ByteBuffer.allocateDirect(CHUNK_CHARS * Character.BYTES).asCharBuffer());
+			position = 0;
+		}
+
+		CharBuffer chunk = chunks.get(chunks.size() - 1);
+		int start = (chunks.size() - 1) * CHUNK_CHARS + position;
+
+		for (int i = 0; i < word.length(); i++) {
+			chunk.put(position++, word.charAt(i));
+		}
+
+		return start;
+	}
+
+	private boolean matches(int id, String word) {
+		CharBuffer chunk = chunks.get(starts[id] / CHUNK_CHARS);
+
+		for (int i = 0, offset = starts[id] % CHUNK_CHARS; i < word.length(); i++) {
+			if (chunk.get(offset + i) != word.charAt(i)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private String word(int id) {
+		CharBuffer chunk = chunks.get(starts[id] / CHUNK_CHARS);
+		char[] chars = new char[lengths[id]];
+
+		for (int i = 0, offset = starts[id] % CHUNK_CHARS; i < chars.length; i++) {
+			chars[i] = chunk.get(offset + i);
+		}
+
+		return new String(chars);
+	}
+
+	private void grow() {
+		int capacity = counts.length * 2;
+
+		starts = Arrays.copyOf(starts, capacity);
+		lengths = Arrays.copyOf(lengths, capacity);
+		hashes = Arrays.copyOf(hashes, capacity);
+		counts = Arrays.copyOf(counts, capacity);
+	}
+
+	private void rehash() {
+		table = new int[table.length * 2];
+
+		int mask = table.length - 1;
+
+		for (int id = 0; id < size; id++) {
+			int slot = TokenHash.spread(hashes[id]) & mask;
+
+			while (table[slot] != 0) {
+				slot = (slot + 1) & mask;
+			}
+
+			table[slot] = id + 1;
+		}
+	}
+
+	private void siftUp(int[] heap, int i) {
+		while (i > 0) {
+			int parent = (i - 1) / 2;
+
+			if (counts[heap[parent]] <= counts[heap[i]]) {
+				return;
+			}
+
+			swap(heap, i, parent);
+			i = parent;
+		}
+	}
+
+	private void siftDown(int[] heap, int heapSize, int i) {
+		while (true) {
+			int smallest = i, left = i * 2 + 1, right = left + 1;
+
+			if (left < heapSize && counts[heap[left]] < counts[heap[smallest]]) {
+				smallest = left;
+			}
+
+			if (right < heapSize && counts[heap[right]] < counts[heap[smallest]]) {
+				smallest = right;
+			}
+
+			if (smallest == i) {
+				return;
+			}
+
+			swap(heap, i, smallest);
+			i = smallest;
+		}
+	}
+
+	private static void swap(int[] heap, int a, int b) {
+		int id = heap[a];
+
+		heap[a] = heap[b];
+		heap[b] = id;
+	}
+}
@@ -0,0 +1,208 @@
+package ie.gmit.sw.database.counter;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import ie.gmit.sw.ai.cloud.WordFrequency;
+import ie.gmit.sw.database.interfaces.WordCounter;
+
+/**
+ * @author Kevin Niland
+ * @category Database
+ * @version 1.0
+ *
+ *          SpaceSavingCounter - Implementation of WordCounter
+ *
+ *          The Space-Saving algorithm (Metwally, Agrawal and El Abbadi). Keeps
+ *          a fixed number of counters in a min-heap, whatever the size of the
+ *          crawl. A word that isn't being counted takes over the smallest
+ *          counter, starting from its count, which is remembered as the most
+ *          that word can have been over counted by. Counts are never too low,
+ *          and any word seen more than total / capacity times is always being
+ *          counted, so with a capacity well above k the top k words and their
+ *          counts come out the same as counting every word
+ *
+ *          Adding a word is O(log capacity) and the top k words are picked in
+ *          O(capacity log k), neither of which grows with the crawl
+ */
+public class SpaceSavingCounter implements WordCounter {
+	private final String[] words;
+	private final int[] counts, errors;
+	private final Map<String, Integer> index;
+	private int size = 0;
+	private long total = 0;
+
+	/**
+	 * @param capacity - Number of words counted at once
+	 */
+	public SpaceSavingCounter(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("capacity must be at least 1");
+		}
+
+		this.words = new String[capacity];
+		this.counts = new int[capacity];
+		this.errors = new int[capacity];
+		this.index = new HashMap<String, Integer>(capacity * 2);
+	}
+
+	@Override
+	public synchronized void add(String word, int count) {
+		Integer slot = index.get(word);
+
+		total += count;
+
+		if (slot != null) {
+			counts[slot] += count;
+			siftDown(slot);
+		} else if (size < words.length) {
+			words[size] = word;
+			counts[size] = count;
+			errors[size] = 0;
+			index.put(word, size);
+			siftUp(size++);
+		} else {
+			// Take over the smallest counter - the word may have been seen up to that many times already
+			index.remove(words[0]);
+			errors[0] = counts[0];
+			counts[0] += count;
+			words[0] = word;
+			index.put(word, 0);
+			siftDown(0);
+		}
+	}
+
+	@Override
+	public WordFrequency[] top(int k) {
+		String[] topWords;
+		int[] topCounts;
+		int n;
+
+		synchronized (this) {
+			n = size;
+			topWords = Arrays.copyOf(words, n);
+			topCounts = Arrays.copyOf(counts, n);
+		}
+
+		PriorityQueue<WordFrequency> heap = new PriorityQueue<WordFrequency>(Math.max(1, k),
+				Collections.reverseOrder());
+
+		for (int i = 0; i < n; i++) {
+			if (heap.size() < k) {
+				heap.add(new WordFrequency(topWords[i], topCounts[i]));
+			} else if (k > 0 && topCounts[i] > heap.peek().getFrequency()) {
+				heap.poll();
+				heap.add(new WordFrequency(topWords[i], topCounts[i]));
+			}
+		}
+
+		WordFrequency[] top = heap.toArray(new WordFrequency[heap.size()]);
+
+		Arrays.sort(top);
+
+		return top;
+	}
+
+	@Override
+	public synchronized Map<String, Integer> counts() {
+		Map<String, Integer> snapshot = new HashMap<String, Integer>(size * 2);
+
+		for (int i = 0; i < size; i++) {
+			snapshot.put(words[i], counts[i]);
+		}
+
+		return Collections.unmodifiableMap(snapshot);
+	}
+
+	/**
+	 * @return Most the count of word can be too high by, or -1 if word isn't
+	 *         being counted
+	 */
+	public synchronized int getError(String word) {
+		Integer slot = index.get(word);
+
+		return slot == null ? -1 : errors[slot];
+	}
+
+	/**
+	 * @return Most any count can be too high by - the smallest count, once
+	 *         every counter is in use
+	 */
+	public synchronized int getMaxError() {
+		return size < words.length ? 0 : counts[0];
+	}
+
+	/**
+	 * @return Number of words counted, including repeats
+	 */
+	public synchronized long getTotal() {
+		return total;
+	}
+
+	public int getCapacity() {
+		return words.length;
+	}
+
+	@Override
+	public synchronized void clear() {
+		Arrays.fill(words, null);
+		index.clear();
+		size = 0;
+		total = 0;
+	}
+
+	public synchronized String toString() {
+		return "Space-Saving - " + size + "/" + words.length + " counters, max error " + getMaxError();
+	}
+
+	private void siftUp(int slot) {
+		while (slot > 0) {
+			int parent = (slot - 1) / 2;
+
+			if (counts[parent] <= counts[slot]) {
+				break;
+			}
+
+			swap(slot, parent);
+			slot = parent;
+		}
+	}
+
+	private void siftDown(int slot) {
+		while (true) {
+			int smallest = slot, left = slot * 2 + 1, right = left + 1;
+
+			if (left < size && counts[left] < counts[smallest]) {
+				smallest = left;
+			}
+
+			if (right < size && counts[right] < counts[smallest]) {
+				smallest = right;
+			}
+
+			if (smallest == slot) {
+				return;
+			}
+
+			swap(slot, smallest);
+			slot = smallest;
+		}
+	}
+
+	private void swap(int a, int b) {
+		String word = words[a];
+		int count = counts[a], error = errors[a];
+
+		words[a] = words[b];
+		counts[a] = counts[b];
+		errors[a] = errors[b];
+		words[b] = word;
+		counts[b] = count;
+		errors[b] = error;
+		index.put(words[a], a);
+		index.put(words[b], b);
+	}
+}
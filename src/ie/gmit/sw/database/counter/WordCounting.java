@@ -0,0 +1,32 @@
+package ie.gmit.sw.database.counter;
+
+import ie.gmit.sw.database.interfaces.WordCounter;
+
+/**
+ * @author Kevin Niland
+ * @category Database
+ * @version 1.0
+ * 
+ *          WordCounting
+ * 
+ *          The ways RealDatabase can count words, selected with the
+ *          WORD_COUNTING context-param in web.xml
+ */
+public enum WordCounting {
+	EXACT, SPACE_SAVING, OFF_HEAP;
+
+	/**
+	 * @param capacity - Number of words a SPACE_SAVING counter keeps
+	 * @return counter - A new, empty counter
+	 */
+	public WordCounter create(int capacity) {
+		switch (this) {
+		case SPACE_SAVING:
+			return new SpaceSavingCounter(capacity);
+		case OFF_HEAP:
+			return new OffHeapCounter();
+		default:
+			return new ExactCounter();
+		}
+	}
+}
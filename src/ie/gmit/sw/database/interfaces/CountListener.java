@@ -0,0 +1,18 @@
+package ie.gmit.sw.database.interfaces;
+
+import ie.gmit.sw.database.RealDatabase;
+
+/**
+ * @author Kevin Niland
+ * @category Database
+ * @version 1.0
+ *
+ *          CountListener
+ *
+ *          Told each time a page's words have been merged into a database.
+ *          Called on the parser's thread, so it should only note that the
+ *          counts have changed and return
+ */
+public interface CountListener {
+	abstract public void counted(RealDatabase database);
+}
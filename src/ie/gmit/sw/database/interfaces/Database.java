@@ -20,6 +20,8 @@ public interface Database {
 
 	abstract public WordFrequency[] getWordFrequency();
 
+	abstract public WordFrequency[] getWordFrequency(int k);
+
 	abstract public void clear();
 
 	abstract public void ignoreFromFile(File fileIgnore) throws IOException;
@@ -0,0 +1,36 @@
+package ie.gmit.sw.database.interfaces;
+
+import java.util.Map;
+
+import ie.gmit.sw.ai.cloud.WordFrequency;
+
+/**
+ * @author Kevin Niland
+ * @category Database
+ * @version 1.0
+ * 
+ *          WordCounter
+ * 
+ *          Interface for how RealDatabase counts the words of a search. Only
+ *          the most frequent words are ever drawn, so implementations may
+ *          keep approximate counts of the top words in fixed memory rather
+ *          than an exact count of every word. Shared by the parser threads of
+ *          a search, so implementations must be thread safe
+ */
+public interface WordCounter {
+	public void add(String word, int count);
+
+	/**
+	 * @param k - Number of words wanted
+	 * @return The k most frequent words, most frequent first. Fewer than k if
+	 *         fewer have been counted
+	 */
+	public WordFrequency[] top(int k);
+
+	/**
+	 * @return The words being counted and their counts
+	 */
+	public Map<String, Integer> counts();
+
+	public void clear();
+}
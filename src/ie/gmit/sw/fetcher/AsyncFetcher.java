@@ -0,0 +1,402 @@
+package ie.gmit.sw.fetcher;
+
+import java.io.ByteArrayInputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.io.InputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jsoup.Connection;
+import org.jsoup.HttpStatusException;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+import ie.gmit.sw.fetcher.interfaces.Fetcher;
+import ie.gmit.sw.fetcher.interfaces.PageReader;
+import ie.gmit.sw.parser.interfaces.VisitedSet;
+
+/**
+ * @author Kevin Niland
+ * @category Fetcher
+ * @version 1.0
+ *
+ *          AsyncFetcher - Implementation of Fetcher
+ *
+ *          Fetches pages concurrently for a single crawl. At most maxInFlight
+ *          requests run at once across the whole crawl and at most maxPerHost
+ *          of those go to the same host. Requests to a host that is already at
+ *          its limit wait in that host's queue rather than holding one of the
+ *          crawl's threads, so a slow host can't stall the others. If given a
+ *          PageCache, pages already on disk are served from it, or revalidated
+ *          with a conditional request. Given a set of recently downloaded
+ *          pages as well, a page any search downloaded within that set's
+ *          window is served from the cache without asking the server, even
+ *          once it is no longer fresh. Every page is cut off at the same
+ *          maximum body size, cached or not, and a page that was cut off is
+ *          never stored
+ */
+public class AsyncFetcher implements Fetcher {
+	private static final int DEFAULT_MAX_BODY_SIZE = 1024 * 1024; // jsoup's own default
+	private static final AtomicInteger fetcherCount = new AtomicInteger();
+	private static final PageReader<Document> DOCUMENT = (inputStream, charset, url) -> Jsoup.parse(inputStream,
+			charset, url);
+
+	private final Map<String, Host> hosts = new HashMap<String, Host>();
+	private final ExecutorService executorService;
+	private final PageCache pageCache;
+	private final VisitedSet recentlyDownloaded;
+	private final UrlCanonicalizer urlCanonicalizer = new UrlCanonicalizer();
+	private final int maxPerHost, timeout;
+	private int maxBodySize = DEFAULT_MAX_BODY_SIZE;
+
+	/**
+	 * @param maxInFlight - Maximum number of requests in flight for the crawl
+	 * @param maxPerHost  - Maximum number of requests in flight to any one host
+	 * @param timeout     - Connect and read timeout in milliseconds
+	 */
+	public AsyncFetcher(int maxInFlight, int maxPerHost, int timeout) {
+		this(maxInFlight, maxPerHost, timeout, null);
+	}
+
+	/**
+	 * @param maxInFlight - Maximum number of requests in flight for the crawl
+	 * @param maxPerHost  - Maximum number of requests in flight to any one host
+	 * @param timeout     - Connect and read timeout in milliseconds
+	 * @param pageCache   - Disk cache shared by every crawl, or null to always
+	 *                    download
+	 */
+	public AsyncFetcher(int maxInFlight, int maxPerHost, int timeout, PageCache pageCache) {
+		this(maxInFlight, maxPerHost, timeout, pageCache, null);
+	}
+
+	/**
+	 * @param maxInFlight        - Maximum number of requests in flight for the
+	 *                           crawl
+	 * @param maxPerHost         - Maximum number of requests in flight to any one
+	 *                           host
+	 * @param timeout            - Connect and read timeout in milliseconds
+	 * @param pageCache          - Disk cache shared by every crawl, or null to
+	 *                           always download
+	 * @param recentlyDownloaded - Pages downloaded by any crawl in the last
+	 *                           window, served from pageCache without asking the
+	 *                           server, or null. Only used with a cache
+	 */
+	public AsyncFetcher(int maxInFlight, int maxPerHost, int timeout, PageCache pageCache,
+			VisitedSet recentlyDownloaded) {
+		int id = fetcherCount.incrementAndGet();
+		AtomicInteger threadCount = new AtomicInteger();
+
+		this.maxPerHost = maxPerHost;
+		this.timeout = timeout;
+		this.pageCache = pageCache;
+		this.recentlyDownloaded = pageCache == null ? null : recentlyDownloaded;
+		this.executorService = Executors.newFixedThreadPool(maxInFlight, runnable -> {
+			Thread thread = new Thread(runnable, "fetcher-" + id + "-" + threadCount.incrementAndGet());
+
+			thread.setDaemon(true);
+
+			return thread;
+		});
+	}
+
+	/**
+	 * Sets the most bytes of a page that are downloaded, or held in memory to be
+	 * cached. Must be set before the first fetch
+	 * 
+	 * @param maxBodySize - Most bytes of a page, or 0 for no limit
+	 */
+	public void setMaxBodySize(int maxBodySize) {
+		this.maxBodySize = maxBodySize > 0 ? maxBodySize : 0;
+	}
+
+	/**
+	 * Fetches and parses a page without blocking the caller
+	 *
+	 * @param url - URL to fetch
+	 * @return Future completed with the parsed page, or exceptionally if the page
+	 *         couldn't be fetched
+	 */
+	@Override
+	public CompletableFuture<Document> fetch(String url) {
+		return submit(url, () -> download(url));
+	}
+
+	/**
+	 * Fetches a page and hands the response to a reader as it is downloaded,
+	 * without blocking the caller
+	 *
+	 * @param url    - URL to fetch
+	 * @param reader - Reads the page on the fetcher's thread
+	 * @return Future completed with what the reader returned, or exceptionally if
+	 *         the page couldn't be fetched
+	 */
+	@Override
+	public <T> CompletableFuture<T> fetch(String url, PageReader<T> reader) {
+		return submit(url, () -> download(url, reader));
+	}
+
+	/**
+	 * Queues a download behind the host's limit
+	 */
+	private <T> CompletableFuture<T> submit(String url, Callable<T> task) {
+		CompletableFuture<T> future = new CompletableFuture<T>();
+		Request<T> request = new Request<T>(url, future, task);
+
+		try {
+			request.host = new URL(url).getHost().toLowerCase();
+		} catch (MalformedURLException malformedURLException) {
+			future.completeExceptionally(malformedURLException);
+
+			return future;
+		}
+
+		synchronized (hosts) {
+			Host host = hosts.computeIfAbsent(request.host, key -> new Host());
+
+			if (host.inFlight >= maxPerHost) {
+				host.waiting.add(request);
+
+				return future;
+			}
+
+			host.inFlight++;
+		}
+
+		dispatch(request);
+
+		return future;
+	}
+
+	/**
+	 * Stops the crawl's threads. Requests that haven't started are abandoned
+	 */
+	@Override
+	public void shutdown() {
+		executorService.shutdownNow();
+	}
+
+	/**
+	 * Override to change how a page is downloaded and parsed
+	 *
+	 * @param url - URL to fetch
+	 * @return document - Parsed page
+	 * @throws Exception
+	 */
+	protected Document download(String url) throws Exception {
+		if (pageCache == null) {
+			return connect(url, maxBodySize).get();
+		}
+
+		return cached(url, DOCUMENT);
+	}
+
+	/**
+	 * Override to change how a page is downloaded for a reader. Without a cache
+	 * the reader is given the response stream, so the page is never held in
+	 * memory all at once
+	 *
+	 * @param url    - URL to fetch
+	 * @param reader - Reads the page
+	 * @return What the reader returned
+	 * @throws Exception
+	 */
+	protected <T> T download(String url, PageReader<T> reader) throws Exception {
+		if (pageCache != null) {
+			return cached(url, reader);
+		}
+
+		Connection.Response response = connect(url, maxBodySize).execute();
+
+		try (InputStream inputStream = response.bodyStream()) {
+			return reader.read(inputStream, response.charset(), response.url().toExternalForm());
+		}
+	}
+
+	/**
+	 * Serves a page from the cache if it is fresh, was downloaded within the
+	 * recent window or hasn't changed, otherwise downloads and stores it. The page
+	 * is still read, so its words are counted as if it had been downloaded
+	 */
+	private <T> T cached(String url, PageReader<T> reader) throws Exception {
+		PageCache.Entry entry = pageCache.lookup(url);
+
+		if (entry != null && (pageCache.isFresh(entry) || isRecent(url))) {
+			try {
+				T page = parse(reader, pageCache.read(entry), entry.getCharset(), url);
+
+				pageCache.hit(entry);
+
+				return page;
+			} catch (Exception exception) {
+				// Evicted since it was looked up, so download it again
+				entry = null;
+			}
+		}
+
+		Connection connection = connect(url, cachedBodySize()).ignoreHttpErrors(true);
+
+		// Ask the server to only send the page if it has changed
+		if (entry != null && entry.getEtag() != null) {
+			connection.header("If-None-Match", entry.getEtag());
+		}
+
+		if (entry != null && entry.getLastModified() != null) {
+			connection.header("If-Modified-Since", entry.getLastModified());
+		}
+
+		Connection.Response response = connection.execute();
+
+		if (response.statusCode() == 304 && entry != null && entry.isValidatable()) {
+			try {
+				T page = parse(reader, pageCache.read(entry), entry.getCharset(), url);
+
+				pageCache.revalidated(entry);
+				pageCache.hit(entry);
+				downloaded(url);
+
+				return page;
+			} catch (Exception exception) {
+				// Evicted while the request was in flight
+				return store(url, response, reader);
+			}
+		}
+
+		return store(url, response, reader);
+	}
+
+	/**
+	 * Stores a full response in the cache and parses it. A body longer than
+	 * maxBodySize is parsed up to the limit, like an uncached page, but isn't
+	 * stored, as a 304 would otherwise keep serving the cut off copy
+	 */
+	private <T> T store(String url, Connection.Response response, PageReader<T> reader) throws Exception {
+		if (response.statusCode() == 304) {
+			// Conditional request for a page that has since been evicted
+			response = connect(url, cachedBodySize()).ignoreHttpErrors(true).execute();
+		}
+
+		if (response.statusCode() < 200 || response.statusCode() >= 400) {
+			throw new HttpStatusException("HTTP error fetching URL", response.statusCode(), url);
+		}
+
+		byte[] body = response.bodyAsBytes();
+
+		pageCache.miss();
+
+		if (maxBodySize > 0 && body.length > maxBodySize) {
+			body = Arrays.copyOf(body, maxBodySize);
+		} else {
+			pageCache.store(url, body, response.charset(), response.header("ETag"), response.header("Last-Modified"));
+			downloaded(url);
+		}
+
+		return parse(reader, body, response.charset(), response.url().toExternalForm());
+	}
+
+	private Connection connect(String url, int maxBodySize) {
+		return Jsoup.connect(url).timeout(timeout).maxBodySize(maxBodySize);
+	}
+
+	/**
+	 * @return Body size asked for when caching - one byte over the limit, so a
+	 *         page that was cut off can be told apart from one that fits exactly
+	 */
+	private int cachedBodySize() {
+		return maxBodySize > 0 && maxBodySize < Integer.MAX_VALUE ? maxBodySize + 1 : maxBodySize;
+	}
+
+	/**
+	 * @return true if any crawl downloaded the page within the recent window
+	 */
+	private boolean isRecent(String url) {
+		return recentlyDownloaded != null && recentlyDownloaded.mightContain(urlCanonicalizer.canonicalize(url));
+	}
+
+	/**
+	 * Notes that the server was asked for the page, so crawls in the next window
+	 * take it from the cache
+	 */
+	private void downloaded(String url) {
+		if (recentlyDownloaded != null) {
+			recentlyDownloaded.add(urlCanonicalizer.canonicalize(url));
+		}
+	}
+
+	private <T> T parse(PageReader<T> reader, byte[] body, String charset, String url) throws Exception {
+		return reader.read(new ByteArrayInputStream(body), charset, url);
+	}
+
+	/**
+	 * Runs a request on one of the crawl's threads. When it finishes, the next
+	 * request waiting on the same host (if any) is started
+	 */
+	private <T> void dispatch(Request<T> request) {
+		try {
+			executorService.execute(() -> {
+				try {
+					request.future.complete(request.task.call());
+				} catch (Exception exception) {
+					request.future.completeExceptionally(exception);
+				} finally {
+					release(request.host);
+				}
+			});
+		} catch (Exception exception) {
+			// Fetcher has been shut down
+			request.future.completeExceptionally(exception);
+			release(request.host);
+		}
+	}
+
+	private void release(String hostName) {
+		Request<?> next;
+
+		synchronized (hosts) {
+			Host host = hosts.get(hostName);
+
+			next = host.waiting.poll();
+
+			if (next == null) {
+				host.inFlight--;
+
+				if (host.inFlight == 0) {
+					hosts.remove(hostName);
+				}
+
+				return;
+			}
+		}
+
+		dispatch(next);
+	}
+
+	/**
+	 * Requests in flight to, and waiting on, a single host
+	 */
+	private static class Host {
+		private final Deque<Request<?>> waiting = new ArrayDeque<Request<?>>();
+		private int inFlight;
+	}
+
+	private static class Request<T> {
+		private final String url;
+		private final CompletableFuture<T> future;
+		private final Callable<T> task;
+		private String host;
+
+		private Request(String url, CompletableFuture<T> future, Callable<T> task) {
+			this.url = url;
+			this.future = future;
+			this.task = task;
+		}
+	}
+}
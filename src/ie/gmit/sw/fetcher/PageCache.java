@@ -0,0 +1,393 @@
+package ie.gmit.sw.fetcher;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * @author Kevin Niland
+ * @category Fetcher
+ * @version 1.0
+ *
+ *          PageCache
+ *
+ *          Disk cache of downloaded pages, kept between restarts. Bodies are
+ *          gzipped and stored under the SHA-256 of their content, so pages that
+ *          are served at more than one URL are only stored once. Each canonical
+ *          URL has a small properties file holding its ETag, Last-Modified and
+ *          the hash of its body, which AsyncFetcher uses to make conditional
+ *          requests. Once the bodies take up more than maxBytes, the least
+ *          recently used URLs are removed until they fit
+ */
+public class PageCache {
+	private final UrlCanonicalizer urlCanonicalizer = new UrlCanonicalizer();
+	private final LinkedHashMap<String, Entry> index = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+	private final Map<String, Integer> references = new HashMap<String, Integer>();
+	private final AtomicLong hits = new AtomicLong(), misses = new AtomicLong(), revalidations = new AtomicLong(),
+			bytesSaved = new AtomicLong();
+	private final File bodies, entries;
+	private final long maxBytes, freshFor;
+	private long size;
+
+	/**
+	 * @param directory - Directory the cache is kept in. Created if it doesn't
+	 *                  exist, and read back if it does
+	 * @param maxBytes  - Maximum size of the stored bodies, compressed
+	 * @param freshFor  - Milliseconds a page is served without asking the server
+	 *                  if it has changed
+	 * @throws IOException
+	 */
+	public PageCache(File directory, long maxBytes, long freshFor) throws IOException {
+		this.bodies = new File(directory, "bodies");
+		this.entries = new File(directory, "entries");
+		this.maxBytes = maxBytes;
+		this.freshFor = freshFor;
+
+		if (!(bodies.isDirectory() || bodies.mkdirs()) || !(entries.isDirectory() || entries.mkdirs())) {
+			throw new IOException("Can't create page cache in " + directory);
+		}
+
+		load();
+	}
+
+	/**
+	 * @param url - URL of the page
+	 * @return entry - Cached page, or null if the page isn't in the cache
+	 */
+	public synchronized Entry lookup(String url) {
+		Entry entry = index.get(urlCanonicalizer.canonicalize(url));
+
+		if (entry != null) {
+			// Keeps the LRU order across restarts
+			entry.file.setLastModified(System.currentTimeMillis());
+		}
+
+		return entry;
+	}
+
+	/**
+	 * @return true if the entry can be served without a conditional request
+	 */
+	public boolean isFresh(Entry entry) {
+		return System.currentTimeMillis() - entry.validated < freshFor;
+	}
+
+	/**
+	 * Reads and decompresses a cached body
+	 *
+	 * @throws IOException if the body has been evicted since the entry was looked
+	 *                     up
+	 */
+	public byte[] read(Entry entry) throws IOException {
+		try (InputStream inputStream = new GZIPInputStream(new FileInputStream(body(entry.hash)))) {
+			ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			int read;
+
+			while ((read = inputStream.read(buffer)) != -1) {
+				byteArrayOutputStream.write(buffer, 0, read);
+			}
+
+			return byteArrayOutputStream.toByteArray();
+		}
+	}
+
+	/**
+	 * Stores a page that has just been downloaded, replacing any older copy
+	 *
+	 * @param url          - URL of the page
+	 * @param body         - Body of the response
+	 * @param charset      - Charset from the Content-Type header, or null
+	 * @param etag         - ETag header, or null
+	 * @param lastModified - Last-Modified header, or null
+	 * @throws IOException
+	 */
+	public synchronized void store(String url, byte[] body, String charset, String etag, String lastModified)
+			throws IOException {
+		String canonical = urlCanonicalizer.canonicalize(url);
+		File bodyFile = body(sha256(body));
+		Entry entry = new Entry(canonical, new File(entries, sha256(canonical.getBytes(StandardCharsets.UTF_8))
+				+ ".properties"), bodyFile.getName().replace(".gz", ""), charset, etag, lastModified,
+				System.currentTimeMillis(), body.length);
+
+		if (!bodyFile.exists()) {
+			File temp = new File(bodies, bodyFile.getName() + ".tmp");
+
+			try (OutputStream outputStream = new GZIPOutputStream(new FileOutputStream(temp))) {
+				outputStream.write(body);
+			}
+
+			Files.move(temp.toPath(), bodyFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		}
+
+		save(entry);
+
+		// The new body is referenced before the old one is released, in case they're
+		// the same
+		Entry previous = index.remove(canonical);
+
+		add(entry);
+
+		if (previous != null) {
+			release(previous.hash);
+		}
+
+		evict();
+	}
+
+	/**
+	 * Marks an entry as checked with the server after a 304 Not Modified
+	 */
+	public synchronized void revalidated(Entry entry) throws IOException {
+		entry.validated = System.currentTimeMillis();
+		revalidations.incrementAndGet();
+
+		save(entry);
+	}
+
+	/**
+	 * Counts a page served from the cache without downloading its body
+	 */
+	public void hit(Entry entry) {
+		hits.incrementAndGet();
+		bytesSaved.addAndGet(entry.length);
+	}
+
+	/**
+	 * Counts a page that had to be downloaded
+	 */
+	public void miss() {
+		misses.incrementAndGet();
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * @return Number of hits that needed a conditional request
+	 */
+	public long getRevalidations() {
+		return revalidations.get();
+	}
+
+	/**
+	 * @return Bytes of page bodies that didn't have to be downloaded
+	 */
+	public long getBytesSaved() {
+		return bytesSaved.get();
+	}
+
+	/**
+	 * @return Size of the stored bodies on disk, compressed
+	 */
+	public synchronized long getSize() {
+		return size;
+	}
+
+	public synchronized int getEntries() {
+		return index.size();
+	}
+
+	public String toString() {
+		return "Page cache: " + getHits() + " hits (" + getRevalidations() + " revalidated), " + getMisses()
+				+ " misses, " + getBytesSaved() + " bytes saved, " + getEntries() + " pages in " + getSize() + " bytes";
+	}
+
+	/**
+	 * Reads the entries left by a previous run, least recently used first, and
+	 * removes bodies that no entry refers to
+	 */
+	private void load() throws IOException {
+		File[] files = entries.listFiles((directory, name) -> name.endsWith(".properties"));
+		List<File> sorted = new ArrayList<File>();
+
+		if (files != null) {
+			for (File file : files) {
+				sorted.add(file);
+			}
+		}
+
+		sorted.sort(Comparator.comparingLong(File::lastModified));
+
+		for (File file : sorted) {
+			Properties properties = new Properties();
+
+			try (InputStream inputStream = new FileInputStream(file)) {
+				properties.load(inputStream);
+
+				Entry entry = new Entry(properties.getProperty("url"), file, properties.getProperty("hash"),
+						properties.getProperty("charset"), properties.getProperty("etag"),
+						properties.getProperty("lastModified"), Long.parseLong(properties.getProperty("validated")),
+						Long.parseLong(properties.getProperty("length")));
+
+				if (entry.url == null || !body(entry.hash).exists()) {
+					file.delete();
+				} else {
+					add(entry);
+				}
+			} catch (IOException | RuntimeException exception) {
+				// Half written or corrupt, so just forget it
+				file.delete();
+			}
+		}
+
+		File[] stored = bodies.listFiles();
+
+		if (stored != null) {
+			for (File file : stored) {
+				if (!references.containsKey(file.getName().replace(".gz", ""))) {
+					file.delete();
+				}
+			}
+		}
+
+		evict();
+	}
+
+	private void save(Entry entry) throws IOException {
+		Properties properties = new Properties();
+		File temp = new File(entries, entry.file.getName() + ".tmp");
+
+		properties.setProperty("url", entry.url);
+		properties.setProperty("hash", entry.hash);
+		properties.setProperty("validated", Long.toString(entry.validated));
+		properties.setProperty("length", Long.toString(entry.length));
+
+		if (entry.charset != null) {
+			properties.setProperty("charset", entry.charset);
+		}
+
+		if (entry.etag != null) {
+			properties.setProperty("etag", entry.etag);
+		}
+
+		if (entry.lastModified != null) {
+			properties.setProperty("lastModified", entry.lastModified);
+		}
+
+		try (OutputStream outputStream = new FileOutputStream(temp)) {
+			properties.store(outputStream, null);
+		}
+
+		Files.move(temp.toPath(), entry.file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private void add(Entry entry) {
+		index.put(entry.url, entry);
+
+		if (references.merge(entry.hash, 1, Integer::sum) == 1) {
+			size += body(entry.hash).length();
+		}
+	}
+
+	/**
+	 * Drops a reference to a body, deleting it once no URL refers to it
+	 */
+	private void release(String hash) {
+		if (references.merge(hash, -1, Integer::sum) == 0) {
+			File body = body(hash);
+
+			references.remove(hash);
+			size -= body.length();
+			body.delete();
+		}
+	}
+
+	/**
+	 * Removes the least recently used URLs until the bodies fit in maxBytes
+	 */
+	private void evict() {
+		while (size > maxBytes && !index.isEmpty()) {
+			Entry eldest = index.values().iterator().next();
+
+			index.remove(eldest.url);
+			release(eldest.hash);
+			eldest.file.delete();
+		}
+	}
+
+	private File body(String hash) {
+		return new File(bodies, hash + ".gz");
+	}
+
+	private static String sha256(byte[] bytes) {
+		try {
+			return String.format("%064x", new BigInteger(1, MessageDigest.getInstance("SHA-256").digest(bytes)));
+		} catch (NoSuchAlgorithmException noSuchAlgorithmException) {
+			throw new IllegalStateException(noSuchAlgorithmException);
+		}
+	}
+
+	/**
+	 * A cached page and the validators it was served with
+	 */
+	public static class Entry {
+		private final String url, hash, charset, etag, lastModified;
+		private final File file;
+		private final long length;
+		private volatile long validated;
+
+		private Entry(String url, File file, String hash, String charset, String etag, String lastModified,
+				long validated, long length) {
+			this.url = url;
+			this.file = file;
+			this.hash = hash;
+			this.charset = charset;
+			this.etag = etag;
+			this.lastModified = lastModified;
+			this.validated = validated;
+			this.length = length;
+		}
+
+		public String getUrl() {
+			return this.url;
+		}
+
+		public String getCharset() {
+			return this.charset;
+		}
+
+		public String getEtag() {
+			return this.etag;
+		}
+
+		public String getLastModified() {
+			return this.lastModified;
+		}
+
+		/**
+		 * @return true if the server sent a validator, so a conditional request can
+		 *         be made
+		 */
+		public boolean isValidatable() {
+			return this.etag != null || this.lastModified != null;
+		}
+	}
+}
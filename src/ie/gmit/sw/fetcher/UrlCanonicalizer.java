@@ -0,0 +1,112 @@
+package ie.gmit.sw.fetcher;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * @author Kevin Niland
+ * @category Fetcher
+ * @version 1.0
+ *
+ *          UrlCanonicalizer
+ *
+ *          Reduces the different spellings of a URL to a single key, so the
+ *          same page reached through a tracking link, a fragment or the http
+ *          and https versions of a site is only fetched once. The key is only
+ *          used to recognise a page. Pages are still fetched from the URL they
+ *          were linked with
+ */
+public class UrlCanonicalizer {
+	private static final Set<String> TRACKING_PARAMETERS = new HashSet<String>(Arrays.asList("gclid", "fbclid",
+			"msclkid", "yclid", "dclid", "igshid", "mc_cid", "mc_eid", "_ga", "_hsenc", "_hsmi", "ref_src"));
+
+	/**
+	 * Lower cases the scheme and host, treats http as https, drops default ports,
+	 * fragments and tracking parameters, and sorts the remaining query parameters
+	 *
+	 * @param url - Absolute URL
+	 * @return canonical - Canonical form of url, or url without its fragment if it
+	 *         can't be parsed
+	 */
+	public String canonicalize(String url) {
+		URI uri;
+
+		try {
+			uri = new URI(url.trim());
+		} catch (URISyntaxException uriSyntaxException) {
+			int fragment = url.indexOf('#');
+
+			return fragment < 0 ? url : url.substring(0, fragment);
+		}
+
+		if (uri.isOpaque() || uri.getRawAuthority() == null) {
+			return uri.getRawFragment() == null ? url : url.substring(0, url.indexOf('#'));
+		}
+
+		String scheme = uri.getScheme() == null ? "https" : uri.getScheme().toLowerCase();
+		String host = uri.getHost() == null ? uri.getRawAuthority().toLowerCase() : uri.getHost().toLowerCase();
+		String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+		int port = uri.getPort();
+
+		// Default ports are dropped before http is folded into https
+		if ((scheme.equals("http") && port == 80) || (scheme.equals("https") && port == 443)) {
+			port = -1;
+		}
+
+		if (scheme.equals("http")) {
+			scheme = "https";
+		}
+
+		StringBuilder canonical = new StringBuilder(url.length());
+
+		canonical.append(scheme).append("://").append(host);
+
+		if (port != -1) {
+			canonical.append(':').append(port);
+		}
+
+		canonical.append(path);
+
+		String query = canonicalQuery(uri.getRawQuery());
+
+		if (!query.isEmpty()) {
+			canonical.append('?').append(query);
+		}
+
+		return canonical.toString();
+	}
+
+	/**
+	 * Removes tracking parameters from a raw query string and sorts the rest
+	 */
+	private String canonicalQuery(String query) {
+		if (query == null || query.isEmpty()) {
+			return "";
+		}
+
+		List<String> parameters = new ArrayList<String>();
+
+		for (String parameter : query.split("&")) {
+			if (parameter.isEmpty()) {
+				continue;
+			}
+
+			int equals = parameter.indexOf('=');
+			String name = (equals < 0 ? parameter : parameter.substring(0, equals)).toLowerCase();
+
+			if (!name.startsWith("utm_") && !TRACKING_PARAMETERS.contains(name)) {
+				parameters.add(parameter);
+			}
+		}
+
+		Collections.sort(parameters);
+
+		return String.join("&", parameters);
+	}
+}
@@ -0,0 +1,22 @@
+package ie.gmit.sw.fetcher.interfaces;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.jsoup.nodes.Document;
+
+/**
+ * @author Kevin Niland
+ * @category Fetcher
+ * @version 1.0
+ *
+ *          Fetcher
+ * 
+ *          Interface for AsyncFetcher
+ */
+public interface Fetcher {
+	public CompletableFuture<Document> fetch(String url);
+
+	public <T> CompletableFuture<T> fetch(String url, PageReader<T> reader);
+
+	public void shutdown();
+}
@@ -0,0 +1,19 @@
+package ie.gmit.sw.fetcher.interfaces;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * @author Kevin Niland
+ * @category Fetcher
+ * @version 1.0
+ *
+ *          PageReader
+ * 
+ *          Reads a page straight from the response as it is downloaded,
+ *          instead of the fetcher parsing it into a Document first. Runs on
+ *          the fetcher's thread, so implementations must be thread safe
+ */
+public interface PageReader<T> {
+	public T read(InputStream inputStream, String charset, String url) throws IOException;
+}
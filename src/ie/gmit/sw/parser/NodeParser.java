@@ -1,29 +1,36 @@
 package ie.gmit.sw.parser;
 
-import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Random;
-
-import org.encog.engine.network.activation.ActivationSigmoid;
-import org.encog.ml.data.MLData;
-import org.encog.ml.data.MLDataPair;
-import org.encog.ml.data.MLDataSet;
-import org.encog.ml.data.basic.BasicMLDataSet;
-import org.encog.neural.networks.BasicNetwork;
-import org.encog.neural.networks.layers.BasicLayer;
-import org.encog.neural.networks.training.propagation.resilient.ResilientPropagation;
-import org.jsoup.Jsoup;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
 
+import ie.gmit.sw.ai.encog.NeuralScorer;
+import ie.gmit.sw.ai.fuzzy.FuzzyScorer;
 import ie.gmit.sw.database.RealDatabase;
+import ie.gmit.sw.database.WordCounts;
+import ie.gmit.sw.fetcher.UrlCanonicalizer;
+import ie.gmit.sw.fetcher.interfaces.Fetcher;
+import ie.gmit.sw.parser.features.FeatureExtractor;
+import ie.gmit.sw.parser.features.PageFeatures;
+import ie.gmit.sw.parser.features.SearchTermMatcher;
+import ie.gmit.sw.parser.features.StreamedPage;
+import ie.gmit.sw.parser.features.StreamingExtractor;
+import ie.gmit.sw.parser.frontier.FrontierNode;
+import ie.gmit.sw.parser.tokenizer.TermTable;
+import ie.gmit.sw.parser.tokenizer.Tokenizer;
+import ie.gmit.sw.parser.interfaces.Frontier;
 import ie.gmit.sw.parser.interfaces.Parser;
-import net.sourceforge.jFuzzyLogic.FIS;
-import net.sourceforge.jFuzzyLogic.FunctionBlock;
-import net.sourceforge.jFuzzyLogic.rule.Variable;
+import ie.gmit.sw.parser.interfaces.TokenSink;
+import ie.gmit.sw.parser.interfaces.VisitedSet;
+import ie.gmit.sw.session.CrawlSession;
 
 /**
  * @author Kevin Niland
@@ -38,44 +45,89 @@ import net.sourceforge.jFuzzyLogic.rule.Variable;
  */
 public class NodeParser implements Parser, Runnable {
 	private RealDatabase wordDatabase = RealDatabase.getInstance();
-	private Random random = new Random();
-
-	private List<Document> urlList = new ArrayList<Document>();
-	private List<String> childList = new ArrayList<String>();
+	private FuzzyScorer fuzzyScorer = FuzzyScorer.getInstance();
+	private NeuralScorer neuralScorer = NeuralScorer.getInstance();
+	private UrlCanonicalizer urlCanonicalizer = new UrlCanonicalizer();
+	private Tokenizer tokenizer = new Tokenizer();
+	private TermTable termTable = new TermTable();
+	private WordCounts wordCounts = new WordCounts();
+	private TokenSink wordSink = (buffer, length, hash) -> {
+		// Ignored words are checked in the buffer, so they are never made into Strings
+		if (!wordDatabase.isIgnored(buffer, length, hash)) {
+			wordCounts.add(termTable.intern(buffer, length, hash));
+		}
+	};
+	private SearchTermMatcher searchTermMatcher;
+	private FeatureExtractor featureExtractor;
+	private StreamingExtractor streamingExtractor;
+	private Fetcher fetcher;
+	private Frontier frontier;
+	private VisitedSet visitedList;
+
+	private Set<String> childList = new HashSet<String>();
 	private List<String> searchList = new ArrayList<String>();
 	private List<String> processedList = new ArrayList<String>();
 
-	private File jfuzzyFile;
 	private String url, absURL;
 	private static int MAX = 25;
-	private int lowScore = 0, averageScore = 0, highScore = 0, score = 7, epoch = 1;
-	private double encogLow = 0, encogAvg = 0, encogHigh = 0, minError = 0.07, correct = 0, total = 0, fuzzyValue = 0,
-			accuracy = 0;
+	private int lowScore = 0, averageScore = 0, highScore = 0, score = 7, maxDepth = 0, pagesFetched = 0;
+	private double fuzzyValue = 0, accuracy = 0;
 
 	public NodeParser() {
 
 	}
 
 	/**
-	 * @param file       - jFuzzy file
+	 * @param session    - Search this parser belongs to, whose fetcher, visited
+	 *                   filter and word database it uses
+	 * @param frontier   - Open list, which decides the order pages are expanded in
 	 * @param url        - URL being searched
 	 * @param searchTerm - Term searched for by Duck Duck Go
 	 */
-	public NodeParser(File file, String url, String searchTerm) {
-		this.jfuzzyFile = file;
+	public NodeParser(CrawlSession session, Frontier frontier, String url, String searchTerm) {
+		this.wordDatabase = session.getDatabase();
+		this.fetcher = session.getFetcher();
+		this.frontier = frontier;
+		this.visitedList = session.getVisited();
 		this.url = url;
 		this.searchList = processTerms(searchTerm);
+		this.searchTermMatcher = new SearchTermMatcher(searchList);
+		this.featureExtractor = new FeatureExtractor(searchTermMatcher);
+	}
+
+	/**
+	 * Reads pages with StreamingExtractor as they are downloaded, instead of
+	 * parsing each one into a Document
+	 * 
+	 * @param maxBytes  - Most bytes of a page to read
+	 * @param maxTokens - Most words of a page to keep
+	 */
+	public void setPageBudget(int maxBytes, int maxTokens) {
+		this.streamingExtractor = new StreamingExtractor(searchTermMatcher, maxBytes, maxTokens);
 	}
 
 	@Override
 	public void run() {
 		System.out.println("Searching...");
 
+		// Another parser in this search has already reached this result
+		if (!visitedList.add(urlCanonicalizer.canonicalize(this.url))) {
+			return;
+		}
+
 		try {
 			// Connect to Duck Duck Go
-			Document document = Jsoup.connect(this.url).get();
+			if (streamingExtractor != null) {
+				StreamedPage page = fetcher.fetch(this.url, streamingExtractor).join();
+
+				frontier.add(new FrontierNode(this.url, 0, 0, page.getFeatures(), page.getWords()));
+			} else {
+				Document document = fetcher.fetch(this.url).join();
+
+				frontier.add(new FrontierNode(document, this.url, 0, 0, extractFeatures(document)));
+			}
 
-			urlList.add(document);
+			pagesFetched++;
 
 			// Searches Duck Duck Go for the search term
 			searchDuckDuckGo();
@@ -95,64 +147,130 @@ public class NodeParser implements Parser, Runnable {
 		 * While the size of closedList is less than MAX and the openList isn't empty,
 		 * search Duck Duck Go for the term entered by the user
 		 */
-		while (childList.size() <= MAX && !urlList.isEmpty()) {
+		while (childList.size() <= MAX && !frontier.isEmpty()) {
 			/**
-			 * Remove an item from openList at a random index and select an element that is
-			 * a link
+			 * Remove the next item from openList, as decided by the frontier's strategy.
+			 * The links on it that contain a searchTerm were found when it was scored
 			 */
-			Document document = urlList.remove(random.nextInt(urlList.size()));
-			Elements elements = document.select("a[href]");
+			FrontierNode node = frontier.poll();
+			Document document = node.getDocument();
+			Map<String, CompletableFuture<?>> children = new LinkedHashMap<String, CompletableFuture<?>>();
 
 			// Pass the body text to addWord() to be added to the wordDatabase
-			addWord(document.body().text());
-
-			// For each element in elements, get an absolute URL from a URL attribute (href)
-			for (Element element : elements) {
-				absURL = element.absUrl("href");
+			if (document != null) {
+				addWord(document.body().text());
+			} else {
+				addWords(node.getWords());
+			}
 
-				// Make absURL isn't null
-				assert absURL != null;
+			// For each absolute URL on the page that contains a searchTerm
+			for (String link : node.getFeatures().getLinks()) {
+				absURL = link;
 
 				/**
-				 * If the absolute URL isn't null and closedList doesn't contain the absolute
-				 * URL and closedList size is less than or equal to MAX, check if each
-				 * searchTerm in searchList contains the searchTerm. If true, try and create a
-				 * new connection to the absolute URL
+				 * If there's still room in closedList and no parser in this search has visited
+				 * the canonical form of the URL yet, start fetching the absolute URL. All of
+				 * the children of a page are fetched at the same time
 				 */
-				if (!childList.contains(absURL) && childList.size() <= MAX) {
-					for (String searchTerm : searchList) {
-						if (absURL.contains(searchTerm)) {
-							addURL(absURL);
-						}
+				if (childList.size() + children.size() <= MAX
+						&& visitedList.add(urlCanonicalizer.canonicalize(absURL))) {
+					pagesFetched++;
+					children.put(absURL, fetch(absURL));
+				}
+			}
+
+			// Wait for each child in the order it was found
+			for (Map.Entry<String, CompletableFuture<?>> child : children.entrySet()) {
+				try {
+					Object page = child.getValue().join();
+
+					if (page instanceof StreamedPage) {
+						addURL(child.getKey(), (StreamedPage) page, node.getDepth() + 1);
+					} else {
+						addURL(child.getKey(), (Document) page, node.getDepth() + 1);
 					}
+				} catch (CompletionException completionException) {
+					System.err.println("Couldn't fetch " + child.getKey() + ": " + completionException.getCause());
 				}
 			}
 		}
 	}
 
 	/**
-	 * Gets child element from absolute URL and adds the URL and child to two
-	 * separate lists
+	 * Adds the URL and an already fetched child to two separate lists
 	 * 
 	 * @param absURL - Absolute URL from a URL attribute
-	 * @throws IOException
+	 * @param child  - Page fetched from absURL
+	 * @param depth  - Number of links followed from the search result to reach
+	 *               child
 	 */
-	public void addURL(String absURL) throws IOException {
-		Document child = Jsoup.connect(absURL).get();
+	public void addURL(String absURL, Document child, int depth) {
+		PageFeatures features = extractFeatures(child);
+		double childScore = calculateFuzzyValue(features);
 
 		/**
 		 * If the fuzzy heuristic of child is greater than or equal to score, add the
 		 * body text of the child to addWord(), add the absURL to closedList and add
-		 * child to openList
+		 * child to openList, ranked by its fuzzy heuristic
 		 */
-		if (calculateFuzzyValue(child) >= score) {
+		if (childScore >= score) {
 			addWord(child.body().text());
 
 			childList.add(absURL);
-			urlList.add(child);
+			frontier.add(new FrontierNode(child, absURL, childScore, depth, features));
+			maxDepth = Math.max(maxDepth, depth);
+		}
+	}
+
+	/**
+	 * Adds the URL and a child already read by StreamingExtractor to two separate
+	 * lists
+	 * 
+	 * @param absURL - Absolute URL from a URL attribute
+	 * @param child  - Page read from absURL
+	 * @param depth  - Number of links followed from the search result to reach
+	 *               child
+	 */
+	public void addURL(String absURL, StreamedPage child, int depth) {
+		double childScore = calculateFuzzyValue(child.getFeatures());
+
+		if (childScore >= score) {
+			addWords(child.getWords());
+
+			childList.add(absURL);
+			frontier.add(new FrontierNode(absURL, childScore, depth, child.getFeatures(), child.getWords()));
+			maxDepth = Math.max(maxDepth, depth);
 		}
 	}
 
+	/**
+	 * Starts fetching a page, read by StreamingExtractor if a page budget is set
+	 */
+	private CompletableFuture<?> fetch(String url) {
+		return streamingExtractor == null ? fetcher.fetch(url) : fetcher.fetch(url, streamingExtractor);
+	}
+
+	/**
+	 * @return maxDepth - Deepest page added to closedList
+	 */
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	/**
+	 * @return Number of pages added to closedList
+	 */
+	public int getPagesAdded() {
+		return childList.size();
+	}
+
+	/**
+	 * @return Number of pages fetched, including the ones that scored too low
+	 */
+	public int getPagesFetched() {
+		return pagesFetched;
+	}
+
 	/**
 	 * Adds text to the wordDatabase
 	 * 
@@ -161,19 +279,34 @@ public class NodeParser implements Parser, Runnable {
 	@Override
 	public void addWord(String text) {
 		/**
-		 * "\\W+" matches all characters except alphanumeric characters and _, however,
-		 * numbers were still being added to the word cloud and as such, I added a list
-		 * of numbers to the ignore file which seems to resolve this issue
+		 * Tokenizer splits the text into lower case words in one pass. Each distinct
+		 * word is only turned into a String once by termTable, rather than once every
+		 * time it appears, and counted in this parser's wordCounts until the page is
+		 * done
 		 */
-		String[] words = text.split("\\W+");
+		tokenizer.tokenize(text, wordSink);
+		mergeWords();
+	}
 
-		/**
-		 * For each word in the words array, add the word to wordDatabase and remove any
-		 * whitespace
-		 */
+	/**
+	 * Adds words StreamingExtractor has already split up to the wordDatabase
+	 * 
+	 * @param words - Words from body of document or child
+	 */
+	public void addWords(List<String> words) {
 		for (String word : words) {
-			wordDatabase.addWord(word.trim());
+			wordCounts.add(word);
 		}
+
+		mergeWords();
+	}
+
+	/**
+	 * Merges the words counted for a page into the wordDatabase in one go
+	 */
+	private void mergeWords() {
+		wordDatabase.addWords(wordCounts);
+		wordCounts.clear();
 	}
 
 	/**
@@ -184,17 +317,21 @@ public class NodeParser implements Parser, Runnable {
 	 */
 	@Override
 	public List<String> processTerms(String searchTerm) {
-		String[] words = searchTerm.split("\\W+");
+		List<String> words = new ArrayList<String>();
+
+		// Split the search term the same way as page text, so the terms match the words
+		tokenizer.tokenize(searchTerm, (buffer, length, hash) -> words.add(new String(buffer, 0, length)));
 
 		/**
-		 * For each word in the words array, check if the ignore list from the word
-		 * database doesn't contain word
+		 * For each word in the words list, check if the ignore list from the word
+		 * database doesn't contain word. Another parser in the same search may
+		 * already have ignored it as a search term, which still counts
 		 */
 		for (String word : words) {
-			if (!wordDatabase.ignore().contains(word)) {
-				processedList.add(word.trim());
+			if (wordDatabase.isSearchTerm(word) || !wordDatabase.ignore().contains(word)) {
+				processedList.add(word);
 
-				wordDatabase.ignoreFromSearch(word.trim());
+				wordDatabase.ignoreFromSearch(word);
 			}
 		}
 
@@ -207,84 +344,39 @@ public class NodeParser implements Parser, Runnable {
 	 * http://jfuzzylogic.sourceforge.net/html/manual.html
 	 * 
 	 * Calculates the fuzzy value of the total 'score' of the title, headings, and
-	 * body of a web page with the search term
+	 * body of a web page with the search term. The FCL file is compiled once by
+	 * FuzzyScorer rather than once per page
 	 * 
 	 * @param document - Child element of a URL
 	 * 
-	 * @return variable.getLatestDefuzzifiedValue() - Defuzzified value of variable
+	 * @return fuzzyValue - Defuzzified value of 'score'
 	 */
 	@Override
 	public double calculateFuzzyValue(Document document) {
-		// Load the FCL file and create a Fuzzy Inference System (FIS)
-		FIS fis = FIS.load(jfuzzyFile.getAbsolutePath(), true);
-		Elements heading = document.select("h1, h2, h3, h4");
-		Elements body = document.select("p");
-
-		// Error while loading?
-		if (fis == null) {
-			System.err.println("ERROR: Can't load file: '" + jfuzzyFile + "'");
-
-			return 0.0;
-		}
-
-		/**
-		 * For each searchTerm searchList, check if the title element contains the
-		 * searchTerm. Increment highScore if true
-		 */
-		for (String searchTerm : searchList) {
-			if (document.title().toLowerCase().contains(searchTerm)) {
-				highScore++;
-			}
-		}
-
-		// Set input for title
-		fis.setVariable("title", highScore);
-
-		/**
-		 * For each heading element in headings and for each searchWord in searchList,
-		 * check if the heading element contains the searchTerm. Increment averageScore
-		 * if true
-		 */
-		for (Element h : heading) {
-			for (String searchTerm : searchList) {
-				if (h.toString().contains(searchTerm)) {
-					averageScore++;
-				}
-			}
-		}
-
-		// Set input for headings
-		fis.setVariable("headings", averageScore);
-
-		/**
-		 * For each paragraph element in paragraphs and for each searchTerm in
-		 * searchList, check if the paragraph element contains the searchTerm. Increment
-		 * lowScore if true
-		 */
-		for (Element b : body) {
-			for (String searchTerm : searchList) {
-				if (b.toString().contains(searchTerm)) {
-					lowScore++;
-				}
-			}
-		}
-
-		// Set input for body
-		fis.setVariable("body", lowScore);
-
-		FunctionBlock functionBlock = fis.getFunctionBlock("wcloud");
-
-		// Show
-//		JFuzzyChart.get().chart(functionBlock);
+		return calculateFuzzyValue(extractFeatures(document));
+	}
 
-		// Evaluate
-		fis.evaluate();
+	/**
+	 * Counts the search term hits in the title, headings and paragraphs of a page,
+	 * and finds the links on it that contain a search term, in one pass over the
+	 * page
+	 * 
+	 * @param document - Child element of a URL
+	 * @return features - Hits and links, shared by the fuzzy and Encog scores and
+	 *         the link filter in searchDuckDuckGo()
+	 */
+	public PageFeatures extractFeatures(Document document) {
+		return featureExtractor.extract(document);
+	}
 
-		// Show output variable's chart
-		Variable variable = functionBlock.getVariable("score");
-//		JFuzzyChart.get().chart(variable, variable.getDefuzzifier(), true);
+	private double calculateFuzzyValue(PageFeatures features) {
+		// Count hits for this page only, so scores can be compared between pages
+		highScore = features.getTitle();
+		averageScore = features.getHeadings();
+		lowScore = features.getBody();
 
-		fuzzyValue = variable.getLatestDefuzzifiedValue();
+		// Set the inputs for title, headings, and body and evaluate
+		fuzzyValue = fuzzyScorer.score(highScore, averageScore, lowScore);
 
 		// Return the defuzzified value of variable
 		return fuzzyValue;
@@ -309,99 +401,17 @@ public class NodeParser implements Parser, Runnable {
 	}
 
 	/**
+	 * The network is trained offline by Encog and loaded once by NeuralScorer, so
+	 * this no longer trains a network for every page
+	 * 
 	 * @param document - Child element of a URL
 	 * 
-	 * @return accuracy - Accuracy of
+	 * @return accuracy - Accuracy of the loaded network on its training data, or
+	 *         0.0 if no network was loaded
 	 */
 	@Override
 	public double calculateEncogValue(Document document) {
-		Elements heading = document.select("h1, h2, h3, h4");
-		Elements body = document.select("p");
-
-		/**
-		 * For each searchTerm searchList, check if the title element contains the
-		 * searchTerm. Increment highScore if true
-		 */
-		for (String searchTerm : searchList) {
-			if (document.title().toLowerCase().contains(searchTerm)) {
-				highScore++;
-			}
-		}
-
-		/**
-		 * For each heading element in headings and for each searchWord in searchList,
-		 * check if the heading element contains the searchTerm. Increment averageScore
-		 * if true
-		 */
-		for (Element h : heading) {
-			for (String searchTerm : searchList) {
-				if (h.toString().contains(searchTerm)) {
-					averageScore++;
-				}
-			}
-		}
-
-		/**
-		 * For each paragraph element in paragraphs and for each searchTerm in
-		 * searchList, check if the paragraph element contains the searchTerm. Increment
-		 * lowScore if true
-		 */
-		for (Element b : body) {
-			for (String searchTerm : searchList) {
-				if (b.toString().contains(searchTerm)) {
-					lowScore++;
-				}
-			}
-		}
-
-		encogLow = lowScore;
-		encogAvg = averageScore;
-		encogHigh = highScore;
-
-		// Step 1: Declare a network topology
-		BasicNetwork basicNetwork = new BasicNetwork();
-
-		basicNetwork.addLayer(new BasicLayer(null, true, 16));
-		basicNetwork.addLayer(new BasicLayer(new ActivationSigmoid(), true, 2));
-		basicNetwork.addLayer(new BasicLayer(new ActivationSigmoid(), false, 7));
-
-		basicNetwork.getStructure().finalizeStructure();
-		basicNetwork.reset();
-
-		// Step 2: Create the training data set
-		MLDataSet mlDataSet = new BasicMLDataSet(data, expected);
-
-		// Step 3: Train the neural network
-		ResilientPropagation resilientPropagation = new ResilientPropagation(basicNetwork, mlDataSet);
-
-		System.out.println("Training...");
-
-		do {
-			resilientPropagation.iteration();
-			epoch++;
-		} while (resilientPropagation.getError() > minError);
-
-		resilientPropagation.finishTraining();
-
-		System.out.println("Training complete!");
-
-		// Step 4: Test the neural network
-		for (MLDataPair pair : mlDataSet) {
-			total++;
-
-			MLData output = basicNetwork.compute(pair.getInput());
-
-			int y = (int) Math.round(output.getData(0));
-			int yd = (int) pair.getIdeal().getData(0);
-
-			if (y == yd) {
-				correct++;
-			}
-		}
-
-		System.out.println("Testing complete! Accuracy: ");
-
-		accuracy = (correct / total) * 100;
+		accuracy = neuralScorer.getAccuracy();
 
 		return accuracy;
 	}
@@ -423,90 +433,4 @@ public class NodeParser implements Parser, Runnable {
 	public void setAccuracy(double accuracy) {
 		this.accuracy = accuracy;
 	}
-
-	private double[][] data = { { 1, 0, 0, 1, 0, 0, 1, 1, 1, 1, 0, 0, 0.5, 0, 0, 1 },
-			{ 1, 0, 0, 1, 0, 0, 0, 1, 1, 1, 0, 0, 0.5, 1, 0, 1 }, { 0, 0, 1, 0, 0, 1, 1, 1, 1, 0, 0, 1, 0, 1, 0, 0 },
-			{ 1, 0, 0, 1, 0, 0, 1, 1, 1, 1, 0, 0, 0.5, 0, 0, 1 }, { 1, 0, 0, 1, 0, 0, 1, 1, 1, 1, 0, 0, 0.5, 1, 0, 1 },
-			{ 1, 0, 0, 1, 0, 0, 0, 1, 1, 1, 0, 0, 0.5, 1, 0, 1 }, { 1, 0, 0, 1, 0, 0, 0, 1, 1, 1, 0, 0, 0.5, 1, 1, 1 },
-			{ 0, 0, 1, 0, 0, 1, 0, 1, 1, 0, 0, 1, 0, 1, 1, 0 }, { 0, 0, 1, 0, 0, 1, 1, 1, 1, 0, 0, 1, 0, 1, 0, 0 },
-			{ 1, 0, 0, 1, 0, 0, 0, 1, 1, 1, 0, 0, 0.5, 0, 1, 0 }, { 1, 0, 0, 1, 0, 0, 1, 1, 1, 1, 0, 0, 0.5, 1, 0, 1 },
-			{ 0, 1, 1, 0, 1, 0, 0, 0, 1, 1, 0, 0, 0.25, 1, 1, 0 }, { 0, 0, 1, 0, 0, 1, 1, 1, 1, 0, 0, 1, 0, 1, 0, 0 },
-			{ 0, 0, 1, 0, 0, 0, 1, 0, 0, 0, 0, 0, 0, 0, 0, 0 }, { 0, 0, 1, 0, 0, 1, 1, 0, 0, 0, 0, 0, 0.5, 0, 0, 0 },
-			{ 0, 0, 1, 0, 0, 1, 1, 0, 0, 0, 0, 0, 0.75, 0, 0, 0 },
-			{ 0, 1, 1, 0, 1, 0, 1, 0, 1, 1, 0, 0, 0.25, 1, 0, 0 }, { 1, 0, 0, 1, 0, 0, 0, 1, 1, 1, 0, 0, 0.5, 1, 0, 1 },
-			{ 0, 0, 1, 0, 0, 1, 1, 1, 1, 0, 0, 1, 0, 1, 0, 1 }, { 0, 0, 0, 1, 0, 1, 1, 1, 1, 1, 0, 1, 0, 1, 0, 1 },
-			{ 0, 1, 1, 0, 1, 0, 0, 0, 1, 1, 0, 0, 0.25, 1, 1, 0 },
-			{ 0, 1, 1, 0, 1, 1, 0, 0, 1, 1, 0, 0, 0.25, 1, 0, 0 }, { 1, 0, 0, 1, 0, 0, 0, 1, 1, 1, 0, 0, 0.5, 1, 0, 1 },
-			{ 0, 1, 1, 0, 1, 0, 0, 0, 1, 1, 0, 0, 0.25, 1, 0, 1 },
-			{ 0, 0, 1, 0, 0, 0, 0, 0, 0, 1, 0, 0, 0.75, 0, 0, 0 }, { 0, 0, 1, 0, 0, 1, 1, 1, 1, 1, 0, 0, 0.5, 0, 0, 0 },
-			{ 0, 0, 1, 0, 0, 1, 1, 1, 1, 1, 1, 0, 0.5, 0, 0, 0 }, { 1, 0, 0, 1, 1, 0, 0, 1, 1, 1, 0, 0, 0.25, 1, 0, 0 },
-			{ 1, 0, 0, 1, 0, 0, 0, 1, 1, 1, 0, 0, 0.5, 1, 0, 1 }, { 1, 0, 0, 1, 0, 0, 1, 1, 1, 1, 0, 0, 0.25, 0, 1, 1 },
-			{ 0, 0, 1, 0, 1, 0, 0, 0, 0, 1, 0, 0, 0.75, 0, 0, 0 }, { 1, 0, 0, 1, 0, 0, 0, 1, 1, 1, 0, 0, 0.5, 1, 1, 1 },
-			{ 1, 0, 0, 1, 0, 0, 0, 1, 1, 1, 0, 0, 0.25, 0, 0, 1 },
-			{ 0, 1, 1, 0, 1, 1, 1, 0, 1, 1, 0, 0, 0.25, 1, 0, 0 }, { 0, 0, 1, 0, 0, 1, 0, 1, 1, 0, 0, 1, 0, 1, 0, 0 },
-			{ 1, 0, 0, 1, 0, 0, 0, 1, 1, 1, 0, 0, 0.5, 1, 1, 0 }, { 1, 0, 0, 1, 0, 0, 0, 1, 1, 1, 0, 0, 0.5, 1, 0, 0 },
-			{ 0, 1, 1, 0, 1, 0, 1, 0, 1, 1, 0, 0, 0.25, 1, 0, 0 }, { 0, 0, 1, 0, 0, 1, 1, 1, 1, 0, 0, 1, 0, 1, 0, 0 },
-			{ 1, 0, 1, 0, 1, 0, 0, 0, 0, 1, 1, 0, 0.75, 0, 1, 0 },
-			{ 1, 0, 1, 0, 1, 0, 0, 0, 0, 1, 0, 0, 0.75, 0, 0, 0 },
-			{ 0, 1, 1, 0, 0, 0, 1, 0, 1, 1, 0, 0, 0.25, 1, 0, 0 },
-			{ 0, 0, 1, 0, 1, 0, 1, 0, 0, 1, 0, 0, 0.75, 0, 0, 0 },
-			{ 0, 1, 1, 0, 1, 0, 0, 0, 1, 1, 0, 0, 0.25, 1, 0, 0 }, { 1, 0, 0, 1, 0, 0, 1, 1, 1, 1, 0, 0, 0.5, 1, 0, 1 },
-			{ 1, 0, 0, 1, 0, 0, 1, 1, 1, 1, 0, 0, 0.5, 1, 0, 1 }, { 0, 0, 1, 0, 0, 1, 1, 0, 0, 0, 0, 0, 0.75, 0, 0, 0 },
-			{ 1, 0, 0, 1, 0, 0, 1, 1, 1, 1, 0, 0, 0.5, 1, 0, 1 }, { 1, 0, 0, 1, 0, 1, 1, 1, 1, 1, 0, 0, 0.5, 1, 0, 1 },
-			{ 1, 0, 0, 1, 0, 0, 1, 1, 1, 1, 0, 0, 0.5, 1, 0, 0 }, { 1, 0, 0, 1, 0, 0, 1, 1, 1, 1, 0, 0, 0.5, 1, 0, 1 },
-			{ 1, 0, 1, 0, 1, 0, 0, 0, 0, 1, 0, 0, 0.75, 0, 0, 0 }, { 0, 0, 1, 0, 0, 1, 1, 1, 1, 1, 0, 0, 0.5, 1, 0, 0 },
-			{ 0, 0, 1, 0, 0, 1, 1, 0, 0, 0, 0, 0, 1, 0, 0, 1 }, { 1, 0, 0, 1, 0, 0, 1, 1, 1, 1, 0, 0, 0.5, 1, 0, 0 },
-			{ 1, 0, 0, 1, 0, 0, 0, 1, 1, 1, 0, 0, 0.5, 1, 0, 1 }, { 0, 1, 1, 0, 0, 0, 0, 0, 1, 1, 0, 0, 0.25, 1, 0, 1 },
-			{ 0, 1, 1, 0, 1, 0, 0, 0, 1, 1, 0, 0, 0.25, 1, 1, 0 },
-			{ 0, 1, 1, 0, 0, 1, 1, 0, 1, 1, 0, 0, 0.25, 1, 0, 1 },
-			{ 0, 1, 1, 0, 1, 0, 0, 0, 1, 1, 0, 0, 0.25, 1, 0, 0 }, { 0, 0, 1, 0, 0, 1, 1, 1, 1, 0, 0, 1, 0, 1, 0, 1 },
-			{ 0, 0, 1, 0, 0, 1, 1, 1, 1, 0, 0, 1, 0, 1, 0, 0 }, { 0, 0, 1, 0, 0, 0, 1, 1, 1, 1, 1, 0, 0, 1, 0, 0 },
-			{ 1, 0, 1, 1, 0, 1, 1, 0, 1, 1, 0, 0, 0.5, 1, 0, 1 }, { 1, 0, 0, 1, 0, 0, 1, 1, 1, 1, 0, 0, 0.5, 1, 0, 1 },
-			{ 1, 0, 0, 1, 0, 0, 0, 1, 1, 1, 0, 0, 0.5, 1, 1, 1 }, { 0, 0, 0, 1, 0, 1, 1, 1, 1, 1, 0, 1, 0, 1, 0, 1 },
-			{ 1, 0, 0, 1, 0, 0, 1, 1, 1, 1, 0, 0, 0.5, 1, 0, 1 }, { 1, 0, 0, 1, 0, 0, 1, 1, 1, 1, 0, 0, 0.5, 1, 1, 1 },
-			{ 1, 0, 0, 1, 0, 0, 1, 1, 1, 1, 0, 0, 0.5, 1, 0, 1 }, { 1, 0, 0, 1, 0, 0, 0, 1, 1, 1, 0, 0, 0.5, 1, 1, 1 },
-			{ 0, 1, 1, 0, 0, 0, 1, 0, 1, 1, 0, 0, 0.25, 1, 0, 1 }, { 0, 0, 0, 0, 0, 0, 1, 0, 0, 1, 1, 0, 1, 1, 0, 0 },
-			{ 0, 0, 1, 0, 0, 1, 0, 1, 1, 0, 0, 1, 0, 1, 0, 0 }, { 1, 0, 0, 1, 0, 1, 1, 1, 1, 1, 0, 1, 0, 0, 0, 1 },
-			{ 1, 0, 0, 1, 0, 1, 1, 1, 1, 1, 0, 1, 0.25, 1, 0, 1 }, { 0, 0, 0, 0, 0, 1, 1, 1, 1, 0, 1, 0, 0, 1, 0, 0 },
-			{ 0, 0, 1, 0, 0, 1, 1, 0, 0, 0, 1, 0, 0, 0, 0, 0 }, { 0, 1, 1, 0, 1, 1, 1, 0, 1, 1, 0, 0, 0.25, 1, 0, 0 },
-			{ 0, 1, 1, 0, 1, 1, 1, 0, 1, 1, 0, 0, 0.25, 1, 0, 0 }, { 0, 0, 1, 0, 0, 0, 1, 1, 1, 1, 0, 0, 0, 1, 0, 0 },
-			{ 0, 0, 1, 0, 0, 0, 0, 0, 0, 1, 0, 0, 0, 0, 0, 0 }, { 0, 0, 1, 0, 0, 1, 0, 1, 1, 0, 0, 1, 0, 1, 0, 0 },
-			{ 0, 1, 1, 0, 1, 0, 0, 0, 1, 1, 0, 0, 0.25, 1, 0, 0 },
-			{ 1, 0, 0, 1, 0, 0, 0, 1, 1, 1, 0, 0, 0.25, 1, 0, 0 },
-			{ 0, 0, 1, 0, 0, 1, 1, 0, 0, 0, 0, 0, 0.625, 0, 0, 0 }, { 0, 0, 1, 0, 0, 1, 1, 1, 1, 0, 1, 1, 0, 1, 0, 1 },
-			{ 0, 1, 1, 0, 1, 1, 0, 0, 1, 1, 0, 0, 0.25, 1, 0, 1 },
-			{ 0, 0, 1, 0, 0, 0, 0, 0, 0, 1, 0, 0, 0.75, 0, 0, 0 }, { 0, 0, 1, 0, 0, 1, 0, 1, 1, 1, 0, 0, 0.5, 0, 0, 0 },
-			{ 0, 0, 1, 0, 0, 0, 0, 0, 1, 1, 0, 0, 0.5, 1, 0, 1 }, { 0, 0, 1, 0, 0, 0, 1, 1, 1, 1, 0, 0, 0.5, 1, 0, 0 },
-			{ 0, 0, 1, 0, 0, 1, 1, 1, 1, 0, 0, 1, 0, 1, 0, 1 }, { 1, 0, 0, 1, 1, 0, 0, 1, 1, 1, 0, 0, 0.25, 1, 0, 0 },
-			{ 1, 0, 0, 1, 0, 0, 0, 1, 1, 1, 0, 0, 0.5, 1, 0, 0 }, { 0, 1, 1, 0, 1, 0, 1, 0, 1, 1, 0, 0, 0.25, 1, 0, 1 },
-			{ 1, 0, 0, 1, 0, 0, 0, 1, 1, 1, 0, 0, 0.25, 1, 0, 1 },
-			{ 1, 0, 1, 0, 1, 0, 0, 0, 0, 1, 1, 0, 0.75, 0, 0, 0 }, { 1, 0, 0, 1, 0, 0, 1, 1, 1, 1, 0, 0, 0.5, 1, 0, 1 },
-			{ 0, 0, 1, 0, 0, 0, 0, 0, 0, 1, 0, 0, 0, 0, 0, 0 }, { 0, 1, 1, 0, 1, 0, 0, 0, 1, 1, 0, 0, 0.25, 1, 0, 0 } };
-
-	private double[][] expected = { { 1, 0, 0, 0, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 }, { 0, 0, 0, 1, 0, 0, 0 },
-			{ 1, 0, 0, 0, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 },
-			{ 0, 0, 0, 1, 0, 0, 0 }, { 0, 0, 0, 1, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 },
-			{ 0, 1, 0, 0, 0, 0, 0 }, { 0, 0, 0, 1, 0, 0, 0 }, { 0, 0, 0, 0, 0, 0, 1 }, { 0, 0, 0, 0, 0, 0, 1 },
-			{ 0, 0, 0, 0, 0, 0, 1 }, { 0, 1, 0, 0, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 }, { 0, 0, 0, 1, 0, 0, 0 },
-			{ 1, 0, 0, 0, 0, 0, 0 }, { 0, 1, 0, 0, 0, 0, 0 }, { 0, 1, 0, 0, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 },
-			{ 0, 1, 0, 0, 0, 0, 0 }, { 0, 0, 0, 0, 0, 1, 0 }, { 0, 0, 0, 0, 1, 0, 0 }, { 0, 0, 0, 0, 1, 0, 0 },
-			{ 1, 0, 0, 0, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 }, { 0, 0, 0, 0, 0, 1, 0 },
-			{ 1, 0, 0, 0, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 }, { 0, 1, 0, 0, 0, 0, 0 }, { 0, 0, 0, 1, 0, 0, 0 },
-			{ 1, 0, 0, 0, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 }, { 0, 1, 0, 0, 0, 0, 0 }, { 0, 0, 0, 1, 0, 0, 0 },
-			{ 0, 0, 0, 0, 0, 1, 0 }, { 0, 0, 0, 0, 0, 1, 0 }, { 0, 1, 0, 0, 0, 0, 0 }, { 0, 0, 0, 0, 0, 1, 0 },
-			{ 0, 1, 0, 0, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 }, { 0, 0, 0, 0, 0, 0, 1 },
-			{ 1, 0, 0, 0, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 },
-			{ 0, 0, 0, 0, 0, 1, 0 }, { 0, 0, 0, 0, 1, 0, 0 }, { 0, 0, 0, 0, 0, 0, 1 }, { 1, 0, 0, 0, 0, 0, 0 },
-			{ 1, 0, 0, 0, 0, 0, 0 }, { 0, 1, 0, 0, 0, 0, 0 }, { 0, 1, 0, 0, 0, 0, 0 }, { 0, 1, 0, 0, 0, 0, 0 },
-			{ 0, 1, 0, 0, 0, 0, 0 }, { 0, 0, 0, 1, 0, 0, 0 }, { 0, 0, 0, 1, 0, 0, 0 }, { 0, 0, 1, 0, 0, 0, 0 },
-			{ 1, 0, 0, 0, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 },
-			{ 1, 0, 0, 0, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 },
-			{ 0, 1, 0, 0, 0, 0, 0 }, { 0, 0, 0, 0, 0, 0, 1 }, { 0, 0, 0, 1, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 },
-			{ 1, 0, 0, 0, 0, 0, 0 }, { 0, 0, 1, 0, 0, 0, 0 }, { 0, 0, 0, 0, 0, 0, 1 }, { 0, 1, 0, 0, 0, 0, 0 },
-			{ 0, 1, 0, 0, 0, 0, 0 }, { 0, 0, 1, 0, 0, 0, 0 }, { 0, 0, 0, 0, 0, 0, 1 }, { 0, 0, 0, 1, 0, 0, 0 },
-			{ 0, 1, 0, 0, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 }, { 0, 0, 0, 0, 0, 0, 1 }, { 0, 0, 0, 1, 0, 0, 0 },
-			{ 0, 1, 0, 0, 0, 0, 0 }, { 0, 0, 0, 0, 0, 1, 0 }, { 0, 0, 0, 0, 1, 0, 0 }, { 0, 0, 1, 0, 0, 0, 0 },
-			{ 0, 0, 1, 0, 0, 0, 0 }, { 0, 0, 0, 1, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 },
-			{ 0, 1, 0, 0, 0, 0, 0 }, { 1, 0, 0, 0, 0, 0, 0 }, { 0, 0, 0, 0, 0, 1, 0 }, { 1, 0, 0, 0, 0, 0, 0 },
-			{ 0, 0, 0, 0, 0, 0, 1 }, { 0, 1, 0, 0, 0, 0, 0 } };
-}
\ No newline at end of file
+}
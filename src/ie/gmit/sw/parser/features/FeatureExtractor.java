@@ -0,0 +1,141 @@
+package ie.gmit.sw.parser.features;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+import org.jsoup.select.NodeTraversor;
+import org.jsoup.select.NodeVisitor;
+
+/**
+ * @author Kevin Niland
+ * @category Parser
+ * @version 1.0
+ *
+ *          FeatureExtractor
+ *
+ *          Counts the search terms in a page's title, headings (h1 - h4) and
+ *          paragraphs, and collects the links that contain a search term, in a
+ *          single walk over the page. Each text node is fed through the
+ *          SearchTermMatcher once, for the heading and paragraph it is in, so
+ *          elements are never turned back into HTML to be searched. As before,
+ *          each element adds the number of different terms it contains
+ */
+public class FeatureExtractor {
+	private SearchTermMatcher matcher;
+
+	public FeatureExtractor(SearchTermMatcher matcher) {
+		this.matcher = matcher;
+	}
+
+	/**
+	 * @param document - Page to extract features from
+	 * @return features - Search term hits in the page
+	 */
+	public PageFeatures extract(Document document) {
+		Visitor visitor = new Visitor();
+		Element root = document.body() == null ? document : document.body();
+
+		NodeTraversor.traverse(visitor, root);
+
+		return new PageFeatures(matcher.count(document.title()), visitor.headings, visitor.body, visitor.links);
+	}
+
+	/**
+	 * Keeps an automaton state and the terms found so far for the heading and the
+	 * paragraph the walk is currently inside
+	 */
+	private class Visitor implements NodeVisitor {
+		private List<String> links = new ArrayList<String>();
+		private Element heading, paragraph;
+		private int headingState, paragraphState, headings, body;
+		private long headingFound, paragraphFound;
+
+		@Override
+		public void head(Node node, int depth) {
+			if (node instanceof TextNode) {
+				String text = ((TextNode) node).getWholeText();
+
+				if (heading != null) {
+					headingState = feed(text, headingState, true);
+				}
+
+				if (paragraph != null) {
+					paragraphState = feed(text, paragraphState, false);
+				}
+
+				return;
+			}
+
+			if (!(node instanceof Element)) {
+				return;
+			}
+
+			Element element = (Element) node;
+
+			switch (element.normalName()) {
+			case "h1":
+			case "h2":
+			case "h3":
+			case "h4":
+				if (heading == null) {
+					heading = element;
+					headingState = 0;
+					headingFound = 0;
+				}
+				break;
+			case "p":
+				if (paragraph == null) {
+					paragraph = element;
+					paragraphState = 0;
+					paragraphFound = 0;
+				}
+				break;
+			case "a":
+				if (element.hasAttr("href")) {
+					String absURL = element.absUrl("href");
+
+					if (!absURL.isEmpty() && matcher.matchesAny(absURL)) {
+						links.add(absURL);
+					}
+				}
+				break;
+			case "br":
+				// Words either side of a line break aren't joined
+				headingState = paragraphState = 0;
+				break;
+			}
+		}
+
+		@Override
+		public void tail(Node node, int depth) {
+			if (node == heading) {
+				headings += Long.bitCount(headingFound);
+				heading = null;
+			} else if (node == paragraph) {
+				body += Long.bitCount(paragraphFound);
+				paragraph = null;
+			}
+		}
+
+		private int feed(String text, int state, boolean isHeading) {
+			long found = 0;
+
+			for (int i = 0; i < text.length(); i++) {
+				state = matcher.next(state, text.charAt(i));
+				found |= matcher.output(state);
+			}
+
+			if (isHeading) {
+				headingFound |= found;
+			} else {
+				paragraphFound |= found;
+			}
+
+			return state;
+		}
+	}
+}
@@ -0,0 +1,57 @@
+package ie.gmit.sw.parser.features;
+
+import java.util.List;
+
+/**
+ * @author Kevin Niland
+ * @category Parser
+ * @version 1.0
+ *
+ *          PageFeatures
+ *
+ *          Search term hits found in a page by FeatureExtractor. title, headings
+ *          and body are the inputs to the fuzzy and neural scorers, and links
+ *          are the absolute URLs on the page that contain a search term, in the
+ *          order they appear
+ */
+public class PageFeatures {
+	private int title, headings, body;
+	private List<String> links;
+
+	public PageFeatures(int title, int headings, int body, List<String> links) {
+		this.title = title;
+		this.headings = headings;
+		this.body = body;
+		this.links = links;
+	}
+
+	/**
+	 * @return Number of search terms in the page's title
+	 */
+	public int getTitle() {
+		return this.title;
+	}
+
+	/**
+	 * @return Number of search terms in each h1 - h4, added up
+	 */
+	public int getHeadings() {
+		return this.headings;
+	}
+
+	/**
+	 * @return Number of search terms in each paragraph, added up
+	 */
+	public int getBody() {
+		return this.body;
+	}
+
+	public List<String> getLinks() {
+		return this.links;
+	}
+
+	public String toString() {
+		return "Title: " + getTitle() + "\tHeadings: " + getHeadings() + "\tBody: " + getBody() + "\tLinks: "
+				+ getLinks().size();
+	}
+}
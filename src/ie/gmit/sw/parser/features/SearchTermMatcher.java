@@ -0,0 +1,227 @@
+package ie.gmit.sw.parser.features;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * @author Kevin Niland
+ * @category Parser
+ * @version 1.0
+ *
+ *          SearchTermMatcher
+ *
+ *          Aho-Corasick automaton built from the search terms, so a piece of
+ *          text can be checked for every term in one pass over its characters
+ *          instead of one contains() per term. Matching ignores case. Each
+ *          state carries a bit mask of the terms that end there, which is why
+ *          at most 64 terms are matched - any after that are ignored. Immutable
+ *          once built, so it can be shared between threads
+ */
+public class SearchTermMatcher {
+	private static final int MAX_TERMS = 64;
+
+	private final List<String> terms = new ArrayList<String>();
+	private final boolean[] ascii = new boolean[128];
+	private char[][] keys;
+	private int[][] children;
+	private int[] fail;
+	private long[] output;
+	private int states = 1;
+
+	/**
+	 * @param searchTerms - Terms to look for
+	 */
+	public SearchTermMatcher(List<String> searchTerms) {
+		keys = new char[16][];
+		children = new int[16][];
+		output = new long[16];
+		keys[0] = new char[0];
+		children[0] = new int[0];
+
+		for (String searchTerm : searchTerms) {
+			String term = searchTerm.toLowerCase();
+
+			if (term.isEmpty() || terms.contains(term) || terms.size() == MAX_TERMS) {
+				continue;
+			}
+
+			add(term, terms.size());
+			terms.add(term);
+		}
+
+		link();
+	}
+
+	/**
+	 * @return Number of terms the matcher looks for
+	 */
+	public int size() {
+		return terms.size();
+	}
+
+	/**
+	 * Moves the automaton on by one character
+	 *
+	 * @param state - Current state, 0 at the start of the text
+	 * @param c     - Next character
+	 * @return Next state. output(state) gives the terms that end at c
+	 */
+	public int next(int state, char c) {
+		c = Character.toLowerCase(c);
+
+		// Characters that aren't in any term send the automaton back to the start
+		if (c < 128 && !ascii[c]) {
+			return 0;
+		}
+
+		while (true) {
+			int child = child(state, c);
+
+			if (child >= 0) {
+				return child;
+			}
+
+			if (state == 0) {
+				return 0;
+			}
+
+			state = fail[state];
+		}
+	}
+
+	/**
+	 * @return Bit mask of the terms that end at this state. Bit i is the i-th term
+	 */
+	public long output(int state) {
+		return output[state];
+	}
+
+	/**
+	 * @return Bit mask of the terms found anywhere in text
+	 */
+	public long match(CharSequence text) {
+		long found = 0;
+		int state = 0;
+
+		for (int i = 0; i < text.length(); i++) {
+			state = next(state, text.charAt(i));
+			found |= output[state];
+		}
+
+		return found;
+	}
+
+	/**
+	 * @return Number of different terms found in text
+	 */
+	public int count(CharSequence text) {
+		return Long.bitCount(match(text));
+	}
+
+	/**
+	 * @return true if text contains any of the terms
+	 */
+	public boolean matchesAny(CharSequence text) {
+		int state = 0;
+
+		for (int i = 0; i < text.length(); i++) {
+			state = next(state, text.charAt(i));
+
+			if (output[state] != 0) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private int child(int state, char c) {
+		char[] stateKeys = keys[state];
+
+		for (int i = 0; i < stateKeys.length; i++) {
+			if (stateKeys[i] == c) {
+				return children[state][i];
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Adds a term to the trie
+	 */
+	private void add(String term, int index) {
+		int state = 0;
+
+		for (int i = 0; i < term.length(); i++) {
+			char c = term.charAt(i);
+			int child = child(state, c);
+
+			if (c < 128) {
+				ascii[c] = true;
+			}
+
+			if (child < 0) {
+				child = newState();
+				keys[state] = Arrays.copyOf(keys[state], keys[state].length + 1);
+				children[state] = Arrays.copyOf(children[state], children[state].length + 1);
+				keys[state][keys[state].length - 1] = c;
+				children[state][children[state].length - 1] = child;
+			}
+
+			state = child;
+		}
+
+		output[state] |= 1L << index;
+	}
+
+	private int newState() {
+		if (states == keys.length) {
+			keys = Arrays.copyOf(keys, states * 2);
+			children = Arrays.copyOf(children, states * 2);
+			output = Arrays.copyOf(output, states * 2);
+		}
+
+		keys[states] = new char[0];
+		children[states] = new int[0];
+
+		return states++;
+	}
+
+	/**
+	 * Works out the failure link of each state breadth first, and merges the
+	 * output of the state each one fails to into its own
+	 */
+	private void link() {
+		Deque<Integer> queue = new ArrayDeque<Integer>();
+
+		fail = new int[states];
+
+		for (int child : children[0]) {
+			queue.add(child);
+		}
+
+		while (!queue.isEmpty()) {
+			int state = queue.poll();
+
+			for (int i = 0; i < keys[state].length; i++) {
+				char c = keys[state][i];
+				int child = children[state][i];
+				int failure = fail[state];
+
+				while (failure != 0 && child(failure, c) < 0) {
+					failure = fail[failure];
+				}
+
+				int target = child(failure, c);
+
+				fail[child] = target >= 0 && target != child ? target : 0;
+				output[child] |= output[fail[child]];
+				queue.add(child);
+			}
+		}
+	}
+}
@@ -0,0 +1,59 @@
+package ie.gmit.sw.parser.features;
+
+import java.util.List;
+
+/**
+ * @author Kevin Niland
+ * @category Parser
+ * @version 1.0
+ *
+ *          StreamedPage
+ *
+ *          What StreamingExtractor keeps of a page - its search term hits and
+ *          links, and the words of its body text in the order they appear.
+ *          Repeated words share one String, so this is much smaller than the
+ *          Document it replaces
+ */
+public class StreamedPage {
+	private PageFeatures features;
+	private List<String> words;
+	private long bytes;
+	private boolean truncated;
+
+	public StreamedPage(PageFeatures features, List<String> words, long bytes, boolean truncated) {
+		this.features = features;
+		this.words = words;
+		this.bytes = bytes;
+		this.truncated = truncated;
+	}
+
+	public PageFeatures getFeatures() {
+		return this.features;
+	}
+
+	/**
+	 * @return Words of the body text, folded to lower case
+	 */
+	public List<String> getWords() {
+		return this.words;
+	}
+
+	/**
+	 * @return Number of bytes of the page that were read
+	 */
+	public long getBytes() {
+		return this.bytes;
+	}
+
+	/**
+	 * @return true if the page was cut off by the byte or token budget
+	 */
+	public boolean isTruncated() {
+		return this.truncated;
+	}
+
+	public String toString() {
+		return getFeatures() + "\tWords: " + getWords().size() + "\tBytes: " + getBytes()
+				+ (isTruncated() ? " (truncated)" : "");
+	}
+}
@@ -0,0 +1,658 @@
+package ie.gmit.sw.parser.features;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import ie.gmit.sw.fetcher.interfaces.PageReader;
+import ie.gmit.sw.parser.interfaces.TokenSink;
+import ie.gmit.sw.parser.tokenizer.TermTable;
+import ie.gmit.sw.parser.tokenizer.Tokenizer;
+
+/**
+ * @author Kevin Niland
+ * @category Parser
+ * @version 1.0
+ *
+ *          StreamingExtractor - Implementation of PageReader
+ *
+ *          Finds the same search term hits and links as FeatureExtractor, and
+ *          splits the body text into words, while the HTML is being read,
+ *          instead of parsing it into a Document and building its text with
+ *          body().text(). Only the current tag and a buffer of characters are
+ *          held, so the memory a page takes doesn't grow with its size. Reading
+ *          stops after maxBytes bytes or maxTokens words, whichever comes
+ *          first, and the page is marked as truncated.
+ *
+ *          This is a scanner rather than a full HTML parser: paragraphs are
+ *          closed by the block elements that close them in a browser, the
+ *          contents of script and style are skipped, and the common named and
+ *          all numeric character references are decoded. Malformed markup may
+ *          give slightly different counts to jsoup. Immutable, so one instance
+ *          can be shared by every fetcher thread
+ */
+public class StreamingExtractor implements PageReader<StreamedPage> {
+	private static final int BUFFER_SIZE = 8192;
+	private static final int MAX_TAG = 4096;
+	private static final int MAX_ENTITY = 10;
+	private static final int SNIFF_BYTES = 1024;
+	private static final Pattern META_CHARSET = Pattern.compile("<meta[^>]+charset\\s*=\\s*[\"']?([\\w.:-]+)",
+			Pattern.CASE_INSENSITIVE);
+
+	// Elements that don't break a word in two, as in body().text()
+	private static final Set<String> INLINE = new HashSet<String>(Arrays.asList("a", "abbr", "b", "bdi", "bdo",
+			"cite", "code", "data", "dfn", "em", "font", "i", "kbd", "mark", "q", "s", "samp", "small", "span",
+			"strong", "sub", "sup", "time", "u", "var", "wbr"));
+
+	// Elements that close an open paragraph when they start
+	private static final Set<String> CLOSES_PARAGRAPH = new HashSet<String>(Arrays.asList("address", "article",
+			"aside", "blockquote", "details", "div", "dl", "fieldset", "figcaption", "figure", "footer", "form", "h1",
+			"h2", "h3", "h4", "h5", "h6", "header", "hr", "li", "main", "menu", "nav", "ol", "p", "pre", "section",
+			"table", "ul"));
+
+	// Latin-1 letters from U+00C0, in order
+	private static final String[] LATIN_1 = { "Agrave", "Aacute", "Acirc", "Atilde", "Auml", "Aring", "AElig",
+			"Ccedil", "Egrave", "Eacute", "Ecirc", "Euml", "Igrave", "Iacute", "Icirc", "Iuml", "ETH", "Ntilde",
+			"Ograve", "Oacute", "Ocirc", "Otilde", "Ouml", "times", "Oslash", "Ugrave", "Uacute", "Ucirc", "Uuml",
+			"Yacute", "THORN", "szlig", "agrave", "aacute", "acirc", "atilde", "auml", "aring", "aelig", "ccedil",
+			"egrave", "eacute", "ecirc", "euml", "igrave", "iacute", "icirc", "iuml", "eth", "ntilde", "ograve",
+			"oacute", "ocirc", "otilde", "ouml", "divide", "oslash", "ugrave", "uacute", "ucirc", "uuml", "yacute",
+			"thorn", "yuml" };
+	private static final Map<String, Integer> ENTITIES = new HashMap<String, Integer>();
+
+	static {
+		ENTITIES.put("amp", (int) '&');
+		ENTITIES.put("lt", (int) '<');
+		ENTITIES.put("gt", (int) '>');
+		ENTITIES.put("quot", (int) '"');
+		ENTITIES.put("apos", (int) '\'');
+		ENTITIES.put("nbsp", 0xA0);
+
+		for (int i = 0; i < LATIN_1.length; i++) {
+			ENTITIES.put(LATIN_1[i], 0xC0 + i);
+		}
+	}
+
+	private final SearchTermMatcher matcher;
+	private final int maxBytes, maxTokens;
+
+	/**
+	 * @param matcher   - Search terms to count
+	 * @param maxBytes  - Most bytes of a page to read
+	 * @param maxTokens - Most words of a page to keep
+	 */
+	public StreamingExtractor(SearchTermMatcher matcher, int maxBytes, int maxTokens) {
+		this.matcher = matcher;
+		this.maxBytes = maxBytes;
+		this.maxTokens = maxTokens;
+	}
+
+	/**
+	 * @param inputStream - Page as it is downloaded. Not closed
+	 * @param charset     - Charset from the Content-Type header, or null to look
+	 *                    for a meta tag near the start of the page
+	 * @param url         - URL of the page, which relative links are resolved
+	 *                    against
+	 * @return page - Hits, links and words of the page
+	 */
+	@Override
+	public StreamedPage read(InputStream inputStream, String charset, String url) throws IOException {
+		LimitedInputStream limited = new LimitedInputStream(inputStream, maxBytes);
+		BufferedInputStream buffered = new BufferedInputStream(limited, BUFFER_SIZE);
+		Reader reader = new InputStreamReader(buffered, charset(charset, buffered));
+		Scan scan = new Scan(url);
+		char[] buffer = new char[BUFFER_SIZE];
+		int read;
+
+		while (!scan.stopped && (read = reader.read(buffer)) != -1) {
+			for (int i = 0; i < read && !scan.stopped; i++) {
+				scan.next(buffer[i]);
+			}
+		}
+
+		return scan.finish(limited.count, limited.exceeded || scan.stopped);
+	}
+
+	public int getMaxBytes() {
+		return this.maxBytes;
+	}
+
+	public int getMaxTokens() {
+		return this.maxTokens;
+	}
+
+	/**
+	 * Uses the charset from the header if it is known, otherwise the one in a meta
+	 * tag, otherwise UTF-8
+	 */
+	private static Charset charset(String name, BufferedInputStream inputStream) throws IOException {
+		if (name == null) {
+			byte[] start = new byte[SNIFF_BYTES];
+			int length = 0, read;
+
+			inputStream.mark(SNIFF_BYTES);
+
+			while (length < SNIFF_BYTES && (read = inputStream.read(start, length, SNIFF_BYTES - length)) != -1) {
+				length += read;
+			}
+
+			inputStream.reset();
+
+			Matcher meta = META_CHARSET.matcher(new String(start, 0, length, StandardCharsets.ISO_8859_1));
+
+			if (meta.find()) {
+				name = meta.group(1);
+			}
+		}
+
+		try {
+			return name == null ? StandardCharsets.UTF_8 : Charset.forName(name);
+		} catch (IllegalArgumentException illegalArgumentException) {
+			return StandardCharsets.UTF_8;
+		}
+	}
+
+	/**
+	 * @return Code point of a character reference without its & and ;, or -1 if
+	 *         it isn't known
+	 */
+	private static int entity(CharSequence name) {
+		if (name.length() > 1 && name.charAt(0) == '#') {
+			try {
+				boolean hex = name.charAt(1) == 'x' || name.charAt(1) == 'X';
+				int codePoint = Integer.parseInt(name.subSequence(hex ? 2 : 1, name.length()).toString(), hex ? 16 : 10);
+
+				return Character.isValidCodePoint(codePoint) ? codePoint : -1;
+			} catch (NumberFormatException numberFormatException) {
+				return -1;
+			}
+		}
+
+		Integer codePoint = ENTITIES.get(name.toString());
+
+		return codePoint == null ? -1 : codePoint;
+	}
+
+	/**
+	 * Decodes the character references in an attribute value
+	 */
+	private static String unescape(String value) {
+		if (value.indexOf('&') < 0) {
+			return value;
+		}
+
+		StringBuilder unescaped = new StringBuilder(value.length());
+
+		for (int i = 0; i < value.length(); i++) {
+			int end = value.indexOf(';', i);
+			int codePoint = value.charAt(i) == '&' && end > i + 1 && end - i <= MAX_ENTITY + 1
+					? entity(value.substring(i + 1, end))
+					: -1;
+
+			if (codePoint < 0) {
+				unescaped.append(value.charAt(i));
+			} else {
+				unescaped.appendCodePoint(codePoint);
+				i = end;
+			}
+		}
+
+		return unescaped.toString();
+	}
+
+	private static boolean isSpace(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+	}
+
+	private enum Mode {
+		TEXT, TAG, ENTITY, COMMENT, RAW
+	}
+
+	/**
+	 * State of one page being read
+	 */
+	private class Scan {
+		private final Tokenizer tokenizer = new Tokenizer();
+		private final TermTable termTable = new TermTable();
+		private final List<String> words = new ArrayList<String>();
+		private final List<String> links = new ArrayList<String>();
+		private final StringBuilder tag = new StringBuilder();
+		private final StringBuilder entity = new StringBuilder();
+		private final TokenSink sink = this::token;
+
+		private Mode mode = Mode.TEXT;
+		private URL base;
+		private char quote, last;
+		private String rawEnd;
+		private int rawMatched, dashes;
+		private boolean stopped, inTitle, inHeading, inParagraph;
+		private int titleState, headingState, paragraphState, headings, body;
+		private long titleFound, headingFound, paragraphFound;
+
+		private Scan(String url) {
+			try {
+				base = new URL(url);
+			} catch (MalformedURLException malformedURLException) {
+				// Only absolute links can be kept
+				base = null;
+			}
+		}
+
+		private void next(char c) {
+			switch (mode) {
+			case TEXT:
+				if (c == '<') {
+					mode = Mode.TAG;
+					tag.setLength(0);
+					quote = last = 0;
+				} else if (c == '&') {
+					mode = Mode.ENTITY;
+					entity.setLength(0);
+				} else {
+					text(c);
+				}
+				break;
+			case ENTITY:
+				if (c == ';' && entity.length() > 0) {
+					mode = Mode.TEXT;
+
+					int codePoint = entity(entity);
+
+					if (codePoint < 0) {
+						// Mostly punctuation, so treat it as a break between words
+						text(' ');
+					} else {
+						for (char decoded : Character.toChars(codePoint)) {
+							text(decoded);
+						}
+					}
+				} else if ((Character.isLetterOrDigit(c) || c == '#') && entity.length() < MAX_ENTITY) {
+					entity.append(c);
+				} else {
+					// Not a character reference, so it was just text
+					mode = Mode.TEXT;
+					text('&');
+
+					for (int i = 0; i < entity.length(); i++) {
+						text(entity.charAt(i));
+					}
+
+					next(c);
+				}
+				break;
+			case TAG:
+				tag(c);
+				break;
+			case COMMENT:
+				if (c == '>' && dashes >= 2) {
+					mode = Mode.TEXT;
+				}
+
+				dashes = c == '-' ? dashes + 1 : 0;
+				break;
+			case RAW:
+				// Skip everything up to the end tag of the script or style element
+				if (Character.toLowerCase(c) == rawEnd.charAt(rawMatched)) {
+					if (++rawMatched == rawEnd.length()) {
+						mode = Mode.TAG;
+						tag.setLength(0);
+						tag.append(rawEnd, 1, rawEnd.length());
+						quote = last = 0;
+					}
+				} else {
+					rawMatched = c == '<' ? 1 : 0;
+				}
+				break;
+			}
+		}
+
+		private void tag(char c) {
+			if (tag.length() == 0 && !Character.isLetter(c) && c != '/' && c != '!' && c != '?') {
+				// A < that doesn't start a tag, as in "a < b"
+				mode = Mode.TEXT;
+				text('<');
+				next(c);
+
+				return;
+			}
+
+			if (quote != 0) {
+				if (c == quote) {
+					quote = 0;
+				}
+			} else if (c == '>') {
+				mode = Mode.TEXT;
+				element(tag);
+
+				return;
+			} else if ((c == '"' || c == '\'') && last == '=') {
+				quote = c;
+			}
+
+			if (!isSpace(c)) {
+				last = c;
+			}
+
+			// Anything past MAX_TAG is dropped, but the tag is still read to its end
+			if (tag.length() < MAX_TAG) {
+				tag.append(c);
+			}
+
+			if (tag.length() == 3 && tag.charAt(0) == '!' && tag.charAt(1) == '-' && tag.charAt(2) == '-') {
+				mode = Mode.COMMENT;
+				dashes = 0;
+			}
+		}
+
+		/**
+		 * Handles a complete tag, without its angle brackets
+		 */
+		private void element(CharSequence tag) {
+			if (tag.length() == 0 || tag.charAt(0) == '!' || tag.charAt(0) == '?') {
+				return;
+			}
+
+			boolean closing = tag.charAt(0) == '/';
+			int end = closing ? 1 : 0;
+
+			while (end < tag.length() && Character.isLetterOrDigit(tag.charAt(end))) {
+				end++;
+			}
+
+			String name = tag.subSequence(closing ? 1 : 0, end).toString().toLowerCase();
+
+			if (name.isEmpty()) {
+				return;
+			}
+
+			if (!INLINE.contains(name)) {
+				// Block elements separate words, as they do in body().text()
+				tokenizer.feed(' ', sink);
+			}
+
+			switch (name) {
+			case "title":
+				inTitle = !closing;
+				titleState = 0;
+				break;
+			case "h1":
+			case "h2":
+			case "h3":
+			case "h4":
+				closeParagraph();
+				closeHeading();
+
+				if (!closing) {
+					inHeading = true;
+					headingState = 0;
+					headingFound = 0;
+				}
+				break;
+			case "p":
+				closeParagraph();
+
+				if (!closing) {
+					inParagraph = true;
+					paragraphState = 0;
+					paragraphFound = 0;
+				}
+				break;
+			case "br":
+				// Words either side of a line break aren't joined
+				headingState = paragraphState = titleState = 0;
+				break;
+			case "a":
+				if (!closing) {
+					String absURL = resolve(attribute(tag.toString(), "href"));
+
+					if (!absURL.isEmpty() && matcher.matchesAny(absURL)) {
+						links.add(absURL);
+					}
+				}
+				break;
+			case "base":
+				String href = resolve(attribute(tag.toString(), "href"));
+
+				if (!closing && !href.isEmpty()) {
+					try {
+						base = new URL(href);
+					} catch (MalformedURLException malformedURLException) {
+						// Keep the page's own URL
+					}
+				}
+				break;
+			case "script":
+			case "style":
+				if (!closing && tag.charAt(tag.length() - 1) != '/') {
+					mode = Mode.RAW;
+					rawEnd = "</" + name;
+					rawMatched = 0;
+				}
+				break;
+			default:
+				if (closing ? !INLINE.contains(name) : CLOSES_PARAGRAPH.contains(name)) {
+					closeParagraph();
+				}
+				break;
+			}
+		}
+
+		private void text(char c) {
+			if (inTitle) {
+				titleState = matcher.next(titleState, c);
+				titleFound |= matcher.output(titleState);
+
+				return;
+			}
+
+			tokenizer.feed(c, sink);
+
+			if (inHeading) {
+				headingState = matcher.next(headingState, c);
+				headingFound |= matcher.output(headingState);
+			}
+
+			if (inParagraph) {
+				paragraphState = matcher.next(paragraphState, c);
+				paragraphFound |= matcher.output(paragraphState);
+			}
+		}
+
+		private void token(char[] buffer, int length, int hash) {
+			if (stopped) {
+				return;
+			}
+
+			words.add(termTable.intern(buffer, length, hash));
+
+			if (words.size() >= maxTokens) {
+				stopped = true;
+			}
+		}
+
+		private void closeHeading() {
+			if (inHeading) {
+				headings += Long.bitCount(headingFound);
+				inHeading = false;
+			}
+		}
+
+		private void closeParagraph() {
+			if (inParagraph) {
+				body += Long.bitCount(paragraphFound);
+				inParagraph = false;
+			}
+		}
+
+		/**
+		 * @return Absolute form of a link, or an empty string if it can't be
+		 *         resolved, like Element.absUrl()
+		 */
+		private String resolve(String href) {
+			if (href == null) {
+				return "";
+			}
+
+			try {
+				return (base == null ? new URL(href.trim()) : new URL(base, href.trim())).toExternalForm();
+			} catch (MalformedURLException malformedURLException) {
+				return "";
+			}
+		}
+
+		private StreamedPage finish(long bytes, boolean truncated) {
+			tokenizer.flush(sink);
+			closeParagraph();
+			closeHeading();
+
+			return new StreamedPage(new PageFeatures(Long.bitCount(titleFound), headings, body, links), words, bytes,
+					truncated);
+		}
+	}
+
+	/**
+	 * @return Decoded value of an attribute in a tag, or null if it isn't there
+	 */
+	private static String attribute(String tag, String name) {
+		int i = 0, length = tag.length();
+
+		// Skip the element name
+		while (i < length && !isSpace(tag.charAt(i)) && tag.charAt(i) != '/') {
+			i++;
+		}
+
+		while (i < length) {
+			while (i < length && (isSpace(tag.charAt(i)) || tag.charAt(i) == '/')) {
+				i++;
+			}
+
+			int start = i;
+
+			while (i < length && !isSpace(tag.charAt(i)) && tag.charAt(i) != '=' && tag.charAt(i) != '/') {
+				i++;
+			}
+
+			String attribute = tag.substring(start, i);
+
+			while (i < length && isSpace(tag.charAt(i))) {
+				i++;
+			}
+
+			String value = "";
+
+			if (i < length && tag.charAt(i) == '=') {
+				i++;
+
+				while (i < length && isSpace(tag.charAt(i))) {
+					i++;
+				}
+
+				if (i < length && (tag.charAt(i) == '"' || tag.charAt(i) == '\'')) {
+					char quote = tag.charAt(i);
+					int valueStart = ++i;
+
+					while (i < length && tag.charAt(i) != quote) {
+						i++;
+					}
+
+					value = tag.substring(valueStart, i++);
+				} else {
+					int valueStart = i;
+
+					while (i < length && !isSpace(tag.charAt(i))) {
+						i++;
+					}
+
+					value = tag.substring(valueStart, i);
+				}
+			}
+
+			if (attribute.equalsIgnoreCase(name)) {
+				return unescape(value);
+			}
+
+			if (i == start) {
+				i++;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Ends the stream after limit bytes, noting whether there was more to read
+	 */
+	private static class LimitedInputStream extends FilterInputStream {
+		private final long limit;
+		private long count;
+		private boolean exceeded;
+
+		private LimitedInputStream(InputStream inputStream, long limit) {
+			super(inputStream);
+			this.limit = limit;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (isFull()) {
+				return -1;
+			}
+
+			int b = super.read();
+
+			if (b != -1) {
+				count++;
+			}
+
+			return b;
+		}
+
+		@Override
+		public int read(byte[] bytes, int offset, int length) throws IOException {
+			if (isFull()) {
+				return -1;
+			}
+
+			int read = super.read(bytes, offset, (int) Math.min(length, limit - count));
+
+			if (read > 0) {
+				count += read;
+			}
+
+			return read;
+		}
+
+		@Override
+		public boolean markSupported() {
+			return false;
+		}
+
+		private boolean isFull() throws IOException {
+			if (count < limit) {
+				return false;
+			}
+
+			if (!exceeded && super.read() != -1) {
+				exceeded = true;
+			}
+
+			return true;
+		}
+	}
+}
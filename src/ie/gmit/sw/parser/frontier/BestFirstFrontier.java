@@ -0,0 +1,59 @@
+package ie.gmit.sw.parser.frontier;
+
+import java.util.PriorityQueue;
+
+import ie.gmit.sw.parser.interfaces.Frontier;
+
+/**
+ * @author Kevin Niland
+ * @category Parser
+ * @version 1.0
+ * 
+ *          BestFirstFrontier - Implementation of Frontier
+ * 
+ *          Expands the page with the highest relevance score first. Pages with
+ *          the same score are expanded in the order they were added
+ */
+public class BestFirstFrontier implements Frontier {
+	private PriorityQueue<Entry> queue = new PriorityQueue<Entry>();
+	private long added = 0;
+
+	@Override
+	public void add(FrontierNode node) {
+		queue.add(new Entry(node, added++));
+	}
+
+	@Override
+	public FrontierNode poll() {
+		Entry entry = queue.poll();
+
+		return entry == null ? null : entry.node;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return queue.isEmpty();
+	}
+
+	@Override
+	public int size() {
+		return queue.size();
+	}
+
+	private static class Entry implements Comparable<Entry> {
+		private final FrontierNode node;
+		private final long order;
+
+		private Entry(FrontierNode node, long order) {
+			this.node = node;
+			this.order = order;
+		}
+
+		@Override
+		public int compareTo(Entry compare) {
+			int result = -Double.compare(node.getScore(), compare.node.getScore());
+
+			return result != 0 ? result : Long.compare(order, compare.order);
+		}
+	}
+}
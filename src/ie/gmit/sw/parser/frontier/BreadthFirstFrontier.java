@@ -0,0 +1,40 @@
+package ie.gmit.sw.parser.frontier;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import ie.gmit.sw.parser.interfaces.Frontier;
+
+/**
+ * @author Kevin Niland
+ * @category Parser
+ * @version 1.0
+ * 
+ *          BreadthFirstFrontier - Implementation of Frontier
+ * 
+ *          Expands pages in the order they were added, so every page at one
+ *          depth is expanded before any page at the next
+ */
+public class BreadthFirstFrontier implements Frontier {
+	private Deque<FrontierNode> queue = new ArrayDeque<FrontierNode>();
+
+	@Override
+	public void add(FrontierNode node) {
+		queue.addLast(node);
+	}
+
+	@Override
+	public FrontierNode poll() {
+		return queue.pollFirst();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return queue.isEmpty();
+	}
+
+	@Override
+	public int size() {
+		return queue.size();
+	}
+}
@@ -0,0 +1,76 @@
+package ie.gmit.sw.parser.frontier;
+
+import java.util.List;
+
+import org.jsoup.nodes.Document;
+
+import ie.gmit.sw.parser.features.PageFeatures;
+
+/**
+ * @author Kevin Niland
+ * @category Parser
+ * @version 1.0
+ * 
+ *          FrontierNode
+ * 
+ *          A fetched page waiting in the frontier, along with its relevance
+ *          score, its depth from the search result it was reached from, and the
+ *          features it was scored on, which include the links to follow from it.
+ *          Pages read by StreamingExtractor have their words instead of a
+ *          Document
+ */
+public class FrontierNode {
+	private Document document;
+	private String url;
+	private double score;
+	private int depth;
+	private PageFeatures features;
+	private List<String> words;
+
+	public FrontierNode(Document document, String url, double score, int depth, PageFeatures features) {
+		this.document = document;
+		this.url = url;
+		this.score = score;
+		this.depth = depth;
+		this.features = features;
+	}
+
+	public FrontierNode(String url, double score, int depth, PageFeatures features, List<String> words) {
+		this(null, url, score, depth, features);
+		this.words = words;
+	}
+
+	/**
+	 * @return Parsed page, or null if it was read by StreamingExtractor
+	 */
+	public Document getDocument() {
+		return this.document;
+	}
+
+	/**
+	 * @return Words of a page read by StreamingExtractor, or null if it was parsed
+	 */
+	public List<String> getWords() {
+		return this.words;
+	}
+
+	public String getUrl() {
+		return this.url;
+	}
+
+	public double getScore() {
+		return this.score;
+	}
+
+	public int getDepth() {
+		return this.depth;
+	}
+
+	public PageFeatures getFeatures() {
+		return this.features;
+	}
+
+	public String toString() {
+		return "URL: " + getUrl() + "\tScore: " + getScore() + "\tDepth: " + getDepth();
+	}
+}
@@ -0,0 +1,31 @@
+package ie.gmit.sw.parser.frontier;
+
+import ie.gmit.sw.parser.interfaces.Frontier;
+
+/**
+ * @author Kevin Niland
+ * @category Parser
+ * @version 1.0
+ * 
+ *          FrontierStrategy
+ * 
+ *          The search strategies NodeParser can use, selected with the FRONTIER
+ *          context-param in web.xml
+ */
+public enum FrontierStrategy {
+	RANDOM, BREADTH_FIRST, BEST_FIRST;
+
+	/**
+	 * @return frontier - A new, empty frontier for this strategy
+	 */
+	public Frontier create() {
+		switch (this) {
+		case RANDOM:
+			return new RandomFrontier();
+		case BREADTH_FIRST:
+			return new BreadthFirstFrontier();
+		default:
+			return new BestFirstFrontier();
+		}
+	}
+}
@@ -0,0 +1,64 @@
+package ie.gmit.sw.parser.frontier;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import ie.gmit.sw.parser.interfaces.Frontier;
+
+/**
+ * @author Kevin Niland
+ * @category Parser
+ * @version 1.0
+ * 
+ *          RandomFrontier - Implementation of Frontier
+ * 
+ *          Expands a page chosen at random. The chosen page is swapped with the
+ *          last page so removing it doesn't shift the rest of the list
+ */
+public class RandomFrontier implements Frontier {
+	private List<FrontierNode> nodes = new ArrayList<FrontierNode>();
+	private Random random;
+
+	public RandomFrontier() {
+		this(new Random());
+	}
+
+	/**
+	 * @param random - Random number generator, seeded to replay a search
+	 */
+	public RandomFrontier(Random random) {
+		this.random = random;
+	}
+
+	@Override
+	public void add(FrontierNode node) {
+		nodes.add(node);
+	}
+
+	@Override
+	public FrontierNode poll() {
+		if (nodes.isEmpty()) {
+			return null;
+		}
+
+		int index = random.nextInt(nodes.size());
+		int last = nodes.size() - 1;
+		FrontierNode node = nodes.get(index);
+
+		nodes.set(index, nodes.get(last));
+		nodes.remove(last);
+
+		return node;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return nodes.isEmpty();
+	}
+
+	@Override
+	public int size() {
+		return nodes.size();
+	}
+}
@@ -0,0 +1,24 @@
+package ie.gmit.sw.parser.interfaces;
+
+import ie.gmit.sw.parser.frontier.FrontierNode;
+
+/**
+ * @author Kevin Niland
+ * @category Parser
+ * @version 1.0
+ * 
+ *          Frontier
+ * 
+ *          Interface for the open list of pages waiting to be expanded by
+ *          NodeParser. The order pages come out of the frontier decides the
+ *          search strategy
+ */
+public interface Frontier {
+	public void add(FrontierNode node);
+
+	public FrontierNode poll();
+
+	public boolean isEmpty();
+
+	public int size();
+}
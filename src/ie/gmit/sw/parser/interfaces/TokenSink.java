@@ -0,0 +1,17 @@
+package ie.gmit.sw.parser.interfaces;
+
+/**
+ * @author Kevin Niland
+ * @category Parser
+ * @version 1.0
+ * 
+ *          TokenSink
+ * 
+ *          Receives the words found by Tokenizer. The buffer is reused for the
+ *          next word, so a sink that keeps a word has to copy it. hash is the
+ *          String.hashCode() of the word, so it can be looked up without
+ *          creating a String
+ */
+public interface TokenSink {
+	public void token(char[] buffer, int length, int hash);
+}
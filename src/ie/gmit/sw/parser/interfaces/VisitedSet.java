@@ -0,0 +1,20 @@
+package ie.gmit.sw.parser.interfaces;
+
+/**
+ * @author Kevin Niland
+ * @category Parser
+ * @version 1.0
+ * 
+ *          VisitedSet
+ * 
+ *          Interface for the set of pages that have already been fetched. One
+ *          set is shared by every NodeParser in a search, so a page found by
+ *          one parser isn't fetched again by another. Implementations may
+ *          report a page as visited when it hasn't been (a false positive),
+ *          but never the other way around
+ */
+public interface VisitedSet {
+	public boolean add(String url);
+
+	public boolean mightContain(String url);
+}
@@ -0,0 +1,112 @@
+package ie.gmit.sw.parser.tokenizer;
+
+/**
+ * @author Kevin Niland
+ * @category Parser
+ * @version 1.0
+ *
+ *          TermTable
+ *
+ *          Turns the words coming out of Tokenizer's buffer into Strings,
+ *          creating each distinct word once and handing back the same String
+ *          every time it is seen again. An open addressing hash table, probed
+ *          with the hash Tokenizer has already worked out, so looking up a word
+ *          doesn't allocate. Once it holds MAX_TERMS words it starts again
+ *          empty, so a long crawl can't make it grow without limit. Not thread
+ *          safe - each parser has its own
+ */
+public class TermTable {
+	private static final int MAX_TERMS = 1 << 16;
+
+	private String[] terms = new String[1024];
+	private int[] hashes = new int[1024];
+	private int size = 0;
+
+	/**
+	 * @param buffer - Characters of the word
+	 * @param length - Number of characters in buffer that make up the word
+	 * @param hash   - String.hashCode() of the word
+	 * @return term - String holding the word
+	 */
+	public String intern(char[] buffer, int length, int hash) {
+		int mask = terms.length - 1;
+		int slot = TokenHash.spread(hash) & mask;
+
+		while (terms[slot] != null) {
+			if (hashes[slot] == hash && matches(terms[slot], buffer, length)) {
+				return terms[slot];
+			}
+
+			slot = (slot + 1) & mask;
+		}
+
+		String term = new String(buffer, 0, length);
+
+		if (size >= MAX_TERMS) {
+			clear();
+		} else if ((size + 1) * 2 > terms.length) {
+			resize();
+		} else {
+			terms[slot] = term;
+			hashes[slot] = hash;
+			size++;
+
+			return term;
+		}
+
+		insert(term, hash);
+		size++;
+
+		return term;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public void clear() {
+		terms = new String[1024];
+		hashes = new int[1024];
+		size = 0;
+	}
+
+	private void resize() {
+		String[] oldTerms = terms;
+		int[] oldHashes = hashes;
+
+		terms = new String[oldTerms.length * 2];
+		hashes = new int[oldTerms.length * 2];
+
+		for (int i = 0; i < oldTerms.length; i++) {
+			if (oldTerms[i] != null) {
+				insert(oldTerms[i], oldHashes[i]);
+			}
+		}
+	}
+
+	private void insert(String term, int hash) {
+		int mask = terms.length - 1;
+		int slot = TokenHash.spread(hash) & mask;
+
+		while (terms[slot] != null) {
+			slot = (slot + 1) & mask;
+		}
+
+		terms[slot] = term;
+		hashes[slot] = hash;
+	}
+
+	private static boolean matches(String term, char[] buffer, int length) {
+		if (term.length() != length) {
+			return false;
+		}
+
+		for (int i = 0; i < length; i++) {
+			if (term.charAt(i) != buffer[i]) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+}
@@ -0,0 +1,32 @@
+package ie.gmit.sw.parser.tokenizer;
+
+/**
+ * @author Kevin Niland
+ * @category Parser
+ * @version 1.0
+ *
+ *          TokenHash
+ *
+ *          Picks slots for the open addressing tables that are probed with the
+ *          String.hashCode() Tokenizer works out for each word - TermTable,
+ *          WordCounts, StopWords and OffHeapCounter - so they all spread words
+ *          the same way
+ */
+public final class TokenHash {
+	private TokenHash() {
+
+	}
+
+	/**
+	 * Mixes the high bits of String.hashCode() into the low ones used to pick a
+	 * slot
+	 *
+	 * @param hash - String.hashCode() of a word
+	 * @return hash - Mixed hash, to be masked to the size of a table
+	 */
+	public static int spread(int hash) {
+		hash *= 0x9E3779B9;
+
+		return hash ^ (hash >>> 16);
+	}
+}
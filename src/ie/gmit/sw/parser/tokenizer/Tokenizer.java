@@ -0,0 +1,151 @@
+package ie.gmit.sw.parser.tokenizer;
+
+import ie.gmit.sw.parser.interfaces.TokenSink;
+
+/**
+ * @author Kevin Niland
+ * @category Parser
+ * @version 1.0
+ *
+ *          Tokenizer
+ *
+ *          Splits text into lower case words in a single pass, without regular
+ *          expressions or creating a String for each word. A word is a run of
+ *          Unicode letters and digits, along with any accents that follow them,
+ *          so words with accents or in non-Latin scripts are kept whole rather
+ *          than being split or dropped as they were by "\\W+", while numbers
+ *          such as "2020" and words such as "mp3" are kept as they were. Each
+ *          word is folded to lower case into a buffer that is reused for the
+ *          next word. Words of one character are dropped. Text can be passed in
+ *          all at once or a character at a time as it is read. Not thread safe
+ *          - each parser has its own
+ */
+public class Tokenizer {
+	private static final int MIN_LENGTH = 2;
+	private static final int MAX_LENGTH = 64;
+
+	private final char[] buffer = new char[MAX_LENGTH + 2];
+	private int length, hash, codePoints;
+	private boolean tooLong;
+	private char highSurrogate;
+
+	/**
+	 * Passes each word in text to sink
+	 *
+	 * @param text - Text to split into words
+	 * @param sink - Receives each word, folded to lower case
+	 */
+	public void tokenize(CharSequence text, TokenSink sink) {
+		for (int i = 0, end = text.length(); i < end; i++) {
+			feed(text.charAt(i), sink);
+		}
+
+		flush(sink);
+	}
+
+	/**
+	 * Adds one character of text that arrives a piece at a time. A word that is
+	 * still going when the piece ends carries on into the next one
+	 *
+	 * @param c    - Next character of the text
+	 * @param sink - Receives each word as it ends
+	 */
+	public void feed(char c, TokenSink sink) {
+		int codePoint = c;
+
+		if (highSurrogate != 0) {
+			char high = highSurrogate;
+
+			highSurrogate = 0;
+
+			if (Character.isLowSurrogate(c)) {
+				codePoint = Character.toCodePoint(high, c);
+			} else {
+				// Unpaired, so it can't be part of a word
+				boundary(sink);
+			}
+		} else if (Character.isHighSurrogate(c)) {
+			highSurrogate = c;
+
+			return;
+		}
+
+		if (isLetterOrDigit(codePoint) || (codePoints > 0 && isMark(codePoint))) {
+			append(codePoint);
+		} else {
+			boundary(sink);
+		}
+	}
+
+	/**
+	 * Ends the word in progress, if there is one. Call at the end of the text
+	 */
+	public void flush(TokenSink sink) {
+		highSurrogate = 0;
+
+		boundary(sink);
+	}
+
+	private void append(int codePoint) {
+		codePoints++;
+
+		if (tooLong) {
+			return;
+		}
+
+		int folded = Character.toLowerCase(codePoint);
+
+		if (length + Character.charCount(folded) > MAX_LENGTH) {
+			// Probably not a word - skip the rest of it
+			tooLong = true;
+
+			return;
+		}
+
+		if (Character.isBmpCodePoint(folded)) {
+			buffer[length++] = (char) folded;
+			hash = 31 * hash + folded;
+		} else {
+			char high = Character.highSurrogate(folded), low = Character.lowSurrogate(folded);
+
+			buffer[length++] = high;
+			buffer[length++] = low;
+			hash = 31 * (31 * hash + high) + low;
+		}
+	}
+
+	private void boundary(TokenSink sink) {
+		if (!tooLong && codePoints >= MIN_LENGTH) {
+			sink.token(buffer, length, hash);
+		}
+
+		length = hash = codePoints = 0;
+		tooLong = false;
+	}
+
+	/**
+	 * Fast path for ASCII, which makes up most of the text on most pages
+	 */
+	private static boolean isLetterOrDigit(int codePoint) {
+		if (codePoint < 128) {
+			return (codePoint >= 'a' && codePoint <= 'z') || (codePoint >= 'A' && codePoint <= 'Z')
+					|| (codePoint >= '0' && codePoint <= '9');
+		}
+
+		return Character.isLetter(codePoint) || Character.isDigit(codePoint);
+	}
+
+	/**
+	 * Combining accents, as used by decomposed text and many non-Latin scripts
+	 */
+	private static boolean isMark(int codePoint) {
+		if (codePoint < 128) {
+			return false;
+		}
+
+		int type = Character.getType(codePoint);
+
+		return type == Character.NON_SPACING_MARK || type == Character.COMBINING_SPACING_MARK
+				|| type == Character.ENCLOSING_MARK;
+	}
+}
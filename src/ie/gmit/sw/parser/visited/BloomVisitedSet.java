@@ -0,0 +1,138 @@
+package ie.gmit.sw.parser.visited;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import ie.gmit.sw.parser.interfaces.VisitedSet;
+
+/**
+ * @author Kevin Niland
+ * @category Parser
+ * @version 1.0
+ *
+ *          BloomVisitedSet - Implementation of VisitedSet
+ *
+ *          A Bloom filter sized up front from the number of URLs expected and
+ *          the false positive rate that can be tolerated, so its memory use
+ *          doesn't grow with the crawl. Bits are set with compare-and-set, so
+ *          the parser threads of a search can share one filter without locking
+ */
+public class BloomVisitedSet implements VisitedSet {
+	private static final double LN2 = Math.log(2);
+
+	private final AtomicLongArray bits;
+	private final long numBits;
+	private final int numHashes;
+
+	/**
+	 * @param expected          - Number of URLs the filter is sized for
+	 * @param falsePositiveRate - Chance of a URL that hasn't been added being
+	 *                          reported as visited once expected URLs have been
+	 *                          added
+	 */
+	public BloomVisitedSet(int expected, double falsePositiveRate) {
+		long m = (long) Math.ceil(-Math.max(1, expected) * Math.log(falsePositiveRate) / (LN2 * LN2));
+		int words = (int) Math.min(Integer.MAX_VALUE, Math.max(1, (m + 63) / 64));
+
+		this.bits = new AtomicLongArray(words);
+		this.numBits = words * 64L;
+		this.numHashes = Math.max(1, (int) Math.round((double) numBits / Math.max(1, expected) * LN2));
+	}
+
+	/**
+	 * Marks a URL as visited
+	 *
+	 * @param url - Canonical URL
+	 * @return true if the URL wasn't already in the filter
+	 */
+	@Override
+	public boolean add(String url) {
+		long hash1 = hash(url);
+		long hash2 = mix(hash1) | 1;
+		boolean added = false;
+
+		for (int i = 0; i < numHashes; i++) {
+			added |= set(index(hash1, hash2, i));
+		}
+
+		return added;
+	}
+
+	@Override
+	public boolean mightContain(String url) {
+		long hash1 = hash(url);
+		long hash2 = mix(hash1) | 1;
+
+		for (int i = 0; i < numHashes; i++) {
+			long index = index(hash1, hash2, i);
+
+			if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * @return Size of the filter in bytes
+	 */
+	public long getSizeInBytes() {
+		return numBits / 8;
+	}
+
+	/**
+	 * Double hashing - the i-th bit is hash1 + i * hash2, so each URL is only
+	 * hashed once however many bits it sets
+	 */
+	private long index(long hash1, long hash2, int i) {
+		return ((hash1 + i * hash2) & Long.MAX_VALUE) % numBits;
+	}
+
+	/**
+	 * Sets a bit, returning false if it was already set
+	 */
+	private boolean set(long index) {
+		int word = (int) (index >>> 6);
+		long mask = 1L << index;
+
+		while (true) {
+			long current = bits.get(word);
+
+			if ((current & mask) != 0) {
+				return false;
+			}
+
+			if (bits.compareAndSet(word, current, current | mask)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * 64-bit FNV-1a over the characters of the URL, finished with mix() so every
+	 * bit depends on every character
+	 */
+	private static long hash(String url) {
+		long hash = 0xcbf29ce484222325L;
+
+		for (int i = 0; i < url.length(); i++) {
+			hash ^= url.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+
+		return mix(hash);
+	}
+
+	/**
+	 * MurmurHash3 64-bit finaliser
+	 */
+	private static long mix(long hash) {
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+
+		return hash;
+	}
+}
@@ -0,0 +1,76 @@
+package ie.gmit.sw.parser.visited;
+
+import ie.gmit.sw.parser.interfaces.VisitedSet;
+
+/**
+ * @author Kevin Niland
+ * @category Parser
+ * @version 1.0
+ *
+ *          WindowedVisitedSet - Implementation of VisitedSet
+ *
+ *          Remembers URLs across searches for a limited time. URLs go into the
+ *          current Bloom filter and are looked up in both the current and the
+ *          previous one. Once a window has passed the previous filter is
+ *          dropped and the current one takes its place, so a URL is forgotten
+ *          between one and two windows after it was last added, and memory stays
+ *          fixed at two filters
+ */
+public class WindowedVisitedSet implements VisitedSet {
+	private final int expected;
+	private final double falsePositiveRate;
+	private final long window;
+
+	private volatile BloomVisitedSet current, previous;
+	private volatile long started;
+
+	/**
+	 * @param expected          - Number of URLs each window's filter is sized for
+	 * @param falsePositiveRate - False positive rate of each window's filter
+	 * @param window            - Length of a window in milliseconds
+	 */
+	public WindowedVisitedSet(int expected, double falsePositiveRate, long window) {
+		this.expected = expected;
+		this.falsePositiveRate = falsePositiveRate;
+		this.window = window;
+		this.current = new BloomVisitedSet(expected, falsePositiveRate);
+		this.previous = new BloomVisitedSet(expected, falsePositiveRate);
+		this.started = System.currentTimeMillis();
+	}
+
+	@Override
+	public boolean add(String url) {
+		rotateIfExpired();
+
+		boolean seen = previous.mightContain(url);
+
+		// Always added to the current window, so a URL that keeps being found stays
+		// visited
+		return current.add(url) && !seen;
+	}
+
+	@Override
+	public boolean mightContain(String url) {
+		rotateIfExpired();
+
+		return current.mightContain(url) || previous.mightContain(url);
+	}
+
+	private void rotateIfExpired() {
+		if (System.currentTimeMillis() - started < window) {
+			return;
+		}
+
+		synchronized (this) {
+			long now = System.currentTimeMillis();
+
+			if (now - started < window) {
+				return;
+			}
+
+			previous = current;
+			current = new BloomVisitedSet(expected, falsePositiveRate);
+			started = now;
+		}
+	}
+}
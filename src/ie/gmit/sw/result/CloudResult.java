@@ -0,0 +1,118 @@
+package ie.gmit.sw.result;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import ie.gmit.sw.ai.cloud.CloudLayout;
+import ie.gmit.sw.ai.cloud.PlacedWord;
+import ie.gmit.sw.ai.cloud.PlacementReport;
+import ie.gmit.sw.ai.cloud.WordFrequency;
+
+/**
+ * @author Kevin Niland
+ * @category Result
+ * @version 1.0
+ *
+ *          CloudResult
+ *
+ *          Everything a search produced - the words it counted, the cloud laid
+ *          out from them and what the placer had to do to fit them, under the
+ *          ID the results page links to it by. Never changes once stored, so
+ *          the ID is also what browsers cache it under. The PNG is encoded the
+ *          first time it is asked for and kept, so a cloud served from
+ *          ResultCache isn't drawn again
+ */
+public class CloudResult {
+	private static final int WORD_BYTES = 120; // Rough heap taken by a placed word
+
+	private final String id;
+	private final CloudLayout layout;
+	private final WordFrequency[] words;
+	private final PlacementReport report;
+	private final long created;
+	private volatile Png png;
+
+	CloudResult(String id, CloudLayout layout, WordFrequency[] words, PlacementReport report) {
+		this.id = id;
+		this.layout = layout;
+		this.words = words;
+		this.report = report;
+		this.created = System.currentTimeMillis();
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public CloudLayout getLayout() {
+		return layout;
+	}
+
+	/**
+	 * @return The words the search counted, with their font sizes, largest first
+	 */
+	public WordFrequency[] getWords() {
+		return words;
+	}
+
+	public PlacementReport getReport() {
+		return report;
+	}
+
+	/**
+	 * @return Time the cloud was stored, in milliseconds since the epoch
+	 */
+	public long getCreated() {
+		return created;
+	}
+
+	/**
+	 * @param level - Deflate level, 0 to 9
+	 * @return The cloud as a PNG, encoded at that level
+	 * @throws IOException
+	 */
+	public byte[] png(int level) throws IOException {
+		Png png = this.png;
+
+		if (png == null || png.level != level) {
+			ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+
+			PngWriter.write(layout.toImage(), byteArrayOutputStream, level);
+			png = new Png(level, byteArrayOutputStream.toByteArray());
+			this.png = png;
+		}
+
+		return png.bytes;
+	}
+
+	/**
+	 * @return Rough number of bytes of heap the result takes up, including its
+	 *         PNG once encoded
+	 */
+	public long getBytes() {
+		long bytes = 64;
+
+		for (PlacedWord word : layout.getWords()) {
+			bytes += WORD_BYTES + word.getWord().length() * 2;
+		}
+
+		bytes += (long) words.length * 64;
+
+		Png png = this.png;
+
+		return png == null ? bytes : bytes + png.bytes.length;
+	}
+
+	/**
+	 * A PNG and the level it was encoded at
+	 */
+	private static final class Png {
+		private final int level;
+		private final byte[] bytes;
+
+		private Png(int level, byte[] bytes) {
+			this.level = level;
+			this.bytes = bytes;
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package ie.gmit.sw.result;
+
+import java.io.PrintWriter;
+
+/**
+ * @author Kevin Niland
+ * @category Result
+ * @version 1.0
+ *
+ *          EventStream
+ *
+ *          Writes Server-Sent Events to a response, flushing each one so the
+ *          browser's EventSource sees it straight away. Once the browser goes
+ *          away every further event is dropped, so a search carries on to fill
+ *          the cache without writing to a closed connection
+ */
+public class EventStream {
+	private final PrintWriter printWriter;
+	private boolean closed;
+	private int sent;
+
+	/**
+	 * @param printWriter - Writer of a text/event-stream response
+	 */
+	public EventStream(PrintWriter printWriter) {
+		this.printWriter = printWriter;
+	}
+
+	/**
+	 * @param event - Name of the event
+	 * @param data  - Data of the event. Each line is sent as its own data field
+	 * @return true if the event was sent, false if the browser has gone away
+	 */
+	public synchronized boolean send(String event, String data) {
+		if (closed) {
+			return false;
+		}
+
+		printWriter.print("event: " + event + "\n");
+
+		for (String line : data.split("\n", -1)) {
+			printWriter.print("data: " + line + "\n");
+		}
+
+		printWriter.print("\n");
+
+		// Flushes the event to the browser, and is true once the connection has failed
+		closed = printWriter.checkError();
+
+		if (!closed) {
+			sent++;
+		}
+
+		return !closed;
+	}
+
+	/**
+	 * @return true once an event couldn't be sent
+	 */
+	public synchronized boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * @return Number of events sent
+	 */
+	public synchronized int getSent() {
+		return sent;
+	}
+}
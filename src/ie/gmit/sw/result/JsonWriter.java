@@ -0,0 +1,85 @@
+package ie.gmit.sw.result;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import ie.gmit.sw.ai.cloud.CloudLayout;
+import ie.gmit.sw.ai.cloud.PlacedWord;
+
+/**
+ * @author Kevin Niland
+ * @category Result
+ * @version 1.0
+ *
+ *          JsonWriter
+ *
+ *          Writes a cloud as compact JSON, for dashboards that draw the words
+ *          themselves:
+ *
+ *          {"width":800,"height":600,"words":[{"word":"...","size":42,
+ *          "style":0,"color":"#rrggbb","x":..,"y":..,"width":..,"height":..,
+ *          "baseline":..,"rotated":false},...]}
+ *
+ *          x and y are the top left of the rectangle the word takes up, and
+ *          words are listed largest first
+ */
+public class JsonWriter {
+	private JsonWriter() {
+
+	}
+
+	/**
+	 * @param layout       - Cloud to write
+	 * @param outputStream - Stream to write it to. Not closed
+	 * @throws IOException
+	 */
+	public static void write(CloudLayout layout, OutputStream outputStream) throws IOException {
+		Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+		boolean first = true;
+
+		writer.write("{\"width\":" + layout.getWidth() + ",\"height\":" + layout.getHeight() + ",\"words\":[");
+
+		for (PlacedWord word : layout.getWords()) {
+			if (!first) {
+				writer.write(',');
+			}
+
+			first = false;
+			writer.write("{\"word\":");
+			string(writer, word.getWord());
+			writer.write(",\"size\":" + word.getFontSize() + ",\"style\":" + word.getFontStyle() + ",\"color\":\""
+					+ String.format("#%06x", word.getColor()) + "\",\"x\":" + word.getX() + ",\"y\":" + word.getY()
+					+ ",\"width\":" + word.getWidth() + ",\"height\":" + word.getHeight() + ",\"baseline\":"
+					+ word.getBaseline() + ",\"rotated\":" + word.isRotated() + "}");
+		}
+
+		writer.write("]}");
+		writer.flush();
+	}
+
+	/**
+	 * Writes text as a quoted JSON string
+	 */
+	static void string(Writer writer, String text) throws IOException {
+		writer.write('"');
+
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+
+			if (c == '"' || c == '\\') {
+				writer.write('\\');
+				writer.write(c);
+			} else if (c < 0x20) {
+				writer.write(String.format("\\u%04x", (int) c));
+			} else {
+				writer.write(c);
+			}
+		}
+
+		writer.write('"');
+	}
+}
@@ -0,0 +1,72 @@
+package ie.gmit.sw.result;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import ie.gmit.sw.ai.cloud.CloudLayout;
+
+/**
+ * @author Kevin Niland
+ * @category Result
+ * @version 1.0
+ * 
+ *          LayoutFormat
+ * 
+ *          The ways a cloud can be sent, selected with the format parameter of
+ *          a search or the extension of a /cloud/{id} URL. PNG draws the cloud,
+ *          SVG and JSON write out where the words are without drawing anything
+ */
+public enum LayoutFormat {
+	PNG, SVG, JSON;
+
+	/**
+	 * @param name - png, svg or json, in any case
+	 * @return format - The format with that name, or null if there isn't one
+	 */
+	public static LayoutFormat forName(String name) {
+		for (LayoutFormat layoutFormat : values()) {
+			if (layoutFormat.name().equalsIgnoreCase(name)) {
+				return layoutFormat;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * @return extension - Extension of the format's URLs, without the dot
+	 */
+	public String getExtension() {
+		return name().toLowerCase();
+	}
+
+	public String getContentType() {
+		switch (this) {
+		case SVG:
+			return "image/svg+xml; charset=UTF-8";
+		case JSON:
+			return "application/json; charset=UTF-8";
+		default:
+			return "image/png";
+		}
+	}
+
+	/**
+	 * @param layout       - Cloud to write
+	 * @param outputStream - Stream to write it to. Not closed
+	 * @param deflateLevel - Deflate level of a PNG, 0 to 9
+	 * @throws IOException
+	 */
+	public void write(CloudLayout layout, OutputStream outputStream, int deflateLevel) throws IOException {
+		switch (this) {
+		case SVG:
+			SvgWriter.write(layout, outputStream);
+			break;
+		case JSON:
+			JsonWriter.write(layout, outputStream);
+			break;
+		default:
+			PngWriter.write(layout.toImage(), outputStream, deflateLevel);
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package ie.gmit.sw.result;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+
+/**
+ * @author Kevin Niland
+ * @category Result
+ * @version 1.0
+ *
+ *          PngWriter
+ *
+ *          Encodes an image as a PNG straight to a stream, at a chosen deflate
+ *          level. Level 0 stores the pixels uncompressed, 9 is the smallest and
+ *          slowest, and 4 is what ImageIO.write() uses
+ */
+public class PngWriter {
+	public static final int DEFAULT_LEVEL = 4;
+
+	private PngWriter() {
+
+	}
+
+	/**
+	 * @param image        - Image to encode
+	 * @param outputStream - Stream to write it to. Not closed
+	 * @param level        - Deflate level, 0 to 9
+	 * @throws IOException
+	 */
+	public static void write(BufferedImage image, OutputStream outputStream, int level) throws IOException {
+		ImageWriter imageWriter = ImageIO.getImageWritersByFormatName("png").next();
+		ImageWriteParam imageWriteParam = imageWriter.getDefaultWriteParam();
+
+		// The PNG writer deflates at level 9 * (1 - quality)
+		imageWriteParam.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+		imageWriteParam.setCompressionQuality(1f - Math.max(0, Math.min(9, level)) / 9f);
+
+		// Only the chunk being written is held in memory, not the whole file
+		try (ImageOutputStream imageOutputStream = new MemoryCacheImageOutputStream(outputStream)) {
+			imageWriter.setOutput(imageOutputStream);
+			imageWriter.write(null, new IIOImage(image, null, null), imageWriteParam);
+		} finally {
+			imageWriter.dispose();
+		}
+	}
+}
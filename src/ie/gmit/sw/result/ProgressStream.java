@@ -0,0 +1,187 @@
+package ie.gmit.sw.result;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Supplier;
+
+import ie.gmit.sw.ai.cloud.LogarithmicSpiralPlacer;
+import ie.gmit.sw.ai.cloud.WeightedFont;
+import ie.gmit.sw.ai.cloud.WordFrequency;
+import ie.gmit.sw.database.RealDatabase;
+import ie.gmit.sw.database.interfaces.CountListener;
+
+/**
+ * @author Kevin Niland
+ * @category Result
+ * @version 1.0
+ *
+ *          ProgressStream
+ *
+ *          Streams a search to the browser while it crawls. Each time a page's
+ *          words are merged the search's database tells it, and at most once
+ *          an interval it sends the most frequent words so far as a words
+ *          event:
+ *
+ *          {"pages":12,"elapsed":340,"words":[{"word":"...","count":9},...]}
+ *
+ *          With a placer supplier it also lays those words out and sends the
+ *          layout, in the same JSON CloudHandler serves, as a layout event.
+ *          Once the search is done, the final words are sent, then a done
+ *          event with the ID and address of the finished cloud:
+ *
+ *          {"id":"...","src":"cloud/....png","pages":57,"elapsed":4210,
+ *          "updates":14}
+ *
+ *          or an error event with a message if it failed
+ */
+public class ProgressStream implements CountListener {
+	private final EventStream events;
+	private final int words;
+	private final Supplier<LogarithmicSpiralPlacer> placers;
+	private final Throttle throttle;
+	private final long start = System.currentTimeMillis();
+	private volatile RealDatabase database;
+
+	/**
+	 * @param events    - Stream to send the events to
+	 * @param scheduler - Runs the updates, off the parsers' threads
+	 * @param interval  - Least milliseconds between two updates
+	 * @param words     - Number of words in the cloud
+	 * @param placers   - New placers to lay out each update with, or null to
+	 *                  only send the words
+	 */
+	public ProgressStream(EventStream events, ScheduledExecutorService scheduler, long interval, int words,
+			Supplier<LogarithmicSpiralPlacer> placers) {
+		this.events = events;
+		this.words = words;
+		this.placers = placers;
+		this.throttle = new Throttle(scheduler, interval, this::update);
+	}
+
+	/**
+	 * Called by the parsers after every page, so only signals the throttle
+	 */
+	@Override
+	public void counted(RealDatabase database) {
+		this.database = database;
+		throttle.signal();
+	}
+
+	/**
+	 * Stops the updates and sends the finished cloud
+	 *
+	 * @param result - Cloud the search produced, or found in the cache
+	 * @param format - Format the cloud is linked to in
+	 */
+	public void finish(CloudResult result, LayoutFormat format) {
+		throttle.close();
+
+		RealDatabase database = this.database;
+		int pages = database == null ? 0 : database.getPages();
+
+		events.send("words", words(pages, result.getWords()));
+		events.send("done", "{\"id\":" + json(result.getId()) + ",\"src\":"
+				+ json("cloud/" + result.getId() + "." + format.getExtension()) + ",\"pages\":" + pages
+				+ ",\"elapsed\":" + (System.currentTimeMillis() - start) + ",\"updates\":" + throttle.getRuns() + "}");
+	}
+
+	/**
+	 * Stops the updates and sends an error instead of a cloud
+	 *
+	 * @param message - Why the search failed
+	 */
+	public void fail(String message) {
+		throttle.close();
+		events.send("error", "{\"message\":" + json(String.valueOf(message)) + "}");
+	}
+
+	/**
+	 * @return Number of updates sent while the search ran
+	 */
+	public long getUpdates() {
+		return throttle.getRuns();
+	}
+
+	/**
+	 * @return Number of pages that could have sent an update
+	 */
+	public long getSignals() {
+		return throttle.getSignals();
+	}
+
+	/**
+	 * Sends the words counted so far, and their layout if asked to
+	 */
+	private void update() {
+		RealDatabase database = this.database;
+
+		if (database == null || events.isClosed()) {
+			return;
+		}
+
+		WordFrequency[] topWords = database.getWordFrequency(words);
+
+		if (topWords.length == 0) {
+			return;
+		}
+
+		events.send("words", words(database.getPages(), topWords));
+
+		if (placers != null) {
+			// Placed as ServiceHandler places the finished cloud, largest first
+			new WeightedFont().getFontSizes(topWords);
+			Arrays.sort(topWords, Comparator.comparing(WordFrequency::getFrequency, Comparator.reverseOrder()));
+
+			LogarithmicSpiralPlacer logarithmicSpiralPlacer = placers.get();
+
+			for (WordFrequency word : topWords) {
+				logarithmicSpiralPlacer.place(word);
+			}
+
+			ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+
+			try {
+				JsonWriter.write(logarithmicSpiralPlacer.getLayout(), byteArrayOutputStream);
+			} catch (IOException ioException) {
+				throw new UncheckedIOException(ioException);
+			}
+
+			events.send("layout", new String(byteArrayOutputStream.toByteArray(), StandardCharsets.UTF_8));
+		}
+	}
+
+	private String words(int pages, WordFrequency[] topWords) {
+		StringWriter writer = new StringWriter();
+
+		writer.write("{\"pages\":" + pages + ",\"elapsed\":" + (System.currentTimeMillis() - start) + ",\"words\":[");
+
+		for (int i = 0; i < topWords.length; i++) {
+			writer.write(i == 0 ? "{\"word\":" : ",{\"word\":");
+			writer.write(json(topWords[i].getWord()));
+			writer.write(",\"count\":" + topWords[i].getFrequency() + "}");
+		}
+
+		writer.write("]}");
+
+		return writer.toString();
+	}
+
+	private static String json(String text) {
+		StringWriter writer = new StringWriter();
+
+		try {
+			JsonWriter.string(writer, text);
+		} catch (IOException ioException) {
+			// Never thrown by a StringWriter
+			throw new UncheckedIOException(ioException);
+		}
+
+		return writer.toString();
+	}
+}
@@ -0,0 +1,260 @@
+package ie.gmit.sw.result;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author Kevin Niland
+ * @category Result
+ * @version 1.0
+ *
+ *          ResultCache
+ *
+ *          Finished clouds, keyed by search engine, normalised query and the
+ *          number of words asked for, so a search that is repeated is answered
+ *          without crawling, counting or laying anything out again. A cloud is
+ *          served for ttl milliseconds after its search finished. With
+ *          staleFor set, it is served for that much longer while a new search
+ *          runs in the background to replace it, so only the first search for
+ *          a query ever waits. Searches for the same key at the same time
+ *          share one crawl. Once the clouds take up more than maxBytes, the
+ *          least recently used are removed until they fit
+ */
+public class ResultCache {
+	private final LinkedHashMap<String, CloudResult> results = new LinkedHashMap<String, CloudResult>(16, 0.75f,
+			true);
+	private final Map<String, CompletableFuture<CloudResult>> searching =
+			new ConcurrentHashMap<String, CompletableFuture<CloudResult>>();
+	private final AtomicLong hits = new AtomicLong(), staleHits = new AtomicLong(), misses = new AtomicLong(),
+			refreshes = new AtomicLong(), evictions = new AtomicLong();
+	private final Executor refresher;
+	private final long maxBytes, ttl, staleFor;
+	private long size;
+
+	/**
+	 * @param maxBytes  - Most bytes of clouds kept, roughly
+	 * @param ttl       - Milliseconds a cloud is served for after its search
+	 *                  finished
+	 * @param staleFor  - Milliseconds after ttl a cloud is still served while it
+	 *                  is searched for again in the background. 0 searches again
+	 *                  before answering
+	 * @param refresher - Runs the background searches
+	 */
+	public ResultCache(long maxBytes, long ttl, long staleFor, Executor refresher) {
+		this.maxBytes = maxBytes;
+		this.ttl = ttl;
+		this.staleFor = staleFor;
+		this.refresher = refresher;
+	}
+
+	/**
+	 * @param engine - Search engine option
+	 * @param query  - Query as it was typed
+	 * @param words  - Number of words in the cloud
+	 * @return key - The same for queries that differ only in case and spacing
+	 */
+	public static String key(String engine, String query, int words) {
+		return engine + "\n" + words + "\n" + query.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * @param key    - Key from key()
+	 * @param search - Runs the search if there is no cloud to serve
+	 * @return result - A cached cloud if there is one young enough, otherwise
+	 *         the result of search
+	 * @throws IOException if the search fails
+	 */
+	public CloudResult get(String key, Search search) throws IOException {
+		CloudResult result;
+
+		synchronized (results) {
+			result = results.get(key);
+		}
+
+		if (result != null) {
+			long age = System.currentTimeMillis() - result.getCreated();
+
+			if (age < ttl) {
+				hits.incrementAndGet();
+
+				return result;
+			}
+
+			if (age < ttl + staleFor) {
+				staleHits.incrementAndGet();
+				refresh(key, search);
+
+				return result;
+			}
+		}
+
+		misses.incrementAndGet();
+
+		try {
+			return search(key, search).join();
+		} catch (CompletionException completionException) {
+			if (completionException.getCause() instanceof IOException) {
+				throw (IOException) completionException.getCause();
+			}
+
+			throw completionException;
+		}
+	}
+
+	/**
+	 * @return Fraction of lookups answered from the cache, fresh or stale
+	 */
+	public double getHitRate() {
+		long served = hits.get() + staleHits.get();
+
+		return served + misses.get() == 0 ? 0 : (double) served / (served + misses.get());
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * @return Number of lookups answered with a stale cloud while it was searched
+	 *         for again
+	 */
+	public long getStaleHits() {
+		return staleHits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * @return Number of background searches started
+	 */
+	public long getRefreshes() {
+		return refreshes.get();
+	}
+
+	public long getEvictions() {
+		return evictions.get();
+	}
+
+	/**
+	 * @return Number of clouds kept
+	 */
+	public int getEntries() {
+		synchronized (results) {
+			return results.size();
+		}
+	}
+
+	/**
+	 * @return Rough number of bytes the clouds take up
+	 */
+	public long getSize() {
+		synchronized (results) {
+			return size;
+		}
+	}
+
+	public String toString() {
+		return String.format(
+				"Result cache: %.1f%% hits (%d fresh, %d stale, %d misses, %d refreshed), %d clouds in %,d bytes",
+				getHitRate() * 100, getHits(), getStaleHits(), getMisses(), getRefreshes(), getEntries(), getSize());
+	}
+
+	/**
+	 * Starts a background search for key, unless one is already running
+	 */
+	private void refresh(String key, Search search) {
+		CompletableFuture<CloudResult> future = new CompletableFuture<CloudResult>();
+
+		if (searching.putIfAbsent(key, future) != null) {
+			return;
+		}
+
+		refreshes.incrementAndGet();
+		future.exceptionally(throwable -> {
+			// Keep serving the stale cloud
+			throwable.printStackTrace();
+
+			return null;
+		});
+		refresher.execute(() -> run(key, search, future));
+	}
+
+	/**
+	 * Runs a search for key, or joins the one already running
+	 */
+	private CompletableFuture<CloudResult> search(String key, Search search) {
+		CompletableFuture<CloudResult> future = new CompletableFuture<CloudResult>();
+		CompletableFuture<CloudResult> running = searching.putIfAbsent(key, future);
+
+		if (running != null) {
+			return running;
+		}
+
+		run(key, search, future);
+
+		return future;
+	}
+
+	/**
+	 * Runs a search, stores its cloud and completes future with it
+	 */
+	private void run(String key, Search search, CompletableFuture<CloudResult> future) {
+		try {
+			CloudResult result = search.run();
+
+			store(key, result);
+			future.complete(result);
+		} catch (IOException | RuntimeException exception) {
+			future.completeExceptionally(exception);
+		} finally {
+			searching.remove(key, future);
+		}
+	}
+
+	private void store(String key, CloudResult result) {
+		long now = System.currentTimeMillis();
+
+		synchronized (results) {
+			results.put(key, result);
+
+			// Re-read every size, as clouds grow when their PNG is first encoded, and drop expired clouds
+			size = 0;
+
+			for (Iterator<CloudResult> iterator = results.values().iterator(); iterator.hasNext();) {
+				CloudResult cached = iterator.next();
+
+				if (now - cached.getCreated() >= ttl + staleFor) {
+					iterator.remove();
+					evictions.incrementAndGet();
+				} else {
+					size += cached.getBytes();
+				}
+			}
+
+			Iterator<CloudResult> iterator = results.values().iterator();
+
+			while (size > maxBytes && results.size() > 1) {
+				size -= iterator.next().getBytes();
+				iterator.remove();
+				evictions.incrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * Runs a search, as ServiceHandler does
+	 */
+	public interface Search {
+		CloudResult run() throws IOException;
+	}
+}
@@ -0,0 +1,111 @@
+package ie.gmit.sw.result;
+
+import java.util.LinkedHashMap;
+import java.util.UUID;
+
+import ie.gmit.sw.ai.cloud.CloudLayout;
+import ie.gmit.sw.ai.cloud.PlacementReport;
+import ie.gmit.sw.ai.cloud.WordFrequency;
+
+/**
+ * @author Kevin Niland
+ * @category Result
+ * @version 1.0
+ *
+ *          ResultStore
+ *
+ *          Clouds laid out by ServiceHandler, kept until CloudHandler has served
+ *          them. The results page only holds an ID, and the cloud is fetched
+ *          from CloudHandler separately, so it is written once, straight to the
+ *          response, instead of being base64 encoded into the page. At most
+ *          capacity clouds are kept, and the least recently viewed are removed
+ *          first. IDs are random, so one search can't guess another's
+ */
+public class ResultStore {
+	private static ResultStore resultStore;
+
+	private final LinkedHashMap<String, CloudResult> results = new LinkedHashMap<String, CloudResult>(16, 0.75f,
+			true);
+	private int capacity = 256;
+
+	// Singleton design pattern - Double-checked locking principle
+	private ResultStore() {
+
+	}
+
+	public static ResultStore getInstance() {
+		if (resultStore == null) {
+			synchronized (ResultStore.class) {
+				if (resultStore == null) {
+					resultStore = new ResultStore();
+				}
+			}
+		}
+
+		return resultStore;
+	}
+
+	/**
+	 * Stores a cloud under a new ID
+	 *
+	 * @param layout - Cloud to store. No more words must be placed in it
+	 * @param words  - Words the cloud was laid out from
+	 * @param report - What the placer had to do to fit them
+	 * @return result - The cloud and its ID
+	 */
+	public CloudResult put(CloudLayout layout, WordFrequency[] words, PlacementReport report) {
+		CloudResult result = new CloudResult(UUID.randomUUID().toString().replace("-", ""), layout, words, report);
+
+		keep(result);
+
+		return result;
+	}
+
+	/**
+	 * Stores a cloud again under its own ID, so a cloud served from ResultCache
+	 * can be fetched even if it was removed from here
+	 */
+	public void keep(CloudResult result) {
+		synchronized (results) {
+			results.put(result.getId(), result);
+			trim();
+		}
+	}
+
+	/**
+	 * @param id - ID from put()
+	 * @return result - The cloud, or null if there is no cloud with that ID or it
+	 *         has been removed
+	 */
+	public CloudResult get(String id) {
+		synchronized (results) {
+			return results.get(id);
+		}
+	}
+
+	/**
+	 * @param capacity - Most clouds kept. Each keeps where its words are, a few
+	 *                 KB, and once it has been sent, its encoded PNG as well
+	 */
+	public void setCapacity(int capacity) {
+		synchronized (results) {
+			this.capacity = Math.max(1, capacity);
+			trim();
+		}
+	}
+
+	/**
+	 * @return Number of clouds kept
+	 */
+	public int getSize() {
+		synchronized (results) {
+			return results.size();
+		}
+	}
+
+	private void trim() {
+		while (results.size() > capacity) {
+			results.remove(results.keySet().iterator().next());
+		}
+	}
+}
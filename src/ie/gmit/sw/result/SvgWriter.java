@@ -0,0 +1,95 @@
+package ie.gmit.sw.result;
+
+import java.awt.Font;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import ie.gmit.sw.ai.cloud.CloudLayout;
+import ie.gmit.sw.ai.cloud.PlacedWord;
+
+/**
+ * @author Kevin Niland
+ * @category Result
+ * @version 1.0
+ *
+ *          SvgWriter
+ *
+ *          Writes a cloud as SVG, each word a text element on its baseline, so
+ *          it stays sharp at any size and nothing is rasterised to send it
+ */
+public class SvgWriter {
+	private SvgWriter() {
+
+	}
+
+	/**
+	 * @param layout       - Cloud to write
+	 * @param outputStream - Stream to write it to. Not closed
+	 * @throws IOException
+	 */
+	public static void write(CloudLayout layout, OutputStream outputStream) throws IOException {
+		Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+
+		writer.write("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"" + layout.getWidth() + "\" height=\""
+				+ layout.getHeight() + "\" viewBox=\"0 0 " + layout.getWidth() + " " + layout.getHeight() + "\">\n");
+		writer.write("<rect width=\"100%\" height=\"100%\" fill=\"#000000\"/>\n");
+
+		for (PlacedWord word : layout.getWords()) {
+			writer.write("<text");
+
+			// Drawn the same way CloudLayout draws the word on the image
+			if (word.isRotated()) {
+				writer.write(" transform=\"translate(" + (word.getX() + word.getBaseline()) + " "
+						+ (word.getY() + word.getHeight()) + ") rotate(-90)\"");
+			} else {
+				writer.write(" x=\"" + word.getX() + "\" y=\"" + (word.getY() + word.getBaseline()) + "\"");
+			}
+
+			writer.write(" font-family=\"");
+			escape(writer, word.getFontName());
+			writer.write(", sans-serif\" font-size=\"" + word.getFontSize() + "\"");
+
+			if ((word.getFontStyle() & Font.BOLD) != 0) {
+				writer.write(" font-weight=\"bold\"");
+			}
+
+			if ((word.getFontStyle() & Font.ITALIC) != 0) {
+				writer.write(" font-style=\"italic\"");
+			}
+
+			writer.write(" fill=\"" + String.format("#%06x", word.getColor()) + "\">");
+			escape(writer, word.getWord());
+			writer.write("</text>\n");
+		}
+
+		writer.write("</svg>\n");
+		writer.flush();
+	}
+
+	private static void escape(Writer writer, String text) throws IOException {
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+
+			switch (c) {
+			case '&':
+				writer.write("&amp;");
+				break;
+			case '<':
+				writer.write("&lt;");
+				break;
+			case '>':
+				writer.write("&gt;");
+				break;
+			case '"':
+				writer.write("&quot;");
+				break;
+			default:
+				writer.write(c);
+			}
+		}
+	}
+}
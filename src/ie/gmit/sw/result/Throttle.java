@@ -0,0 +1,128 @@
+package ie.gmit.sw.result;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author Kevin Niland
+ * @category Result
+ * @version 1.0
+ *
+ *          Throttle
+ *
+ *          Coalesces signals into runs of an action, with at least an
+ *          interval between the end of one run and the start of the next, so
+ *          however long the action takes no two of its updates arrive less
+ *          than an interval apart. The first signal after a quiet interval
+ *          runs the action straight away, and any signals during the run or
+ *          the interval after it are folded into one run at its end, so the
+ *          last change is never left unsent. The action runs on the
+ *          scheduler, never on the thread that signalled, and never twice at
+ *          once
+ */
+public class Throttle implements AutoCloseable {
+	private final ScheduledExecutorService scheduler;
+	private final long interval;
+	private final Runnable action;
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+	private final AtomicLong signals = new AtomicLong(), runs = new AtomicLong();
+	private volatile long last;
+	private volatile boolean ran, dirty;
+	private boolean closed;
+
+	/**
+	 * @param scheduler - Runs the action
+	 * @param interval  - Least milliseconds between the end of one run and the
+	 *                  start of the next
+	 * @param action    - Run after one or more signals
+	 */
+	public Throttle(ScheduledExecutorService scheduler, long interval, Runnable action) {
+		this.scheduler = scheduler;
+		this.interval = TimeUnit.MILLISECONDS.toNanos(interval);
+		this.action = action;
+	}
+
+	/**
+	 * Notes that something has changed. Cheap enough to call for every page
+	 */
+	public void signal() {
+		signals.incrementAndGet();
+		dirty = true;
+		schedule();
+	}
+
+	/**
+	 * Schedules a run an interval after the last, unless one is already due
+	 */
+	private void schedule() {
+		// A run is already due, and will see this change
+		if (!scheduled.compareAndSet(false, true)) {
+			return;
+		}
+
+		long delay = ran ? Math.max(0, last + interval - System.nanoTime()) : 0;
+
+		try {
+			scheduler.schedule(this::run, delay, TimeUnit.NANOSECONDS);
+		} catch (RejectedExecutionException rejectedExecutionException) {
+			// Shutting down - drop the update
+			scheduled.set(false);
+		}
+	}
+
+	/**
+	 * @return Number of times signal() was called
+	 */
+	public long getSignals() {
+		return signals.get();
+	}
+
+	/**
+	 * @return Number of times the action ran
+	 */
+	public long getRuns() {
+		return runs.get();
+	}
+
+	/**
+	 * Stops the action running again, waiting for a run in progress to finish
+	 */
+	@Override
+	public synchronized void close() {
+		closed = true;
+	}
+
+	/**
+	 * Signals arriving while the action runs mark it dirty, and are sent by the
+	 * run scheduled once it has finished
+	 */
+	private synchronized void run() {
+		if (closed) {
+			scheduled.set(false);
+
+			return;
+		}
+
+		dirty = false;
+		runs.incrementAndGet();
+
+		try {
+			action.run();
+		} catch (RuntimeException runtimeException) {
+			runtimeException.printStackTrace();
+		} finally {
+			// The time is set before the next run can be scheduled, so it is always at least an interval later
+			last = System.nanoTime();
+			ran = true;
+		}
+
+		scheduled.set(false);
+
+		if (dirty) {
+			schedule();
+		}
+	}
+}
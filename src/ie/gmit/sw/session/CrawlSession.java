@@ -0,0 +1,162 @@
+package ie.gmit.sw.session;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import ie.gmit.sw.database.RealDatabase;
+import ie.gmit.sw.fetcher.interfaces.Fetcher;
+import ie.gmit.sw.parser.interfaces.VisitedSet;
+
+/**
+ * @author Kevin Niland
+ * @category Session
+ * @version 1.0
+ *
+ *          CrawlSession
+ *
+ *          Everything that belongs to one search - its word database, the
+ *          fetcher and visited filter its parsers share, and a count of the
+ *          parsers it has running. Parsers run on the executor shared by every
+ *          search, but a search only waits for its own, so it finishes as soon
+ *          as they do rather than after a fixed timeout, and one search can't
+ *          clear another's words
+ */
+public class CrawlSession implements AutoCloseable {
+	private final RealDatabase database;
+	private final Fetcher fetcher;
+	private final VisitedSet visited;
+	private final ExecutorService executorService;
+	private final Object lock = new Object();
+	private int running, started, failed;
+
+	/**
+	 * @param database        - Word database for this search only
+	 * @param fetcher         - Fetches pages for this search only
+	 * @param visited         - Pages already fetched by this search
+	 * @param executorService - Runs the parsers of every search
+	 */
+	public CrawlSession(RealDatabase database, Fetcher fetcher, VisitedSet visited, ExecutorService executorService) {
+		this.database = database;
+		this.fetcher = fetcher;
+		this.visited = visited;
+		this.executorService = executorService;
+	}
+
+	/**
+	 * Runs a parser for this search on the shared executor
+	 *
+	 * @param parser - Parser to run
+	 */
+	public void execute(Runnable parser) {
+		synchronized (lock) {
+			running++;
+			started++;
+		}
+
+		try {
+			executorService.execute(() -> {
+				try {
+					parser.run();
+				} catch (RuntimeException runtimeException) {
+					synchronized (lock) {
+						failed++;
+					}
+
+					runtimeException.printStackTrace();
+				} finally {
+					finished();
+				}
+			});
+		} catch (RejectedExecutionException rejectedExecutionException) {
+			finished();
+
+			throw rejectedExecutionException;
+		}
+	}
+
+	/**
+	 * Waits for every parser of this search to finish
+	 *
+	 * @param timeout - Longest to wait
+	 * @param unit    - Unit of timeout
+	 * @return true if they all finished, false if the timeout ran out first
+	 * @throws InterruptedException
+	 */
+	public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+		synchronized (lock) {
+			while (running > 0) {
+				long remaining = deadline - System.nanoTime();
+
+				if (remaining <= 0) {
+					return false;
+				}
+
+				TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+			}
+
+			return true;
+		}
+	}
+
+	public RealDatabase getDatabase() {
+		return this.database;
+	}
+
+	public Fetcher getFetcher() {
+		return this.fetcher;
+	}
+
+	public VisitedSet getVisited() {
+		return this.visited;
+	}
+
+	/**
+	 * @return Number of parsers of this search still running
+	 */
+	public int getRunning() {
+		synchronized (lock) {
+			return running;
+		}
+	}
+
+	/**
+	 * @return Number of parsers this search has started
+	 */
+	public int getStarted() {
+		synchronized (lock) {
+			return started;
+		}
+	}
+
+	/**
+	 * @return Number of parsers of this search that threw an exception
+	 */
+	public int getFailed() {
+		synchronized (lock) {
+			return failed;
+		}
+	}
+
+	/**
+	 * Stops the fetcher. Parsers still running can't fetch any more pages
+	 */
+	@Override
+	public void close() {
+		fetcher.shutdown();
+	}
+
+	public String toString() {
+		return "Parsers started: " + getStarted() + "\tRunning: " + getRunning() + "\tFailed: " + getFailed();
+	}
+
+	private void finished() {
+		synchronized (lock) {
+			if (--running == 0) {
+				lock.notifyAll();
+			}
+		}
+	}
+}